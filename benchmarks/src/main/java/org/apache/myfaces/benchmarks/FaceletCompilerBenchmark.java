@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.benchmarks;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.faces.context.FacesContext;
+
+import org.apache.myfaces.view.facelets.FaceletViewDeclarationLanguage;
+import org.apache.myfaces.view.facelets.compiler.Compiler;
+import org.apache.myfaces.view.facelets.impl.DefaultFaceletFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SAXCompiler compilation of a facelet into its FaceletHandler tree, without any caching
+ * done by DefaultFaceletFactory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FaceletCompilerBenchmark
+{
+    @Param({"/simple.xhtml", "/form.xhtml", "/table.xhtml"})
+    public String viewId;
+
+    private FacesBenchmarkEnvironment environment;
+    private Compiler compiler;
+    private URL url;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        environment = new FacesBenchmarkEnvironment();
+        environment.start();
+        // The compiler needs an active FacesContext, so keep the request open.
+        environment.startViewRequest(viewId);
+        environment.processLifecycleExecuteAndRender();
+
+        FacesContext facesContext = environment.getCurrentFacesContext();
+        FaceletViewDeclarationLanguage vdl = (FaceletViewDeclarationLanguage) facesContext.getApplication()
+                .getViewHandler().getViewDeclarationLanguage(facesContext, viewId);
+        compiler = ((DefaultFaceletFactory) vdl.getFaceletFactory()).getCompiler();
+        url = facesContext.getExternalContext().getResource(viewId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        environment.endRequest();
+        environment.stop();
+    }
+
+    @Benchmark
+    public Object compile() throws Exception
+    {
+        return compiler.compile(url, viewId);
+    }
+
+    @Benchmark
+    public Object compileViewMetadata() throws Exception
+    {
+        return compiler.compileViewMetadata(url, viewId);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.el.ExpressionFactory;
+import jakarta.faces.application.StateManager;
+import jakarta.faces.application.ViewHandler;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.render.ResponseStateManager;
+
+import org.apache.myfaces.test.core.AbstractMyFacesRequestTestCase;
+import org.apache.myfaces.test.mock.MockHttpServletRequest;
+
+/**
+ * Boots a complete MyFaces runtime on top of the mock servlet container used by the
+ * impl test suite (MockServletContext, MockHttpServletRequest, MockFacesContext and friends),
+ * so the benchmarks can drive LifecycleImpl.execute/render like a real FacesServlet does.
+ *
+ * <p>The pages are loaded from <code>org/apache/myfaces/benchmarks/webapp/</code> in the
+ * classpath. A list of rows is published in application scope as <code>#{rows}</code>
+ * so the iteration pages have some data to work on.</p>
+ */
+public class FacesBenchmarkEnvironment extends AbstractMyFacesRequestTestCase
+{
+    public static final String WEBAPP_PATH = "org/apache/myfaces/benchmarks/webapp/";
+
+    public static final String FORM_ID = "form";
+    public static final String SUBMIT_CLIENT_ID = "form:submit";
+
+    private final String stateSavingMethod;
+    private final int rowCount;
+
+    public FacesBenchmarkEnvironment()
+    {
+        this(StateManager.STATE_SAVING_METHOD_SERVER, 100);
+    }
+
+    public FacesBenchmarkEnvironment(String stateSavingMethod, int rowCount)
+    {
+        this.stateSavingMethod = stateSavingMethod;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Initialize the web container and MyFaces.
+     */
+    public void start() throws Exception
+    {
+        setUp();
+        servletContext.setAttribute("rows", createRows(rowCount));
+    }
+
+    /**
+     * Destroy the web container, releasing all factories.
+     */
+    public void stop() throws Exception
+    {
+        tearDown();
+    }
+
+    @Override
+    protected void setUpWebConfigParams() throws Exception
+    {
+        super.setUpWebConfigParams();
+        // Measure what runs in production, not the extra checks done for UnitTest/Development
+        servletContext.addInitParameter("jakarta.faces.PROJECT_STAGE", "Production");
+        servletContext.addInitParameter(StateManager.STATE_SAVING_METHOD_PARAM_NAME, stateSavingMethod);
+        servletContext.addInitParameter(ViewHandler.FACELETS_REFRESH_PERIOD_PARAM_NAME, "-1");
+    }
+
+    @Override
+    protected String getWebappResourcePath()
+    {
+        return WEBAPP_PATH;
+    }
+
+    @Override
+    protected ExpressionFactory createExpressionFactory()
+    {
+        // The mock expression factory does not handle var/VariableMapper, which the iteration
+        // components rely on.
+        return new org.apache.el.ExpressionFactoryImpl();
+    }
+
+    /**
+     * Execute a full GET request of the given view and return the length of the rendered markup.
+     */
+    public int initialRequest(String viewId) throws Exception
+    {
+        startViewRequest(viewId);
+        processLifecycleExecuteAndRender();
+        int length = getRenderedContent().length();
+        endRequest();
+        return length;
+    }
+
+    /**
+     * Submit the form of the current view and render the response. Must be called after
+     * a request has been processed, but before endRequest().
+     */
+    public int postback() throws Exception
+    {
+        client.submit(SUBMIT_CLIENT_ID);
+        processLifecycleExecuteAndRender();
+        return getRenderedContent().length();
+    }
+
+    /**
+     * Return the view state token written for the current view.
+     */
+    public String getViewState()
+    {
+        return facesContext.getApplication().getStateManager().getViewState(facesContext);
+    }
+
+    /**
+     * Start a new postback request for the given view, carrying the given view state.
+     */
+    public void startPostbackRequest(String viewId, String viewState)
+    {
+        startViewRequest(viewId);
+        MockHttpServletRequest postbackRequest = getRequest();
+        postbackRequest.addParameter(ResponseStateManager.VIEW_STATE_PARAM, viewState);
+        postbackRequest.addParameter(FORM_ID + "_SUBMIT", "1");
+        postbackRequest.setMethod("POST");
+    }
+
+    public FacesContext getCurrentFacesContext()
+    {
+        return facesContext;
+    }
+
+    private static List<Map<String, Object>> createRows(int count)
+    {
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            row.put("name", "Row name " + i);
+            row.put("description", "Description of row <" + i + "> & \"friends\"");
+            row.put("amount", i * 3.25d);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.benchmarks;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.faces.context.FacesContext;
+import org.apache.myfaces.renderkit.html.util.HTMLEncoder;
+import org.apache.myfaces.test.mock.MockFacesContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HTMLEncoder on texts with a different share of characters to escape: plain ASCII, ASCII with
+ * markup characters, Latin-1 (german) and CJK text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HTMLEncoderBenchmark
+{
+    @Param({"ascii", "markup", "latin1", "cjk"})
+    public String text;
+
+    private String source;
+    private char[] sourceChars;
+    private CharArrayWriter buffer;
+    private FacesContext facesContext;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        String sentence;
+        switch (text)
+        {
+            case "markup":
+                sentence = "Tom & Jerry say \"<hello>\" to everybody, see <b>this</b> & that. ";
+                break;
+            case "latin1":
+                sentence = "Gr\u00FC\u00DFe aus M\u00FCnchen, "
+                        + "sch\u00F6ne Stra\u00DFen und \u00C4pfel f\u00FCr 5 \u20AC. ";
+                break;
+            case "cjk":
+                sentence = "\u4ECA\u65E5\u306F\u826F\u3044\u5929\u6C17\u3067\u3059\u3002\u6211\u4EEC\u53BB"
+                        + "\u516C\u56ED\u6563\u6B65\u5427\uFF0CMyFaces 5.0\u3002";
+                break;
+            default:
+                sentence = "The quick brown fox jumps over the lazy dog, again and again. ";
+                break;
+        }
+        source = sentence.repeat(16);
+        sourceChars = source.toCharArray();
+        buffer = new CharArrayWriter(source.length() * 8);
+        facesContext = new MockFacesContext();
+    }
+
+    @Benchmark
+    public int encodeToWriter() throws IOException
+    {
+        buffer.reset();
+        HTMLEncoder.encode(buffer, source, false, false, true);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int encodeToWriterKeepNonLatin() throws IOException
+    {
+        buffer.reset();
+        HTMLEncoder.encode(buffer, source, false, false, false);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int encodeCharArray() throws IOException
+    {
+        buffer.reset();
+        HTMLEncoder.encode(sourceChars, 0, sourceChars.length, false, false, false, buffer);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public String encodeToString()
+    {
+        return HTMLEncoder.encode(facesContext, source, false, false, false);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.faces.component.UIData;
+import jakarta.faces.component.visit.VisitContext;
+import jakarta.faces.component.visit.VisitResult;
+import jakarta.faces.context.FacesContext;
+
+import org.apache.myfaces.renderkit.html.HtmlResponseWriterImpl;
+import org.apache.myfaces.view.facelets.component.UIRepeat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * UIData and UIRepeat row iteration (setRowIndex, state save/restore per row) for
+ * rendering, decoding and tree visiting.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IterationBenchmark
+{
+    @Param({"10", "100", "1000"})
+    public int rows;
+
+    private FacesBenchmarkEnvironment environment;
+    private FacesContext facesContext;
+    private UIData table;
+    private UIRepeat repeat;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        environment = new FacesBenchmarkEnvironment("server", rows);
+        environment.start();
+        environment.startViewRequest("/table.xhtml");
+        environment.processLifecycleExecuteAndRender();
+
+        facesContext = environment.getCurrentFacesContext();
+        table = (UIData) facesContext.getViewRoot().findComponent("form:table");
+        repeat = (UIRepeat) facesContext.getViewRoot().findComponent("form:repeat");
+        facesContext.setResponseWriter(new HtmlResponseWriterImpl(Writer.nullWriter(), "text/html", "UTF-8"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        environment.endRequest();
+        environment.stop();
+    }
+
+    @Benchmark
+    public void encodeDataTable() throws IOException
+    {
+        table.encodeAll(facesContext);
+    }
+
+    @Benchmark
+    public void encodeRepeat() throws IOException
+    {
+        repeat.encodeAll(facesContext);
+    }
+
+    @Benchmark
+    public void decodeDataTable()
+    {
+        table.processDecodes(facesContext);
+    }
+
+    @Benchmark
+    public void decodeRepeat()
+    {
+        repeat.processDecodes(facesContext);
+    }
+
+    @Benchmark
+    public void visitDataTable(Blackhole blackhole)
+    {
+        table.visitTree(VisitContext.createVisitContext(facesContext), (context, target) ->
+        {
+            blackhole.consume(target);
+            return VisitResult.ACCEPT;
+        });
+    }
+
+    @Benchmark
+    public void visitRepeat(Blackhole blackhole)
+    {
+        repeat.visitTree(VisitContext.createVisitContext(facesContext), (context, target) ->
+        {
+            blackhole.consume(target);
+            return VisitResult.ACCEPT;
+        });
+    }
+}
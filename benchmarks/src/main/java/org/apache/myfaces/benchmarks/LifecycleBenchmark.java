@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full request processing through LifecycleImpl.execute/render: restore view, decode,
+ * validation, update model, build view and render response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LifecycleBenchmark
+{
+    @State(Scope.Thread)
+    public static class InitialRequestState
+    {
+        @Param({"/simple.xhtml", "/form.xhtml", "/table.xhtml"})
+        public String viewId;
+
+        @Param({"server", "client"})
+        public String stateSavingMethod;
+
+        FacesBenchmarkEnvironment environment;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception
+        {
+            environment = new FacesBenchmarkEnvironment(stateSavingMethod, 100);
+            environment.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception
+        {
+            environment.stop();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PostbackState
+    {
+        @Param({"/simple.xhtml", "/form.xhtml", "/table.xhtml"})
+        public String viewId;
+
+        @Param({"server", "client"})
+        public String stateSavingMethod;
+
+        FacesBenchmarkEnvironment environment;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception
+        {
+            environment = new FacesBenchmarkEnvironment(stateSavingMethod, 100);
+            environment.start();
+            // Leave the request open, each postback submits the form of the previous response.
+            environment.startViewRequest(viewId);
+            environment.processLifecycleExecuteAndRender();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception
+        {
+            environment.endRequest();
+            environment.stop();
+        }
+    }
+
+    /**
+     * GET request: the view is built from the facelet and rendered, state is saved.
+     */
+    @Benchmark
+    public int initialRequest(InitialRequestState state) throws Exception
+    {
+        return state.environment.initialRequest(state.viewId);
+    }
+
+    /**
+     * POST request: the view is restored from the saved state, the form is processed and
+     * the view is rendered again.
+     */
+    @Benchmark
+    public int postback(PostbackState state) throws Exception
+    {
+        return state.environment.postback();
+    }
+}
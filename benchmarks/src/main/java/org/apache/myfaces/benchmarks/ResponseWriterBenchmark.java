@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.benchmarks;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.myfaces.renderkit.html.HtmlResponseWriterImpl;
+import org.apache.myfaces.renderkit.html.util.HTMLEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HtmlResponseWriterImpl and HTMLEncoder output, writing a table like markup fragment
+ * into an in-memory buffer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseWriterBenchmark
+{
+    private static final int ROWS = 100;
+
+    private static final String PLAIN_TEXT = "The quick brown fox jumps over the lazy dog";
+    private static final String ESCAPED_TEXT = "Tom & Jerry say \"<hello>\" to everybody";
+
+    private CharArrayWriter buffer;
+    private char[] plainChars;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        buffer = new CharArrayWriter(64 * 1024);
+        plainChars = PLAIN_TEXT.toCharArray();
+    }
+
+    @Benchmark
+    public int writeTable() throws IOException
+    {
+        buffer.reset();
+        HtmlResponseWriterImpl writer = new HtmlResponseWriterImpl(buffer, "text/html", "UTF-8");
+        writer.startElement("table", null);
+        writer.writeAttribute("class", "data", null);
+        for (int i = 0; i < ROWS; i++)
+        {
+            writer.startElement("tr", null);
+            writer.writeAttribute("class", (i % 2 == 0) ? "odd" : "even", null);
+            writer.startElement("td", null);
+            writer.writeText(i, null);
+            writer.endElement("td");
+            writer.startElement("td", null);
+            writer.writeText(PLAIN_TEXT, null);
+            writer.endElement("td");
+            writer.startElement("td", null);
+            writer.startElement("input", null);
+            writer.writeAttribute("type", "text", null);
+            writer.writeAttribute("name", "form:table:" + i + ":name", null);
+            writer.writeAttribute("value", ESCAPED_TEXT, null);
+            writer.endElement("input");
+            writer.endElement("td");
+            writer.endElement("tr");
+        }
+        writer.endElement("table");
+        writer.flush();
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int writeRawChars() throws IOException
+    {
+        buffer.reset();
+        HtmlResponseWriterImpl writer = new HtmlResponseWriterImpl(buffer, "text/html", "UTF-8");
+        for (int i = 0; i < ROWS; i++)
+        {
+            writer.write(plainChars, 0, plainChars.length);
+        }
+        writer.flush();
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int encodePlainText() throws IOException
+    {
+        buffer.reset();
+        for (int i = 0; i < ROWS; i++)
+        {
+            HTMLEncoder.encode(buffer, PLAIN_TEXT, false, false);
+        }
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int encodeEscapedText() throws IOException
+    {
+        buffer.reset();
+        for (int i = 0; i < ROWS; i++)
+        {
+            HTMLEncoder.encode(buffer, ESCAPED_TEXT, false, false);
+        }
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int encodeCharArray() throws IOException
+    {
+        buffer.reset();
+        for (int i = 0; i < ROWS; i++)
+        {
+            HTMLEncoder.encode(plainChars, 0, plainChars.length, buffer);
+        }
+        return buffer.size();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.render.RenderKitFactory;
+
+import org.apache.myfaces.view.facelets.PartialStateManagementStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PartialStateManagementStrategy.saveView/restoreView, including the ResponseStateManager
+ * work (state cache, serialization and encoding when client side state saving is used).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateManagementBenchmark
+{
+    @State(Scope.Thread)
+    public static class SaveState
+    {
+        @Param({"/form.xhtml", "/table.xhtml"})
+        public String viewId;
+
+        FacesBenchmarkEnvironment environment;
+        PartialStateManagementStrategy strategy;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception
+        {
+            environment = new FacesBenchmarkEnvironment();
+            environment.start();
+            environment.startViewRequest(viewId);
+            environment.processLifecycleExecuteAndRender();
+            strategy = new PartialStateManagementStrategy(environment.getCurrentFacesContext());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception
+        {
+            environment.endRequest();
+            environment.stop();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RestoreState
+    {
+        @Param({"/form.xhtml", "/table.xhtml"})
+        public String viewId;
+
+        @Param({"server", "client"})
+        public String stateSavingMethod;
+
+        FacesBenchmarkEnvironment environment;
+        PartialStateManagementStrategy strategy;
+        String viewState;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception
+        {
+            environment = new FacesBenchmarkEnvironment(stateSavingMethod, 100);
+            environment.start();
+            environment.startViewRequest(viewId);
+            environment.processLifecycleExecuteAndRender();
+            viewState = environment.getViewState();
+            strategy = new PartialStateManagementStrategy(environment.getCurrentFacesContext());
+            environment.endRequest();
+        }
+
+        @Setup(Level.Invocation)
+        public void startRequest()
+        {
+            environment.startPostbackRequest(viewId, viewState);
+        }
+
+        @TearDown(Level.Invocation)
+        public void endRequest()
+        {
+            environment.endRequest();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception
+        {
+            environment.stop();
+        }
+    }
+
+    @Benchmark
+    public Object saveView(SaveState state)
+    {
+        return state.strategy.saveView(state.environment.getCurrentFacesContext());
+    }
+
+    @Benchmark
+    public UIViewRoot restoreView(RestoreState state)
+    {
+        FacesContext facesContext = state.environment.getCurrentFacesContext();
+        return state.strategy.restoreView(facesContext, state.viewId, RenderKitFactory.HTML_BASIC_RENDER_KIT);
+    }
+}
@@ -34,6 +34,8 @@ import java.util.MissingResourceException;
 import java.util.TimeZone;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -167,7 +169,7 @@ public class ApplicationImpl extends Application
     private StateManager _stateManager;
     private FlowHandler _flowHandler;
 
-    private ArrayList<ELContextListener> _elContextListeners;
+    private final List<ELContextListener> _elContextListeners = new CopyOnWriteArrayList<>();
 
     // components, converters, and validators can be added at runtime--must
     // synchronize, uses ConcurrentHashMap to allow concurrent read of map
@@ -182,6 +184,8 @@ public class ApplicationImpl extends Application
     private ApplicationImplEventManager _eventManager;
     
     private final Map<String, String> _defaultValidatorsIds = new HashMap<>();
+
+    private final Lock _defaultValidatorsIdsLock = new ReentrantLock();
     
     private volatile Map<String, String> _cachedDefaultValidatorsIds = null;
     
@@ -254,7 +258,6 @@ public class ApplicationImpl extends Application
         _actionListener = new ActionListenerImpl();
         _defaultRenderKitId = "HTML_BASIC";
         _stateManager = new StateManagerImpl();
-        _elContextListeners = new ArrayList<>();
         _resourceHandler = new ResourceHandlerImpl();
         _flowHandler = new FlowHandlerImpl();
         _searchExpressionHandler = new SearchExpressionHandlerImpl();
@@ -311,11 +314,16 @@ public class ApplicationImpl extends Application
                     getObjectFromClassMap(validatorId, _validatorClassMap);
 
             // Ensure atomicity between _defaultValidatorsIds and _cachedDefaultValidatorsIds
-            synchronized(_defaultValidatorsIds)
+            _defaultValidatorsIdsLock.lock();
+            try
             {
                 _defaultValidatorsIds.put(validatorId, validatorClass.getName());
                 _cachedDefaultValidatorsIds = null;
             }
+            finally
+            {
+                _defaultValidatorsIdsLock.unlock();
+            }
         }
     }
 
@@ -329,7 +337,8 @@ public class ApplicationImpl extends Application
         Map<String, String> cachedMap = _cachedDefaultValidatorsIds;
         if (cachedMap == null)
         {
-            synchronized(_defaultValidatorsIds)
+            _defaultValidatorsIdsLock.lock();
+            try
             {
                 if (_cachedDefaultValidatorsIds == null)
                 {
@@ -337,6 +346,10 @@ public class ApplicationImpl extends Application
                 }
                 cachedMap = _cachedDefaultValidatorsIds;
             }
+            finally
+            {
+                _defaultValidatorsIdsLock.unlock();
+            }
         }
         return cachedMap;
     }
@@ -518,10 +531,7 @@ public class ApplicationImpl extends Application
     @Override
     public final void addELContextListener(final ELContextListener listener)
     {
-        synchronized (_elContextListeners)
-        {
-            _elContextListeners.add(listener);
-        }
+        _elContextListeners.add(listener);
     }
 
     @Override
@@ -540,18 +550,14 @@ public class ApplicationImpl extends Application
     @Override
     public final void removeELContextListener(final ELContextListener listener)
     {
-        synchronized (_elContextListeners)
-        {
-            _elContextListeners.remove(listener);
-        }
+        _elContextListeners.remove(listener);
     }
 
     @Override
     public final ELContextListener[] getELContextListeners()
     {
-        // this gets called on every request, so I can't afford to synchronize
-        // I just have to trust that toArray() with do the right thing if the
-        // list is changing (not likely)
+        // this gets called on every request, the CopyOnWriteArrayList makes it
+        // possible without locking
         return _elContextListeners.toArray(new ELContextListener[_elContextListeners.size()]);
     }
 
@@ -30,6 +30,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -93,8 +95,9 @@ public class NavigationHandlerImpl extends ConfigurableNavigationHandler
     
     private static final String ASTERISK = "*";
 
-    private Map<String, Set<NavigationCase>> _navigationCases = null;
-    private List<_WildcardPattern> _wildcardPatterns = new ArrayList<>();
+    private volatile Map<String, Set<NavigationCase>> _navigationCases = null;
+    private volatile List<_WildcardPattern> _wildcardPatterns = new ArrayList<>();
+    private final Lock _navigationCasesLock = new ReentrantLock();
     private Boolean _developmentStage;
     
     private Map<String, _FlowNavigationStructure> _flowNavigationStructureMap = new ConcurrentHashMap<>();
@@ -1445,7 +1448,20 @@ public class NavigationHandlerImpl extends ConfigurableNavigationHandler
             new _FlowNavigationStructure(flow.getDefiningDocumentId(), flow.getId(), cases, wildcardPatterns) );
     }
     
-    private synchronized void calculateNavigationCases(RuntimeConfig runtimeConfig)
+    private void calculateNavigationCases(RuntimeConfig runtimeConfig)
+    {
+        _navigationCasesLock.lock();
+        try
+        {
+            doCalculateNavigationCases(runtimeConfig);
+        }
+        finally
+        {
+            _navigationCasesLock.unlock();
+        }
+    }
+
+    private void doCalculateNavigationCases(RuntimeConfig runtimeConfig)
     {
         if (_navigationCases == null || runtimeConfig.isNavigationRulesChanged())
         {
@@ -1487,17 +1503,12 @@ public class NavigationHandlerImpl extends ConfigurableNavigationHandler
 
             Collections.sort(wildcardPatterns, KeyComparator.INSTANCE);
 
-            synchronized (cases)
-            {
-                // We do not really need this synchronization at all, but this
-                // gives us the peace of mind that some good optimizing compiler
-                // will not rearrange the execution of the assignment to an
-                // earlier time, before all init code completes
-                _navigationCases = cases;
-                _wildcardPatterns = wildcardPatterns;
-
-                runtimeConfig.setNavigationRulesChanged(false);
-            }
+            // The patterns are published first, the volatile write of the cases makes
+            // everything built above visible to the threads that see the new cases
+            _wildcardPatterns = wildcardPatterns;
+            _navigationCases = cases;
+
+            runtimeConfig.setNavigationRulesChanged(false);
         }
     }
 
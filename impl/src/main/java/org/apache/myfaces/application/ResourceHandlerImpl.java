@@ -37,6 +37,10 @@ import org.apache.myfaces.core.api.shared.lang.Assert;
 import org.apache.myfaces.core.api.shared.lang.LocaleUtils;
 import org.apache.myfaces.core.api.shared.lang.SharedStringBuilder;
 import org.apache.myfaces.renderkit.html.util.ResourceUtils;
+import org.apache.myfaces.resource.CombinedResource;
+import org.apache.myfaces.resource.CombinedResourceCache;
+import org.apache.myfaces.resource.CompressedResourceCache;
+import org.apache.myfaces.resource.CompressedResourceCache.CompressedResource;
 import org.apache.myfaces.resource.ContractResource;
 import org.apache.myfaces.resource.ContractResourceLoader;
 import org.apache.myfaces.resource.ResourceCachedInfo;
@@ -57,6 +61,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Base64;
@@ -106,6 +115,19 @@ public class ResourceHandlerImpl extends ResourceHandler
 
     private static final String CURRENT_NONCE = ResourceHandlerImpl.class.getName() + ".currentNonce";
 
+    /**
+     * Request attributes of the Tomcat sendfile support, the file is sent by the connector after the request.
+     */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Smaller files are written directly, like the sendfileSize default of Tomcat.
+     */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
     private ResourceHandlerSupport _resourceHandlerSupport;
     private ResourceHandlerCache _resourceHandlerCache;
     private Boolean _allowSlashLibraryName;
@@ -210,8 +232,15 @@ public class ResourceHandlerImpl extends ResourceHandler
                     resourceValue.getCachedInfo() != null ? resourceValue.getCachedInfo().getURL() : null, 
                     resourceValue.getCachedInfo() != null ? resourceValue.getCachedInfo().getRequestPath() : null);
         }
+        else if (getResourceHandlerCache().isResourceMissing(resourceName, libraryName, contentType,
+                localePrefix, contractPreferred, contracts))
+        {
+            // Not found the last time, no need to ask all the loaders again
+            return null;
+        }
         else
         {
+            long start = System.nanoTime();
             boolean resolved = false;
             // Try preferred contract first
             if (contractPreferred != null)
@@ -280,6 +309,12 @@ public class ResourceHandlerImpl extends ResourceHandler
                     }
                 }
             }
+            if (resource == null)
+            {
+                getResourceHandlerCache().confirmResourceMissing(resourceName, libraryName, contentType,
+                        localePrefix, contractPreferred, contracts);
+            }
+            getResourceHandlerCache().recordResourceLoad(System.nanoTime() - start);
         }
         return resource;
     }
@@ -560,7 +595,17 @@ public class ResourceHandlerImpl extends ResourceHandler
         }
 
         Resource resource = null;
-        if (libraryName != null)
+        if (CombinedResource.LIBRARY_NAME.equals(libraryName))
+        {
+            CombinedResourceCache combinedResourceCache = CombinedResourceCache.getInstance(facesContext);
+            if (combinedResourceCache != null)
+            {
+                resource = combinedResourceCache.getForRequest(facesContext, resourceName,
+                        facesContext.getExternalContext().getRequestParameterMap()
+                                .get(CombinedResource.RESOURCES_PARAM));
+            }
+        }
+        else if (libraryName != null)
         {
             resource = facesContext.getApplication().getResourceHandler().createResource(resourceName, libraryName);
         }
@@ -575,20 +620,34 @@ public class ResourceHandlerImpl extends ResourceHandler
             return;
         }
 
-        if (!resource.userAgentNeedsUpdate(facesContext))
-        {
-            httpServletResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-            return;
-        }
-
-        httpServletResponse.setContentType(_getContentType(resource, facesContext.getExternalContext()));
-
+        // a 304 response carries the same ETag, Vary and Cache-Control headers as the 200 response would
+        String contentType = _getContentType(resource, facesContext.getExternalContext());
         Map<String, String> headers = resource.getResponseHeaders();
+        CompressedResource compressed = getCompressedResource(facesContext, resource, contentType,
+                httpServletResponse);
 
         for (Map.Entry<String, String> entry : headers.entrySet())
         {
             httpServletResponse.setHeader(entry.getKey(), entry.getValue());
         }
+        if (compressed != null)
+        {
+            // a strong ETag identifies the compressed bytes, not only the content
+            String etag = headers.get("ETag");
+            if (etag != null && etag.endsWith("\""))
+            {
+                httpServletResponse.setHeader("ETag",
+                        etag.substring(0, etag.length() - 1) + '-' + compressed.getEncoding() + '"');
+            }
+        }
+
+        if (!resource.userAgentNeedsUpdate(facesContext))
+        {
+            httpServletResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        httpServletResponse.setContentType(contentType);
 
         // Sets the preferred buffer size for the body of the response
         extContext.setResponseBufferSize(this.getResourceBufferSize());
@@ -596,6 +655,25 @@ public class ResourceHandlerImpl extends ResourceHandler
         //serve up the bytes (taken from trinidad ResourceServlet)
         try
         {
+            if (compressed != null)
+            {
+                httpServletResponse.setHeader("Content-Encoding", compressed.getEncoding());
+                httpServletResponse.setContentLength(compressed.getLength());
+                try (OutputStream out = httpServletResponse.getOutputStream())
+                {
+                    compressed.writeTo(out);
+                }
+                return;
+            }
+
+            // only the uncompressed and unfiltered resources of a file, the other ones are copied below
+            Path file = resource instanceof ResourceImpl resourceImpl ? resourceImpl.getFile() : null;
+            if (file != null)
+            {
+                sendFile(extContext, httpServletResponse, file);
+                return;
+            }
+
             InputStream in = resource.getInputStream();
             OutputStream out = httpServletResponse.getOutputStream();
             byte[] buffer = new byte[this.getResourceBufferSize()];
@@ -644,6 +722,65 @@ public class ResourceHandlerImpl extends ResourceHandler
         }
     }
 
+    /**
+     * Returns the compressed copy of the resource for the encodings accepted by the client, if the
+     * resource compression is enabled and the content type is compressible.
+     */
+    private static CompressedResource getCompressedResource(FacesContext facesContext, Resource resource,
+            String contentType, HttpServletResponse httpServletResponse) throws IOException
+    {
+        CompressedResourceCache compressedResourceCache = CompressedResourceCache.getInstance(facesContext);
+        if (compressedResourceCache == null || !CompressedResourceCache.isCompressible(contentType))
+        {
+            return null;
+        }
+
+        // the response depends on the header, even if this one is not compressed
+        httpServletResponse.addHeader("Vary", "Accept-Encoding");
+
+        String acceptEncoding = facesContext.getExternalContext().getRequestHeaderMap().get("Accept-Encoding");
+        return acceptEncoding == null ? null : compressedResourceCache.get(resource, acceptEncoding);
+    }
+
+    /**
+     * Sends a file with its exact length. Only a container with sendfile support (Tomcat) sends it without
+     * copying it to the heap, for files of at least 48KB. Otherwise it is transferred from a FileChannel to the
+     * response stream, which still copies it through a small buffer, but not through a buffer per request.
+     */
+    static void sendFile(ExternalContext extContext, HttpServletResponse httpServletResponse, Path file)
+            throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            long length = channel.size();
+            httpServletResponse.setContentLengthLong(length);
+
+            Map<String, Object> requestMap = extContext.getRequestMap();
+            if (length >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(requestMap.get(SENDFILE_SUPPORT)))
+            {
+                requestMap.put(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                requestMap.put(SENDFILE_START, 0L);
+                requestMap.put(SENDFILE_END, length);
+                return;
+            }
+
+            try (OutputStream out = httpServletResponse.getOutputStream())
+            {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = 0;
+                while (position < length)
+                {
+                    long count = channel.transferTo(position, length - position, target);
+                    if (count <= 0)
+                    {
+                        break;
+                    }
+                    position += count;
+                }
+            }
+        }
+    }
+
     private static boolean isConnectionAbort(Exception e)
     {
         String exceptionName = e.getClass().getCanonicalName();
@@ -859,68 +996,76 @@ public class ResourceHandlerImpl extends ResourceHandler
             return libraryFound;
         }
         
-        if (localePrefix != null)
+        long start = System.nanoTime();
+        try
         {
+            if (localePrefix != null)
+            {
+                if (!contracts.isEmpty())
+                {
+                    for (String contract : contracts)
+                    {
+                        for (ContractResourceLoader loader : getResourceHandlerSupport().getContractResourceLoaders())
+                        {
+                            if (loader.libraryExists(pathToLib, contract))
+                            {
+                                getResourceHandlerCache().confirmLibraryExists(pathToLib);
+                                return true;
+                            }
+                        }
+                    }
+                }
+            
+                for (ResourceLoader loader : getResourceHandlerSupport().getResourceLoaders())
+                {
+                    if (loader.libraryExists(pathToLib))
+                    {
+                        getResourceHandlerCache().confirmLibraryExists(pathToLib);
+                        return true;
+                    }
+                }            
+            }
+
+            //Check without locale
             if (!contracts.isEmpty())
             {
                 for (String contract : contracts)
                 {
                     for (ContractResourceLoader loader : getResourceHandlerSupport().getContractResourceLoaders())
                     {
-                        if (loader.libraryExists(pathToLib, contract))
+                        if (loader.libraryExists(libraryName, contract))
                         {
-                            getResourceHandlerCache().confirmLibraryExists(pathToLib);
+                            getResourceHandlerCache().confirmLibraryExists(libraryName);
                             return true;
                         }
                     }
                 }
             }
-            
+
             for (ResourceLoader loader : getResourceHandlerSupport().getResourceLoaders())
             {
-                if (loader.libraryExists(pathToLib))
+                if (loader.libraryExists(libraryName))
                 {
-                    getResourceHandlerCache().confirmLibraryExists(pathToLib);
+                    getResourceHandlerCache().confirmLibraryExists(libraryName);
                     return true;
                 }
-            }            
-        }
+            }
 
-        //Check without locale
-        if (!contracts.isEmpty())
-        {
-            for (String contract : contracts)
+            if (localePrefix != null)
             {
-                for (ContractResourceLoader loader : getResourceHandlerSupport().getContractResourceLoaders())
-                {
-                    if (loader.libraryExists(libraryName, contract))
-                    {
-                        getResourceHandlerCache().confirmLibraryExists(libraryName);
-                        return true;
-                    }
-                }
+                //Check with locale
+                getResourceHandlerCache().confirmLibraryNotExists(pathToLib);
             }
-        }
-
-        for (ResourceLoader loader : getResourceHandlerSupport().getResourceLoaders())
-        {
-            if (loader.libraryExists(libraryName))
+            else
             {
-                getResourceHandlerCache().confirmLibraryExists(libraryName);
-                return true;
+                getResourceHandlerCache().confirmLibraryNotExists(libraryName);
             }
+            return false;
         }
-
-        if (localePrefix != null)
+        finally
         {
-            //Check with locale
-            getResourceHandlerCache().confirmLibraryNotExists(pathToLib);
+            getResourceHandlerCache().recordLibraryExistsLoad(System.nanoTime() - start);
         }
-        else
-        {
-            getResourceHandlerCache().confirmLibraryNotExists(libraryName);
-        }
-        return false;
     }
 
     public void setResourceHandlerSupport(ResourceHandlerSupport resourceHandlerSupport)
@@ -1066,6 +1211,7 @@ public class ResourceHandlerImpl extends ResourceHandler
         }
         else
         {
+            long start = System.nanoTime();
             boolean resolved = false;
             if (contractPreferred != null)
             {
@@ -1137,6 +1283,7 @@ public class ResourceHandlerImpl extends ResourceHandler
                     }
                 }
             }
+            getResourceHandlerCache().recordResourceLoad(System.nanoTime() - start);
         }
         return resource;
     }
@@ -1642,8 +1789,15 @@ public class ResourceHandlerImpl extends ResourceHandler
                     getResourceHandlerSupport(), contentType, 
                     resourceValue.getCachedInfo() != null ? resourceValue.getCachedInfo().getURL() : null, null);
         }
+        else if (getResourceHandlerCache().isViewResourceMissing(resourceName, contentType, localePrefix,
+                contractPreferred, contracts))
+        {
+            // Not found the last time, for example an optional template
+            return null;
+        }
         else
         {
+            long start = System.nanoTime();
             boolean resolved = false;
             if (contractPreferred != null)
             {
@@ -1713,6 +1867,12 @@ public class ResourceHandlerImpl extends ResourceHandler
                     }
                 }
             }
+            if (resource == null)
+            {
+                getResourceHandlerCache().confirmViewResourceMissing(resourceName, contentType, localePrefix,
+                        contractPreferred, contracts);
+            }
+            getResourceHandlerCache().recordViewResourceLoad(System.nanoTime() - start);
         }
         return resource;
     }
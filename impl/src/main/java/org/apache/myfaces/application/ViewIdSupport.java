@@ -30,7 +30,9 @@ import org.apache.myfaces.core.api.shared.lang.SharedStringBuilder;
 import org.apache.myfaces.util.ExternalContextUtils;
 import org.apache.myfaces.util.ExternalSpecifications;
 import org.apache.myfaces.util.UrlPatternMatcher;
-import org.apache.myfaces.util.lang.ConcurrentLRUCache;
+import org.apache.myfaces.spi.Cache;
+import org.apache.myfaces.spi.CacheProvider;
+import org.apache.myfaces.spi.CacheProviderFactory;
 import org.apache.myfaces.util.lang.StringUtils;
 
 import jakarta.enterprise.inject.spi.BeanManager;
@@ -60,9 +62,9 @@ public class ViewIdSupport
     
     private MyfacesConfig config;
     
-    private volatile ConcurrentLRUCache<String, Boolean> viewIdExistsCache;
-    private volatile ConcurrentLRUCache<String, String> viewIdDeriveCache;
-    private volatile ConcurrentLRUCache<String, Boolean> viewIdProtectedCache;
+    private volatile Cache<String, Boolean> viewIdExistsCache;
+    private volatile Cache<String, String> viewIdDeriveCache;
+    private volatile Cache<String, Boolean> viewIdProtectedCache;
 
     public static ViewIdSupport getInstance(FacesContext facesContext)
     {
@@ -82,17 +84,19 @@ public class ViewIdSupport
         config = MyfacesConfig.getCurrentInstance(facesContext);
 
         int viewIdCacheSize = config.getViewIdCacheSize();
+        CacheProvider cacheProvider = CacheProviderFactory.getCacheProviderFactory(facesContext.getExternalContext())
+                .getCacheProvider(facesContext.getExternalContext());
         if (config.isViewIdExistsCacheEnabled())
         {
-            viewIdExistsCache = new ConcurrentLRUCache<>((viewIdCacheSize * 4 + 3) / 3, viewIdCacheSize);
+            viewIdExistsCache = cacheProvider.createCache("viewIdExists", viewIdCacheSize);
         }
         if (config.isViewIdDeriveCacheEnabled())
         {
-            viewIdDeriveCache = new ConcurrentLRUCache<>((viewIdCacheSize * 4 + 3) / 3, viewIdCacheSize);
+            viewIdDeriveCache = cacheProvider.createCache("viewIdDerive", viewIdCacheSize);
         }
         if (config.isViewIdProtectedCacheEnabled())
         {
-            viewIdProtectedCache = new ConcurrentLRUCache<>((viewIdCacheSize * 4 + 3) / 3, viewIdCacheSize);
+            viewIdProtectedCache = cacheProvider.createCache("viewIdProtected", viewIdCacheSize);
         }
     }
 
@@ -122,6 +126,7 @@ public class ViewIdSupport
 
         if (viewId == null)
         {
+            long start = System.nanoTime();
             FacesServletMapping mapping = FacesServletMappingUtils.getCurrentRequestFacesServletMapping(context);
             if (mapping == null || mapping.isExtensionMapping())
             {
@@ -168,9 +173,13 @@ public class ViewIdSupport
                 throw new InvalidViewIdException(rawViewId);
             }
             
-            if (viewId != null && viewIdDeriveCache != null)
+            if (viewIdDeriveCache != null)
             {
-                viewIdDeriveCache.put(rawViewId, viewId);
+                viewIdDeriveCache.recordLoad(System.nanoTime() - start);
+                if (viewId != null)
+                {
+                    viewIdDeriveCache.put(rawViewId, viewId);
+                }
             }
         }
         
@@ -515,6 +524,7 @@ public class ViewIdSupport
 
             if (resourceExists == null)
             {
+                long start = System.nanoTime();
                 ViewDeclarationLanguage vdl = facesContext.getApplication().getViewHandler()
                         .getViewDeclarationLanguage(facesContext, viewId);
                 if (vdl != null)
@@ -538,6 +548,7 @@ public class ViewIdSupport
 
                 if (viewIdExistsCache != null)
                 {
+                    viewIdExistsCache.recordLoad(System.nanoTime() - start);
                     viewIdExistsCache.put(viewId, resourceExists);
                 }
             }
@@ -640,6 +651,7 @@ public class ViewIdSupport
         
         if (protectedView == null)
         {
+            long start = System.nanoTime();
             protectedView = false;
             
             Set<String> protectedViews = context.getApplication().getViewHandler().getProtectedViewsUnmodifiable();
@@ -657,6 +669,7 @@ public class ViewIdSupport
             
             if (viewIdProtectedCache != null)
             {
+                viewIdProtectedCache.recordLoad(System.nanoTime() - start);
                 viewIdProtectedCache.put(viewId, protectedView);
             }
         }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.Serializable;
+import java.util.function.Consumer;
+import jakarta.faces.context.FacesContext;
+import org.apache.myfaces.cdi.view.ViewScopeContext;
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+
+/**
+ * The views of a session kept by the server side state saving, see SerializedViewCollection and
+ * ConcurrentSerializedViewCollection.
+ */
+abstract class AbstractSerializedViewCollection implements Serializable
+{
+    private static final long serialVersionUID = 6046406618340658323L;
+
+    public void put(FacesContext context, Object state, SerializedViewKey key, SerializedViewKey previousRestoredKey)
+    {
+        put(context, state, key, previousRestoredKey, null,
+                (oldViewScopeId) -> ViewScopeContext.destroyAll(context, oldViewScopeId));
+    }
+
+    public void put(FacesContext context, Object state,
+        SerializedViewKey key, SerializedViewKey previousRestoredKey, String viewScopeId)
+    {
+        put(context, state, key, previousRestoredKey, viewScopeId,
+            (oldViewScopeId) -> ViewScopeContext.destroyAll(context, oldViewScopeId));
+    }
+
+    public abstract void put(FacesContext context, Object state,
+        SerializedViewKey key, SerializedViewKey previousRestoredKey, String viewScopeId,
+        Consumer<String> destroyCallback);
+
+    public abstract void putLastWindowKey(FacesContext context, String id, SerializedViewKey key);
+
+    public abstract SerializedViewKey getLastWindowKey(FacesContext context, String id);
+
+    public abstract Object get(SerializedViewKey key);
+
+    protected Integer getNumberOfSequentialViewsInSession(FacesContext context)
+    {
+        return MyfacesConfig.getCurrentInstance(context).getNumberOfSequentialViewsInSession();
+    }
+
+    /**
+     * Reads the amount (default = 20) of views to be stored in session.
+     * @see ServerSideStateCacheImpl#NUMBER_OF_VIEWS_IN_SESSION_PARAM
+     * @param context FacesContext for the current request, we are processing
+     * @return Number vf views stored in the session
+     */
+    protected int getNumberOfViewsInSession(FacesContext context)
+    {
+        return MyfacesConfig.getCurrentInstance(context).getNumberOfViewsInSession();
+    }
+
+    /**
+     * Discard the state kept outside of the session (see ViewStateStore) when the view is removed.
+     */
+    static void releaseState(Object state)
+    {
+        if (state instanceof ViewStateStoreHandle handle)
+        {
+            handle.release();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import jakarta.faces.context.FacesContext;
+
+/**
+ * ViewStateStore that appends the serialized views to a fixed size ByteBuffer used as a ring.
+ *
+ * <p>The size of the buffer is the global byte budget of the store: when the ring wraps, the
+ * oldest entries are overwritten and discarded, so allocating a new entry is O(1) amortized and
+ * does not require any compaction. Entries removed by SerializedViewCollection are forgotten
+ * immediately, their space is reused the next time the ring passes over them.</p>
+ */
+abstract class ByteBufferViewStateStore extends ViewStateStore
+{
+    /**
+     * Every entry starts with the id (long) and the length (int) of the state.
+     */
+    private static final int HEADER_SIZE = 12;
+
+    // Guarded by lock, null once the store is destroyed.
+    private ByteBuffer buffer;
+    private final int capacity;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock. The log contains the entries in write order, so the head is always
+    // the next one to be overwritten.
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final ArrayDeque<Entry> log = new ArrayDeque<>();
+    private long nextId = 1;
+    private long writePosition = 0;
+
+    protected ByteBufferViewStateStore(ByteBuffer buffer)
+    {
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+    }
+
+    @Override
+    public ViewStateStoreHandle store(FacesContext facesContext, byte[] state)
+    {
+        int size = HEADER_SIZE + state.length;
+        if (size > capacity)
+        {
+            return null;
+        }
+
+        lock.writeLock().lock();
+        try
+        {
+            if (buffer == null)
+            {
+                return null;
+            }
+            long position = writePosition;
+            if ((position % capacity) + size > capacity)
+            {
+                // Not enough space until the end of the buffer, continue at the beginning.
+                position = ((position / capacity) + 1) * capacity;
+            }
+
+            // Discard everything written in the previous round over the area we are going to use.
+            long overwriteLimit = position + size - capacity;
+            while (!log.isEmpty() && log.peekFirst().position < overwriteLimit)
+            {
+                Entry discarded = log.pollFirst();
+                entries.remove(discarded.id, discarded);
+            }
+
+            long id = nextId++;
+            int offset = (int) (position % capacity);
+            buffer.putLong(offset, id);
+            buffer.putInt(offset + 8, state.length);
+            buffer.put(offset + HEADER_SIZE, state);
+
+            Entry entry = new Entry(id, position, state.length);
+            entries.put(id, entry);
+            log.addLast(entry);
+            writePosition = position + size;
+
+            return new ViewStateStoreHandle(this, id, state.length);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public byte[] load(ViewStateStoreHandle handle)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Entry entry = entries.get(handle.getId());
+            if (entry == null || buffer == null)
+            {
+                return null;
+            }
+            int offset = (int) (entry.position % capacity);
+            if (buffer.getLong(offset) != entry.id || buffer.getInt(offset + 8) != entry.length)
+            {
+                return null;
+            }
+            byte[] state = new byte[entry.length];
+            buffer.get(offset + HEADER_SIZE, state);
+            return state;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(ViewStateStoreHandle handle)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            entries.remove(handle.getId());
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        lock.writeLock().lock();
+        try
+        {
+            entries.clear();
+            log.clear();
+            // the memory is freed with the buffer, there is no way to release it explicitly
+            buffer = null;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * @return the number of states currently available in the store
+     */
+    public int size()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return entries.size();
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class Entry
+    {
+        private final long id;
+        private final long position;
+        private final int length;
+
+        Entry(long id, long position, int length)
+        {
+            this.id = id;
+            this.position = position;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import jakarta.faces.context.FacesContext;
+
+/**
+ * Collection of the views of a session that does not lock the collection, so parallel requests of the same
+ * session (ajax polling, multiple tabs) can save their views at the same time.
+ *
+ * <p>The discard order is kept in a ConcurrentLinkedDeque and the number of views in a counter,
+ * a view is only discarded by the thread that manages to decrement the counter and every cleanup
+ * step (view, view scope id, precedence) is done with an atomic remove, so a view is never
+ * released twice. The precedence ("previous restored key") handling is the same as in
+ * SerializedViewCollection. Under contention the number of views can shortly be higher than
+ * NUMBER_OF_VIEWS_IN_SESSION, until the threads that added the views discard the oldest ones.</p>
+ */
+class ConcurrentSerializedViewCollection extends AbstractSerializedViewCollection
+{
+    private static final long serialVersionUID = 3205837151473618212L;
+
+    private static final Object[] EMPTY_STATES = new Object[]{null, null};
+
+    /**
+     * ConcurrentHashMap does not accept null values, this is what is stored instead
+     * of a view without state.
+     */
+    private enum ZeroState
+    {
+        INSTANCE
+    }
+
+    private final ConcurrentLinkedDeque<SerializedViewKey> _keys = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger _keyCount = new AtomicInteger();
+    private final Map<SerializedViewKey, Object> _serializedViews = new ConcurrentHashMap<>();
+
+    private final Map<SerializedViewKey, String> _viewScopeIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> _viewScopeIdCounts = new ConcurrentHashMap<>();
+
+    private final Map<SerializedViewKey, SerializedViewKey> _precedence = new ConcurrentHashMap<>();
+
+    private final ConcurrentLinkedDeque<String> _windowIds = new ConcurrentLinkedDeque<>();
+    private final Map<String, SerializedViewKey> _lastWindowKeys = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(FacesContext context, Object state,
+        SerializedViewKey key, SerializedViewKey previousRestoredKey, String viewScopeId,
+        Consumer<String> destroyCallback)
+    {
+        if (state == null)
+        {
+            state = EMPTY_STATES;
+        }
+        else if (state instanceof Object[] objects &&
+            objects.length == 2 &&
+            objects[0] == null &&
+            objects[1] == null)
+        {
+            // The generated state can be considered zero
+            state = ZeroState.INSTANCE;
+        }
+
+        Object oldState = _serializedViews.put(key, state);
+        if (oldState != null)
+        {
+            // Update the state, the viewScopeId does not change.
+            if (oldState != state)
+            {
+                releaseState(oldState);
+            }
+            // Make sure the view is at the end of the discard queue
+            if (_keys.removeFirstOccurrence(key))
+            {
+                _keys.addLast(key);
+            }
+            return;
+        }
+
+        Integer maxCount = getNumberOfSequentialViewsInSession(context);
+        if (maxCount != null && previousRestoredKey != null)
+        {
+            // See SerializedViewCollection, when the session is invalidated the previous
+            // restored key is not valid anymore.
+            if (_serializedViews.size() > 1)
+            {
+                _precedence.put(key, previousRestoredKey);
+            }
+            else
+            {
+                previousRestoredKey = null;
+            }
+        }
+
+        if (viewScopeId != null)
+        {
+            _viewScopeIds.put(key, viewScopeId);
+            _viewScopeIdCounts.merge(viewScopeId, 1, Integer::sum);
+        }
+
+        _keys.addLast(key);
+        _keyCount.incrementAndGet();
+
+        if (previousRestoredKey != null && maxCount != null && maxCount > 0)
+        {
+            int count = 0;
+            SerializedViewKey previousKey = key;
+            do
+            {
+                previousKey = _precedence.get(previousKey);
+                count++;
+            }
+            while (previousKey != null && count < maxCount);
+
+            if (previousKey != null)
+            {
+                SerializedViewKey keyToRemove = previousKey;
+                do
+                {
+                    if (_keys.removeFirstOccurrence(keyToRemove))
+                    {
+                        _keyCount.decrementAndGet();
+                    }
+                    removeView(keyToRemove, destroyCallback);
+                    keyToRemove = _precedence.remove(keyToRemove);
+                }
+                while (keyToRemove != null);
+            }
+        }
+
+        int views = getNumberOfViewsInSession(context);
+        int size = _keyCount.get();
+        while (size > views)
+        {
+            if (!_keyCount.compareAndSet(size, size - 1))
+            {
+                size = _keyCount.get();
+                continue;
+            }
+
+            SerializedViewKey oldestKey = _keys.pollFirst();
+            if (oldestKey != null)
+            {
+                if (maxCount != null && maxCount > 0)
+                {
+                    SerializedViewKey keyToRemove = oldestKey;
+                    do
+                    {
+                        keyToRemove = _precedence.remove(keyToRemove);
+                    }
+                    while (keyToRemove != null);
+                }
+                removeView(oldestKey, destroyCallback);
+            }
+            size = _keyCount.get();
+        }
+    }
+
+    private void removeView(SerializedViewKey key, Consumer<String> destroyCallback)
+    {
+        releaseState(_serializedViews.remove(key));
+
+        String oldViewScopeId = _viewScopeIds.remove(key);
+        if (oldViewScopeId != null)
+        {
+            Integer vscount = _viewScopeIdCounts.computeIfPresent(oldViewScopeId,
+                    (id, c) -> c > 1 ? c - 1 : null);
+            if (vscount == null)
+            {
+                destroyCallback.accept(oldViewScopeId);
+            }
+        }
+    }
+
+    @Override
+    public void putLastWindowKey(FacesContext context, String id, SerializedViewKey key)
+    {
+        if (_lastWindowKeys.put(id, key) == null)
+        {
+            _windowIds.addLast(id);
+
+            Integer i = getNumberOfSequentialViewsInSession(context);
+            int j = getNumberOfViewsInSession(context);
+            int limit = (i != null && i > 0) ? (j / i) + 1 : j + 1;
+            while (_lastWindowKeys.size() > limit)
+            {
+                String oldestId = _windowIds.pollFirst();
+                if (oldestId == null)
+                {
+                    break;
+                }
+                _lastWindowKeys.remove(oldestId);
+            }
+        }
+        else if (_windowIds.removeFirstOccurrence(id))
+        {
+            _windowIds.addLast(id);
+        }
+    }
+
+    @Override
+    public SerializedViewKey getLastWindowKey(FacesContext context, String id)
+    {
+        return _lastWindowKeys.get(id);
+    }
+
+    @Override
+    public Object get(SerializedViewKey key)
+    {
+        Object value = _serializedViews.get(key);
+        if (value == ZeroState.INSTANCE)
+        {
+            return EMPTY_STATES;
+        }
+        else if (value instanceof Object[] objects &&
+            objects.length == 2 &&
+            objects[0] == null &&
+            objects[1] == null)
+        {
+            // Remember inside the state map null is stored as an empty array.
+            return null;
+        }
+        return value;
+    }
+}
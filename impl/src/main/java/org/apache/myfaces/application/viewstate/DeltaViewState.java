@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The state of a view saved as the difference to the state of the view that was restored in the same
+ * request. Only the component states that changed are kept, the other ones are shared with the base state,
+ * which is referenced directly: it stays available when the view it belongs to is discarded from the
+ * SerializedViewCollection, and the references are kept when the session is serialized.
+ *
+ * <p>Only partial state saving states ({null, Map&lt;clientId, state&gt;, ...}) are handled. To bound
+ * the restore time the number of chained deltas is limited, after that the full state is stored again.</p>
+ */
+final class DeltaViewState implements Serializable
+{
+    private static final long serialVersionUID = -6510728365218410372L;
+
+    static final int MAX_DEPTH = 8;
+
+    private static final String[] EMPTY = new String[0];
+
+    private final Object base;
+    private final int depth;
+    private final Object[] header;
+    private final Map<String, Object> changed;
+    private final String[] removed;
+
+    private DeltaViewState(Object base, int depth, Object[] header, Map<String, Object> changed, String[] removed)
+    {
+        this.base = base;
+        this.depth = depth;
+        this.header = header;
+        this.changed = changed;
+        this.removed = removed;
+    }
+
+    /**
+     * Returns the value to be stored for the given state.
+     *
+     * @param base the value stored for the restored view, a full state or a DeltaViewState
+     * @param restored the state restored from base
+     * @param state the state to be saved
+     * @return a DeltaViewState if it is smaller than the state, otherwise the state
+     */
+    @SuppressWarnings("unchecked")
+    static Object create(Object base, Object restored, Object state)
+    {
+        int depth = base instanceof DeltaViewState delta ? delta.depth + 1 : 1;
+        if (depth > MAX_DEPTH || !isPartialState(restored) || !isPartialState(state))
+        {
+            return state;
+        }
+
+        Map<String, Object> restoredStates = (Map<String, Object>) ((Object[]) restored)[1];
+        Map<String, Object> states = (Map<String, Object>) ((Object[]) state)[1];
+
+        Map<String, Object> changed = new HashMap<>();
+        for (Map.Entry<String, Object> entry : states.entrySet())
+        {
+            Object restoredValue = restoredStates.get(entry.getKey());
+            if ((restoredValue == null && !restoredStates.containsKey(entry.getKey()))
+                    || !stateEquals(restoredValue, entry.getValue()))
+            {
+                changed.put(entry.getKey(), entry.getValue());
+                // Not worth it, most of the view changed
+                if (changed.size() * 2 > states.size())
+                {
+                    return state;
+                }
+            }
+        }
+
+        List<String> removed = null;
+        for (String clientId : restoredStates.keySet())
+        {
+            if (!states.containsKey(clientId))
+            {
+                if (removed == null)
+                {
+                    removed = new ArrayList<>();
+                }
+                removed.add(clientId);
+            }
+        }
+
+        Object[] header = ((Object[]) state).clone();
+        header[1] = null;
+        return new DeltaViewState(base, depth, header, changed,
+                removed == null ? EMPTY : removed.toArray(EMPTY));
+    }
+
+    /**
+     * Rebuilds the full state. A new Map is returned every time, so the shared component states are
+     * never changed through it.
+     */
+    Object restore()
+    {
+        Object baseState = base instanceof DeltaViewState delta ? delta.restore() : base;
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> states = new HashMap<>((Map<String, Object>) ((Object[]) baseState)[1]);
+        for (String clientId : removed)
+        {
+            states.remove(clientId);
+        }
+        states.putAll(changed);
+
+        Object[] state = header.clone();
+        state[1] = states;
+        return state;
+    }
+
+    int getDepth()
+    {
+        return depth;
+    }
+
+    int getChangedCount()
+    {
+        return changed.size();
+    }
+
+    private static boolean isPartialState(Object state)
+    {
+        return state instanceof Object[] array
+                && array.length >= 2
+                && array[0] == null
+                && array[1] instanceof Map;
+    }
+
+    /**
+     * Compares the saved state of a component. The state is made of arrays, collections and maps, which
+     * are compared by content. Attached objects without equals() are only equal if they are the same
+     * instance, so their component is stored again.
+     */
+    static boolean stateEquals(Object a, Object b)
+    {
+        if (a == b)
+        {
+            return true;
+        }
+        if (a == null || b == null)
+        {
+            return false;
+        }
+        if (a instanceof Object[] arrayA && b instanceof Object[] arrayB)
+        {
+            if (arrayA.length != arrayB.length)
+            {
+                return false;
+            }
+            for (int i = 0; i < arrayA.length; i++)
+            {
+                if (!stateEquals(arrayA[i], arrayB[i]))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof List<?> listA && b instanceof List<?> listB)
+        {
+            if (listA.size() != listB.size())
+            {
+                return false;
+            }
+            Iterator<?> itA = listA.iterator();
+            Iterator<?> itB = listB.iterator();
+            while (itA.hasNext())
+            {
+                if (!stateEquals(itA.next(), itB.next()))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof Map<?, ?> mapA && b instanceof Map<?, ?> mapB)
+        {
+            if (mapA.size() != mapB.size())
+            {
+                return false;
+            }
+            for (Map.Entry<?, ?> entry : mapA.entrySet())
+            {
+                Object value = mapB.get(entry.getKey());
+                if ((value == null && !mapB.containsKey(entry.getKey())) || !stateEquals(entry.getValue(), value))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return a.getClass() == b.getClass() && Objects.deepEquals(a, b);
+    }
+}
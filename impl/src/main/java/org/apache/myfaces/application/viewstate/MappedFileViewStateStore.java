@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the serialized views in a memory mapped temporary file, so the operating system
+ * can page them out when they are not used.
+ */
+class MappedFileViewStateStore extends ByteBufferViewStateStore
+{
+    private static final Logger log = Logger.getLogger(MappedFileViewStateStore.class.getName());
+
+    private final Path file;
+
+    public MappedFileViewStateStore(Path directory, int capacity)
+    {
+        this(createFile(directory), capacity);
+    }
+
+    private MappedFileViewStateStore(Path file, int capacity)
+    {
+        super(map(file, capacity));
+        this.file = file;
+    }
+
+    private static Path createFile(Path directory)
+    {
+        try
+        {
+            return Files.createTempFile(directory, "myfaces-viewstate", ".bin");
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Cannot create view state store file in " + directory, e);
+        }
+    }
+
+    private static ByteBuffer map(Path file, int capacity)
+    {
+        // The mapping stays valid after the channel is closed, and the file is removed
+        // as soon as it is not mapped anymore.
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE))
+        {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Cannot map view state store file " + file, e);
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        super.destroy();
+        // DELETE_ON_CLOSE cannot remove a mapped file on every platform
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e)
+        {
+            log.log(Level.FINE, "Cannot delete view state store file " + file, e);
+        }
+    }
+}
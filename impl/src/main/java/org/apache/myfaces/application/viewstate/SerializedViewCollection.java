@@ -18,7 +18,6 @@
  */
 package org.apache.myfaces.application.viewstate;
 
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -26,14 +25,13 @@ import java.util.Map;
 import java.util.logging.Logger;
 import jakarta.faces.context.FacesContext;
 import java.util.function.Consumer;
-import org.apache.myfaces.cdi.view.ViewScopeContext;
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.util.lang.LRULinkedHashMap;
 
 /**
  *
  */
-class SerializedViewCollection implements Serializable
+class SerializedViewCollection extends AbstractSerializedViewCollection
 {
     private static final Logger log = Logger.getLogger(SerializedViewCollection.class.getName());
 
@@ -58,19 +56,7 @@ class SerializedViewCollection implements Serializable
     private final Map<SerializedViewKey, SerializedViewKey> _precedence = new HashMap<>();
     private Map<String, SerializedViewKey> _lastWindowKeys = null;
 
-    public void put(FacesContext context, Object state, SerializedViewKey key, SerializedViewKey previousRestoredKey)
-    {
-        put(context, state, key, previousRestoredKey, null,
-                (oldViewScopeId) -> ViewScopeContext.destroyAll(context, oldViewScopeId));
-    }
-    
-    public synchronized void put(FacesContext context, Object state, 
-        SerializedViewKey key, SerializedViewKey previousRestoredKey, String viewScopeId)
-    {
-        put(context, state, key, previousRestoredKey, viewScopeId,
-            (oldViewScopeId) -> ViewScopeContext.destroyAll(context, oldViewScopeId));
-    }
-
+    @Override
     public synchronized void put(FacesContext context, Object state, 
         SerializedViewKey key, SerializedViewKey previousRestoredKey, String viewScopeId,
         Consumer<String> destroyCallback)
@@ -92,7 +78,11 @@ class SerializedViewCollection implements Serializable
         if (_serializedViews.containsKey(key))
         {
             // Update the state, the viewScopeId does not change.
-            _serializedViews.put(key, state);
+            Object oldState = _serializedViews.put(key, state);
+            if (oldState != state)
+            {
+                releaseState(oldState);
+            }
             // Make sure the view is at the end of the discard queue
             while (_keys.remove(key))
             {
@@ -170,7 +160,7 @@ class SerializedViewCollection implements Serializable
                         // do nothing
                     }
 
-                    _serializedViews.remove(keyToRemove);
+                    releaseState(_serializedViews.remove(keyToRemove));
                     
                     if (_viewScopeIds != null)
                     {
@@ -213,7 +203,7 @@ class SerializedViewCollection implements Serializable
                 while (keyToRemove != null);
             }
 
-            _serializedViews.remove(key);
+            releaseState(_serializedViews.remove(key));
             
             if (_viewScopeIds != null)
             {
@@ -236,22 +226,7 @@ class SerializedViewCollection implements Serializable
         }
     }
 
-    protected Integer getNumberOfSequentialViewsInSession(FacesContext context)
-    {
-        return MyfacesConfig.getCurrentInstance(context).getNumberOfSequentialViewsInSession();
-    }
-
-    /**
-     * Reads the amount (default = 20) of views to be stored in session.
-     * @see ServerSideStateCacheImpl#NUMBER_OF_VIEWS_IN_SESSION_PARAM
-     * @param context FacesContext for the current request, we are processing
-     * @return Number vf views stored in the session
-     */
-    protected int getNumberOfViewsInSession(FacesContext context)
-    {
-        return MyfacesConfig.getCurrentInstance(context).getNumberOfViewsInSession();
-    }
-
+    @Override
     public synchronized void putLastWindowKey(FacesContext context, String id, SerializedViewKey key)
     {
         if (_lastWindowKeys == null)
@@ -270,6 +245,7 @@ class SerializedViewCollection implements Serializable
         _lastWindowKeys.put(id, key);
     }
 
+    @Override
     public SerializedViewKey getLastWindowKey(FacesContext context, String id)
     {
         if (_lastWindowKeys != null)
@@ -279,6 +255,7 @@ class SerializedViewCollection implements Serializable
         return null;
     }
 
+    @Override
     public Object get(SerializedViewKey key)
     {
         Object value = _serializedViews.get(key);
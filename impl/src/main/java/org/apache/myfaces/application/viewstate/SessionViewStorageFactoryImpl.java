@@ -25,16 +25,23 @@ import jakarta.faces.context.FacesContext;
  */
 class SessionViewStorageFactoryImpl extends SessionViewStorageFactory<KeyFactory<byte[]>, byte[]>
 {
+    private final boolean concurrent;
 
     public SessionViewStorageFactoryImpl(KeyFactory<byte[]> keyFactory)
+    {
+        this(keyFactory, false);
+    }
+
+    public SessionViewStorageFactoryImpl(KeyFactory<byte[]> keyFactory, boolean concurrent)
     {
         super(keyFactory);
+        this.concurrent = concurrent;
     }
 
     @Override
-    public SerializedViewCollection createSerializedViewCollection(FacesContext context)
+    public AbstractSerializedViewCollection createSerializedViewCollection(FacesContext context)
     {
-        return new SerializedViewCollection();
+        return concurrent ? new ConcurrentSerializedViewCollection() : new SerializedViewCollection();
     }
 
     @Override
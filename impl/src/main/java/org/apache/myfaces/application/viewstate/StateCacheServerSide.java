@@ -23,11 +23,13 @@ import org.apache.myfaces.util.token.CsrfSessionTokenFactoryRandom;
 import org.apache.myfaces.util.token.CsrfSessionTokenFactorySecureRandom;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -43,6 +45,7 @@ import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.context.flash.FlashImpl;
 import org.apache.myfaces.renderkit.RendererUtils;
 import org.apache.myfaces.util.MyFacesObjectInputStream;
+import org.apache.myfaces.util.lang.ClassUtils;
 import org.apache.myfaces.view.ViewScopeProxyMap;
 
 class StateCacheServerSide extends StateCache<Object, Object>
@@ -63,6 +66,11 @@ class StateCacheServerSide extends StateCache<Object, Object>
     public static final String RESTORED_VIEW_KEY_REQUEST_ATTR = 
         StateCacheServerSide.class.getName() + ".RESTORED_VIEW_KEY";
 
+    private static final String RESTORED_STORED_VIEW_REQUEST_ATTR =
+        StateCacheServerSide.class.getName() + ".RESTORED_STORED_VIEW";
+
+    private static final String VIEW_STATE_STORE_KEY = ViewStateStore.class.getName();
+
     public static final int UNCOMPRESSED_FLAG = 0;
     public static final int COMPRESSED_FLAG = 1;
 
@@ -70,6 +78,8 @@ class StateCacheServerSide extends StateCache<Object, Object>
     private final int numberOfSequentialViewsInSession;
     private final boolean serializeStateInSession;
     private final boolean compressStateInSession;
+    private final ViewStateStore viewStateStore;
+    private final boolean deltaStateInSession;
 
     private final SessionViewStorageFactory sessionViewStorageFactory;
     private final CsrfSessionTokenFactory csrfSessionTokenFactory;
@@ -83,17 +93,28 @@ class StateCacheServerSide extends StateCache<Object, Object>
         useFlashScopePurgeViewsInSession = !config.isFlashScopeDisabled()
                 && config.isUseFlashScopePurgeViewsInSession();
         numberOfSequentialViewsInSession = config.getNumberOfSequentialViewsInSession();
-        serializeStateInSession = config.isSerializeStateInSession();
         compressStateInSession = config.isCompressStateInSession();
+        viewStateStore = createViewStateStore(facesContext, config);
+        if (viewStateStore != null)
+        {
+            facesContext.getExternalContext().getApplicationMap().put(VIEW_STATE_STORE_KEY, viewStateStore);
+        }
+        // the store only accepts serialized views
+        serializeStateInSession = config.isSerializeStateInSession() || viewStateStore != null;
+        // a delta can only share the component states with its base if they are not serialized
+        deltaStateInSession = config.isDeltaStateInSession() && !serializeStateInSession;
         
+        boolean concurrentCollection = config.isConcurrentSerializedViewCollection();
         String randomMode = config.getRandomKeyInViewStateSessionToken();
         if (MyfacesConfig.RANDOM_KEY_IN_VIEW_STATE_SESSION_TOKEN_SECURE_RANDOM.equals(randomMode))
         {
-            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(new KeyFactorySecureRandom(facesContext));
+            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(
+                    new KeyFactorySecureRandom(facesContext), concurrentCollection);
         }
         else if (MyfacesConfig.RANDOM_KEY_IN_VIEW_STATE_SESSION_TOKEN_RANDOM.equals(randomMode))
         {
-            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(new KeyFactoryRandom(facesContext));
+            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(
+                    new KeyFactoryRandom(facesContext), concurrentCollection);
         }
         else
         {
@@ -103,7 +124,8 @@ class StateCacheServerSide extends StateCache<Object, Object>
                         + randomMode + "\" is not supported (anymore)."
                         + " Fallback to \"secureRandom\"");
             }
-            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(new KeyFactorySecureRandom(facesContext));
+            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(
+                    new KeyFactorySecureRandom(facesContext), concurrentCollection);
         }
         
         String csrfRandomMode = config.getRandomKeyInCsrfSessionToken();
@@ -118,6 +140,42 @@ class StateCacheServerSide extends StateCache<Object, Object>
         
         stateTokenProcessor = new StateTokenProcessorServerSide();
     }
+
+    /**
+     * Releases the ViewStateStore of the application, called when the application is destroyed.
+     */
+    public static void destroyViewStateStore(ExternalContext externalContext)
+    {
+        Object store = externalContext.getApplicationMap().remove(VIEW_STATE_STORE_KEY);
+        if (store instanceof ViewStateStore viewStateStore)
+        {
+            viewStateStore.destroy();
+        }
+    }
+
+    protected ViewStateStore createViewStateStore(FacesContext facesContext, MyfacesConfig config)
+    {
+        String type = config.getViewStateStore();
+        if (type == null || type.isBlank() || MyfacesConfig.VIEW_STATE_STORE_NONE.equals(type))
+        {
+            return null;
+        }
+
+        if (MyfacesConfig.VIEW_STATE_STORE_OFF_HEAP.equals(type))
+        {
+            return new OffHeapViewStateStore(config.getViewStateStoreSize());
+        }
+        else if (MyfacesConfig.VIEW_STATE_STORE_MAPPED_FILE.equals(type))
+        {
+            Object tempDir = facesContext.getExternalContext().getApplicationMap().get(
+                    "jakarta.servlet.context.tempdir");
+            Path directory = tempDir instanceof File file
+                    ? file.toPath()
+                    : Path.of(System.getProperty("java.io.tmpdir"));
+            return new MappedFileViewStateStore(directory, config.getViewStateStoreSize());
+        }
+        return (ViewStateStore) ClassUtils.newInstance(type, ViewStateStore.class);
+    }
     
     //------------------------------------- METHODS COPIED FROM JspStateManagerImpl--------------------------------
 
@@ -133,7 +191,7 @@ class StateCacheServerSide extends StateCache<Object, Object>
     protected void saveSerializedViewInSession(FacesContext context, Object serializedView)
     {
         Map<String, Object> sessionMap = context.getExternalContext().getSessionMap();
-        SerializedViewCollection viewCollection = (SerializedViewCollection)
+        AbstractSerializedViewCollection viewCollection = (AbstractSerializedViewCollection)
                 sessionMap.get(SERIALIZED_VIEW_SESSION_ATTR);
         if (viewCollection == null)
         {
@@ -188,14 +246,27 @@ class StateCacheServerSide extends StateCache<Object, Object>
             }
 
         }
+        Object state = serializeView(context, serializedView);
+        if (deltaStateInSession)
+        {
+            state = createDeltaState(context, state);
+        }
+        if (viewStateStore != null && state instanceof byte[] bytes)
+        {
+            ViewStateStoreHandle handle = viewStateStore.store(context, bytes);
+            if (handle != null)
+            {
+                state = handle;
+            }
+        }
+
         if (viewScopeProxyMap != null)
         {
-            viewCollection.put(context, serializeView(context, serializedView), nextKey, key,
-                    viewScopeProxyMap.getViewScopeId());
+            viewCollection.put(context, state, nextKey, key, viewScopeProxyMap.getViewScopeId());
         }
         else
         {
-            viewCollection.put(context, serializeView(context, serializedView), nextKey, key);
+            viewCollection.put(context, state, nextKey, key);
         }
 
         ClientWindow clientWindow = context.getExternalContext().getClientWindow();
@@ -209,6 +280,21 @@ class StateCacheServerSide extends StateCache<Object, Object>
         sessionMap.put(SERIALIZED_VIEW_SESSION_ATTR, viewCollection);
     }
 
+    /**
+     * Stores the state as the difference to the state of the view restored in this request, if the same
+     * view is saved again.
+     */
+    protected Object createDeltaState(FacesContext context, Object state)
+    {
+        Object[] restored = (Object[]) context.getAttributes().get(RESTORED_STORED_VIEW_REQUEST_ATTR);
+        if (restored != null && restored[0].equals(context.getViewRoot().getViewId()))
+        {
+            return DeltaViewState.create(restored[1],
+                    context.getAttributes().get(RESTORED_SERIALIZED_VIEW_REQUEST_ATTR), state);
+        }
+        return state;
+    }
+
     protected Object getSerializedViewFromSession(FacesContext context, String viewId, Object sequence)
     {
         ExternalContext externalContext = context.getExternalContext();
@@ -220,7 +306,7 @@ class StateCacheServerSide extends StateCache<Object, Object>
         }
         else
         {
-            SerializedViewCollection viewCollection = (SerializedViewCollection) externalContext
+            AbstractSerializedViewCollection viewCollection = (AbstractSerializedViewCollection) externalContext
                     .getSessionMap().get(SERIALIZED_VIEW_SESSION_ATTR);
             if (viewCollection != null)
             {
@@ -228,10 +314,23 @@ class StateCacheServerSide extends StateCache<Object, Object>
                 {
                     Object state = viewCollection.get(
                             sessionViewStorageFactory.createSerializedViewKey(context, viewId, sequence));
-                    if (state != null)
+                    if (state instanceof ViewStateStoreHandle handle)
+                    {
+                        // null if the store discarded the view, so it is handled as expired
+                        state = handle.load();
+                    }
+                    if (state instanceof DeltaViewState delta)
+                    {
+                        serializedView = delta.restore();
+                    }
+                    else if (state != null)
                     {
                         serializedView = deserializeView(state);
                     }
+                    if (deltaStateInSession && state != null)
+                    {
+                        attributeMap.put(RESTORED_STORED_VIEW_REQUEST_ATTR, new Object[] { viewId, state });
+                    }
                 }
             }
             attributeMap.put(RESTORED_SERIALIZED_VIEW_REQUEST_ATTR, serializedView);
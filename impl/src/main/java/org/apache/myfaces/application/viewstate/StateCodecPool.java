@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import jakarta.faces.context.ExternalContext;
+
+/**
+ * Keeps the Cipher, Mac, Deflater and Inflater instances used by {@link StateUtils}, so they are not
+ * created again for every request. Creating a Cipher or a Mac requires a provider lookup, and every
+ * Deflater allocates native memory.
+ *
+ * <p>The pool is stored in the application map, so the instances are not shared between applications
+ * (each one can use another secret or algorithm) and are released with the application. The instances
+ * are not bound to a thread, a request borrows them and gives them back when the state has been
+ * processed. An instance is only given back if it was used without errors.</p>
+ *
+ * <p>A Cipher is reused without calling init() again: after doFinal() it is reset to the state it had
+ * after the initialization, which is what is needed for ECB and CBC (with the configured fixed IV).</p>
+ */
+final class StateCodecPool
+{
+    private static final String POOL_KEY = StateCodecPool.class.getName();
+
+    private static final int MAX_IDLE = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final BlockingQueue<Cipher> encryptCiphers = new ArrayBlockingQueue<>(MAX_IDLE);
+    private final BlockingQueue<Cipher> decryptCiphers = new ArrayBlockingQueue<>(MAX_IDLE);
+    private final BlockingQueue<Mac> macs = new ArrayBlockingQueue<>(MAX_IDLE);
+    private final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(MAX_IDLE);
+    private final BlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(MAX_IDLE);
+
+    private StateCodecPool()
+    {
+    }
+
+    static StateCodecPool getInstance(ExternalContext externalContext)
+    {
+        Map<String, Object> applicationMap = externalContext.getApplicationMap();
+        StateCodecPool pool = (StateCodecPool) applicationMap.get(POOL_KEY);
+        if (pool == null)
+        {
+            // Two pools can be created at the same time, but that is harmless
+            pool = new StateCodecPool();
+            applicationMap.put(POOL_KEY, pool);
+        }
+        return pool;
+    }
+
+    Cipher borrowCipher(ExternalContext externalContext, int mode) throws Exception
+    {
+        Cipher cipher = ciphers(mode).poll();
+        return cipher == null ? StateUtils.createCipher(externalContext, mode) : cipher;
+    }
+
+    void releaseCipher(Cipher cipher, int mode)
+    {
+        ciphers(mode).offer(cipher);
+    }
+
+    private BlockingQueue<Cipher> ciphers(int mode)
+    {
+        return mode == Cipher.ENCRYPT_MODE ? encryptCiphers : decryptCiphers;
+    }
+
+    Mac borrowMac(ExternalContext externalContext) throws Exception
+    {
+        Mac mac = macs.poll();
+        return mac == null ? StateUtils.createMac(externalContext) : mac;
+    }
+
+    void releaseMac(Mac mac)
+    {
+        mac.reset();
+        macs.offer(mac);
+    }
+
+    Deflater borrowDeflater()
+    {
+        Deflater deflater = deflaters.poll();
+        // nowrap, the gzip header and trailer are written by StateUtils
+        return deflater == null ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : deflater;
+    }
+
+    void releaseDeflater(Deflater deflater)
+    {
+        deflater.reset();
+        if (!deflaters.offer(deflater))
+        {
+            deflater.end();
+        }
+    }
+
+    Inflater borrowInflater()
+    {
+        Inflater inflater = inflaters.poll();
+        return inflater == null ? new Inflater(true) : inflater;
+    }
+
+    void releaseInflater(Inflater inflater)
+    {
+        inflater.reset();
+        if (!inflaters.offer(inflater))
+        {
+            inflater.end();
+        }
+    }
+}
@@ -20,17 +20,31 @@ package org.apache.myfaces.application.viewstate;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
 
 import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
 import javax.crypto.KeyGenerator;
 import javax.crypto.Mac;
 import javax.crypto.SecretKey;
@@ -44,6 +58,8 @@ import jakarta.servlet.ServletContext;
 import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFWebConfigParam;
 import org.apache.myfaces.core.api.shared.lang.Assert;
 import org.apache.myfaces.spi.SerialFactory;
+import org.apache.myfaces.util.lang.FastByteArrayInputStream;
+import org.apache.myfaces.util.lang.FastByteArrayOutputStream;
 
 /**
  * <p>This Class exposes a handful of methods related to encryption,
@@ -144,6 +160,8 @@ public final class StateUtils
      * Defines the factory class name using for serialize/deserialize the view state returned 
      * by state manager into a byte array. The expected class must implement
      * {@link org.apache.myfaces.spi.SerialFactory} interface.
+     * {@link org.apache.myfaces.spi.impl.BinarySerialFactory} writes a more compact state than the default
+     * java serialization.
      */
     @JSFWebConfigParam(name="org.apache.myfaces.SERIAL_FACTORY", since="1.1",group="state",tags="performance")
     public static final String SERIAL_FACTORY = INIT_PREFIX + "SERIAL_FACTORY";
@@ -254,28 +272,61 @@ public final class StateUtils
 
     /**
      * This fires during the Render Response phase, saving state.
+     * 
+     * <p>The state is serialized, compressed, encrypted and encoded in one pass: every stage writes
+     * into the next one, so the only buffer is the one holding the encoded result. The result is the
+     * same as calling getAsByteArray, compress, encrypt and encode one after the other.</p>
      */
     public static final String construct(Object object, ExternalContext ctx)
     {
-        byte[] bytes = getAsByteArray(object, ctx);
-        if (enableCompression(ctx))
-        {
-            bytes = compress(bytes);
-        }
-        if (isSecure(ctx))
+        SerialFactory serialFactory = getSerialFactory(ctx);
+        StateCodecPool pool = StateCodecPool.getInstance(ctx);
+        boolean secure = isSecure(ctx);
+        if (secure)
         {
-            bytes = encrypt(bytes, ctx);
+            testConfiguration(ctx);
         }
-        bytes = encode(bytes);
 
+        FastByteArrayOutputStream buffer = new FastByteArrayOutputStream(1024);
         try
         {
-            return new String(bytes, ZIP_CHARSET);
+            Cipher cipher = null;
+            Mac mac = null;
+            Deflater deflater = null;
+
+            OutputStream os = Base64.getEncoder().wrap(buffer);
+            if (secure)
+            {
+                cipher = pool.borrowCipher(ctx, Cipher.ENCRYPT_MODE);
+                mac = pool.borrowMac(ctx);
+                os = new EncryptThenMacOutputStream(os, cipher, mac);
+            }
+            if (enableCompression(ctx))
+            {
+                deflater = pool.borrowDeflater();
+                os = new GZIPDeflaterOutputStream(os, deflater);
+            }
+
+            serialFactory.writeObject(object, os);
+            os.close();
+
+            // Only give back the instances if everything went fine, otherwise their state is unknown
+            if (cipher != null)
+            {
+                pool.releaseCipher(cipher, Cipher.ENCRYPT_MODE);
+                pool.releaseMac(mac);
+            }
+            if (deflater != null)
+            {
+                pool.releaseDeflater(deflater);
+            }
         }
-        catch (UnsupportedEncodingException e)
+        catch (Exception e)
         {
             throw new FacesException(e);
         }
+
+        return new String(buffer.getByteArray(), 0, buffer.getSize(), StandardCharsets.ISO_8859_1);
     }
 
     /**
@@ -288,9 +339,7 @@ public final class StateUtils
      */
     public static final byte[] getAsByteArray(Object object, ExternalContext ctx)
     {
-        // get the Factory that was instantiated @ startup
-        SerialFactory serialFactory = (SerialFactory) ctx.getApplicationMap().get(SERIAL_FACTORY);
-        Assert.notNull(serialFactory, "serialFactory");
+        SerialFactory serialFactory = getSerialFactory(ctx);
 
         try
         {
@@ -310,8 +359,9 @@ public final class StateUtils
 
         try
         {
-            Mac mac = createMac(externalContext);
-            Cipher cipher = createCipher(externalContext, Cipher.ENCRYPT_MODE);
+            StateCodecPool pool = StateCodecPool.getInstance(externalContext);
+            Mac mac = pool.borrowMac(externalContext);
+            Cipher cipher = pool.borrowCipher(externalContext, Cipher.ENCRYPT_MODE);
 
             //EtM (Encrypt-then-MAC) Composition Approach
             int macLenght = mac.getMacLength();
@@ -319,7 +369,10 @@ public final class StateUtils
             int secureCount = cipher.doFinal(insecure, 0, insecure.length, secure);
             mac.update(secure, 0, secureCount);
             mac.doFinal(secure, secureCount);
-                        
+
+            pool.releaseCipher(cipher, Cipher.ENCRYPT_MODE);
+            pool.releaseMac(mac);
+
             return secure;
         }
         catch (Exception e)
@@ -358,10 +411,13 @@ public final class StateUtils
 
     /**
      * This fires during the Restore View phase, restoring state.
+     * 
+     * <p>The state is decoded into a single buffer, and the MAC is verified on it before anything
+     * else is done. The decryption, decompression and deserialization then read from that buffer
+     * in one pass.</p>
      */
     public static final Object reconstruct(String string, ExternalContext ctx)
     {
-        byte[] bytes;
         try
         {
             if (log.isLoggable(Level.FINE))
@@ -370,18 +426,48 @@ public final class StateUtils
                 log.fine("Processing serialized viewstate string with hashCode : " + string.hashCode());
             }
 
-            bytes = string.getBytes(ZIP_CHARSET);
-            bytes = decode(bytes);
+            SerialFactory serialFactory = getSerialFactory(ctx);
+            StateCodecPool pool = StateCodecPool.getInstance(ctx);
+            byte[] bytes = Base64.getDecoder().decode(string);
+
+            Cipher cipher = null;
+            Inflater inflater = null;
+
+            InputStream is;
             if (isSecure(ctx))
             {
-                bytes = decrypt(bytes, ctx);
+                testConfiguration(ctx);
+
+                Mac mac = pool.borrowMac(ctx);
+                int length = verifyMac(bytes, mac);
+                pool.releaseMac(mac);
+
+                cipher = pool.borrowCipher(ctx, Cipher.DECRYPT_MODE);
+                is = new CipherInputStream(new FastByteArrayInputStream(bytes, length), cipher);
+            }
+            else
+            {
+                is = new FastByteArrayInputStream(bytes);
             }
             if (enableCompression(ctx))
             {
-                bytes = decompress(bytes);
+                inflater = pool.borrowInflater();
+                is = new GZIPInflaterInputStream(is, inflater);
             }
 
-            return getAsObject(bytes, ctx);
+            Object object = serialFactory.readObject(is);
+            // also resets the cipher if the stream was not read until the end
+            is.close();
+
+            if (cipher != null)
+            {
+                pool.releaseCipher(cipher, Cipher.DECRYPT_MODE);
+            }
+            if (inflater != null)
+            {
+                pool.releaseInflater(inflater);
+            }
+            return object;
         }
         catch (Throwable e)
         {
@@ -436,40 +522,54 @@ public final class StateUtils
 
         try
         {
-            Mac mac = createMac(externalContext);
-            Cipher cipher = createCipher(externalContext, Cipher.DECRYPT_MODE);
+            StateCodecPool pool = StateCodecPool.getInstance(externalContext);
+            Mac mac = pool.borrowMac(externalContext);
+            int length = verifyMac(secure, mac);
+            pool.releaseMac(mac);
+
+            Cipher cipher = pool.borrowCipher(externalContext, Cipher.DECRYPT_MODE);
+            byte[] insecure = cipher.doFinal(secure, 0, length);
+            pool.releaseCipher(cipher, Cipher.DECRYPT_MODE);
+            return insecure;
+        }
+        catch (Exception e)
+        {
+            throw new FacesException(e);
+        }
+    }
 
-            //EtM (Encrypt-then-MAC) Composition Approach
-            int macLenght = mac.getMacLength();
-            mac.update(secure, 0, secure.length - macLenght);
-            byte[] signedDigestHash = mac.doFinal();
+    /**
+     * Checks the MAC appended at the end of the secure bytes.
+     * 
+     * @return the length of the encrypted data, without the MAC
+     */
+    private static int verifyMac(byte[] secure, Mac mac)
+    {
+        //EtM (Encrypt-then-MAC) Composition Approach
+        int macLenght = mac.getMacLength();
+        mac.update(secure, 0, secure.length - macLenght);
+        byte[] signedDigestHash = mac.doFinal();
 
-            boolean isMacEqual = true;
-            for (int i = 0; i < signedDigestHash.length; i++)
-            {
-                if (signedDigestHash[i] != secure[secure.length - macLenght + i])
-                {
-                    isMacEqual = false;
-                    // MYFACES-2934 Must compare *ALL* bytes of the hash, 
-                    // otherwise a side-channel timing attack is theoretically possible
-                    // but with a very very low probability, because the
-                    // comparison time is too small to be measured compared to
-                    // the overall request time and in real life applications,
-                    // there are too many uncertainties involved.
-                    //break;
-                }
-            }
-            if (!isMacEqual)
+        boolean isMacEqual = true;
+        for (int i = 0; i < signedDigestHash.length; i++)
+        {
+            if (signedDigestHash[i] != secure[secure.length - macLenght + i])
             {
-                throw new ViewExpiredException();
+                isMacEqual = false;
+                // MYFACES-2934 Must compare *ALL* bytes of the hash, 
+                // otherwise a side-channel timing attack is theoretically possible
+                // but with a very very low probability, because the
+                // comparison time is too small to be measured compared to
+                // the overall request time and in real life applications,
+                // there are too many uncertainties involved.
+                //break;
             }
-            
-            return cipher.doFinal(secure, 0, secure.length - macLenght);
         }
-        catch (Exception e)
+        if (!isMacEqual)
         {
-            throw new FacesException(e);
+            throw new ViewExpiredException();
         }
+        return secure.length - macLenght;
     }
 
     /**
@@ -482,9 +582,7 @@ public final class StateUtils
      */
     public static final Object getAsObject(byte[] bytes, ExternalContext ctx)
     {
-        // get the Factory that was instantiated @ startup
-        SerialFactory serialFactory = (SerialFactory) ctx.getApplicationMap().get(SERIAL_FACTORY);
-        Assert.notNull(serialFactory, "serialFactory");
+        SerialFactory serialFactory = getSerialFactory(ctx);
 
         try
         {
@@ -496,6 +594,14 @@ public final class StateUtils
         }
     }
 
+    private static SerialFactory getSerialFactory(ExternalContext ctx)
+    {
+        // get the Factory that was instantiated @ startup
+        SerialFactory serialFactory = (SerialFactory) ctx.getApplicationMap().get(SERIAL_FACTORY);
+        Assert.notNull(serialFactory, "serialFactory");
+        return serialFactory;
+    }
+
     /**
      * Utility method for generating base 64 encoded strings.
      * 
@@ -811,4 +917,236 @@ public final class StateUtils
         
         return bytes;
     }
+
+    /**
+     * Encrypts the data written into it and appends the MAC of the encrypted data when closed.
+     */
+    private static final class EncryptThenMacOutputStream extends FilterOutputStream
+    {
+        private final Cipher cipher;
+        private final Mac mac;
+        private byte[] buffer = new byte[1024];
+        private boolean closed;
+
+        EncryptThenMacOutputStream(OutputStream out, Cipher cipher, Mac mac)
+        {
+            super(out);
+            this.cipher = cipher;
+            this.mac = mac;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            try
+            {
+                ensureCapacity(cipher.getOutputSize(len));
+                writeEncrypted(cipher.update(b, off, len, buffer, 0));
+            }
+            catch (GeneralSecurityException e)
+            {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void flush()
+        {
+            // the encrypted blocks are written as soon as they are available
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            try
+            {
+                ensureCapacity(cipher.getOutputSize(0));
+                writeEncrypted(cipher.doFinal(buffer, 0));
+                out.write(mac.doFinal());
+            }
+            catch (GeneralSecurityException e)
+            {
+                throw new IOException(e);
+            }
+            out.close();
+        }
+
+        private void ensureCapacity(int size)
+        {
+            if (buffer.length < size)
+            {
+                buffer = new byte[size];
+            }
+        }
+
+        private void writeEncrypted(int length) throws IOException
+        {
+            mac.update(buffer, 0, length);
+            out.write(buffer, 0, length);
+        }
+    }
+
+    /**
+     * Writes the same format as GZIPOutputStream, but with a given (pooled) Deflater.
+     */
+    private static final class GZIPDeflaterOutputStream extends DeflaterOutputStream
+    {
+        private static final byte[] HEADER = {
+            (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+        };
+
+        private final CRC32 crc = new CRC32();
+
+        GZIPDeflaterOutputStream(OutputStream out, Deflater deflater) throws IOException
+        {
+            super(out, deflater, 1024);
+            out.write(HEADER);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            super.write(b, off, len);
+            crc.update(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException
+        {
+            if (!def.finished())
+            {
+                super.finish();
+                writeInt((int) crc.getValue());
+                writeInt(def.getTotalIn());
+            }
+        }
+
+        private void writeInt(int value) throws IOException
+        {
+            out.write(value & 0xff);
+            out.write((value >> 8) & 0xff);
+            out.write((value >> 16) & 0xff);
+            out.write((value >> 24) & 0xff);
+        }
+    }
+
+    /**
+     * Reads the same format as GZIPInputStream, but with a given (pooled) Inflater. The trailer
+     * is only checked if the stream is read until the end.
+     */
+    private static final class GZIPInflaterInputStream extends InflaterInputStream
+    {
+        private static final int FHCRC = 2;
+        private static final int FEXTRA = 4;
+        private static final int FNAME = 8;
+        private static final int FCOMMENT = 16;
+
+        private final CRC32 crc = new CRC32();
+        private boolean trailerChecked;
+
+        GZIPInflaterInputStream(InputStream in, Inflater inflater) throws IOException
+        {
+            super(readHeader(in), inflater, 1024);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            int n = super.read(b, off, len);
+            if (n > 0)
+            {
+                crc.update(b, off, n);
+            }
+            else if (n == -1 && !trailerChecked)
+            {
+                trailerChecked = true;
+                checkTrailer();
+            }
+            return n;
+        }
+
+        private void checkTrailer() throws IOException
+        {
+            int remaining = inf.getRemaining();
+            InputStream trailer = remaining > 0
+                    ? new SequenceInputStream(new ByteArrayInputStream(buf, len - remaining, remaining), in)
+                    : in;
+            if (readInt(trailer) != (int) crc.getValue() || readInt(trailer) != (int) inf.getBytesWritten())
+            {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+        }
+
+        private static InputStream readHeader(InputStream in) throws IOException
+        {
+            if (readUByte(in) != 0x1f || readUByte(in) != 0x8b)
+            {
+                throw new ZipException("Not in GZIP format");
+            }
+            if (readUByte(in) != Deflater.DEFLATED)
+            {
+                throw new ZipException("Unsupported compression method");
+            }
+            int flags = readUByte(in);
+            // modification time, extra flags and operating system
+            skipBytes(in, 6);
+            if ((flags & FEXTRA) == FEXTRA)
+            {
+                skipBytes(in, readUByte(in) | (readUByte(in) << 8));
+            }
+            if ((flags & FNAME) == FNAME)
+            {
+                while (readUByte(in) != 0)
+                {
+                    // skip the file name
+                }
+            }
+            if ((flags & FCOMMENT) == FCOMMENT)
+            {
+                while (readUByte(in) != 0)
+                {
+                    // skip the comment
+                }
+            }
+            if ((flags & FHCRC) == FHCRC)
+            {
+                skipBytes(in, 2);
+            }
+            return in;
+        }
+
+        private static int readInt(InputStream in) throws IOException
+        {
+            return readUByte(in) | (readUByte(in) << 8) | (readUByte(in) << 16) | (readUByte(in) << 24);
+        }
+
+        private static int readUByte(InputStream in) throws IOException
+        {
+            int b = in.read();
+            if (b == -1)
+            {
+                throw new EOFException();
+            }
+            return b;
+        }
+
+        private static void skipBytes(InputStream in, int n) throws IOException
+        {
+            for (int i = 0; i < n; i++)
+            {
+                readUByte(in);
+            }
+        }
+    }
 }
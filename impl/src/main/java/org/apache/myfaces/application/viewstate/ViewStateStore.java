@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import jakarta.faces.context.FacesContext;
+
+/**
+ * Storage for the serialized state of the views when server side state saving is used.
+ *
+ * <p>By default the serialized views are kept inside a SerializedViewCollection stored as
+ * a session attribute. When a ViewStateStore is configured (see
+ * {@link org.apache.myfaces.config.webparameters.MyfacesConfig#VIEW_STATE_STORE}), the bytes are
+ * moved into the store and the session only keeps a small {@link ViewStateStoreHandle} per view.
+ * The per session eviction (NUMBER_OF_VIEWS_IN_SESSION, NUMBER_OF_SEQUENTIAL_VIEWS_IN_SESSION)
+ * is still done by SerializedViewCollection, which releases the handles of the discarded views.
+ * A store can additionally discard entries on its own (for example to respect a global byte
+ * budget), in that case {@link #load(ViewStateStoreHandle)} returns null and the view is
+ * considered expired.</p>
+ *
+ * <p>The store is shared by all sessions of the application and must be thread safe. The
+ * handles are only valid on the node that created them.</p>
+ */
+public abstract class ViewStateStore
+{
+    /**
+     * Store the serialized state of a view.
+     *
+     * @param facesContext the current FacesContext
+     * @param state the serialized state
+     * @return the handle to retrieve the state later, or null if the state could not be stored
+     * (for example because it is bigger than the store). In that case the state is kept in session.
+     */
+    public abstract ViewStateStoreHandle store(FacesContext facesContext, byte[] state);
+
+    /**
+     * Retrieve the serialized state of a view.
+     *
+     * @param handle the handle returned by {@link #store(FacesContext, byte[])}
+     * @return the serialized state or null if the state is not available anymore
+     */
+    public abstract byte[] load(ViewStateStoreHandle handle);
+
+    /**
+     * Discard the state associated with the given handle.
+     *
+     * @param handle the handle returned by {@link #store(FacesContext, byte[])}
+     */
+    public abstract void remove(ViewStateStoreHandle handle);
+
+    /**
+     * Release all resources used by the store, called when the application is destroyed.
+     */
+    public void destroy()
+    {
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.Serializable;
+
+/**
+ * Reference to a serialized view kept in a {@link ViewStateStore}. This is what is stored
+ * into the session instead of the serialized view.
+ *
+ * <p>The reference to the store is transient, so a handle that was serialized (session
+ * passivation or replication) cannot be released anymore and the state must be considered
+ * expired.</p>
+ */
+public final class ViewStateStoreHandle implements Serializable
+{
+    private static final long serialVersionUID = 4387541965724317209L;
+
+    private final long id;
+    private final int length;
+    private transient ViewStateStore store;
+
+    public ViewStateStoreHandle(ViewStateStore store, long id, int length)
+    {
+        this.store = store;
+        this.id = id;
+        this.length = length;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    /**
+     * @return the length in bytes of the stored state
+     */
+    public int getLength()
+    {
+        return length;
+    }
+
+    public ViewStateStore getStore()
+    {
+        return store;
+    }
+
+    byte[] load()
+    {
+        return store == null ? null : store.load(this);
+    }
+
+    void release()
+    {
+        if (store != null)
+        {
+            store.remove(this);
+            store = null;
+        }
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final ViewStateStoreHandle other = (ViewStateStoreHandle) obj;
+        return this.id == other.id;
+    }
+}
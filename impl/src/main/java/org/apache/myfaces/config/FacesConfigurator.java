@@ -113,6 +113,7 @@ import org.apache.myfaces.flow.ViewNodeImpl;
 import org.apache.myfaces.lifecycle.LifecycleFactoryImpl;
 import org.apache.myfaces.renderkit.RenderKitFactoryImpl;
 import org.apache.myfaces.renderkit.html.HtmlRenderKitImpl;
+import org.apache.myfaces.resource.FileChangeWatcher;
 import org.apache.myfaces.resource.ResourceLoaderUtils;
 import org.apache.myfaces.util.lang.ClassUtils;
 import org.apache.myfaces.util.LocaleUtils;
@@ -209,6 +210,11 @@ public class FacesConfigurator
 
     private static long lastUpdate;
 
+    /**
+     * Application map key of the change count of the FileChangeWatcher at the last check.
+     */
+    private static final String LAST_CHANGE_COUNT = FacesConfigurator.class.getName() + ".LAST_CHANGE_COUNT";
+
     public FacesConfigurator(ExternalContext externalContext)
     {
         if (externalContext == null)
@@ -386,7 +392,7 @@ public class FacesConfigurator
         if (refreshPeriod > 0)
         {
             long ttl = lastUpdate + refreshPeriod;
-            if ((System.currentTimeMillis() > ttl) && (getLastModifiedTime() > ttl))
+            if ((System.currentTimeMillis() > ttl) && hasFileChanges() && (getLastModifiedTime() > ttl))
             {
                 try
                 {
@@ -415,6 +421,23 @@ public class FacesConfigurator
         }
     }
 
+    /**
+     * Without a FileChangeWatcher every file has to be checked. Otherwise the files are only checked
+     * again after the watcher has seen a change.
+     */
+    private boolean hasFileChanges()
+    {
+        FileChangeWatcher watcher = FileChangeWatcher.getInstance(_externalContext);
+        if (watcher == null)
+        {
+            return true;
+        }
+        // kept per application, a new FacesConfigurator is created for every check
+        Long changeCount = watcher.getChangeCount();
+        Object lastChangeCount = _externalContext.getApplicationMap().put(LAST_CHANGE_COUNT, changeCount);
+        return !changeCount.equals(lastChangeCount);
+    }
+
     private void purgeConfiguration()
     {
         // Check that we have access to all of the necessary purge methods before purging anything
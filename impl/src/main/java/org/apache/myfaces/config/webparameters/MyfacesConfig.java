@@ -507,6 +507,208 @@ public class MyfacesConfig
     public static final String COMPRESS_STATE_IN_SESSION = "org.apache.myfaces.COMPRESS_STATE_IN_SESSION";
     private static final boolean COMPRESS_STATE_IN_SESSION_DEFAULT = true;
     
+    /**
+     * Defines where the serialized views are kept when server side state saving is used. By default they are
+     * stored in the session ("none"). With "offHeap" the serialized views are stored in a direct ByteBuffer and
+     * with "mappedFile" in a memory mapped temporary file, so the session only keeps a small handle per view.
+     * A class name extending org.apache.myfaces.application.viewstate.ViewStateStore can also be used.
+     * 
+     * <p>When a store is configured the state is always serialized, as if
+     * <code>jakarta.faces.SERIALIZE_SERVER_STATE</code> were <code>true</code>. The handles are only valid
+     * on the node that created them, so session replication requires sticky sessions.</p>
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="none", expectedValues="none, offHeap, mappedFile",
+            group="state", tags="performance")
+    public static final String VIEW_STATE_STORE = "org.apache.myfaces.VIEW_STATE_STORE";
+    public static final String VIEW_STATE_STORE_NONE = "none";
+    public static final String VIEW_STATE_STORE_OFF_HEAP = "offHeap";
+    public static final String VIEW_STATE_STORE_MAPPED_FILE = "mappedFile";
+    private static final String VIEW_STATE_STORE_DEFAULT = VIEW_STATE_STORE_NONE;
+
+    /**
+     * Size in bytes of the org.apache.myfaces.VIEW_STATE_STORE, shared by all sessions. When the store is full
+     * the oldest views are discarded and considered as expired. By default 64MB.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="67108864", classType="java.lang.Integer", group="state",
+            tags="performance")
+    public static final String VIEW_STATE_STORE_SIZE = "org.apache.myfaces.VIEW_STATE_STORE_SIZE";
+    private static final int VIEW_STATE_STORE_SIZE_DEFAULT = 64 * 1024 * 1024;
+
+    /**
+     * Use a collection that does not lock the session while the views are saved, so parallel requests of the same
+     * session (ajax polling, multiple tabs) are not serialized. Only applicable if state saving method is "server".
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true,false", group="state",
+            tags="performance")
+    public static final String CONCURRENT_SERIALIZED_VIEW_COLLECTION
+            = "org.apache.myfaces.CONCURRENT_SERIALIZED_VIEW_COLLECTION";
+    private static final boolean CONCURRENT_SERIALIZED_VIEW_COLLECTION_DEFAULT = false;
+
+    /**
+     * Store the state of a postback to the same view as the difference to the state of the restored view, so
+     * the component states that did not change are shared between the views in session. Only applicable if state
+     * saving method is "server", partial state saving is used and the state is not serialized in session.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true,false", group="state",
+            tags="performance")
+    public static final String DELTA_STATE_IN_SESSION = "org.apache.myfaces.DELTA_STATE_IN_SESSION";
+    private static final boolean DELTA_STATE_IN_SESSION_DEFAULT = false;
+
+    /**
+     * Number of compiled facelets kept in the facelet cache, for every kind of facelet (view, view metadata).
+     * When the cache grows over this size the least recently used ones are discarded and compiled again when
+     * they are needed. 0 means no limit. Not used if org.apache.myfaces.CACHE_EL_EXPRESSIONS is "alwaysRecompile".
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="0", classType="java.lang.Integer", group="viewhandler",
+            tags="performance")
+    public static final String FACELETS_CACHE_SIZE = "org.apache.myfaces.FACELETS_CACHE_SIZE";
+    private static final int FACELETS_CACHE_SIZE_DEFAULT = 0;
+
+    /**
+     * Use the facelets precompiled at build time with org.apache.myfaces.view.facelets.compiler.FaceletPrecompiler.
+     * The precompiled form is stored below WEB-INF/precompiled, with the path of the document
+     * (WEB-INF/precompiled/view.xhtml.precompiled), and contains the already parsed document, so it is not parsed
+     * again at runtime. It is ignored if it is older than the document.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true,false", group="viewhandler",
+            tags="performance")
+    public static final String FACELETS_PRECOMPILED = "org.apache.myfaces.FACELETS_PRECOMPILED";
+    private static final boolean FACELETS_PRECOMPILED_DEFAULT = false;
+
+    /**
+     * Compile all the facelets views (found with ViewHandler.getViews()) at startup, so the first requests after a
+     * deploy do not have to wait for the compilation.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true,false", group="viewhandler",
+            tags="performance")
+    public static final String VIEW_WARM_UP = "org.apache.myfaces.VIEW_WARM_UP";
+    private static final boolean VIEW_WARM_UP_DEFAULT = false;
+
+    /**
+     * Number of threads used to compile the views at startup, see org.apache.myfaces.VIEW_WARM_UP. By default the
+     * number of available processors.
+     */
+    @JSFWebConfigParam(since="5.0", classType="java.lang.Integer", group="viewhandler", tags="performance")
+    public static final String VIEW_WARM_UP_THREADS = "org.apache.myfaces.VIEW_WARM_UP_THREADS";
+
+    /**
+     * Also build the component tree of every view once at startup, see org.apache.myfaces.VIEW_WARM_UP. This loads
+     * the component, converter and validator classes and fills the EL caches. Views that cannot be built outside of
+     * a request are skipped.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true,false", group="viewhandler",
+            tags="performance")
+    public static final String VIEW_WARM_UP_BUILD_VIEW = "org.apache.myfaces.VIEW_WARM_UP_BUILD_VIEW";
+    private static final boolean VIEW_WARM_UP_BUILD_VIEW_DEFAULT = false;
+
+    /**
+     * Write UTF-8 responses to the OutputStream of the servlet response, with a Writer that encodes directly into
+     * pooled byte buffers, instead of using the Writer of the servlet container. Responses with another encoding
+     * still use the Writer of the container. Code that calls ServletResponse.getWriter() directly in the same
+     * request fails, because the OutputStream has already been obtained.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true,false", group="render",
+            tags="performance")
+    public static final String WRITE_RESPONSE_TO_OUTPUT_STREAM = "org.apache.myfaces.WRITE_RESPONSE_TO_OUTPUT_STREAM";
+    private static final boolean WRITE_RESPONSE_TO_OUTPUT_STREAM_DEFAULT = false;
+
+    /**
+     * Watch the files of an exploded web application with a WatchService instead of checking their last modified
+     * time during the requests. Changed facelets (with jakarta.faces.FACELETS_REFRESH_PERIOD greater than 0) and
+     * composite components are evicted from the caches in the background, and the configuration files
+     * (org.apache.myfaces.CONFIG_REFRESH_PERIOD) are only checked again after a file has changed. Facelets that are
+     * not found in the web application directory, for example in a jar, are still checked with the refresh period.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true,false", group="viewhandler",
+            tags="performance")
+    public static final String WATCH_FILE_CHANGES = "org.apache.myfaces.WATCH_FILE_CHANGES";
+    private static final boolean WATCH_FILE_CHANGES_DEFAULT = false;
+
+    /**
+     * Maximum number of rendered fragments kept by the render cache. The markup of a ui:fragment or ui:component
+     * with the attribute oamRenderCache="true" is captured on the first render and written again on the later
+     * renders of the same view, client id and locale, without encoding the children. It is meant for static
+     * subtrees like menus and footers, whose output does not depend on the request. Subtrees with forms or inputs
+     * are always encoded. The cache is cleared when org.apache.myfaces.WATCH_FILE_CHANGES reports a changed file
+     * and it is not used when facelets are refreshed without the watcher, nor in the Development project stage.
+     * 0 disables it.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="500", group="render", tags="performance")
+    public static final String RENDER_CACHE_SIZE = "org.apache.myfaces.RENDER_CACHE_SIZE";
+    private static final int RENDER_CACHE_SIZE_DEFAULT = 500;
+
+    /**
+     * Build a static view only once per view id, locale, render kit and contracts, keep the built component tree as
+     * a prototype and create the tree of the later requests as a copy of the prototype, without executing the tag
+     * handlers again. It is used for views with partial state saving whose structure does not depend on the
+     * request (no c:if, c:forEach, c:choose or ui:include with a dynamic src) and which are not handled by the view
+     * pool. Like the view pool, tag handlers with side effects, like f:loadBundle, are not executed for the copies.
+     * Views with components that listen to PostAddToViewEvent, like h:outputScript, are always built. The number
+     * of prototypes is limited by org.apache.myfaces.VIEWID_CACHE_SIZE. It is not used in the Development project
+     * stage.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true,false", group="viewhandler",
+            tags="performance")
+    public static final String VIEW_PROTOTYPE = "org.apache.myfaces.VIEW_PROTOTYPE";
+    private static final boolean VIEW_PROTOTYPE_DEFAULT = false;
+
+    /**
+     * Serve a compressed copy of the resources with a compressible content type (text, javascript, json, xml, svg)
+     * to the clients that accept it. Each resource is compressed once and kept in memory, in a cache of
+     * org.apache.myfaces.RESOURCE_HANDLER_CACHE_SIZE entries. gzip is supported out of the box, other encodings can
+     * be added with an org.apache.myfaces.resource.ResourceCodec listed in
+     * META-INF/services/org.apache.myfaces.resource.ResourceCodec. The resources that can contain value expressions
+     * (css) are only compressed if org.apache.myfaces.RESOURCE_FILTERED_CACHE_SIZE is set. It is not used in the
+     * Development project stage and should stay disabled if the container or a proxy already compresses the
+     * responses.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true,false", group="resources",
+            tags="performance")
+    public static final String RESOURCE_COMPRESSION = "org.apache.myfaces.RESOURCE_COMPRESSION";
+    private static final boolean RESOURCE_COMPRESSION_DEFAULT = false;
+
+    /**
+     * Add a hash of the content of the resources to their request path (parameter "h"). The hash is computed once
+     * per resource and kept with the cached resource. A request with the current hash is answered with a strong ETag
+     * and "Cache-Control: public, max-age=31536000, immutable", so the browser never revalidates it: a changed
+     * resource gets a new url. The ETag is also used for If-None-Match, which unlike Last-Modified does not depend on
+     * the file timestamps of each cluster node. It is only used in the Production project stage.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true,false", group="resources",
+            tags="performance")
+    public static final String RESOURCE_CONTENT_HASH = "org.apache.myfaces.RESOURCE_CONTENT_HASH";
+    private static final boolean RESOURCE_CONTENT_HASH_DEFAULT = false;
+
+    /**
+     * The maximum number of bytes of the css resources (and the other resources that could contain value
+     * expressions) kept in memory after the evaluation of their expressions, like #{resource['lib:image.png']}.
+     * The expressions of a resource are evaluated once per library, contract and locale, so they must not depend on
+     * the request, like #{request.contextPath} or a theme of the session do. The cache is not used in the
+     * Development project stage. 0 (the default) disables it, 2097152 (2 MB) is a reasonable size to enable it.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="0", group="resources", tags="performance")
+    public static final String RESOURCE_FILTERED_CACHE_SIZE = "org.apache.myfaces.RESOURCE_FILTERED_CACHE_SIZE";
+    private static final int RESOURCE_FILTERED_CACHE_SIZE_DEFAULT = 0;
+
+    /**
+     * Render the consecutive h:outputScript and h:outputStylesheet resources relocated to the head or the body of
+     * the page as a single combined resource, with one request instead of one per resource. The url of a combined
+     * resource is named after the hash of its content and lists the resources it contains. Only the combinations
+     * rendered by the application are served, so in a cluster the resource requests must reach a node that rendered
+     * the page (session affinity). Each combination is built once and kept in a cache of
+     * org.apache.myfaces.RESOURCE_HANDLER_CACHE_SIZE entries, compressed copies included. Resources of the
+     * jakarta.faces library, of contracts, localized resources, stylesheets with a media attribute or with
+     * &#64;import or &#64;charset rules, scripts with a directive prologue ("use strict") and components with an id
+     * or pass through attributes are rendered as usual. Stylesheets and the other resources that can contain value
+     * expressions are only combined if org.apache.myfaces.RESOURCE_FILTERED_CACHE_SIZE is set.
+     * Relative urls in the stylesheets are rewritten to the location of the original stylesheet. It is not used in
+     * the Development project stage nor in ajax requests.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true,false", group="resources",
+            tags="performance")
+    public static final String RESOURCE_COMBINING = "org.apache.myfaces.RESOURCE_COMBINING";
+    private static final boolean RESOURCE_COMBINING_DEFAULT = false;
+    
     /**
      * Allow use flash scope to keep track of the views used in session and the previous ones,
      * so server side state saving can delete old views even if POST-REDIRECT-GET pattern is used.
@@ -845,6 +1047,23 @@ public class MyfacesConfig
     private String randomKeyInCsrfSessionToken = RANDOM_KEY_IN_CSRF_SESSION_TOKEN_DEFAULT;
     private boolean serializeStateInSession = false;
     private boolean compressStateInSession = COMPRESS_STATE_IN_SESSION_DEFAULT;
+    private String viewStateStore = VIEW_STATE_STORE_DEFAULT;
+    private int viewStateStoreSize = VIEW_STATE_STORE_SIZE_DEFAULT;
+    private boolean concurrentSerializedViewCollection = CONCURRENT_SERIALIZED_VIEW_COLLECTION_DEFAULT;
+    private boolean deltaStateInSession = DELTA_STATE_IN_SESSION_DEFAULT;
+    private int faceletsCacheSize = FACELETS_CACHE_SIZE_DEFAULT;
+    private boolean faceletsPrecompiled = FACELETS_PRECOMPILED_DEFAULT;
+    private boolean viewWarmUp = VIEW_WARM_UP_DEFAULT;
+    private int viewWarmUpThreads = Runtime.getRuntime().availableProcessors();
+    private boolean viewWarmUpBuildView = VIEW_WARM_UP_BUILD_VIEW_DEFAULT;
+    private boolean writeResponseToOutputStream = WRITE_RESPONSE_TO_OUTPUT_STREAM_DEFAULT;
+    private boolean watchFileChanges = WATCH_FILE_CHANGES_DEFAULT;
+    private int renderCacheSize = RENDER_CACHE_SIZE_DEFAULT;
+    private boolean viewPrototype = VIEW_PROTOTYPE_DEFAULT;
+    private boolean resourceCompression = RESOURCE_COMPRESSION_DEFAULT;
+    private boolean resourceContentHash = RESOURCE_CONTENT_HASH_DEFAULT;
+    private int resourceFilteredCacheSize = RESOURCE_FILTERED_CACHE_SIZE_DEFAULT;
+    private boolean resourceCombining = RESOURCE_COMBINING_DEFAULT;
     private boolean useFlashScopePurgeViewsInSession = USE_FLASH_SCOPE_PURGE_VIEWS_IN_SESSION_DEFAULT;
     private boolean autocompleteOffViewState = AUTOCOMPLETE_OFF_VIEW_STATE_DEFAULT;
     private long resourceMaxTimeExpires = RESOURCE_MAX_TIME_EXPIRES_DEFAULT;
@@ -1171,6 +1390,28 @@ public class MyfacesConfig
         
         cfg.compressStateInSession = getBoolean(extCtx, COMPRESS_STATE_IN_SESSION,
                 COMPRESS_STATE_IN_SESSION_DEFAULT);
+
+        cfg.viewStateStore = getString(extCtx, VIEW_STATE_STORE, VIEW_STATE_STORE_DEFAULT);
+        cfg.viewStateStoreSize = getInt(extCtx, VIEW_STATE_STORE_SIZE, VIEW_STATE_STORE_SIZE_DEFAULT);
+        cfg.concurrentSerializedViewCollection = getBoolean(extCtx, CONCURRENT_SERIALIZED_VIEW_COLLECTION,
+                CONCURRENT_SERIALIZED_VIEW_COLLECTION_DEFAULT);
+        cfg.deltaStateInSession = getBoolean(extCtx, DELTA_STATE_IN_SESSION, DELTA_STATE_IN_SESSION_DEFAULT);
+        cfg.faceletsCacheSize = getInt(extCtx, FACELETS_CACHE_SIZE, FACELETS_CACHE_SIZE_DEFAULT);
+        cfg.faceletsPrecompiled = getBoolean(extCtx, FACELETS_PRECOMPILED, FACELETS_PRECOMPILED_DEFAULT);
+        cfg.viewWarmUp = getBoolean(extCtx, VIEW_WARM_UP, VIEW_WARM_UP_DEFAULT);
+        cfg.viewWarmUpThreads = getInt(extCtx, VIEW_WARM_UP_THREADS, Runtime.getRuntime().availableProcessors());
+        cfg.viewWarmUpBuildView = getBoolean(extCtx, VIEW_WARM_UP_BUILD_VIEW, VIEW_WARM_UP_BUILD_VIEW_DEFAULT);
+        cfg.writeResponseToOutputStream = getBoolean(extCtx, WRITE_RESPONSE_TO_OUTPUT_STREAM,
+                WRITE_RESPONSE_TO_OUTPUT_STREAM_DEFAULT);
+        cfg.watchFileChanges = getBoolean(extCtx, WATCH_FILE_CHANGES, WATCH_FILE_CHANGES_DEFAULT);
+        cfg.renderCacheSize = getInt(extCtx, RENDER_CACHE_SIZE, RENDER_CACHE_SIZE_DEFAULT);
+        cfg.viewPrototype = getBoolean(extCtx, VIEW_PROTOTYPE, VIEW_PROTOTYPE_DEFAULT);
+        cfg.resourceCompression = getBoolean(extCtx, RESOURCE_COMPRESSION, RESOURCE_COMPRESSION_DEFAULT);
+        cfg.resourceContentHash = getBoolean(extCtx, RESOURCE_CONTENT_HASH, RESOURCE_CONTENT_HASH_DEFAULT)
+                && cfg.projectStage == ProjectStage.Production;
+        cfg.resourceFilteredCacheSize = getInt(extCtx, RESOURCE_FILTERED_CACHE_SIZE,
+                RESOURCE_FILTERED_CACHE_SIZE_DEFAULT);
+        cfg.resourceCombining = getBoolean(extCtx, RESOURCE_COMBINING, RESOURCE_COMBINING_DEFAULT);
         
         cfg.useFlashScopePurgeViewsInSession = getBoolean(extCtx, USE_FLASH_SCOPE_PURGE_VIEWS_IN_SESSION,
                 USE_FLASH_SCOPE_PURGE_VIEWS_IN_SESSION_DEFAULT);
@@ -1660,6 +1901,91 @@ public class MyfacesConfig
         return compressStateInSession;
     }
 
+    public String getViewStateStore()
+    {
+        return viewStateStore;
+    }
+
+    public int getViewStateStoreSize()
+    {
+        return viewStateStoreSize;
+    }
+
+    public boolean isConcurrentSerializedViewCollection()
+    {
+        return concurrentSerializedViewCollection;
+    }
+
+    public boolean isDeltaStateInSession()
+    {
+        return deltaStateInSession;
+    }
+
+    public int getFaceletsCacheSize()
+    {
+        return faceletsCacheSize;
+    }
+
+    public boolean isFaceletsPrecompiled()
+    {
+        return faceletsPrecompiled;
+    }
+
+    public boolean isViewWarmUp()
+    {
+        return viewWarmUp;
+    }
+
+    public int getViewWarmUpThreads()
+    {
+        return viewWarmUpThreads;
+    }
+
+    public boolean isViewWarmUpBuildView()
+    {
+        return viewWarmUpBuildView;
+    }
+
+    public boolean isWriteResponseToOutputStream()
+    {
+        return writeResponseToOutputStream;
+    }
+
+    public boolean isWatchFileChanges()
+    {
+        return watchFileChanges;
+    }
+
+    public int getRenderCacheSize()
+    {
+        return renderCacheSize;
+    }
+
+    public boolean isViewPrototype()
+    {
+        return viewPrototype;
+    }
+
+    public boolean isResourceCompression()
+    {
+        return resourceCompression;
+    }
+
+    public boolean isResourceContentHash()
+    {
+        return resourceContentHash;
+    }
+
+    public int getResourceFilteredCacheSize()
+    {
+        return resourceFilteredCacheSize;
+    }
+
+    public boolean isResourceCombining()
+    {
+        return resourceCombining;
+    }
+
     public boolean isUseFlashScopePurgeViewsInSession()
     {
         return useFlashScopePurgeViewsInSession;
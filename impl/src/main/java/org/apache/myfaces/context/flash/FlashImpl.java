@@ -39,6 +39,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 import jakarta.faces.event.PostKeepFlashValueEvent;
 import jakarta.faces.event.PostPutFlashValueEvent;
@@ -73,6 +75,12 @@ public class FlashImpl extends Flash implements ReleasableFlash
      */
     static final String FLASH_INSTANCE = FLASH_PREFIX + ".INSTANCE";
 
+    /**
+     * Guards the creation of the instance stored under FLASH_INSTANCE. A lock is used
+     * instead of a monitor on the ApplicationMap, so virtual threads are not pinned.
+     */
+    private static final Lock FLASH_INSTANCE_LOCK = new ReentrantLock();
+
     /**
      * Key to store if this setRedirect(true) was called on this request,
      * and to store the redirect Cookie.
@@ -147,9 +155,10 @@ public class FlashImpl extends Flash implements ReleasableFlash
         Flash flash = (Flash) applicationMap.get(FLASH_INSTANCE);
         if (flash == null && create)
         {
-            // synchronize the ApplicationMap to ensure that only
-            // once instance of FlashImpl is created and stored in it.
-            synchronized (applicationMap)
+            // lock to ensure that only once instance of FlashImpl
+            // is created and stored in the ApplicationMap.
+            FLASH_INSTANCE_LOCK.lock();
+            try
             {
                 // check again, because first try was un-synchronized
                 flash = (Flash) applicationMap.get(FLASH_INSTANCE);
@@ -159,6 +168,10 @@ public class FlashImpl extends Flash implements ReleasableFlash
                     applicationMap.put(FLASH_INSTANCE, flash);
                 }
             }
+            finally
+            {
+                FLASH_INSTANCE_LOCK.unlock();
+            }
         }
 
         return flash;
@@ -42,6 +42,7 @@ import org.apache.myfaces.core.api.shared.lang.Assert;
 import org.apache.myfaces.core.api.shared.lang.SharedStringBuilder;
 import org.apache.myfaces.util.lang.EnumerationIterator;
 import org.apache.myfaces.util.lang.StringUtils;
+import org.apache.myfaces.util.lang.Utf8OutputStreamWriter;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -51,6 +52,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -61,6 +63,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -94,6 +97,7 @@ public final class ServletExternalContextImpl extends ServletExternalContextImpl
     private FlashFactory _flashFactory;
     private Flash _flash;
     private FacesContext _currentFacesContext;
+    private Utf8OutputStreamWriter _responseOutputWriter;
 
     public ServletExternalContextImpl(final ServletContext servletContext, 
             final ServletRequest servletRequest,
@@ -140,6 +144,19 @@ public final class ServletExternalContextImpl extends ServletExternalContextImpl
     {
         super.release(); // releases fields on ServletExternalContextImplBase
         
+        if (_responseOutputWriter != null)
+        {
+            try
+            {
+                _responseOutputWriter.close();
+            }
+            catch (IOException e)
+            {
+                // usually the client closed the connection
+                log.log(Level.FINE, "Cannot write the end of the response", e);
+            }
+            _responseOutputWriter = null;
+        }
         _currentFacesContext = null;
         _servletRequest = null;
         _servletResponse = null;
@@ -216,6 +233,11 @@ public final class ServletExternalContextImpl extends ServletExternalContextImpl
     @Override
     public OutputStream getResponseOutputStream() throws IOException
     {
+        if (_responseOutputWriter != null)
+        {
+            // keep the order of what has been written
+            _responseOutputWriter.flush();
+        }
         return _servletResponse.getOutputStream();
     }
 
@@ -225,6 +247,23 @@ public final class ServletExternalContextImpl extends ServletExternalContextImpl
     @Override
     public Writer getResponseOutputWriter() throws IOException
     {
+        if (_responseOutputWriter != null)
+        {
+            return _responseOutputWriter;
+        }
+        if (StandardCharsets.UTF_8.name().equalsIgnoreCase(_servletResponse.getCharacterEncoding())
+                && MyfacesConfig.getCurrentInstance(this).isWriteResponseToOutputStream())
+        {
+            try
+            {
+                _responseOutputWriter = new Utf8OutputStreamWriter(_servletResponse.getOutputStream());
+                return _responseOutputWriter;
+            }
+            catch (IllegalStateException e)
+            {
+                // getWriter() has already been called
+            }
+        }
         return _servletResponse.getWriter();
     }
 
@@ -608,6 +647,10 @@ public final class ServletExternalContextImpl extends ServletExternalContextImpl
     public void responseFlushBuffer() throws IOException
     {
         checkHttpServletResponse();
+        if (_responseOutputWriter != null)
+        {
+            _responseOutputWriter.flush();
+        }
         _httpServletResponse.flushBuffer();
     }
 
@@ -618,6 +661,10 @@ public final class ServletExternalContextImpl extends ServletExternalContextImpl
     public void responseReset()
     {
         checkHttpServletResponse();
+        if (_responseOutputWriter != null)
+        {
+            _responseOutputWriter.reset();
+        }
         _httpServletResponse.reset();
     }
 
@@ -628,6 +675,11 @@ public final class ServletExternalContextImpl extends ServletExternalContextImpl
     public void responseSendError(int statusCode, String message) throws IOException
     {
         checkHttpServletResponse();
+        if (_responseOutputWriter != null)
+        {
+            // sendError() clears the buffer of the response, the content buffered here is discarded too
+            _responseOutputWriter.reset();
+        }
         if (message == null)
         {
             _httpServletResponse.sendError(statusCode);
@@ -37,6 +37,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -59,6 +61,13 @@ public class WebsocketSessionManager
 
     private Lazy<ConcurrentHashMap<UserChannelKey, ConcurrentMap<String, Integer>>> userMap;
     private Queue<String> restoreQueue;
+    private final Lock sessionMapLock = new ReentrantLock();
+
+    /**
+     * User property of a Session with the Lock used to retry sends, locks are used instead of
+     * monitors, which pin the carrier thread when the sender is a virtual thread.
+     */
+    private static final String SEND_LOCK = WebsocketSessionManager.class.getName() + ".SEND_LOCK";
 
     private static final CloseReason REASON_EXPIRED = new CloseReason(NORMAL_CLOSURE, "Expired");
 
@@ -99,40 +108,32 @@ public class WebsocketSessionManager
     {
         UserChannelKey userChannelKey = new UserChannelKey(user, channel);
 
-        ConcurrentMap<String, Integer> channelTokenMap = getUserMap().computeIfAbsent(userChannelKey,
-                k -> new ConcurrentHashMap<>(1));
-        // +1 for new connection of user
-        channelTokenMap.compute(channelToken, (key, value) -> value == null ? 1 : ++value);
+        getUserMap().compute(userChannelKey, (key, channelTokenMap) ->
+        {
+            if (channelTokenMap == null)
+            {
+                channelTokenMap = new ConcurrentHashMap<>(1);
+            }
+            // +1 for new connection of user
+            channelTokenMap.merge(channelToken, 1, Integer::sum);
+            return channelTokenMap;
+        });
     }
 
     public void deregisterUser(Serializable user, String channel, String channelToken)
     {
         UserChannelKey userChannelKey = new UserChannelKey(user, channel);
 
-        synchronized (getUserMap())
+        // computeIfPresent is atomic for the key, so a concurrent registerUser() of the same
+        // user and channel never adds its token to a map that is being removed
+        getUserMap().computeIfPresent(userChannelKey, (key, channelTokenMap) ->
         {
-            ConcurrentMap<String, Integer> channelTokenMap = getUserMap().get(userChannelKey);
-            if (channelTokenMap != null)
-            {
-                int value = channelTokenMap.get(channelToken);
-                if (value == 1)
-                {
-                    // let's remove it from the map
-                    channelTokenMap.remove(channelToken);
-                }
-                else
-                {
-                    // -1 for connection of user
-                    channelTokenMap.put(channelToken, --value);
-                }
+            // -1 for connection of user, the token is removed with its last connection
+            channelTokenMap.computeIfPresent(channelToken, (token, value) -> value > 1 ? value - 1 : null);
 
-                // let's remove channelToken if no more user connections
-                if (channelTokenMap.isEmpty())
-                {
-                    getUserMap().remove(userChannelKey);
-                }
-            }
-        }
+            // let's remove channelToken if no more user connections
+            return channelTokenMap.isEmpty() ? null : channelTokenMap;
+        });
     }
 
     public Set<String> getChannelTokensForUser(Serializable user, String channel)
@@ -148,7 +149,8 @@ public class WebsocketSessionManager
         ConcurrentLRUCache<String, Collection<Reference<Session>>> newSessionMap
                 = new ConcurrentLRUCache<>((size * 4 + 3) / 3, size);
         
-        synchronized (sessionMap)
+        sessionMapLock.lock();
+        try
         {
             if (sessionMap.isInitialized())
             {
@@ -179,6 +181,10 @@ public class WebsocketSessionManager
             
             sessionMap.reset(newSessionMap);
         }
+        finally
+        {
+            sessionMapLock.unlock();
+        }
     }
 
     public void clearSessions()
@@ -339,10 +345,17 @@ public class WebsocketSessionManager
         {
             if (isTomcatWebSocketBombed(session, e))
             {
-                synchronized (session)
+                Lock sendLock = (Lock) session.getUserProperties().computeIfAbsent(SEND_LOCK,
+                        k -> new ReentrantLock());
+                sendLock.lock();
+                try
                 {
                     send(session, text, results, retries + 1);
                 }
+                finally
+                {
+                    sendLock.unlock();
+                }
             }
             else
             {
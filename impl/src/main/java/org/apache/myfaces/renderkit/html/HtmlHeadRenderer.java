@@ -31,6 +31,7 @@ import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFRendere
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.renderkit.html.util.HTML;
 import org.apache.myfaces.renderkit.html.util.HtmlRendererUtils;
+import org.apache.myfaces.renderkit.html.util.ResourceUtils;
 
 /**
  * Renderer used by h:head component
@@ -78,11 +79,7 @@ public class HtmlHeadRenderer extends Renderer
         UIViewRoot root = facesContext.getViewRoot();
 
         List<UIComponent> componentResources = root.getComponentResources(facesContext, "head");
-        for (int i = 0, childCount = componentResources.size(); i < childCount; i++)
-        {
-            UIComponent child = componentResources.get(i);
-            child.encodeAll(facesContext);
-        }
+        ResourceUtils.encodeComponentResources(facesContext, componentResources);
         
         writer.endElement(HTML.HEAD_ELEM);
 
@@ -159,30 +159,22 @@ public class HtmlRenderKitImpl extends RenderKit implements LazyRenderKit
      * @param rendererType
      * @param renderer
      */
-    synchronized private void _put(String componentFamily, String rendererType, Renderer renderer)
+    private void _put(String componentFamily, String rendererType, Renderer renderer)
     {
-        Map <String,Renderer> familyRendererMap = _renderers.get(componentFamily);
-        if (familyRendererMap == null)
+        Map <String,Renderer> familyRendererMap = _renderers.computeIfAbsent(componentFamily,
+                k -> new ConcurrentHashMap<>(8, 0.75f, 1));
+        if (familyRendererMap.put(rendererType, renderer) != null)
         {
-            familyRendererMap = new ConcurrentHashMap<>(8, 0.75f, 1);
-            _renderers.put(componentFamily, familyRendererMap);
-        }
-        else
-        {
-            if (familyRendererMap.get(rendererType) != null)
+            // this is not necessarily an error, but users do need to be
+            // very careful about jar processing order when overriding
+            // some component's renderer with an alternate renderer.
+            if (log.isLoggable(Level.FINE))
             {
-                // this is not necessarily an error, but users do need to be
-                // very careful about jar processing order when overriding
-                // some component's renderer with an alternate renderer.
-                if (log.isLoggable(Level.FINE))
-                {
-                    log.fine("Overwriting renderer with family = " + componentFamily +
-                       " rendererType = " + rendererType +
-                       " renderer class = " + renderer.getClass().getName());
-                }
+                log.fine("Overwriting renderer with family = " + componentFamily +
+                   " rendererType = " + rendererType +
+                   " renderer class = " + renderer.getClass().getName());
             }
         }
-        familyRendererMap.put(rendererType, renderer);
     }
 
     @Override
@@ -36,10 +36,12 @@ import jakarta.faces.render.Renderer;
 
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.renderkit.html.util.CommonHtmlEventsUtil;
+import org.apache.myfaces.renderkit.html.util.EscapedText;
 import org.apache.myfaces.core.api.shared.ComponentUtils;
 import org.apache.myfaces.renderkit.ContentTypeUtils;
 import org.apache.myfaces.renderkit.html.util.UnicodeEncoder;
 import org.apache.myfaces.util.CommentUtils;
+import org.apache.myfaces.util.lang.PreEncodedWriter;
 import org.apache.myfaces.util.lang.StreamCharBuffer;
 import org.apache.myfaces.renderkit.html.util.HTML;
 import org.apache.myfaces.renderkit.html.util.HTMLEncoder;
@@ -804,6 +806,30 @@ public class HtmlResponseWriterImpl extends ResponseWriter
         }
     }
     
+    /**
+     * Same as writeAttribute(name, value.getText(), null), with the value escaped in advance.
+     */
+    public void writeAttribute(String name, EscapedText value) throws IOException
+    {
+        Assert.notNull(name, "name");
+
+        if (!_startTagOpen)
+        {
+            throw new IllegalStateException("Must be called before the start element is closed (attribute '"
+                    + name + "')");
+        }
+        if (_passThroughAttributesMap != null && _passThroughAttributesMap.containsKey(name))
+        {
+            return;
+        }
+
+        _currentWriter.write(' ');
+        _currentWriter.write(name);
+        _currentWriter.write("=\"");
+        writeEscaped(value);
+        _currentWriter.write('"');
+    }
+
     private void encodeAndWriteAttribute(String name, Object value) throws IOException
     {
         _currentWriter.write(' ');
@@ -891,6 +917,48 @@ public class HtmlResponseWriterImpl extends ResponseWriter
         }
     }
 
+    /**
+     * Same as writeText(text.getText(), null), with the text escaped in advance, which is used to write
+     * the literal text of the facelets.
+     */
+    public void writeText(EscapedText text) throws IOException
+    {
+        Assert.notNull(text, "text");
+
+        closeStartTagIfNecessary();
+
+        if (isScriptOrStyle())
+        {
+            // Don't bother encoding anything if chosen character encoding is UTF-8
+            if (_isUTF8)
+            {
+                _currentWriter.write(text.getText());
+            }
+            else
+            {
+                UnicodeEncoder.encode(_currentWriter, text.getText());
+            }
+        }
+        else
+        {
+            writeEscaped(text);
+        }
+    }
+
+    private void writeEscaped(EscapedText text) throws IOException
+    {
+        if (_isUTF8 && _currentWriter instanceof PreEncodedWriter preEncodedWriter)
+        {
+            // e.g. the response is written to the OutputStream, no need to encode the text again
+            preEncodedWriter.write(text.getEscaped(false), text.getUtf8());
+        }
+        else
+        {
+            char[] escaped = text.getEscaped(!_isUTF8);
+            _currentWriter.write(escaped, 0, escaped.length);
+        }
+    }
+
     @Override
     public void writeText(char[] cbuf, int off, int len) throws IOException
     {
@@ -149,14 +149,9 @@ public class HtmlBodyRendererBase extends HtmlRenderer
         // Perf: use indexes for iteration over children,
         // componentResources are jakarta.faces.component._ComponentChildrenList._ComponentChildrenList(UIComponent)  
         List<UIComponent> componentResources = root.getComponentResources(facesContext, HTML.BODY_TARGET);
-        int childrenCount = componentResources.size();
-        if (childrenCount > 0)
+        if (!componentResources.isEmpty())
         {
-            for (int i = 0; i < childrenCount; i++)
-            {
-                UIComponent child = componentResources.get(i);
-                child.encodeAll(facesContext);
-            }
+            ResourceUtils.encodeComponentResources(facesContext, componentResources);
         }
 
         CommonHtmlEventsUtil.flushDeferredCspBehaviorScripts(facesContext, writer);
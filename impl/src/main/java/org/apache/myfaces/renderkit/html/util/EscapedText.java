@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.renderkit.html.util;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A text that never changes, like the literal text of a facelet, together with its escaped form, so it is
+ * escaped once instead of every time it is written. The text is escaped as
+ * {@link HTMLEncoder#encode(java.io.Writer, String, boolean, boolean, boolean)} does it for
+ * {@link org.apache.myfaces.renderkit.html.HtmlResponseWriterImpl#writeText(Object, String)} and
+ * {@link org.apache.myfaces.renderkit.html.HtmlResponseWriterImpl#writeAttribute(String, Object, String)}.
+ *
+ * <p>The form used for response encodings other than UTF-8 (non latin characters as character references)
+ * and the UTF-8 encoded form, for writers that write bytes, are only created when they are needed for the
+ * first time.</p>
+ */
+public final class EscapedText
+{
+    private final String text;
+    private final char[] escaped;
+    private volatile char[] escapedNonLatin;
+    private volatile byte[] utf8;
+
+    public EscapedText(String text)
+    {
+        this.text = text;
+        this.escaped = escape(text, false);
+    }
+
+    public String getText()
+    {
+        return text;
+    }
+
+    /**
+     * @param encodeNonLatin if the characters outside of the basic latin block must be written as
+     *                       character references, as it is done if the response encoding is not UTF-8
+     * @return the escaped text, which must not be modified
+     */
+    public char[] getEscaped(boolean encodeNonLatin)
+    {
+        if (!encodeNonLatin)
+        {
+            return escaped;
+        }
+
+        char[] result = escapedNonLatin;
+        if (result == null)
+        {
+            // Threads can create it at the same time, all of them create the same content
+            result = isBasicLatin(text) ? escaped : escape(text, true);
+            escapedNonLatin = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return the escaped text encoded to UTF-8, which must not be modified
+     */
+    public byte[] getUtf8()
+    {
+        byte[] result = utf8;
+        if (result == null)
+        {
+            result = new String(escaped).getBytes(StandardCharsets.UTF_8);
+            utf8 = result;
+        }
+        return result;
+    }
+
+    private static boolean isBasicLatin(String text)
+    {
+        for (int i = 0; i < text.length(); i++)
+        {
+            if (text.charAt(i) > 0x80)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char[] escape(String text, boolean encodeNonLatin)
+    {
+        try
+        {
+            CharArrayWriter writer = new CharArrayWriter(text.length() + 16);
+            HTMLEncoder.encode(writer, text, false, false, encodeNonLatin);
+            return writer.toCharArray();
+        }
+        catch (IOException e)
+        {
+            // CharArrayWriter does not throw IOException
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return text;
+    }
+}
@@ -97,102 +97,35 @@ public abstract class HTMLEncoder
             return "";
         }
 
-        StringBuilder sb = null;    //create later on demand
-        String app;
-        char c = ' ';
-        char prevC;
+        int mask = escapeMask(encodeNewline, encodeSubsequentBlanksToNbsp);
         int length = string.length();
-        for (int i = 0; i < length; ++i)
+        int i = indexOfEscape(string, 0, length, mask, encodeNonLatin);
+        if (i == length)
         {
-            app = null;
-            prevC = c;
-            c = string.charAt(i);
-            
-            // All characters before letters
-            if ((int)c < 0x41)
-            {
-                switch (c)
-                {
-                    case '"': app = "&quot;"; break;    //"
-                    case '&': app = "&amp;"; break;     //&
-                    case '<': app = "&lt;"; break;      //<
-                    case '>': app = "&gt;"; break;      //>
-                    case ' ':
-                        if (encodeSubsequentBlanksToNbsp && prevC == ' ')
-                        {
-                            //Space at beginning or after another space
-                            app = "&#160;";
-                        }
-                        break;
-                    case '\n':
-                        if (encodeNewline)
-                        {
-                            app = "<br/>";
-                        }
-                        break;
-                    default:
-                        break;
-                }
-                // http://www.w3.org/MarkUp/html3/specialchars.html
-                // From C0 extension U+0000-U+001F only U+0009, U+000A and
-                // U+000D are valid control characters
-                if (c <= 0x1F && c != 0x09 && c != 0x0A && c != 0x0D)
-                {
-                    // Ignore escape character
-                    app = "";
-                }
-            }
-            else if (encodeNonLatin && (int)c > 0x80)
-            {
-                 switch(c)
-                 {
-                    //german umlauts
-                    case '\u00E4' : app = "&auml;";  break;
-                    case '\u00C4' : app = "&Auml;";  break;
-                    case '\u00F6' : app = "&ouml;";  break;
-                    case '\u00D6' : app = "&Ouml;";  break;
-                    case '\u00FC' : app = "&uuml;";  break;
-                    case '\u00DC' : app = "&Uuml;";  break;
-                    case '\u00DF' : app = "&szlig;"; break;
-
-                    //misc
-                    //case 0x80: app = "&euro;"; break;  sometimes euro symbol is ascii 128, should we support it?
-                    case '\u20AC': app = "&euro;";  break;
-                    case '\u00AB': app = "&laquo;"; break;
-                    case '\u00BB': app = "&raquo;"; break;
-                    case '\u00A0': app = "&#160;"; break;
+            return string;
+        }
 
-                    default :
-                        //encode all non basic latin characters
-                        app = "&#" + ((int)c) + ';';
-                    break;
-                }
-            }
-            if (app != null)
+        StringBuilder sb = SharedStringBuilder.get(context, SB_ENCODE, length + 16);
+        int start = 0;
+        while (i < length)
+        {
+            sb.append(string, start, i);
+            char c = string.charAt(i);
+            String app = escape(c);
+            if (app == null)
             {
-                if (sb == null)
-                {
-                    sb = SharedStringBuilder.get(context, SB_ENCODE, string.substring(0, i));
-                }
-                sb.append(app);
+                //encode all non basic latin characters
+                sb.append("&#").append((int) c).append(';');
             }
             else
             {
-                if (sb != null)
-                {
-                    sb.append(c);
-                }
+                sb.append(app);
             }
+            start = i + 1;
+            i = indexOfEscape(string, start, length, mask, encodeNonLatin);
         }
-
-        if (sb == null)
-        {
-            return string;
-        }
-        else
-        {
-            return sb.toString();
-        }
+        sb.append(string, start, length);
+        return sb.toString();
     }
     
     /**
@@ -255,96 +188,29 @@ public abstract class HTMLEncoder
             return;
         }
 
-        int start = 0;
-        String app;
-        char c = ' ';
-        char prevC;
+        int mask = escapeMask(encodeNewline, encodeSubsequentBlanksToNbsp);
         int length = string.length();
-        for (int i = 0; i < length; ++i)
+        int i = indexOfEscape(string, 0, length, mask, encodeNonLatin);
+        if (i == length)
         {
-            app = null;
-            prevC = c;
-            c = string.charAt(i);
-            
-            // All characters before letters
-            if ((int)c < 0x41)
-            {
-                switch (c)
-                {
-                    case '"': app = "&quot;"; break;    //"
-                    case '&': app = "&amp;"; break;     //&
-                    case '<': app = "&lt;"; break;      //<
-                    case '>': app = "&gt;"; break;      //>
-                    case ' ':
-                        if (encodeSubsequentBlanksToNbsp &&
-                                prevC == ' ')
-                        {
-                            //Space at beginning or after another space
-                            app = "&#160;";
-                        }
-                        break;
-                    case '\n':
-                        if (encodeNewline)
-                        {
-                            app = "<br/>";
-                        }
-                        break;
-                    default:
-                        break;
-                }
-                // http://www.w3.org/MarkUp/html3/specialchars.html
-                // From C0 extension U+0000-U+001F only U+0009, U+000A and
-                // U+000D are valid control characters
-                if (c <= 0x1F && c != 0x09 && c != 0x0A && c != 0x0D)
-                {
-                    // Ignore escape character
-                    app = "";
-                }
-            }
-            else if (encodeNonLatin && (int)c > 0x80)
-            {
-                 switch(c)
-                 {
-                    //german umlauts
-                    case '\u00E4' : app = "&auml;";  break;
-                    case '\u00C4' : app = "&Auml;";  break;
-                    case '\u00F6' : app = "&ouml;";  break;
-                    case '\u00D6' : app = "&Ouml;";  break;
-                    case '\u00FC' : app = "&uuml;";  break;
-                    case '\u00DC' : app = "&Uuml;";  break;
-                    case '\u00DF' : app = "&szlig;"; break;
-
-                    //misc
-                    //case 0x80: app = "&euro;"; break;  sometimes euro symbol is ascii 128, should we support it?
-                    case '\u20AC': app = "&euro;";  break;
-                    case '\u00AB': app = "&laquo;"; break;
-                    case '\u00BB': app = "&raquo;"; break;
-                    case '\u00A0': app = "&#160;"; break;
-
-                    default :
-                        //encode all non basic latin characters
-                        app = "&#" + ((int)c) + ';';
-                    break;
-                }
-            }
-            if (app != null)
-            {
-                if (start < i)
-                {
-                    writer.write(string, start, i-start);
-                }
-                start = i+1;
-                writer.write(app);
-            }
+            writer.write(string);
+            return;
         }
 
-        if (start == 0)
+        int start = 0;
+        while (i < length)
         {
-            writer.write(string);
+            if (start < i)
+            {
+                writer.write(string, start, i - start);
+            }
+            writeEscape(writer, string.charAt(i));
+            start = i + 1;
+            i = indexOfEscape(string, start, length, mask, encodeNonLatin);
         }
-        else if (start < length)
+        if (start < length)
         {
-            writer.write(string,start,length-start);
+            writer.write(string, start, length - start);
         }
     }
 
@@ -423,98 +289,165 @@ public abstract class HTMLEncoder
             return;
         }
         offset = Math.max(0, offset);
-        int realLength = Math.min(length, string.length - offset);
+        int end = offset + Math.min(length, string.length - offset);
 
-        String app;
-        char c = ' ';
-        char prevC;
+        int mask = escapeMask(encodeNewline, encodeSubsequentBlanksToNbsp);
         int start = offset;
-        
-        for (int i = offset; i < offset + realLength; ++i)
+        int i = indexOfEscape(string, offset, offset, end, mask, encodeNonLatin);
+        while (i < end)
         {
-            app = null;
-            prevC = c;
-            c = string[i];
-
-            // All characters before letters
-            if ((int)c < 0x41)
+            if (start < i)
             {
-                switch (c)
-                {
-                    case '"': app = "&quot;"; break;    //"
-                    case '&': app = "&amp;"; break;     //&
-                    case '<': app = "&lt;"; break;      //<
-                    case '>': app = "&gt;"; break;      //>
-                    case ' ':
-                        if (encodeSubsequentBlanksToNbsp &&
-                                prevC == ' ')
-                        {
-                            //Space at beginning or after another space
-                            app = "&#160;";
-                        }
-                        break;
-                    case '\n':
-                        if (encodeNewline)
-                        {
-                            app = "<br/>";
-                        }
-                        break;
-                    default:
-                        break;
-                }
-                // http://www.w3.org/MarkUp/html3/specialchars.html
-                // From C0 extension U+0000-U+001F only U+0009, U+000A and
-                // U+000D are valid control characters
-                if (c <= 0x1F && c != 0x09 && c != 0x0A && c != 0x0D)
-                {
-                    // Ignore escape character
-                    app = "";
-                }
+                writer.write(string, start, i - start);
             }
-            else if (encodeNonLatin && (int)c > 0x80)
+            writeEscape(writer, string[i]);
+            start = i + 1;
+            i = indexOfEscape(string, offset, start, end, mask, encodeNonLatin);
+        }
+        if (start < end)
+        {
+            writer.write(string, start, end - start);
+        }
+    }
+
+    /**
+     * Characters below 0x80 that are always escaped (or dropped, for the invalid control characters).
+     */
+    private static final byte ESCAPE_ALWAYS = 1;
+    /**
+     * A blank, escaped if encodeSubsequentBlanksToNbsp is set and it follows another blank.
+     */
+    private static final byte ESCAPE_BLANK = 2;
+    /**
+     * A newline, escaped if encodeNewline is set.
+     */
+    private static final byte ESCAPE_NEWLINE = 4;
+
+    private static final byte[] ESCAPE_TABLE = new byte[0x80];
+
+    static
+    {
+        // http://www.w3.org/MarkUp/html3/specialchars.html
+        // From C0 extension U+0000-U+001F only U+0009, U+000A and
+        // U+000D are valid control characters
+        for (int c = 0; c <= 0x1F; c++)
+        {
+            if (c != 0x09 && c != 0x0A && c != 0x0D)
             {
-                 switch(c)
-                 {
-                    //german umlauts
-                    case '\u00E4' : app = "&auml;";  break;
-                    case '\u00C4' : app = "&Auml;";  break;
-                    case '\u00F6' : app = "&ouml;";  break;
-                    case '\u00D6' : app = "&Ouml;";  break;
-                    case '\u00FC' : app = "&uuml;";  break;
-                    case '\u00DC' : app = "&Uuml;";  break;
-                    case '\u00DF' : app = "&szlig;"; break;
+                ESCAPE_TABLE[c] = ESCAPE_ALWAYS;
+            }
+        }
+        ESCAPE_TABLE['"'] = ESCAPE_ALWAYS;
+        ESCAPE_TABLE['&'] = ESCAPE_ALWAYS;
+        ESCAPE_TABLE['<'] = ESCAPE_ALWAYS;
+        ESCAPE_TABLE['>'] = ESCAPE_ALWAYS;
+        ESCAPE_TABLE[' '] = ESCAPE_BLANK;
+        ESCAPE_TABLE['\n'] = ESCAPE_NEWLINE;
+    }
 
-                    //misc
-                    //case 0x80: app = "&euro;"; break;  sometimes euro symbol is ascii 128, should we support it?
-                    case '\u20AC': app = "&euro;";  break;
-                    case '\u00AB': app = "&laquo;"; break;
-                    case '\u00BB': app = "&raquo;"; break;
-                    case '\u00A0': app = "&#160;"; break;
+    private static int escapeMask(boolean encodeNewline, boolean encodeSubsequentBlanksToNbsp)
+    {
+        return ESCAPE_ALWAYS
+                | (encodeSubsequentBlanksToNbsp ? ESCAPE_BLANK : 0)
+                | (encodeNewline ? ESCAPE_NEWLINE : 0);
+    }
 
-                    default :
-                        //encode all non basic latin characters
-                        app = "&#" + ((int)c) + ';';
-                    break;
+    /**
+     * Returns the index of the next character that has to be escaped, or end if there is none, so the
+     * characters in between can be written at once. A blank at the beginning of the text counts as
+     * following another blank.
+     */
+    private static int indexOfEscape(String string, int from, int end, int mask, boolean encodeNonLatin)
+    {
+        for (int i = from; i < end; i++)
+        {
+            char c = string.charAt(i);
+            if (c < 0x80)
+            {
+                if ((ESCAPE_TABLE[c] & mask) != 0 && (c != ' ' || i == 0 || string.charAt(i - 1) == ' '))
+                {
+                    return i;
                 }
             }
-            if (app != null)
+            else if (encodeNonLatin && c > 0x80)
             {
-                if (start < i)
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int indexOfEscape(char[] string, int offset, int from, int end, int mask,
+            boolean encodeNonLatin)
+    {
+        for (int i = from; i < end; i++)
+        {
+            char c = string[i];
+            if (c < 0x80)
+            {
+                if ((ESCAPE_TABLE[c] & mask) != 0 && (c != ' ' || i == offset || string[i - 1] == ' '))
                 {
-                    writer.write(string, start, i-start);
+                    return i;
                 }
-                start = i+1;
-                writer.write(app);
+            }
+            else if (encodeNonLatin && c > 0x80)
+            {
+                return i;
             }
         }
+        return end;
+    }
 
-        if (start == offset)
+    /**
+     * Returns the replacement of a character found by indexOfEscape, or null if it has to be written
+     * as numeric character reference.
+     */
+    private static String escape(char c)
+    {
+        switch (c)
         {
-            writer.write(string, offset, realLength);
+            case '"': return "&quot;";
+            case '&': return "&amp;";
+            case '<': return "&lt;";
+            case '>': return "&gt;";
+            case ' ': return "&#160;";
+            case '\n': return "<br/>";
+
+            //german umlauts
+            case '\u00E4' : return "&auml;";
+            case '\u00C4' : return "&Auml;";
+            case '\u00F6' : return "&ouml;";
+            case '\u00D6' : return "&Ouml;";
+            case '\u00FC' : return "&uuml;";
+            case '\u00DC' : return "&Uuml;";
+            case '\u00DF' : return "&szlig;";
+
+            //misc
+            //case 0x80: sometimes euro symbol is ascii 128, should we support it?
+            case '\u20AC': return "&euro;";
+            case '\u00AB': return "&laquo;";
+            case '\u00BB': return "&raquo;";
+            case '\u00A0': return "&#160;";
+
+            default:
+                // Ignore escape character
+                return c < 0x80 ? "" : null;
+        }
+    }
+
+    private static void writeEscape(Writer writer, char c) throws IOException
+    {
+        String app = escape(c);
+        if (app == null)
+        {
+            //encode all non basic latin characters
+            writer.write("&#");
+            writer.write(Integer.toString(c));
+            writer.write(';');
         }
-        else if (start < offset+realLength)
+        else if (!app.isEmpty())
         {
-            writer.write(string,start,offset+realLength-start);
+            writer.write(app);
         }
     }
     
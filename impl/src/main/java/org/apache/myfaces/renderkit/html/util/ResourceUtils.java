@@ -19,14 +19,20 @@
 package org.apache.myfaces.renderkit.html.util;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import jakarta.faces.FacesWrapper;
 
 import jakarta.faces.application.Resource;
 import jakarta.faces.application.ResourceHandler;
+import jakarta.faces.component.UIComponent;
 import jakarta.faces.context.FacesContext;
 import jakarta.faces.context.PartialViewContext;
 import jakarta.faces.context.ResponseWriter;
 
+import org.apache.myfaces.resource.CombinedResource;
+import org.apache.myfaces.resource.CombinedResourceCache;
 import org.apache.myfaces.resource.ContractResource;
 
 public class ResourceUtils
@@ -123,6 +129,189 @@ public class ResourceUtils
         facesContext.getAttributes().put(RENDERED_FACES_JS, Boolean.TRUE);
     }
 
+    /**
+     * Encodes the component resources of a target. With org.apache.myfaces.RESOURCE_COMBINING, the consecutive
+     * scripts and stylesheets that can be combined are rendered as a single combined resource.
+     */
+    public static void encodeComponentResources(FacesContext facesContext, List<UIComponent> componentResources)
+            throws IOException
+    {
+        PartialViewContext partialViewContext = facesContext.getPartialViewContext();
+        CombinedResourceCache cache = partialViewContext != null && partialViewContext.isAjaxRequest()
+                ? null
+                : CombinedResourceCache.getInstance(facesContext);
+        if (cache == null)
+        {
+            for (int i = 0, childCount = componentResources.size(); i < childCount; i++)
+            {
+                componentResources.get(i).encodeAll(facesContext);
+            }
+            return;
+        }
+
+        List<UIComponent> components = new ArrayList<>();
+        List<Resource> resources = new ArrayList<>();
+        String extension = null;
+        for (int i = 0, childCount = componentResources.size(); i < childCount; i++)
+        {
+            UIComponent child = componentResources.get(i);
+            String childExtension = getCombinableExtension(child);
+            Resource resource = childExtension == null
+                    ? null
+                    : createCombinableResource(facesContext, child, childExtension);
+            if (resource == null)
+            {
+                encodeCombined(facesContext, cache, components, resources, extension);
+                child.encodeAll(facesContext);
+                continue;
+            }
+            if (!childExtension.equals(extension))
+            {
+                encodeCombined(facesContext, cache, components, resources, extension);
+                extension = childExtension;
+            }
+            if (!containsResource(resources, resource))
+            {
+                components.add(child);
+                resources.add(resource);
+            }
+        }
+        encodeCombined(facesContext, cache, components, resources, extension);
+    }
+
+    private static String getCombinableExtension(UIComponent component)
+    {
+        if (!component.isRendered() || component.getChildCount() > 0)
+        {
+            return null;
+        }
+        String extension;
+        if (DEFAULT_SCRIPT_RENDERER_TYPE.equals(component.getRendererType()))
+        {
+            extension = CombinedResourceCache.SCRIPT_EXTENSION;
+        }
+        else if (DEFAULT_STYLESHEET_RENDERER_TYPE.equals(component.getRendererType()))
+        {
+            extension = CombinedResourceCache.STYLESHEET_EXTENSION;
+            if (component.getAttributes().get("media") != null)
+            {
+                return null;
+            }
+        }
+        else
+        {
+            return null;
+        }
+        String resourceName = (String) component.getAttributes().get(ComponentAttrs.NAME_ATTR);
+        if (resourceName == null || resourceName.indexOf('?') >= 0 || !resourceName.endsWith(extension))
+        {
+            return null;
+        }
+        // the id and the pass through attributes of the component would be lost in the combined element
+        if (CommonHtmlAttributesUtil.isIdRenderingNecessary(component))
+        {
+            return null;
+        }
+        Map<String, Object> passThroughAttributes = component.getPassThroughAttributes(false);
+        return passThroughAttributes == null || passThroughAttributes.isEmpty() ? extension : null;
+    }
+
+    private static Resource createCombinableResource(FacesContext facesContext, UIComponent component,
+            String extension)
+    {
+        String resourceName = (String) component.getAttributes().get(ComponentAttrs.NAME_ATTR);
+        String libraryName = (String) component.getAttributes().get(ComponentAttrs.LIBRARY_ATTR);
+        ResourceHandler resourceHandler = facesContext.getApplication().getResourceHandler();
+        if (resourceHandler.isResourceRendered(facesContext, resourceName, libraryName))
+        {
+            return null;
+        }
+        Resource resource = libraryName == null
+                ? resourceHandler.createResource(resourceName)
+                : resourceHandler.createResource(resourceName, libraryName);
+        if (resource == null || !CombinedResourceCache.isCombinable(resource, extension)
+                || resourceHandler.isResourceRendered(facesContext, resource.getResourceName(),
+                        resource.getLibraryName()))
+        {
+            return null;
+        }
+        return resource;
+    }
+
+    private static boolean containsResource(List<Resource> resources, Resource resource)
+    {
+        for (int i = 0; i < resources.size(); i++)
+        {
+            Resource r = resources.get(i);
+            if (resource.getResourceName().equals(r.getResourceName())
+                    && (resource.getLibraryName() == null
+                            ? r.getLibraryName() == null
+                            : resource.getLibraryName().equals(r.getLibraryName())))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void encodeCombined(FacesContext facesContext, CombinedResourceCache cache,
+            List<UIComponent> components, List<Resource> resources, String extension) throws IOException
+    {
+        if (components.isEmpty())
+        {
+            return;
+        }
+
+        CombinedResource combined = components.size() > 1
+                ? cache.get(facesContext, resources, extension)
+                : null;
+        if (combined == null)
+        {
+            for (int i = 0; i < components.size(); i++)
+            {
+                components.get(i).encodeAll(facesContext);
+            }
+        }
+        else
+        {
+            ResourceHandler resourceHandler = facesContext.getApplication().getResourceHandler();
+            for (int i = 0; i < components.size(); i++)
+            {
+                UIComponent component = components.get(i);
+                Resource resource = resources.get(i);
+                resourceHandler.markResourceRendered(facesContext,
+                        (String) component.getAttributes().get(ComponentAttrs.NAME_ATTR),
+                        (String) component.getAttributes().get(ComponentAttrs.LIBRARY_ATTR));
+                resourceHandler.markResourceRendered(facesContext, resource.getResourceName(),
+                        resource.getLibraryName());
+            }
+
+            ResponseWriter writer = facesContext.getResponseWriter();
+            String path = facesContext.getExternalContext().encodeResourceURL(combined.getRequestPath());
+            if (CombinedResourceCache.SCRIPT_EXTENSION.equals(extension))
+            {
+                writer.startElement(HTML.SCRIPT_ELEM, null);
+                HtmlRendererUtils.renderScriptType(facesContext, writer);
+                HtmlRendererUtils.renderNonce(facesContext, writer);
+                writer.writeURIAttribute(HTML.SRC_ATTR, path, null);
+                writer.endElement(HTML.SCRIPT_ELEM);
+            }
+            else
+            {
+                writer.startElement(HTML.LINK_ELEM, null);
+                writer.writeAttribute(HTML.REL_ATTR, HTML.STYLESHEET_VALUE, null);
+                if (!HtmlRendererUtils.isOutputHtml5Doctype(facesContext))
+                {
+                    writer.writeAttribute(HTML.TYPE_ATTR, HTML.STYLE_TYPE_TEXT_CSS, null);
+                }
+                writer.writeURIAttribute(HTML.HREF_ATTR, path, null);
+                writer.endElement(HTML.LINK_ELEM);
+            }
+        }
+        components.clear();
+        resources.clear();
+    }
+
     public static String getContractName(Resource resource)
     {
         while (resource != null)
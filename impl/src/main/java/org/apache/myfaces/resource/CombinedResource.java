@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.faces.application.Resource;
+import jakarta.faces.context.FacesContext;
+
+/**
+ * The concatenated content of several scripts or stylesheets, see org.apache.myfaces.RESOURCE_COMBINING. The
+ * resource name is the hash of the content followed by the extension of the combined resources.
+ *
+ * @since 5.0
+ */
+public class CombinedResource extends Resource
+{
+    /**
+     * The library name of the combined resources in their request path.
+     */
+    public static final String LIBRARY_NAME = "myfaces.combined";
+
+    /**
+     * The request parameter with the combined resources, as a comma separated list of library:name.
+     */
+    public static final String RESOURCES_PARAM = "r";
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private final String contentHash;
+    private final byte[] content;
+    private final String requestPath;
+    private final boolean requested;
+
+    CombinedResource(String contentHash, String extension, String contentType, byte[] content, String requestPath)
+    {
+        this.contentHash = contentHash;
+        this.content = content;
+        this.requestPath = requestPath;
+        this.requested = false;
+        setLibraryName(LIBRARY_NAME);
+        setResourceName(contentHash + extension);
+        setContentType(contentType);
+    }
+
+    private CombinedResource(CombinedResource resource, boolean requested)
+    {
+        this.contentHash = resource.contentHash;
+        this.content = resource.content;
+        this.requestPath = resource.requestPath;
+        this.requested = requested;
+        setLibraryName(LIBRARY_NAME);
+        setResourceName(resource.getResourceName());
+        setContentType(resource.getContentType());
+    }
+
+    public String getContentHash()
+    {
+        return contentHash;
+    }
+
+    @Override
+    public InputStream getInputStream()
+    {
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public Map<String, String> getResponseHeaders()
+    {
+        Map<String, String> headers = new HashMap<>(2, 1f);
+        headers.put("ETag", '"' + contentHash + '"');
+        // a url with an older hash is answered with the current content, the next page gets the new url
+        headers.put("Cache-Control", requested ? IMMUTABLE_CACHE_CONTROL : "no-cache");
+        return headers;
+    }
+
+    /**
+     * Returns this resource as the answer to a request for the given resource name.
+     */
+    CombinedResource forRequest(String resourceName)
+    {
+        return new CombinedResource(this, getResourceName().equals(resourceName));
+    }
+
+    @Override
+    public String getRequestPath()
+    {
+        return requestPath;
+    }
+
+    @Override
+    public URL getURL()
+    {
+        return null;
+    }
+
+    @Override
+    public boolean userAgentNeedsUpdate(FacesContext context)
+    {
+        String ifNoneMatch = context.getExternalContext().getRequestHeaderMap().get("If-None-Match");
+        return ifNoneMatch == null || !ResourceImpl.matchesContentHash(ifNoneMatch, contentHash);
+    }
+}
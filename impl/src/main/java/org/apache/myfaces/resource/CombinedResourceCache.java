@@ -0,0 +1,422 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.faces.FacesException;
+import jakarta.faces.application.ProjectStage;
+import jakarta.faces.application.Resource;
+import jakarta.faces.application.ResourceHandler;
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+
+import org.apache.myfaces.application.FacesServletMapping;
+import org.apache.myfaces.application.FacesServletMappingUtils;
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.spi.Cache;
+import org.apache.myfaces.spi.CacheProvider;
+import org.apache.myfaces.spi.CacheProviderFactory;
+import org.apache.myfaces.util.lang.Hex;
+
+/**
+ * Application wide cache of the combined scripts and stylesheets, by the list of the resources they contain
+ * (see org.apache.myfaces.RESOURCE_COMBINING).
+ *
+ * @since 5.0
+ */
+public class CombinedResourceCache
+{
+    private static final Logger log = Logger.getLogger(CombinedResourceCache.class.getName());
+
+    private static final String INSTANCE_KEY = CombinedResourceCache.class.getName();
+
+    public static final String SCRIPT_EXTENSION = ".js";
+    public static final String STYLESHEET_EXTENSION = ".css";
+
+    private static final Pattern CSS_URL = Pattern.compile("url\\(\\s*(['\"]?)([^'\")]*)\\1\\s*\\)");
+
+    private static final CombinedResource NOT_COMBINED = new CombinedResource("", "", null, new byte[0], null);
+
+    private final Cache<String, CombinedResource> cache;
+
+    /**
+     * The combinations rendered by the pages, by resource name. They are kept when the files change, so the
+     * urls of the pages rendered before can still be requested.
+     */
+    private final Cache<String, String> rendered;
+
+    private CombinedResourceCache(ExternalContext externalContext, int size)
+    {
+        CacheProvider cacheProvider = CacheProviderFactory.getCacheProviderFactory(externalContext)
+                .getCacheProvider(externalContext);
+        cache = cacheProvider.createCache("combinedResource", size);
+        rendered = cacheProvider.createCache("renderedCombinedResource", size);
+
+        FileChangeWatcher watcher = FileChangeWatcher.getInstance(externalContext);
+        if (watcher != null)
+        {
+            watcher.addListener((kind, file) -> cache.clear());
+        }
+    }
+
+    /**
+     * Returns the cache of the current application, or null if the resources are not combined.
+     */
+    public static CombinedResourceCache getInstance(FacesContext context)
+    {
+        Map<String, Object> applicationMap = context.getExternalContext().getApplicationMap();
+        Object instance = applicationMap.get(INSTANCE_KEY);
+        if (instance == null)
+        {
+            MyfacesConfig config = MyfacesConfig.getCurrentInstance(context);
+            if (config.isResourceCombining() && !context.isProjectStage(ProjectStage.Development))
+            {
+                instance = new CombinedResourceCache(context.getExternalContext(),
+                        config.getResourceHandlerCacheSize());
+            }
+            else
+            {
+                instance = Boolean.FALSE;
+            }
+            // a concurrent first request may replace it, which only loses the resources combined so far
+            applicationMap.put(INSTANCE_KEY, instance);
+        }
+        return instance instanceof CombinedResourceCache combinedResourceCache ? combinedResourceCache : null;
+    }
+
+    /**
+     * Checks if the resource can be part of a combined resource with the given extension: a resource served by
+     * the default ResourceHandler, outside of the jakarta.faces library, of contracts and of localized folders.
+     * Resources that can contain value expressions (css) are only combined if their filtered content is shared by
+     * all requests anyway (see org.apache.myfaces.RESOURCE_FILTERED_CACHE_SIZE).
+     */
+    public static boolean isCombinable(Resource resource, String extension)
+    {
+        if (!(resource instanceof ResourceImpl resourceImpl)
+                || resource.getResourceName() == null
+                || !resource.getResourceName().endsWith(extension)
+                || ResourceImpl.JAKARTA_FACES_LIBRARY_NAME.equals(resource.getLibraryName())
+                || CombinedResource.LIBRARY_NAME.equals(resource.getLibraryName())
+                || !resourceImpl.isContentShared(FacesContext.getCurrentInstance()))
+        {
+            return false;
+        }
+        ResourceMeta resourceMeta = resourceImpl.getResourceMeta();
+        return resourceMeta.getLocalePrefix() == null && resourceMeta.getContractName() == null;
+    }
+
+    /**
+     * Returns the combination of the resources, combining them if it is not cached, or null if they cannot be
+     * combined.
+     *
+     * @param extension SCRIPT_EXTENSION or STYLESHEET_EXTENSION, all resources must be combinable with it
+     */
+    public CombinedResource get(FacesContext context, List<Resource> resources, String extension) throws IOException
+    {
+        String resourceNames = getResourceNames(resources);
+        CombinedResource combined = get(context, resources, extension, resourceNames);
+        if (combined == NOT_COMBINED)
+        {
+            return null;
+        }
+        String key = extension + ' ' + resourceNames;
+        if (!key.equals(rendered.get(combined.getResourceName())))
+        {
+            rendered.put(combined.getResourceName(), key);
+        }
+        return combined;
+    }
+
+    /**
+     * Returns the combined resource requested by a client, or null if it was not rendered by a page of the
+     * application or the resources are not valid anymore.
+     *
+     * @param resourceName the requested resource name, the hash of the content and the extension
+     * @param resourceNames the value of the CombinedResource.RESOURCES_PARAM parameter
+     */
+    public Resource getForRequest(FacesContext context, String resourceName, String resourceNames)
+            throws IOException
+    {
+        if (resourceNames == null)
+        {
+            return null;
+        }
+        String extension;
+        if (resourceName.endsWith(SCRIPT_EXTENSION))
+        {
+            extension = SCRIPT_EXTENSION;
+        }
+        else if (resourceName.endsWith(STYLESHEET_EXTENSION))
+        {
+            extension = STYLESHEET_EXTENSION;
+        }
+        else
+        {
+            return null;
+        }
+
+        // any list of resources can be requested, only the combinations rendered by a page are built again
+        if (!(extension + ' ' + resourceNames).equals(rendered.get(resourceName)))
+        {
+            return null;
+        }
+
+        String[] names = resourceNames.split(",");
+        ResourceHandler resourceHandler = context.getApplication().getResourceHandler();
+        List<Resource> resources = new ArrayList<>(names.length);
+        for (String name : names)
+        {
+            int colon = name.indexOf(':');
+            String libraryName = colon < 0 ? null : name.substring(0, colon);
+            name = name.substring(colon + 1);
+            // the library name is validated by createResource
+            if (!ResourceValidationUtils.isValidResourceName(name))
+            {
+                return null;
+            }
+            Resource resource = libraryName == null
+                    ? resourceHandler.createResource(name)
+                    : resourceHandler.createResource(name, libraryName);
+            if (resource == null || !isCombinable(resource, extension))
+            {
+                return null;
+            }
+            resources.add(resource);
+        }
+
+        CombinedResource combined = get(context, resources, extension, resourceNames);
+        return combined == NOT_COMBINED ? null : combined.forRequest(resourceName);
+    }
+
+    private CombinedResource get(FacesContext context, List<Resource> resources, String extension,
+            String resourceNames) throws IOException
+    {
+        try
+        {
+            return cache.get(extension + ' ' + resourceNames, key ->
+            {
+                try
+                {
+                    return combine(context, resources, extension, resourceNames);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    private static String getResourceNames(List<Resource> resources)
+    {
+        StringBuilder names = new StringBuilder();
+        for (Resource resource : resources)
+        {
+            if (names.length() > 0)
+            {
+                names.append(',');
+            }
+            if (resource.getLibraryName() != null)
+            {
+                names.append(resource.getLibraryName()).append(':');
+            }
+            names.append(resource.getResourceName());
+        }
+        return names.toString();
+    }
+
+    private static CombinedResource combine(FacesContext context, List<Resource> resources, String extension,
+            String resourceNames) throws IOException
+    {
+        boolean stylesheet = STYLESHEET_EXTENSION.equals(extension);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Resource resource : resources)
+        {
+            byte[] content;
+            try (InputStream in = resource.getInputStream())
+            {
+                if (in == null)
+                {
+                    return NOT_COMBINED;
+                }
+                content = in.readAllBytes();
+            }
+
+            if (stylesheet)
+            {
+                String css = new String(content, StandardCharsets.UTF_8);
+                // both must be at the start of a stylesheet
+                if (css.contains("@import") || css.contains("@charset"))
+                {
+                    return NOT_COMBINED;
+                }
+                out.write(rewriteUrls(css, resource.getRequestPath()).getBytes(StandardCharsets.UTF_8));
+                out.write('\n');
+            }
+            else
+            {
+                if (hasDirectivePrologue(new String(content, StandardCharsets.UTF_8)))
+                {
+                    return NOT_COMBINED;
+                }
+                out.write(content);
+                // ends a trailing line comment or statement without semicolon
+                out.write('\n');
+                out.write(';');
+                out.write('\n');
+            }
+        }
+
+        byte[] content = out.toByteArray();
+        String contentHash = hash(content);
+        String contentType = stylesheet ? "text/css" : "text/javascript";
+        CombinedResource combined = new CombinedResource(contentHash, extension, contentType, content,
+                getRequestPath(context, contentHash + extension, resourceNames));
+        if (log.isLoggable(Level.FINE))
+        {
+            log.fine("Combined " + resources.size() + " resources in " + combined.getResourceName() + " ("
+                    + content.length + " bytes): " + resourceNames);
+        }
+        return combined;
+    }
+
+    /**
+     * Checks if the script starts with a directive prologue, like "use strict". Combined with other scripts, it
+     * would apply to the scripts after it, or not anymore to the script itself if it is not the first one.
+     */
+    static boolean hasDirectivePrologue(String script)
+    {
+        int i = 0;
+        int length = script.length();
+        while (i < length)
+        {
+            char c = script.charAt(i);
+            if (Character.isWhitespace(c) || c == '\uFEFF')
+            {
+                i++;
+            }
+            else if (script.startsWith("//", i))
+            {
+                int end = script.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            }
+            else if (script.startsWith("/*", i))
+            {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            }
+            else
+            {
+                return c == '"' || c == '\'';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Makes the relative urls of the stylesheet relative to the directory of its request path, where the browser
+     * would resolve them.
+     */
+    static String rewriteUrls(String css, String requestPath)
+    {
+        int query = requestPath.indexOf('?');
+        String path = query < 0 ? requestPath : requestPath.substring(0, query);
+        String base = path.substring(0, path.lastIndexOf('/') + 1);
+
+        Matcher matcher = CSS_URL.matcher(css);
+        StringBuilder sb = null;
+        while (matcher.find())
+        {
+            String url = matcher.group(2).trim();
+            if (url.isEmpty() || url.startsWith("/") || url.startsWith("#") || url.indexOf(':') >= 0)
+            {
+                continue;
+            }
+            if (sb == null)
+            {
+                sb = new StringBuilder(css.length() + 256);
+            }
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(
+                    "url(" + matcher.group(1) + base + url + matcher.group(1) + ')'));
+        }
+        if (sb == null)
+        {
+            return css;
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static String hash(byte[] content)
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return new String(Hex.encodeHex(Arrays.copyOf(digest, 8)));
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new FacesException(e);
+        }
+    }
+
+    private static String getRequestPath(FacesContext context, String resourceName, String resourceNames)
+    {
+        FacesServletMapping mapping = FacesServletMappingUtils.getCurrentRequestFacesServletMapping(context);
+        if (mapping.isExactMapping())
+        {
+            // resources can't be exact, lets fallback to a generic one
+            mapping = FacesServletMappingUtils.getGenericPrefixOrSuffixMapping(context);
+        }
+
+        String path;
+        if (mapping.isExtensionMapping())
+        {
+            path = ResourceHandler.RESOURCE_IDENTIFIER + '/' + resourceName + mapping.getExtension();
+        }
+        else
+        {
+            path = ResourceHandler.RESOURCE_IDENTIFIER + '/' + resourceName;
+            path = (mapping.getPrefix() == null) ? path : mapping.getPrefix() + path;
+        }
+        path = path + "?ln=" + CombinedResource.LIBRARY_NAME + '&' + CombinedResource.RESOURCES_PARAM + '='
+                + URLEncoder.encode(resourceNames, StandardCharsets.UTF_8);
+        return context.getApplication().getViewHandler().getResourceURL(context, path);
+    }
+}
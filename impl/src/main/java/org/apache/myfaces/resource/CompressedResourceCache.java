@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.faces.application.ProjectStage;
+import jakarta.faces.application.Resource;
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.spi.Cache;
+import org.apache.myfaces.spi.CacheProviderFactory;
+import org.apache.myfaces.spi.ServiceProviderFinderFactory;
+import org.apache.myfaces.util.lang.ClassUtils;
+
+/**
+ * Application wide cache of the compressed copies of the resources, by encoding and request path
+ * (see org.apache.myfaces.RESOURCE_COMPRESSION).
+ * 
+ * @since 5.0
+ */
+public class CompressedResourceCache
+{
+    private static final Logger log = Logger.getLogger(CompressedResourceCache.class.getName());
+
+    private static final String INSTANCE_KEY = CompressedResourceCache.class.getName();
+
+    /**
+     * Smaller resources fit in one packet anyway.
+     */
+    private static final int MIN_SIZE = 256;
+
+    private static final CompressedResource NOT_COMPRESSED = new CompressedResource(null, null);
+
+    private final List<ResourceCodec> codecs;
+    private final Cache<String, CompressedResource> cache;
+
+    private CompressedResourceCache(ExternalContext externalContext, int size)
+    {
+        codecs = new ArrayList<>();
+        for (String className : ServiceProviderFinderFactory.getServiceProviderFinder(externalContext)
+                .getServiceProviderList(ResourceCodec.class.getName()))
+        {
+            codecs.add((ResourceCodec) ClassUtils.newInstance(className, ResourceCodec.class));
+        }
+        codecs.add(new GzipResourceCodec());
+
+        cache = CacheProviderFactory.getCacheProviderFactory(externalContext).getCacheProvider(externalContext)
+                .createCache("compressedResource", size);
+
+        FileChangeWatcher watcher = FileChangeWatcher.getInstance(externalContext);
+        if (watcher != null)
+        {
+            watcher.addListener((kind, file) -> cache.clear());
+        }
+    }
+
+    /**
+     * Returns the cache of the current application, or null if the resources are not compressed.
+     */
+    public static CompressedResourceCache getInstance(FacesContext context)
+    {
+        Map<String, Object> applicationMap = context.getExternalContext().getApplicationMap();
+        Object instance = applicationMap.get(INSTANCE_KEY);
+        if (instance == null)
+        {
+            MyfacesConfig config = MyfacesConfig.getCurrentInstance(context);
+            if (config.isResourceCompression() && !context.isProjectStage(ProjectStage.Development))
+            {
+                instance = new CompressedResourceCache(context.getExternalContext(),
+                        config.getResourceHandlerCacheSize());
+            }
+            else
+            {
+                instance = Boolean.FALSE;
+            }
+            // a concurrent first request may replace it, which only loses the resources compressed so far
+            applicationMap.put(INSTANCE_KEY, instance);
+        }
+        return instance instanceof CompressedResourceCache compressedResourceCache ? compressedResourceCache : null;
+    }
+
+    public static boolean isCompressible(String contentType)
+    {
+        if (contentType == null)
+        {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        int semicolon = type.indexOf(';');
+        if (semicolon >= 0)
+        {
+            type = type.substring(0, semicolon).trim();
+        }
+        return type.startsWith("text/")
+                || type.endsWith("/javascript")
+                || type.endsWith("/json")
+                || type.endsWith("/xml")
+                || type.endsWith("+json")
+                || type.endsWith("+xml");
+    }
+
+    /**
+     * Returns the resource compressed with the preferred encoding accepted by the client, compressing it if it is
+     * not cached, or null if the client accepts none of the encodings, the resource does not get smaller or its
+     * content can differ from one request to the next.
+     * 
+     * @param acceptEncoding the Accept-Encoding header of the request
+     */
+    public CompressedResource get(Resource resource, String acceptEncoding) throws IOException
+    {
+        if (resource instanceof ResourceImpl resourceImpl
+                && !resourceImpl.isContentShared(FacesContext.getCurrentInstance()))
+        {
+            // the value expressions are evaluated for every request, their result must not be served to all users
+            return null;
+        }
+
+        ResourceCodec codec = null;
+        for (int i = 0; i < codecs.size() && codec == null; i++)
+        {
+            if (accepts(acceptEncoding, codecs.get(i).getEncoding()))
+            {
+                codec = codecs.get(i);
+            }
+        }
+        if (codec == null)
+        {
+            return null;
+        }
+
+        ResourceCodec selected = codec;
+        CompressedResource compressed;
+        try
+        {
+            compressed = cache.get(codec.getEncoding() + ' ' + resource.getRequestPath(), key ->
+            {
+                try
+                {
+                    return compress(resource, selected);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+        return compressed == NOT_COMPRESSED ? null : compressed;
+    }
+
+    private static CompressedResource compress(Resource resource, ResourceCodec codec) throws IOException
+    {
+        byte[] bytes;
+        try (InputStream in = resource.getInputStream())
+        {
+            bytes = in.readAllBytes();
+        }
+        if (bytes.length < MIN_SIZE)
+        {
+            return NOT_COMPRESSED;
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2);
+        try (OutputStream out = codec.encode(compressed))
+        {
+            out.write(bytes);
+        }
+        if (compressed.size() >= bytes.length)
+        {
+            return NOT_COMPRESSED;
+        }
+
+        if (log.isLoggable(Level.FINE))
+        {
+            log.fine("Compressed resource " + resource.getResourceName() + " with " + codec.getEncoding()
+                    + " from " + bytes.length + " to " + compressed.size() + " bytes");
+        }
+        return new CompressedResource(codec.getEncoding(), compressed.toByteArray());
+    }
+
+    /**
+     * Checks if the encoding is accepted with a quality value greater than 0, by name or by the * wildcard.
+     */
+    static boolean accepts(String acceptEncoding, String encoding)
+    {
+        boolean wildcard = false;
+        for (String part : acceptEncoding.split(","))
+        {
+            int semicolon = part.indexOf(';');
+            String name = (semicolon < 0 ? part : part.substring(0, semicolon)).trim();
+            boolean accepted = semicolon < 0 || !isZeroQuality(part.substring(semicolon + 1));
+            if (name.equalsIgnoreCase(encoding))
+            {
+                return accepted;
+            }
+            if ("*".equals(name))
+            {
+                wildcard = accepted;
+            }
+        }
+        return wildcard;
+    }
+
+    private static boolean isZeroQuality(String parameters)
+    {
+        for (String parameter : parameters.split(";"))
+        {
+            parameter = parameter.trim();
+            if (parameter.startsWith("q="))
+            {
+                try
+                {
+                    return Double.parseDouble(parameter.substring(2)) <= 0;
+                }
+                catch (NumberFormatException e)
+                {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The compressed bytes of a resource.
+     */
+    public static final class CompressedResource
+    {
+        private final String encoding;
+        private final byte[] bytes;
+
+        CompressedResource(String encoding, byte[] bytes)
+        {
+            this.encoding = encoding;
+            this.bytes = bytes;
+        }
+
+        /**
+         * The value of the Content-Encoding header.
+         */
+        public String getEncoding()
+        {
+            return encoding;
+        }
+
+        public int getLength()
+        {
+            return bytes.length;
+        }
+
+        public void writeTo(OutputStream out) throws IOException
+        {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.faces.context.ExternalContext;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+
+/**
+ * Watches the directory of an exploded web application with a WatchService (see
+ * org.apache.myfaces.WATCH_FILE_CHANGES), so the caches can be invalidated in the background
+ * instead of checking the last modified time of the files during the requests.
+ *
+ * <p>The events are dispatched to the listeners by a daemon thread. A listener must be fast and
+ * thread safe, usually it only removes entries from a concurrent map.</p>
+ */
+public final class FileChangeWatcher
+{
+    private static final Logger log = Logger.getLogger(FileChangeWatcher.class.getName());
+
+    private static final String INSTANCE_KEY = FileChangeWatcher.class.getName();
+
+    private static final ReentrantLock CREATE_LOCK = new ReentrantLock();
+
+    /**
+     * Receives the changes of the watched files.
+     */
+    @FunctionalInterface
+    public interface Listener
+    {
+        /**
+         * @param kind ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE or OVERFLOW if events were lost
+         * @param file the created, modified or deleted file or directory, null for OVERFLOW
+         */
+        void fileChanged(WatchEvent.Kind<?> kind, Path file);
+    }
+
+    private final Path root;
+    private final String rootUrlPath;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong changeCount = new AtomicLong();
+
+    FileChangeWatcher(Path root) throws IOException
+    {
+        this.root = root.toAbsolutePath().normalize();
+        this.rootUrlPath = this.root.toUri().getRawPath();
+        this.watchService = this.root.getFileSystem().newWatchService();
+        try
+        {
+            register(this.root);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            watchService.close();
+            throw e;
+        }
+
+        Thread thread = new Thread(this::run, "myfaces-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the watcher of the current application, or null if org.apache.myfaces.WATCH_FILE_CHANGES
+     * is not enabled or the application is not deployed as a directory. The watcher is started on the
+     * first call.
+     */
+    public static FileChangeWatcher getInstance(ExternalContext externalContext)
+    {
+        Map<String, Object> applicationMap = externalContext.getApplicationMap();
+        Object instance = applicationMap.get(INSTANCE_KEY);
+        if (instance == null)
+        {
+            if (!MyfacesConfig.getCurrentInstance(externalContext).isWatchFileChanges())
+            {
+                return null;
+            }
+
+            CREATE_LOCK.lock();
+            try
+            {
+                instance = applicationMap.get(INSTANCE_KEY);
+                if (instance == null)
+                {
+                    instance = create(externalContext);
+                    applicationMap.put(INSTANCE_KEY, instance);
+                }
+            }
+            finally
+            {
+                CREATE_LOCK.unlock();
+            }
+        }
+        return instance instanceof FileChangeWatcher watcher ? watcher : null;
+    }
+
+    private static Object create(ExternalContext externalContext)
+    {
+        String realPath = externalContext.getRealPath("/");
+        if (realPath == null || !Files.isDirectory(Path.of(realPath)))
+        {
+            log.info(MyfacesConfig.WATCH_FILE_CHANGES
+                    + " is enabled, but the application is not deployed as a directory. The files are not watched.");
+            // Remember it, so it is not tried again
+            return Boolean.FALSE;
+        }
+
+        try
+        {
+            FileChangeWatcher watcher = new FileChangeWatcher(Path.of(realPath));
+            log.info("Watching " + watcher.root + " for changes (" + watcher.directories.size() + " directories)");
+            return watcher;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            log.log(Level.WARNING, "Cannot watch " + realPath + " for changes", e);
+            return Boolean.FALSE;
+        }
+    }
+
+    /**
+     * Stops the watcher of the current application, if any.
+     */
+    public static void stop(ExternalContext externalContext)
+    {
+        Object instance = externalContext.getApplicationMap().remove(INSTANCE_KEY);
+        if (instance instanceof FileChangeWatcher watcher)
+        {
+            watcher.close();
+        }
+    }
+
+    void close()
+    {
+        try
+        {
+            watchService.close();
+        }
+        catch (IOException e)
+        {
+            log.log(Level.FINE, "Cannot close the WatchService", e);
+        }
+    }
+
+    public void addListener(Listener listener)
+    {
+        listeners.add(listener);
+    }
+
+    /**
+     * Number of changes seen so far, can be compared to find out if anything changed since the
+     * last check.
+     */
+    public long getChangeCount()
+    {
+        return changeCount.get();
+    }
+
+    /**
+     * Checks if changes of the given resource are reported, without any file system access.
+     */
+    public boolean isWatched(URL url)
+    {
+        return url != null && "file".equals(url.getProtocol()) && url.getPath().startsWith(rootUrlPath);
+    }
+
+    /**
+     * Checks if the resource with the given URL is the changed file or is inside of the changed
+     * directory. Every resource is affected if events were lost (file is null).
+     */
+    public static boolean isAffected(String url, Path file)
+    {
+        if (file == null)
+        {
+            return true;
+        }
+        Path path = toPath(url);
+        return path != null && path.startsWith(file);
+    }
+
+    private static Path toPath(String url)
+    {
+        if (!url.startsWith("file:"))
+        {
+            return null;
+        }
+        try
+        {
+            return Path.of(new URI(url)).normalize();
+        }
+        catch (URISyntaxException e)
+        {
+            // Not encoded, for example from File.toURL()
+            try
+            {
+                return Path.of(new URL(url).getPath()).normalize();
+            }
+            catch (MalformedURLException | InvalidPathException e1)
+            {
+                return null;
+            }
+        }
+        catch (IllegalArgumentException | FileSystemNotFoundException e)
+        {
+            return null;
+        }
+    }
+
+    private void register(Path directory) throws IOException
+    {
+        Files.walkFileTree(directory, new SimpleFileVisitor<>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+            {
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                directories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void run()
+    {
+        while (true)
+        {
+            WatchKey key;
+            try
+            {
+                key = watchService.take();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (ClosedWatchServiceException e)
+            {
+                return;
+            }
+
+            Path directory = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents())
+            {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                {
+                    fireChanged(event.kind(), null);
+                }
+                else if (directory != null)
+                {
+                    Path file = directory.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                            && Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS))
+                    {
+                        try
+                        {
+                            register(file);
+                        }
+                        catch (IOException e)
+                        {
+                            log.log(Level.WARNING, "Cannot watch " + file + " for changes", e);
+                        }
+                    }
+                    fireChanged(event.kind(), file);
+                }
+            }
+
+            if (!key.reset())
+            {
+                directories.remove(key);
+            }
+        }
+    }
+
+    private void fireChanged(WatchEvent.Kind<?> kind, Path file)
+    {
+        changeCount.incrementAndGet();
+        if (log.isLoggable(Level.FINE))
+        {
+            log.fine(kind.name() + " " + file);
+        }
+        for (Listener listener : listeners)
+        {
+            try
+            {
+                listener.fileChanged(kind, file);
+            }
+            catch (RuntimeException e)
+            {
+                log.log(Level.WARNING, "Error notifying the change of " + file, e);
+            }
+        }
+    }
+}
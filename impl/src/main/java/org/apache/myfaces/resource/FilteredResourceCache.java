@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.el.ELContext;
+import jakarta.el.ELException;
+import jakarta.el.ValueExpression;
+import jakarta.faces.application.ProjectStage;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.event.ExceptionQueuedEvent;
+import jakarta.faces.event.ExceptionQueuedEventContext;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+
+/**
+ * Application wide cache of the content of the resources after the evaluation of their value expressions, by
+ * resource identifier and contract (see org.apache.myfaces.RESOURCE_FILTERED_CACHE_SIZE). The size of the cache is
+ * a budget in bytes, the oldest entries are discarded when it is exceeded.
+ *
+ * @since 5.0
+ */
+public class FilteredResourceCache
+{
+    private static final Logger log = Logger.getLogger(FilteredResourceCache.class.getName());
+
+    private static final String INSTANCE_KEY = FilteredResourceCache.class.getName();
+
+    private final long maxBytes;
+    private final Map<String, byte[]> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Guards the changes of the entries, the order and the counters, the entries are read without it.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue<String> order = new ArrayDeque<>();
+    private volatile long bytes;
+
+    /**
+     * Incremented by clear(), so content read before a file change is not added afterwards.
+     */
+    private volatile int generation;
+
+    FilteredResourceCache(long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cache of the current application, or null if the filtered resources are not cached.
+     */
+    public static FilteredResourceCache getInstance(FacesContext context)
+    {
+        Map<String, Object> applicationMap = context.getExternalContext().getApplicationMap();
+        Object instance = applicationMap.get(INSTANCE_KEY);
+        if (instance == null)
+        {
+            int size = MyfacesConfig.getCurrentInstance(context).getResourceFilteredCacheSize();
+            if (size > 0 && !context.isProjectStage(ProjectStage.Development))
+            {
+                FilteredResourceCache filteredResourceCache = new FilteredResourceCache(size);
+                FileChangeWatcher watcher = FileChangeWatcher.getInstance(context.getExternalContext());
+                if (watcher != null)
+                {
+                    watcher.addListener((kind, file) -> filteredResourceCache.clear());
+                }
+                instance = filteredResourceCache;
+            }
+            else
+            {
+                instance = Boolean.FALSE;
+            }
+            // a concurrent first request may replace it, which only loses the resources filtered so far
+            applicationMap.put(INSTANCE_KEY, instance);
+        }
+        return instance instanceof FilteredResourceCache filteredResourceCache ? filteredResourceCache : null;
+    }
+
+    /**
+     * Returns the filtered content of the resource, reading and filtering it if it is not cached.
+     */
+    public byte[] get(FacesContext context, ResourceMeta resourceMeta, ResourceLoader resourceLoader)
+            throws IOException
+    {
+        String key = resourceMeta.getContractName() == null
+                ? resourceMeta.getResourceIdentifier()
+                : resourceMeta.getContractName() + ':' + resourceMeta.getResourceIdentifier();
+        byte[] content = cache.get(key);
+        if (content == null)
+        {
+            int readGeneration = generation;
+            try (InputStream in = resourceLoader.getResourceInputStream(resourceMeta))
+            {
+                if (in == null)
+                {
+                    return null;
+                }
+                content = filter(context, in.readAllBytes(), resourceMeta.getLibraryName(),
+                        resourceMeta.getResourceName(), resourceMeta.getContractName());
+            }
+            if (content.length <= maxBytes / 4)
+            {
+                add(key, content, readGeneration);
+            }
+        }
+        return content;
+    }
+
+    private void add(String key, byte[] content, int readGeneration)
+    {
+        lock.lock();
+        try
+        {
+            if (readGeneration != generation || cache.putIfAbsent(key, content) != null)
+            {
+                return;
+            }
+            order.add(key);
+            long total = bytes + content.length;
+            while (total > maxBytes)
+            {
+                // the order holds exactly the keys of the entries
+                total -= cache.remove(order.remove()).length;
+            }
+            bytes = total;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void clear()
+    {
+        lock.lock();
+        try
+        {
+            generation++;
+            cache.clear();
+            order.clear();
+            bytes = 0;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The number of bytes of the cached resources.
+     */
+    public long getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * Replaces the value expressions of the content by their value, like {@link ValueExpressionFilterInputStream}
+     * does, but in a single pass over the bytes. Expressions that cannot be evaluated are kept as they are.
+     */
+    static byte[] filter(FacesContext context, byte[] content, String libraryName, String resourceName,
+            String contractName)
+    {
+        ByteArrayOutputStream out = null;
+        int copied = 0;
+        int start = indexOfExpression(content, 0);
+        while (start >= 0)
+        {
+            int end = start + 2;
+            while (end < content.length && content[end] != '}')
+            {
+                end++;
+            }
+            if (end == content.length)
+            {
+                break;
+            }
+
+            String expression = new String(content, start, end + 1 - start, StandardCharsets.ISO_8859_1);
+            String value = evaluate(context, expression, libraryName, resourceName, contractName);
+            if (value != null)
+            {
+                if (out == null)
+                {
+                    out = new ByteArrayOutputStream(content.length + 256);
+                }
+                out.write(content, copied, start - copied);
+                // like the stream, every char of the value is written as one byte
+                for (int i = 0; i < value.length(); i++)
+                {
+                    out.write(value.charAt(i));
+                }
+                copied = end + 1;
+                start = indexOfExpression(content, end + 1);
+            }
+            else
+            {
+                start = indexOfExpression(content, start + 1);
+            }
+        }
+
+        if (out == null)
+        {
+            return content;
+        }
+        out.write(content, copied, content.length - copied);
+        return out.toByteArray();
+    }
+
+    private static int indexOfExpression(byte[] content, int from)
+    {
+        for (int i = from; i < content.length - 1; i++)
+        {
+            if (content[i] == '#' && content[i + 1] == '{')
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String evaluate(FacesContext context, String expression, String libraryName,
+            String resourceName, String contractName)
+    {
+        ELContext elContext = context.getELContext();
+        try
+        {
+            if (libraryName != null)
+            {
+                ResourceELUtils.saveResourceLibraryForResolver(context, libraryName);
+            }
+            if (contractName != null)
+            {
+                ResourceELUtils.saveResourceContractForResolver(context, contractName);
+            }
+
+            ValueExpression ve = context.getApplication().getExpressionFactory()
+                    .createValueExpression(elContext, expression, String.class);
+            return (String) ve.getValue(elContext);
+        }
+        catch (ELException e)
+        {
+            ExceptionQueuedEventContext equecontext = new ExceptionQueuedEventContext(context, e, null);
+            context.getApplication().publishEvent(context, ExceptionQueuedEvent.class, equecontext);
+
+            if (log.isLoggable(Level.SEVERE))
+            {
+                log.severe("Cannot evaluate EL expression " + expression.substring(2, expression.length() - 1)
+                        + " in resource " + (libraryName == null ? "" : libraryName) + ':'
+                        + (resourceName == null ? "" : resourceName));
+            }
+            return null;
+        }
+        finally
+        {
+            if (libraryName != null)
+            {
+                ResourceELUtils.removeResourceLibraryForResolver(context);
+            }
+            if (contractName != null)
+            {
+                ResourceELUtils.removeResourceContractForResolver(context);
+            }
+        }
+    }
+}
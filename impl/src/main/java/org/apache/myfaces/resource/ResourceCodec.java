@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A content encoding used to compress the resources, see org.apache.myfaces.RESOURCE_COMPRESSION.
+ * Implementations listed in META-INF/services/org.apache.myfaces.resource.ResourceCodec are preferred
+ * over the built in gzip codec, in the order they are found, when the client accepts them.
+ * 
+ * @since 5.0
+ */
+public interface ResourceCodec
+{
+    /**
+     * The name of the encoding, as used in the Accept-Encoding and Content-Encoding headers.
+     */
+    String getEncoding();
+
+    /**
+     * Returns a stream that writes the compressed bytes to the given stream, and closes it when closed.
+     */
+    OutputStream encode(OutputStream out) throws IOException;
+}
@@ -18,23 +18,39 @@
  */
 package org.apache.myfaces.resource;
 
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import jakarta.faces.context.FacesContext;
 
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
-import org.apache.myfaces.util.lang.ConcurrentLRUCache;
+import org.apache.myfaces.spi.Cache;
+import org.apache.myfaces.spi.CacheProvider;
+import org.apache.myfaces.spi.CacheProviderFactory;
 
 public class ResourceHandlerCache
 {
     private static final Logger log = Logger.getLogger(ResourceHandlerCache.class.getName());
 
     private boolean _resourceCacheEnabled;
+    private boolean _contentHashEnabled;
 
-    private volatile ConcurrentLRUCache<Object, ResourceValue> _resourceCacheMap = null;
-    private volatile ConcurrentLRUCache<Object, ResourceValue> _viewResourceCacheMap = null;
-    private volatile ConcurrentLRUCache<Object, Boolean> _libraryExistsCacheMap = null;
+    private volatile Cache<Object, ResourceValue> _resourceCacheMap = null;
+    private volatile Cache<Object, ResourceValue> _viewResourceCacheMap = null;
+    private volatile Cache<Object, Boolean> _libraryExistsCacheMap = null;
+
+    /**
+     * Resources and view resources that were not found, with the time of the lookup. Disabled
+     * (null) if the facelets refresh period is 0, otherwise the entries expire after the refresh
+     * period (never if it is -1), so a template added later is found again.
+     */
+    private volatile Cache<Object, Long> _missingResourceCacheMap = null;
+    private volatile Cache<Object, Long> _missingViewResourceCacheMap = null;
+    private long _missingResourceExpiration;
 
     public ResourceHandlerCache()
     {
@@ -42,6 +58,7 @@ public class ResourceHandlerCache
         MyfacesConfig myfacesConfig = MyfacesConfig.getCurrentInstance(facesContext);
 
         _resourceCacheEnabled = myfacesConfig.isResourceHandlerCacheEnabled();
+        _contentHashEnabled = myfacesConfig.isResourceContentHash();
         
         if (log.isLoggable(Level.FINE))
         {
@@ -51,17 +68,92 @@ public class ResourceHandlerCache
         if (_resourceCacheEnabled)
         {
             int maxSize = myfacesConfig.getResourceHandlerCacheSize();
+            CacheProvider cacheProvider = CacheProviderFactory.getCacheProviderFactory(
+                    facesContext.getExternalContext()).getCacheProvider(facesContext.getExternalContext());
+
+            _resourceCacheMap = cacheProvider.createCache("resource", maxSize);
+            _viewResourceCacheMap = cacheProvider.createCache("viewResource", maxSize);
+            _libraryExistsCacheMap = cacheProvider.createCache("libraryExists", maxSize / 5);
+
+            long refreshPeriod = myfacesConfig.getFaceletsRefreshPeriod();
+            if (refreshPeriod != 0)
+            {
+                _missingResourceExpiration = refreshPeriod < 0 ? -1 : refreshPeriod * 1000;
+                _missingResourceCacheMap = cacheProvider.createCache("missingResource", maxSize);
+                _missingViewResourceCacheMap = cacheProvider.createCache("missingViewResource", maxSize);
+            }
 
-            _resourceCacheMap = new ConcurrentLRUCache<>((maxSize * 4 + 3) / 3, maxSize);
-            _viewResourceCacheMap = new ConcurrentLRUCache<>((maxSize * 4 + 3) / 3, maxSize);
-            _libraryExistsCacheMap = new ConcurrentLRUCache<>((maxSize * 4 + 3) / 3, maxSize / 5);
+            FileChangeWatcher watcher = FileChangeWatcher.getInstance(facesContext.getExternalContext());
+            if (watcher != null)
+            {
+                watcher.addListener(this::fileChanged);
+            }
         }
     }
     
+    /**
+     * A created or deleted file can change the result of any lookup (a new version, a library or a
+     * contract directory), but the changes are rare, so everything is looked up again. A modified file
+     * resolves to the same resource, but the content hash kept in its ResourceMeta is outdated.
+     */
+    private void fileChanged(WatchEvent.Kind<?> kind, Path file)
+    {
+        if (kind == StandardWatchEventKinds.ENTRY_MODIFY)
+        {
+            if (_contentHashEnabled)
+            {
+                _resourceCacheMap.clear();
+            }
+            return;
+        }
+
+        _resourceCacheMap.clear();
+        _viewResourceCacheMap.clear();
+        _libraryExistsCacheMap.clear();
+        if (_missingResourceCacheMap != null)
+        {
+            _missingResourceCacheMap.clear();
+            _missingViewResourceCacheMap.clear();
+        }
+    }
+
     public boolean isResourceHandlerCacheEnabled()
     {
         return _resourceCacheEnabled;
     }
+
+    /**
+     * Adds the time spent to look up a resource which was not cached, see {@link Cache#recordLoad(long)}.
+     */
+    public void recordResourceLoad(long nanos)
+    {
+        if (isResourceHandlerCacheEnabled())
+        {
+            _resourceCacheMap.recordLoad(nanos);
+        }
+    }
+
+    /**
+     * Adds the time spent to look up a view resource which was not cached.
+     */
+    public void recordViewResourceLoad(long nanos)
+    {
+        if (isResourceHandlerCacheEnabled())
+        {
+            _viewResourceCacheMap.recordLoad(nanos);
+        }
+    }
+
+    /**
+     * Adds the time spent to check the existence of a library which was not cached.
+     */
+    public void recordLibraryExistsLoad(long nanos)
+    {
+        if (isResourceHandlerCacheEnabled())
+        {
+            _libraryExistsCacheMap.recordLoad(nanos);
+        }
+    }
     
     public ResourceValue getResource(String resourceName, String libraryName, String contentType, String localePrefix)
     {
@@ -307,6 +399,98 @@ public class ResourceHandlerCache
     }    
 
 
+    /**
+     * Checks if a previous lookup of the resource with the same locale and contracts found nothing.
+     */
+    public boolean isResourceMissing(String resourceName, String libraryName, String contentType,
+            String localePrefix, String contractPreferred, List<String> contracts)
+    {
+        if (!isResourceHandlerCacheEnabled() || _missingResourceCacheMap == null)
+        {
+            return false;
+        }
+
+        return isMissing(_missingResourceCacheMap, new ResourceKey(resourceName, libraryName,
+                contentType, localePrefix, getContractsKey(contractPreferred, contracts)));
+    }
+
+    public void confirmResourceMissing(String resourceName, String libraryName, String contentType,
+            String localePrefix, String contractPreferred, List<String> contracts)
+    {
+        if (!isResourceHandlerCacheEnabled() || _missingResourceCacheMap == null)
+        {
+            return;
+        }
+
+        if (log.isLoggable(Level.FINE))
+        {
+            log.log(Level.FINE, "Attempting to set confirmResourceMissing on cache " + resourceName);
+        }
+
+        _missingResourceCacheMap.put(new ResourceKey(resourceName, libraryName, contentType, localePrefix,
+                getContractsKey(contractPreferred, contracts)), System.currentTimeMillis());
+    }
+
+    /**
+     * Checks if a previous lookup of the view resource with the same locale and contracts found nothing.
+     */
+    public boolean isViewResourceMissing(String resourceName, String contentType, String localePrefix,
+            String contractPreferred, List<String> contracts)
+    {
+        if (!isResourceHandlerCacheEnabled() || _missingViewResourceCacheMap == null)
+        {
+            return false;
+        }
+
+        return isMissing(_missingViewResourceCacheMap, new ResourceKey(resourceName, null,
+                contentType, localePrefix, getContractsKey(contractPreferred, contracts)));
+    }
+
+    public void confirmViewResourceMissing(String resourceName, String contentType, String localePrefix,
+            String contractPreferred, List<String> contracts)
+    {
+        if (!isResourceHandlerCacheEnabled() || _missingViewResourceCacheMap == null)
+        {
+            return;
+        }
+
+        if (log.isLoggable(Level.FINE))
+        {
+            log.log(Level.FINE, "Attempting to set confirmViewResourceMissing on cache " + resourceName);
+        }
+
+        _missingViewResourceCacheMap.put(new ResourceKey(resourceName, null, contentType, localePrefix,
+                getContractsKey(contractPreferred, contracts)), System.currentTimeMillis());
+    }
+
+    private boolean isMissing(Cache<Object, Long> cache, ResourceKey key)
+    {
+        Long time = cache.get(key);
+        if (time == null)
+        {
+            return false;
+        }
+        if (_missingResourceExpiration > 0 && System.currentTimeMillis() - time > _missingResourceExpiration)
+        {
+            cache.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * A missing resource can exist in another contract, so the contracts active for the lookup are
+     * part of the key.
+     */
+    private static String getContractsKey(String contractPreferred, List<String> contracts)
+    {
+        if (contractPreferred == null && (contracts == null || contracts.isEmpty()))
+        {
+            return null;
+        }
+        return contractPreferred + ':' + contracts;
+    }
+
     public static class ResourceKey
     {
         private final String resourceName;
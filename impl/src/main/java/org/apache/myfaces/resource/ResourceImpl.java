@@ -18,9 +18,17 @@
  */
 package org.apache.myfaces.resource;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -31,6 +39,7 @@ import jakarta.faces.context.FacesContext;
 import org.apache.myfaces.application.FacesServletMapping;
 import org.apache.myfaces.application.FacesServletMappingUtils;
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.util.lang.Hex;
 
 /**
  * Default implementation for resources
@@ -40,6 +49,13 @@ public class ResourceImpl extends Resource implements ContractResource
     protected final static String JAKARTA_FACES_LIBRARY_NAME = "jakarta.faces";
     protected final static String FACES_JS_RESOURCE_NAME = "faces.js";
 
+    /**
+     * The request parameter with the content hash, see org.apache.myfaces.RESOURCE_CONTENT_HASH.
+     */
+    public static final String CONTENT_HASH_PARAM = "h";
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
 
     private ResourceMeta _resourceMeta;
     private ResourceLoader _resourceLoader;
@@ -84,6 +100,15 @@ public class ResourceImpl extends Resource implements ContractResource
     {
         if (couldResourceContainValueExpressions())
         {
+            FacesContext facesContext = FacesContext.getCurrentInstance();
+            FilteredResourceCache cache = facesContext == null
+                    ? null
+                    : FilteredResourceCache.getInstance(facesContext);
+            if (cache != null)
+            {
+                byte[] content = cache.get(facesContext, _resourceMeta, getResourceLoader());
+                return content == null ? null : new ByteArrayInputStream(content);
+            }
             return new ValueExpressionFilterInputStream(
                     getResourceLoader().getResourceInputStream(_resourceMeta), getLibraryName(), getResourceName()); 
         }
@@ -93,6 +118,42 @@ public class ResourceImpl extends Resource implements ContractResource
         }
     }
     
+    /**
+     * Returns the file with the content of the resource, if it is served as is from a file of an exploded
+     * application or of the temp dir of TempDirFileCacheResourceLoader, otherwise null.
+     */
+    public Path getFile()
+    {
+        if (couldResourceContainValueExpressions())
+        {
+            return null;
+        }
+        URL url = getURL();
+        if (url == null || !"file".equals(url.getProtocol()))
+        {
+            return null;
+        }
+        try
+        {
+            Path file = Path.of(url.toURI());
+            return Files.isRegularFile(file) ? file : null;
+        }
+        catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Checks if the content is the same for every request: it is not filtered for value expressions, or the
+     * filtered content is cached anyway (see org.apache.myfaces.RESOURCE_FILTERED_CACHE_SIZE).
+     */
+    boolean isContentShared(FacesContext facesContext)
+    {
+        return !couldResourceContainValueExpressions()
+                || (facesContext != null && FilteredResourceCache.getInstance(facesContext) != null);
+    }
+
     private boolean couldResourceContainValueExpressions()
     {
         if (_resourceMeta.couldResourceContainValueExpressions())
@@ -159,6 +220,13 @@ public class ResourceImpl extends Resource implements ContractResource
                 path = path + (useAmp ? '&' : '?') + "con=" + _resourceMeta.getContractName();
                 useAmp = true;
             }
+
+            String contentHash = getContentHash(context);
+            if (contentHash != null)
+            {
+                path = path + (useAmp ? '&' : '?') + CONTENT_HASH_PARAM + '=' + contentHash;
+                useAmp = true;
+            }
             _requestPath = context.getApplication().getViewHandler().getResourceURL(context, path);
         }
         return _requestPath;
@@ -204,6 +272,18 @@ public class ResourceImpl extends Resource implements ContractResource
                     headers.put("Cache-Control", "max-age=" + (_resourceHandlerSupport.getMaxTimeExpires()/1000));
                 }
             }
+
+            String contentHash = getContentHash(facesContext);
+            if (contentHash != null)
+            {
+                headers.put("ETag", '"' + contentHash + '"');
+                // the url of a requested hash never returns another content, the url changes instead
+                if (contentHash.equals(facesContext.getExternalContext().getRequestParameterMap()
+                        .get(CONTENT_HASH_PARAM)))
+                {
+                    headers.put("Cache-Control", IMMUTABLE_CACHE_CONTROL);
+                }
+            }
             
             return headers;
         }
@@ -239,6 +319,16 @@ public class ResourceImpl extends Resource implements ContractResource
         // 
         // This method is called from ResourceHandlerImpl.handleResourceRequest and if
         // returns false send a 304 Not Modified response.
+        String contentHash = getContentHash(context);
+        if (contentHash != null)
+        {
+            // If-None-Match takes precedence over If-Modified-Since (RFC 9110)
+            String ifNoneMatch = context.getExternalContext().getRequestHeaderMap().get("If-None-Match");
+            if (ifNoneMatch != null)
+            {
+                return !matchesContentHash(ifNoneMatch, contentHash);
+            }
+        }
         
         String ifModifiedSinceString = context.getExternalContext().getRequestHeaderMap().get("If-Modified-Since");
         
@@ -278,6 +368,74 @@ public class ResourceImpl extends Resource implements ContractResource
         return true;
     }
     
+    /**
+     * Returns the hash of the content, computed on the first call, or null if
+     * org.apache.myfaces.RESOURCE_CONTENT_HASH is disabled.
+     */
+    public String getContentHash(FacesContext facesContext)
+    {
+        if (!MyfacesConfig.getCurrentInstance(facesContext).isResourceContentHash())
+        {
+            return null;
+        }
+        String contentHash = _resourceMeta.getContentHash();
+        if (contentHash == null)
+        {
+            try (InputStream in = getInputStream())
+            {
+                if (in == null)
+                {
+                    return null;
+                }
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                byte[] buffer = new byte[8192];
+                int length;
+                while ((length = in.read(buffer)) >= 0)
+                {
+                    digest.update(buffer, 0, length);
+                }
+                // 64 bits are enough to tell the versions of one resource apart
+                contentHash = new String(Hex.encodeHex(Arrays.copyOf(digest.digest(), 8)));
+            }
+            catch (IOException | NoSuchAlgorithmException e)
+            {
+                return null;
+            }
+            _resourceMeta.setContentHash(contentHash);
+        }
+        return contentHash;
+    }
+
+    /**
+     * Checks if an If-None-Match header contains the ETag of the content hash, or of a compressed copy of it.
+     */
+    static boolean matchesContentHash(String ifNoneMatch, String contentHash)
+    {
+        for (String tag : ifNoneMatch.split(","))
+        {
+            tag = tag.trim();
+            if ("*".equals(tag))
+            {
+                return true;
+            }
+            // If-None-Match uses the weak comparison
+            if (tag.startsWith("W/"))
+            {
+                tag = tag.substring(2);
+            }
+            if (tag.length() > 2 && tag.charAt(0) == '"' && tag.charAt(tag.length() - 1) == '"')
+            {
+                String value = tag.substring(1, tag.length() - 1);
+                if (value.equals(contentHash)
+                        || (value.startsWith(contentHash) && value.charAt(contentHash.length()) == '-'))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     protected ResourceHandlerSupport getResourceHandlerSupport()
     {
         return _resourceHandlerSupport;
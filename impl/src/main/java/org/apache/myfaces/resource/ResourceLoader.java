@@ -26,7 +26,8 @@ import jakarta.faces.application.ResourceVisitOption;
 import jakarta.faces.context.FacesContext;
 
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
-import org.apache.myfaces.util.lang.ConcurrentLRUCache;
+import org.apache.myfaces.spi.Cache;
+import org.apache.myfaces.spi.CacheProviderFactory;
 
 /**
  * Base class for resource loaders.  Resource loaders can lookup resources 
@@ -39,7 +40,7 @@ public abstract class ResourceLoader
     
     private String prefix;
     private boolean resourceCacheEnabled;
-    private ConcurrentLRUCache<Object, Boolean> resourceExistsCache;
+    private Cache<Object, Boolean> resourceExistsCache;
     
     public ResourceLoader(String prefix)
     {
@@ -52,7 +53,8 @@ public abstract class ResourceLoader
         if (this.resourceCacheEnabled)
         {
             int maxSize = myfacesConfig.getResourceHandlerCacheSize();
-            this.resourceExistsCache = new ConcurrentLRUCache<>(maxSize * 2, maxSize);
+            this.resourceExistsCache = CacheProviderFactory.getCacheProviderFactory(facesContext.getExternalContext())
+                    .getCacheProvider(facesContext.getExternalContext()).createCache("resourceExists", maxSize);
         }
     }
 
@@ -95,7 +97,9 @@ public abstract class ResourceLoader
             Boolean exists = resourceExistsCache.get(resourceMeta);
             if (exists == null)
             {
+                long start = System.nanoTime();
                 exists = getResourceURL(resourceMeta) != null;
+                resourceExistsCache.recordLoad(System.nanoTime() - start);
                 // this method is normally just called in case when there is no cached item in ResourceHandlerCache
                 // so lets just do a negative cache here
                 if (!exists)
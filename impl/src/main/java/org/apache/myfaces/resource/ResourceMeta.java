@@ -23,6 +23,8 @@ package org.apache.myfaces.resource;
  */
 public abstract class ResourceMeta
 {
+    private volatile String contentHash;
+
     
     public abstract String getLibraryName();
     
@@ -50,4 +52,19 @@ public abstract class ResourceMeta
     public abstract Long getLastModified();
     
     public abstract void setLastModified(Long lastModified);
+
+    /**
+     * The hash of the content of the resource, see org.apache.myfaces.RESOURCE_CONTENT_HASH.
+     * 
+     * @since 5.0
+     */
+    public String getContentHash()
+    {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash)
+    {
+        this.contentHash = contentHash;
+    }
 }
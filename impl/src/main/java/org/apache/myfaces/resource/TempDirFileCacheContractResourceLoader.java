@@ -30,6 +30,8 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
 
@@ -178,21 +180,7 @@ public class TempDirFileCacheContractResourceLoader extends ContractResourceLoad
             Map<String, FileProducer> map = (Map<String, FileProducer>) 
                 facesContext.getExternalContext().getApplicationMap().get(TEMP_FILES_LOCK_MAP);
 
-            FileProducer creator = map.get(identifier);
-            
-            if (creator == null)
-            {
-                synchronized(this)
-                {
-                    creator = map.get(identifier);
-                    
-                    if (creator == null)
-                    {
-                        creator = new FileProducer();
-                        map.put(identifier, creator);
-                    }
-                }
-            }
+            FileProducer creator = map.computeIfAbsent(identifier, k -> new FileProducer());
             
             if (!creator.isCreated())
             {
@@ -264,6 +252,8 @@ public class TempDirFileCacheContractResourceLoader extends ContractResourceLoad
     public static class FileProducer 
     {
         public volatile boolean created = false;
+
+        private final Lock lock = new ReentrantLock();
         
         public FileProducer()
         {
@@ -275,13 +265,23 @@ public class TempDirFileCacheContractResourceLoader extends ContractResourceLoad
             return created;
         }
 
-        public synchronized void createFile(FacesContext facesContext, 
+        public void createFile(FacesContext facesContext, 
             ResourceMeta resourceMeta, File file, TempDirFileCacheContractResourceLoader loader)
         {
-            if (!created)
+            // A lock instead of a monitor, the file is written while it is held
+            // and a monitor would pin the carrier thread of a virtual thread
+            lock.lock();
+            try
+            {
+                if (!created)
+                {
+                    loader.createTemporalFileVersion(facesContext, resourceMeta, file);
+                    created = true;
+                }
+            }
+            finally
             {
-                loader.createTemporalFileVersion(facesContext, resourceMeta, file);
-                created = true;
+                lock.unlock();
             }
         }
     }
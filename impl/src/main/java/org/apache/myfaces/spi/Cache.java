@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi;
+
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A bounded, thread safe cache created by a {@link CacheProvider}. Null keys and values are not
+ * supported.
+ * 
+ * @since 5.0
+ */
+public interface Cache<K, V>
+{
+    /**
+     * The name of the cache, the statistics of caches with the same name are reported together.
+     */
+    String getName();
+
+    /**
+     * Returns the value of the key, or null if it is not cached. Counted as a hit or a miss.
+     */
+    V get(K key);
+
+    /**
+     * Returns the value of the key, or loads it with the given function and caches it if it is not
+     * null. The time spent in the function is counted as load time. The function can be called
+     * concurrently for the same key.
+     */
+    default V get(K key, Function<? super K, ? extends V> loader)
+    {
+        V value = get(key);
+        if (value == null)
+        {
+            long start = System.nanoTime();
+            value = loader.apply(key);
+            recordLoad(System.nanoTime() - start);
+            if (value != null)
+            {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    void put(K key, V value);
+
+    V remove(K key);
+
+    /**
+     * Like {@link #get(Object)} but not counted as a hit or a miss, nor as an access for the eviction.
+     */
+    boolean containsKey(K key);
+
+    /**
+     * A weakly consistent, unmodifiable view of the keys. The entries can be removed with
+     * {@link #remove(Object)} while iterating.
+     */
+    Set<K> keySet();
+
+    int size();
+
+    void clear();
+
+    /**
+     * Adds the time in nanoseconds spent to load a value which was not cached.
+     */
+    void recordLoad(long nanos);
+
+    CacheStats getStats();
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi;
+
+import java.util.Map;
+import jakarta.faces.FacesWrapper;
+
+/**
+ * Creates the application wide caches of MyFaces (resources, view ids, facelets and so on), so they
+ * share one implementation and report the same statistics. A custom implementation can be registered
+ * in META-INF/services/org.apache.myfaces.spi.CacheProvider, it may wrap the default one.
+ * 
+ * @since 5.0
+ */
+public abstract class CacheProvider implements FacesWrapper<CacheProvider>
+{
+    /**
+     * Creates a cache that holds at most maxSize entries.
+     * 
+     * @param name the name of the cache, for the statistics. Several caches can share the same name.
+     * @param maxSize the maximum number of entries
+     */
+    public abstract <K, V> Cache<K, V> createCache(String name, int maxSize);
+
+    /**
+     * Returns the statistics of the caches created by this provider, by cache name.
+     */
+    public abstract Map<String, CacheStats> getStats();
+
+    @Override
+    public CacheProvider getWrapped()
+    {
+        return null;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi;
+
+import jakarta.faces.FacesWrapper;
+import jakarta.faces.context.ExternalContext;
+import org.apache.myfaces.spi.impl.DefaultCacheProviderFactory;
+import org.apache.myfaces.spi.impl.SpiUtils;
+
+/**
+ * @since 5.0
+ */
+public abstract class CacheProviderFactory implements FacesWrapper<CacheProviderFactory>
+{
+    private static final String FACTORY_KEY = CacheProviderFactory.class.getName();
+
+    public static CacheProviderFactory getCacheProviderFactory(ExternalContext ctx)
+    {
+        CacheProviderFactory instance = (CacheProviderFactory) ctx.getApplicationMap().get(FACTORY_KEY);
+
+        if (instance != null)
+        {
+            return instance;
+        }
+
+        instance = (CacheProviderFactory) SpiUtils.build(ctx, CacheProviderFactory.class,
+                DefaultCacheProviderFactory.class);
+
+        if (instance != null)
+        {
+            setCacheProviderFactory(ctx, instance);
+        }
+
+        return instance;
+    }
+
+    public static void setCacheProviderFactory(ExternalContext ctx, CacheProviderFactory instance)
+    {
+        ctx.getApplicationMap().put(FACTORY_KEY, instance);
+    }
+
+    /**
+     * Returns the provider of the application, created on the first call.
+     */
+    public CacheProvider getCacheProvider(ExternalContext ctx)
+    {
+        return createCacheProvider(ctx);
+    }
+
+    public abstract CacheProvider createCacheProvider(ExternalContext externalContext);
+
+    @Override
+    public CacheProviderFactory getWrapped()
+    {
+        return null;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi;
+
+/**
+ * A snapshot of the statistics of a {@link Cache}, or of all the caches with the same name.
+ * 
+ * @since 5.0
+ */
+public final class CacheStats
+{
+    private final String name;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long loads;
+    private final long loadTime;
+    private final long size;
+
+    public CacheStats(String name, long hits, long misses, long evictions, long loads, long loadTime, long size)
+    {
+        this.name = name;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.loads = loads;
+        this.loadTime = loadTime;
+        this.size = size;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public long getHits()
+    {
+        return hits;
+    }
+
+    public long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * The entries removed to respect the maximum size, not the removed or cleared ones.
+     */
+    public long getEvictions()
+    {
+        return evictions;
+    }
+
+    /**
+     * The values loaded through {@link Cache#get(Object, java.util.function.Function)}.
+     */
+    public long getLoads()
+    {
+        return loads;
+    }
+
+    /**
+     * The total time spent loading values, in nanoseconds.
+     */
+    public long getLoadTime()
+    {
+        return loadTime;
+    }
+
+    public long getSize()
+    {
+        return size;
+    }
+
+    public double getHitRatio()
+    {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns the statistics of both caches, under the name of this one.
+     */
+    public CacheStats plus(CacheStats other)
+    {
+        return new CacheStats(name, hits + other.hits, misses + other.misses, evictions + other.evictions,
+                loads + other.loads, loadTime + other.loadTime, size + other.size);
+    }
+
+    @Override
+    public String toString()
+    {
+        return name + "[hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                + ", loads=" + loads + ", loadTime=" + loadTime + "ns, size=" + size + ']';
+    }
+}
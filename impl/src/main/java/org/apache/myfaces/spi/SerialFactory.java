@@ -53,6 +53,26 @@ public abstract class SerialFactory
         }
     }
 
+    /**
+     * Serializes the object into the given stream. The stream is flushed but not closed, so the caller can
+     * still finish the stream (e.g. write a compression trailer).
+     */
+    public void writeObject(Object object, OutputStream outputStream) throws IOException
+    {
+        ObjectOutputStream oos = getObjectOutputStream(outputStream);
+        oos.writeObject(object);
+        oos.flush();
+    }
+
+    /**
+     * Deserializes an object from the given stream. The stream is not closed.
+     */
+    public Object readObject(InputStream inputStream) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream ois = getObjectInputStream(inputStream);
+        return ois.readObject();
+    }
+
     protected abstract ObjectOutputStream getObjectOutputStream(OutputStream outputStream) throws IOException;
 
     protected abstract ObjectInputStream getObjectInputStream(InputStream inputStream) throws IOException;
@@ -0,0 +1,631 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.myfaces.application.TreeStructureManager.TreeStructComponent;
+import org.apache.myfaces.util.lang.ClassUtils;
+import org.apache.myfaces.util.lang.FastByteArrayInputStream;
+
+/**
+ * SerialFactory that writes the view state in a compact tagged binary format instead of using
+ * plain java serialization for everything.
+ *
+ * <p>The types that make up most of the view state (Object[], ArrayList, HashMap, String, the primitive
+ * wrappers, the PropertyKeys enums, Class, Locale, TreeStructComponent and the _Attached*Wrapper classes
+ * of the API) are written with a one byte tag followed by their content. Strings, enum and class names
+ * are only written the first time, after that a reference to the first occurrence is used. Any other
+ * object is written with java serialization, in the same ObjectOutputStream, so its class descriptors
+ * are also only written once.</p>
+ *
+ * <p>Unlike java serialization, shared references to the same array, list or map are written twice and
+ * are not shared anymore after the state is read. The view state does not rely on that.</p>
+ *
+ * <p>Enable it with the org.apache.myfaces.SERIAL_FACTORY parameter.</p>
+ */
+public class BinarySerialFactory extends DefaultSerialFactory
+{
+    private static final Logger log = Logger.getLogger(BinarySerialFactory.class.getName());
+
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int INTEGER = 3;
+    private static final int LONG = 4;
+    private static final int SHORT = 5;
+    private static final int BYTE = 6;
+    private static final int CHARACTER = 7;
+    private static final int FLOAT = 8;
+    private static final int DOUBLE = 9;
+    private static final int STRING = 10;
+    private static final int STRING_REF = 11;
+    private static final int OBJECT_ARRAY = 12;
+    private static final int ARRAY_LIST = 13;
+    private static final int HASH_MAP = 14;
+    private static final int ENUM = 15;
+    private static final int CLASS = 16;
+    private static final int LOCALE = 17;
+    private static final int TREE_STRUCT_COMPONENT = 18;
+    private static final int WRAPPER = 19;
+    private static final int SERIALIZABLE = 127;
+
+    /**
+     * The state holders of the API are package private, so they are created with reflection. The index
+     * in this array is written after the WRAPPER tag, so new entries must be added at the end.
+     */
+    private static final StateWrapper[] WRAPPERS = {
+        StateWrapper.of("jakarta.faces.component._AttachedStateWrapper", "getClazz", "getWrappedStateObject"),
+        StateWrapper.of("jakarta.faces.component._AttachedDeltaWrapper", null, "getWrappedStateObject"),
+        StateWrapper.of("jakarta.faces.component._AttachedListStateWrapper", "getWrappedStateList"),
+        StateWrapper.of("jakarta.faces.component._AttachedCollectionStateWrapper", "getClazz",
+                "getWrappedStateList"),
+        StateWrapper.of("jakarta.faces.component.behavior._AttachedStateWrapper", "getClazz",
+                "getWrappedStateObject"),
+        StateWrapper.of("jakarta.faces.component.behavior._AttachedDeltaWrapper", null, "getWrappedStateObject"),
+        StateWrapper.of("jakarta.faces.component.behavior._AttachedListStateWrapper", "getWrappedStateList")
+    };
+
+    private static final Map<Class<?>, Integer> WRAPPER_INDEX = new HashMap<>();
+
+    static
+    {
+        for (int i = 0; i < WRAPPERS.length; i++)
+        {
+            if (WRAPPERS[i] != null)
+            {
+                WRAPPER_INDEX.put(WRAPPERS[i].type, i);
+            }
+        }
+    }
+
+    @Override
+    public byte[] toByteArray(Object object) throws IOException
+    {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream())
+        {
+            writeObject(object, baos);
+            return baos.toByteArray();
+        }
+    }
+
+    @Override
+    public Object toObject(byte[] bytes) throws IOException, ClassNotFoundException
+    {
+        try (InputStream bias = new FastByteArrayInputStream(bytes))
+        {
+            return readObject(bias);
+        }
+    }
+
+    @Override
+    public void writeObject(Object object, OutputStream outputStream) throws IOException
+    {
+        ObjectOutputStream oos = getObjectOutputStream(outputStream);
+        new StateWriter(oos).write(object);
+        oos.flush();
+    }
+
+    @Override
+    public Object readObject(InputStream inputStream) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream ois = getObjectInputStream(inputStream);
+        return new StateReader(ois).read();
+    }
+
+    private static final class StateWriter
+    {
+        private final ObjectOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        StateWriter(ObjectOutputStream out)
+        {
+            this.out = out;
+        }
+
+        void write(Object value) throws IOException
+        {
+            if (value == null)
+            {
+                out.write(NULL);
+                return;
+            }
+
+            Class<?> type = value.getClass();
+            if (type == String.class)
+            {
+                writeString((String) value);
+            }
+            else if (type == Boolean.class)
+            {
+                out.write((Boolean) value ? TRUE : FALSE);
+            }
+            else if (type == Integer.class)
+            {
+                out.write(INTEGER);
+                writeVarLong((Integer) value);
+            }
+            else if (type == Object[].class)
+            {
+                Object[] array = (Object[]) value;
+                out.write(OBJECT_ARRAY);
+                writeVarInt(array.length);
+                for (Object item : array)
+                {
+                    write(item);
+                }
+            }
+            else if (type == ArrayList.class)
+            {
+                List<?> list = (List<?>) value;
+                out.write(ARRAY_LIST);
+                writeVarInt(list.size());
+                for (int i = 0; i < list.size(); i++)
+                {
+                    write(list.get(i));
+                }
+            }
+            else if (type == HashMap.class)
+            {
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.write(HASH_MAP);
+                writeVarInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet())
+                {
+                    write(entry.getKey());
+                    write(entry.getValue());
+                }
+            }
+            else if (value instanceof Enum<?> constant)
+            {
+                out.write(ENUM);
+                writeString(constant.getDeclaringClass().getName());
+                writeString(constant.name());
+            }
+            else if (type == Class.class && !((Class<?>) value).isPrimitive() && !((Class<?>) value).isArray())
+            {
+                out.write(CLASS);
+                writeString(((Class<?>) value).getName());
+            }
+            else if (type == TreeStructComponent.class)
+            {
+                writeTreeStructComponent((TreeStructComponent) value);
+            }
+            else if (WRAPPER_INDEX.containsKey(type))
+            {
+                int index = WRAPPER_INDEX.get(type);
+                out.write(WRAPPER);
+                writeVarInt(index);
+                WRAPPERS[index].write(this, value);
+            }
+            else if (type == Long.class)
+            {
+                out.write(LONG);
+                writeVarLong((Long) value);
+            }
+            else if (type == Short.class)
+            {
+                out.write(SHORT);
+                out.writeShort((Short) value);
+            }
+            else if (type == Byte.class)
+            {
+                out.write(BYTE);
+                out.writeByte((Byte) value);
+            }
+            else if (type == Character.class)
+            {
+                out.write(CHARACTER);
+                out.writeChar((Character) value);
+            }
+            else if (type == Float.class)
+            {
+                out.write(FLOAT);
+                out.writeFloat((Float) value);
+            }
+            else if (type == Double.class)
+            {
+                out.write(DOUBLE);
+                out.writeDouble((Double) value);
+            }
+            else if (type == Locale.class && isLanguageTagCompatible((Locale) value))
+            {
+                out.write(LOCALE);
+                writeString(((Locale) value).toLanguageTag());
+            }
+            else
+            {
+                out.write(SERIALIZABLE);
+                out.writeObject(value);
+            }
+        }
+
+        private void writeTreeStructComponent(TreeStructComponent component) throws IOException
+        {
+            out.write(TREE_STRUCT_COMPONENT);
+            writeString(component.getComponentClass());
+            write(component.getComponentId());
+
+            TreeStructComponent[] children = component.getChildren();
+            if (children == null)
+            {
+                writeVarInt(0);
+            }
+            else
+            {
+                writeVarInt(children.length + 1);
+                for (TreeStructComponent child : children)
+                {
+                    write(child);
+                }
+            }
+            write(component.getFacets());
+        }
+
+        private void writeString(String value) throws IOException
+        {
+            Integer index = strings.get(value);
+            if (index != null)
+            {
+                out.write(STRING_REF);
+                writeVarInt(index);
+                return;
+            }
+
+            strings.put(value, strings.size());
+            out.write(STRING);
+            int length = value.length();
+            writeVarInt(length);
+            for (int i = 0; i < length; i++)
+            {
+                writeVarInt(value.charAt(i));
+            }
+        }
+
+        private void writeVarInt(int value) throws IOException
+        {
+            while ((value & ~0x7F) != 0)
+            {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+
+        private void writeVarLong(long value) throws IOException
+        {
+            // zigzag, so small negative numbers are also small
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0)
+            {
+                out.write((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.write((int) zigzag);
+        }
+
+        private static boolean isLanguageTagCompatible(Locale locale)
+        {
+            return Locale.forLanguageTag(locale.toLanguageTag()).equals(locale);
+        }
+    }
+
+    private static final class StateReader
+    {
+        private final ObjectInputStream in;
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Class<?>> classes = new HashMap<>();
+
+        StateReader(ObjectInputStream in)
+        {
+            this.in = in;
+        }
+
+        Object read() throws IOException, ClassNotFoundException
+        {
+            int tag = in.read();
+            switch (tag)
+            {
+                case NULL:
+                    return null;
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case INTEGER:
+                    return (int) readVarLong();
+                case LONG:
+                    return readVarLong();
+                case SHORT:
+                    return in.readShort();
+                case BYTE:
+                    return in.readByte();
+                case CHARACTER:
+                    return in.readChar();
+                case FLOAT:
+                    return in.readFloat();
+                case DOUBLE:
+                    return in.readDouble();
+                case STRING:
+                case STRING_REF:
+                    return readString(tag);
+                case OBJECT_ARRAY:
+                {
+                    Object[] array = new Object[readVarInt()];
+                    for (int i = 0; i < array.length; i++)
+                    {
+                        array[i] = read();
+                    }
+                    return array;
+                }
+                case ARRAY_LIST:
+                {
+                    int size = readVarInt();
+                    ArrayList<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++)
+                    {
+                        list.add(read());
+                    }
+                    return list;
+                }
+                case HASH_MAP:
+                {
+                    int size = readVarInt();
+                    HashMap<Object, Object> map = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+                    for (int i = 0; i < size; i++)
+                    {
+                        map.put(read(), read());
+                    }
+                    return map;
+                }
+                case ENUM:
+                    return readEnum();
+                case CLASS:
+                    return readClass();
+                case LOCALE:
+                    return Locale.forLanguageTag(readString(in.read()));
+                case TREE_STRUCT_COMPONENT:
+                    return readTreeStructComponent();
+                case WRAPPER:
+                {
+                    int index = readVarInt();
+                    if (index >= WRAPPERS.length || WRAPPERS[index] == null)
+                    {
+                        throw new InvalidObjectException("Unknown state wrapper " + index);
+                    }
+                    return WRAPPERS[index].read(this);
+                }
+                case SERIALIZABLE:
+                    return in.readObject();
+                default:
+                    throw new StreamCorruptedException("Unknown tag " + tag);
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Object readEnum() throws IOException, ClassNotFoundException
+        {
+            Class<?> type = loadClass(readString(in.read()));
+            String name = readString(in.read());
+            if (!type.isEnum())
+            {
+                throw new InvalidObjectException(type.getName() + " is not an enum");
+            }
+            return Enum.valueOf((Class<? extends Enum>) type, name);
+        }
+
+        private Class<?> readClass() throws IOException, ClassNotFoundException
+        {
+            return loadClass(readString(in.read()));
+        }
+
+        private TreeStructComponent readTreeStructComponent() throws IOException, ClassNotFoundException
+        {
+            String componentClass = readString(in.read());
+            String componentId = (String) read();
+            TreeStructComponent component = new TreeStructComponent(componentClass, componentId);
+
+            int children = readVarInt();
+            if (children > 0)
+            {
+                TreeStructComponent[] array = new TreeStructComponent[children - 1];
+                for (int i = 0; i < array.length; i++)
+                {
+                    array[i] = (TreeStructComponent) read();
+                }
+                component.setChildren(array);
+            }
+            component.setFacets((Object[]) read());
+            return component;
+        }
+
+        private Class<?> loadClass(String name) throws ClassNotFoundException
+        {
+            Class<?> type = classes.get(name);
+            if (type == null)
+            {
+                type = ClassUtils.classForName(name);
+                classes.put(name, type);
+            }
+            return type;
+        }
+
+        private String readString(int tag) throws IOException
+        {
+            if (tag == STRING_REF)
+            {
+                int index = readVarInt();
+                if (index >= strings.size())
+                {
+                    throw new StreamCorruptedException("Invalid string reference " + index);
+                }
+                return strings.get(index);
+            }
+            if (tag != STRING)
+            {
+                throw new StreamCorruptedException("Expected a string, found tag " + tag);
+            }
+
+            int length = readVarInt();
+            StringBuilder sb = new StringBuilder(length);
+            for (int i = 0; i < length; i++)
+            {
+                sb.append((char) readVarInt());
+            }
+            String value = sb.toString();
+            strings.add(value);
+            return value;
+        }
+
+        private int readVarInt() throws IOException
+        {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7)
+            {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed variable length int");
+        }
+
+        private long readVarLong() throws IOException
+        {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7)
+            {
+                int b = in.readUnsignedByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new StreamCorruptedException("Malformed variable length long");
+        }
+    }
+
+    /**
+     * Writes and creates one of the package private state holders of the API. Every constructor
+     * parameter is read from the getter with the same index, a null getter means the value is not
+     * kept by the holder and null is passed to the constructor.
+     */
+    private static final class StateWrapper
+    {
+        private final Class<?> type;
+        private final Constructor<?> constructor;
+        private final Method[] getters;
+
+        private StateWrapper(Class<?> type, Constructor<?> constructor, Method[] getters)
+        {
+            this.type = type;
+            this.constructor = constructor;
+            this.getters = getters;
+        }
+
+        static StateWrapper of(String className, String... getterNames)
+        {
+            try
+            {
+                Class<?> type = Class.forName(className, false, BinarySerialFactory.class.getClassLoader());
+                Method[] getters = new Method[getterNames.length];
+                Class<?>[] parameterTypes = new Class<?>[getterNames.length];
+                for (int i = 0; i < getterNames.length; i++)
+                {
+                    if (getterNames[i] == null)
+                    {
+                        parameterTypes[i] = Class.class;
+                    }
+                    else
+                    {
+                        getters[i] = type.getDeclaredMethod(getterNames[i]);
+                        getters[i].setAccessible(true);
+                        parameterTypes[i] = getters[i].getReturnType();
+                    }
+                }
+                Constructor<?> constructor = type.getDeclaredConstructor(parameterTypes);
+                constructor.setAccessible(true);
+                return new StateWrapper(type, constructor, getters);
+            }
+            catch (ReflectiveOperationException | RuntimeException e)
+            {
+                // it is written with java serialization then
+                log.log(Level.FINE, "State wrapper " + className + " not available", e);
+                return null;
+            }
+        }
+
+        void write(StateWriter writer, Object value) throws IOException
+        {
+            try
+            {
+                for (Method getter : getters)
+                {
+                    if (getter != null)
+                    {
+                        writer.write(getter.invoke(value));
+                    }
+                }
+            }
+            catch (ReflectiveOperationException e)
+            {
+                throw new IOException(e);
+            }
+        }
+
+        Object read(StateReader reader) throws IOException, ClassNotFoundException
+        {
+            Object[] parameters = new Object[getters.length];
+            for (int i = 0; i < getters.length; i++)
+            {
+                if (getters[i] != null)
+                {
+                    parameters[i] = reader.read();
+                }
+            }
+            try
+            {
+                return constructor.newInstance(parameters);
+            }
+            catch (ReflectiveOperationException e)
+            {
+                throw new IOException(e);
+            }
+        }
+    }
+}
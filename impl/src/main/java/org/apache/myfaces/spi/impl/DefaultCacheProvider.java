@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.apache.myfaces.spi.Cache;
+import org.apache.myfaces.spi.CacheProvider;
+import org.apache.myfaces.spi.CacheStats;
+import org.apache.myfaces.util.lang.SegmentedLRUCache;
+
+/**
+ * Creates {@link SegmentedLRUCache} instances.
+ * 
+ * @since 5.0
+ */
+public class DefaultCacheProvider extends CacheProvider
+{
+    /**
+     * The caches are only referenced weakly, the statistics of a collected cache are lost.
+     */
+    private final Queue<WeakReference<Cache<?, ?>>> caches = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public <K, V> Cache<K, V> createCache(String name, int maxSize)
+    {
+        Cache<K, V> cache = new SegmentedLRUCache<>(name, maxSize);
+        caches.add(new WeakReference<>(cache));
+        return cache;
+    }
+
+    @Override
+    public Map<String, CacheStats> getStats()
+    {
+        Map<String, CacheStats> stats = new TreeMap<>();
+        caches.removeIf(reference ->
+        {
+            Cache<?, ?> cache = reference.get();
+            if (cache == null)
+            {
+                return true;
+            }
+            stats.merge(cache.getName(), cache.getStats(), CacheStats::plus);
+            return false;
+        });
+        return stats;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi.impl;
+
+import java.util.List;
+import java.util.Map;
+import jakarta.faces.context.ExternalContext;
+import org.apache.myfaces.spi.CacheProvider;
+import org.apache.myfaces.spi.CacheProviderFactory;
+import org.apache.myfaces.spi.ServiceProviderFinderFactory;
+import org.apache.myfaces.util.lang.ClassUtils;
+
+/**
+ * @since 5.0
+ */
+public class DefaultCacheProviderFactory extends CacheProviderFactory
+{
+    public static final String CACHE_PROVIDER = CacheProvider.class.getName();
+
+    public static final String CACHE_PROVIDER_LIST = CacheProvider.class.getName() + ".LIST";
+
+    public static final String CACHE_PROVIDER_INSTANCE = CacheProvider.class.getName() + ".INSTANCE";
+
+    @Override
+    public CacheProvider getCacheProvider(ExternalContext externalContext)
+    {
+        Map<String, Object> appMap = externalContext.getApplicationMap();
+        CacheProvider provider = (CacheProvider) appMap.get(CACHE_PROVIDER_INSTANCE);
+        if (provider != null)
+        {
+            return provider;
+        }
+        // not computeIfAbsent, creating the provider also updates the application map
+        provider = createCacheProvider(externalContext);
+        CacheProvider previous = (CacheProvider) appMap.putIfAbsent(CACHE_PROVIDER_INSTANCE, provider);
+        return previous != null ? previous : provider;
+    }
+
+    @Override
+    public CacheProvider createCacheProvider(ExternalContext externalContext)
+    {
+        Map<String, Object> appMap = externalContext.getApplicationMap();
+        List<String> classList = (List<String>) appMap.get(CACHE_PROVIDER_LIST);
+        if (classList == null)
+        {
+            classList = ServiceProviderFinderFactory.getServiceProviderFinder(externalContext)
+                    .getServiceProviderList(CACHE_PROVIDER);
+            appMap.put(CACHE_PROVIDER_LIST, classList);
+        }
+        return ClassUtils.buildApplicationObject(CacheProvider.class, classList, new DefaultCacheProvider());
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.util.lang;
+
+import java.io.IOException;
+
+/**
+ * Implemented by Writers that can take a text together with its UTF-8 encoded form, so a text that never
+ * changes (e.g. the literal text of a facelet) is not encoded again for every response.
+ */
+public interface PreEncodedWriter
+{
+    /**
+     * Writes the given text. The bytes are the UTF-8 encoded form of the text, a Writer that does not encode
+     * to UTF-8 writes the chars instead.
+     *
+     * @param text the text, must not be modified
+     * @param utf8 the UTF-8 encoded text, must not be modified
+     * @throws IOException
+     */
+    void write(char[] text, byte[] utf8) throws IOException;
+}
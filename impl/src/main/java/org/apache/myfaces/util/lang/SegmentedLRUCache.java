@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.util.lang;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.myfaces.spi.Cache;
+import org.apache.myfaces.spi.CacheStats;
+
+/**
+ * A bounded cache with a segmented LRU eviction policy. New entries go to the probation segment and
+ * are promoted to the protected segment (80% of the size) when they are read again, so the entries
+ * read only once are evicted before the ones read often. The eviction takes the tail of the
+ * probation segment, in constant time.
+ * <p>
+ * The entries are held in a ConcurrentHashMap, so reads do not lock: they are recorded in a small
+ * lossy ring buffer which is applied to the segments by the thread that gets the lock, either a
+ * writer or a reader that fills a part of the buffer. Under heavy contention some reads are not
+ * recorded, which only makes the order approximate. Writes lock, they are expected to be much less
+ * frequent than reads.
+ * 
+ * @since 5.0
+ */
+public class SegmentedLRUCache<K, V> implements Cache<K, V>
+{
+    private static final int READ_BUFFER_SIZE = 64;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int DRAIN_MASK = 15;
+
+    private static final byte REMOVED = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    private final String name;
+    private final int maxSize;
+    private final int maxProtectedSize;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+
+    // the segments are circular lists with a sentinel head, guarded by the lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Node<K, V> probation = new Node<>(null, null);
+    private final Node<K, V> protectedSegment = new Node<>(null, null);
+    private int protectedSize;
+
+    private final AtomicReferenceArray<Node<K, V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicInteger readCount = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadTime = new LongAdder();
+
+    public SegmentedLRUCache(String name, int maxSize)
+    {
+        if (maxSize < 0)
+        {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.maxProtectedSize = maxSize * 4 / 5;
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public V get(K key)
+    {
+        Node<K, V> node = data.get(key);
+        if (node == null)
+        {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+
+        int index = readCount.getAndIncrement();
+        readBuffer.lazySet(index & READ_BUFFER_MASK, node);
+        if ((index & DRAIN_MASK) == DRAIN_MASK && lock.tryLock())
+        {
+            try
+            {
+                drainReadBuffer();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    @Override
+    public void put(K key, V value)
+    {
+        lock.lock();
+        try
+        {
+            drainReadBuffer();
+
+            Node<K, V> node = data.get(key);
+            if (node != null)
+            {
+                node.value = value;
+                onAccess(node);
+                return;
+            }
+
+            node = new Node<>(key, value);
+            data.put(key, node);
+            link(probation, node);
+            node.segment = PROBATION;
+
+            while (data.size() > maxSize)
+            {
+                evict();
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V remove(K key)
+    {
+        lock.lock();
+        try
+        {
+            Node<K, V> node = data.remove(key);
+            if (node == null)
+            {
+                return null;
+            }
+            unlink(node);
+            return node.value;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(K key)
+    {
+        return data.containsKey(key);
+    }
+
+    @Override
+    public Set<K> keySet()
+    {
+        return Collections.unmodifiableSet(data.keySet());
+    }
+
+    @Override
+    public int size()
+    {
+        return data.size();
+    }
+
+    @Override
+    public void clear()
+    {
+        lock.lock();
+        try
+        {
+            for (int i = 0; i < READ_BUFFER_SIZE; i++)
+            {
+                readBuffer.lazySet(i, null);
+            }
+            for (Node<K, V> node : data.values())
+            {
+                node.segment = REMOVED;
+            }
+            data.clear();
+            probation.prev = probation;
+            probation.next = probation;
+            protectedSegment.prev = protectedSegment;
+            protectedSegment.next = protectedSegment;
+            protectedSize = 0;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void recordLoad(long nanos)
+    {
+        loads.increment();
+        loadTime.add(nanos);
+    }
+
+    @Override
+    public CacheStats getStats()
+    {
+        return new CacheStats(name, hits.sum(), misses.sum(), evictions.sum(), loads.sum(), loadTime.sum(),
+                data.size());
+    }
+
+    private void drainReadBuffer()
+    {
+        for (int i = 0; i < READ_BUFFER_SIZE; i++)
+        {
+            Node<K, V> node = readBuffer.getAndSet(i, null);
+            if (node != null)
+            {
+                onAccess(node);
+            }
+        }
+    }
+
+    private void onAccess(Node<K, V> node)
+    {
+        if (node.segment == PROTECTED)
+        {
+            detach(node);
+            link(protectedSegment, node);
+        }
+        else if (node.segment == PROBATION)
+        {
+            unlink(node);
+            link(protectedSegment, node);
+            node.segment = PROTECTED;
+            protectedSize++;
+            if (protectedSize > maxProtectedSize)
+            {
+                Node<K, V> demoted = protectedSegment.prev;
+                unlink(demoted);
+                link(probation, demoted);
+                demoted.segment = PROBATION;
+            }
+        }
+        // else removed, read before it was evicted
+    }
+
+    private void evict()
+    {
+        Node<K, V> victim = probation.prev != probation ? probation.prev : protectedSegment.prev;
+        unlink(victim);
+        data.remove(victim.key, victim);
+        evictions.increment();
+    }
+
+    private static <K, V> void link(Node<K, V> head, Node<K, V> node)
+    {
+        node.prev = head;
+        node.next = head.next;
+        head.next.prev = node;
+        head.next = node;
+    }
+
+    private void unlink(Node<K, V> node)
+    {
+        if (node.segment == PROTECTED)
+        {
+            protectedSize--;
+        }
+        detach(node);
+        node.segment = REMOVED;
+    }
+
+    private static <K, V> void detach(Node<K, V> node)
+    {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    private static final class Node<K, V>
+    {
+        final K key;
+        volatile V value;
+
+        // guarded by the lock
+        Node<K, V> prev = this;
+        Node<K, V> next = this;
+        byte segment;
+
+        Node(K key, V value)
+        {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.util.lang;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A Writer that encodes to UTF-8 directly into a byte buffer and writes the buffer to an OutputStream, used
+ * instead of the Writer of the servlet container, see org.apache.myfaces.WRITE_RESPONSE_TO_OUTPUT_STREAM.
+ *
+ * <p>ASCII characters, which are most of an html page, are copied to the buffer in a tight loop. Text encoded
+ * in advance is copied as it is, see {@link PreEncodedWriter}. The buffers are pooled, a buffer is taken when
+ * the writer is created and given back by {@link #close()}, which does not close the OutputStream.
+ * Unpaired surrogates are written as '?', like OutputStreamWriter does.</p>
+ *
+ * <p>This class is not thread safe.</p>
+ */
+public final class Utf8OutputStreamWriter extends Writer implements PreEncodedWriter
+{
+    static final int BUFFER_SIZE = 8192;
+
+    private static final int MAX_IDLE = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final BlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<>(MAX_IDLE);
+
+    private final OutputStream out;
+    private byte[] buffer;
+    private int count;
+    private char highSurrogate;
+
+    public Utf8OutputStreamWriter(OutputStream out)
+    {
+        this.out = out;
+        byte[] pooled = BUFFERS.poll();
+        this.buffer = pooled == null ? new byte[BUFFER_SIZE] : pooled;
+    }
+
+    @Override
+    public void write(int c) throws IOException
+    {
+        ensureOpen();
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException
+    {
+        ensureOpen();
+        int end = off + len;
+        int i = off;
+        while (i < end)
+        {
+            if (highSurrogate == 0)
+            {
+                int limit = i + Math.min(end - i, buffer.length - count);
+                while (i < limit)
+                {
+                    char c = cbuf[i];
+                    if (c >= 0x80)
+                    {
+                        break;
+                    }
+                    buffer[count++] = (byte) c;
+                    i++;
+                }
+            }
+            if (i < end)
+            {
+                encode(cbuf[i++]);
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException
+    {
+        ensureOpen();
+        int end = off + len;
+        int i = off;
+        while (i < end)
+        {
+            if (highSurrogate == 0)
+            {
+                int limit = i + Math.min(end - i, buffer.length - count);
+                while (i < limit)
+                {
+                    char c = str.charAt(i);
+                    if (c >= 0x80)
+                    {
+                        break;
+                    }
+                    buffer[count++] = (byte) c;
+                    i++;
+                }
+            }
+            if (i < end)
+            {
+                encode(str.charAt(i++));
+            }
+        }
+    }
+
+    @Override
+    public void write(String str) throws IOException
+    {
+        write(str, 0, str.length());
+    }
+
+    @Override
+    public void write(char[] text, byte[] utf8) throws IOException
+    {
+        ensureOpen();
+        writeUnpairedSurrogate();
+        if (utf8.length > buffer.length - count)
+        {
+            flushBuffer();
+            if (utf8.length > buffer.length)
+            {
+                out.write(utf8);
+                return;
+            }
+        }
+        System.arraycopy(utf8, 0, buffer, count, utf8.length);
+        count += utf8.length;
+    }
+
+    private void encode(char c) throws IOException
+    {
+        if (highSurrogate != 0)
+        {
+            if (Character.isLowSurrogate(c))
+            {
+                int codePoint = Character.toCodePoint(highSurrogate, c);
+                highSurrogate = 0;
+                ensureCapacity(4);
+                buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+            writeUnpairedSurrogate();
+        }
+
+        if (c < 0x80)
+        {
+            ensureCapacity(1);
+            buffer[count++] = (byte) c;
+        }
+        else if (c < 0x800)
+        {
+            ensureCapacity(2);
+            buffer[count++] = (byte) (0xC0 | (c >> 6));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        }
+        else if (Character.isHighSurrogate(c))
+        {
+            highSurrogate = c;
+        }
+        else if (Character.isLowSurrogate(c))
+        {
+            ensureCapacity(1);
+            buffer[count++] = '?';
+        }
+        else
+        {
+            ensureCapacity(3);
+            buffer[count++] = (byte) (0xE0 | (c >> 12));
+            buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void writeUnpairedSurrogate() throws IOException
+    {
+        if (highSurrogate != 0)
+        {
+            highSurrogate = 0;
+            ensureCapacity(1);
+            buffer[count++] = '?';
+        }
+    }
+
+    private void ensureCapacity(int len) throws IOException
+    {
+        if (count + len > buffer.length)
+        {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException
+    {
+        if (count > 0)
+        {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    private void ensureOpen() throws IOException
+    {
+        if (buffer == null)
+        {
+            throw new IOException("Writer closed");
+        }
+    }
+
+    /**
+     * Discards the buffered content, used when the response is reset.
+     */
+    public void reset()
+    {
+        count = 0;
+        highSurrogate = 0;
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        if (buffer != null)
+        {
+            flushBuffer();
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the buffered content to the OutputStream and gives the buffer back to the pool. The
+     * OutputStream is not closed, it belongs to the servlet container.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (buffer != null)
+        {
+            try
+            {
+                writeUnpairedSurrogate();
+                flushBuffer();
+            }
+            finally
+            {
+                BUFFERS.offer(buffer);
+                buffer = null;
+            }
+        }
+    }
+}
@@ -211,6 +211,8 @@ public class FaceletViewDeclarationLanguage extends FaceletViewDeclarationLangua
     private final FaceletsCompilerSupport faceletsCompilerSupport;
     private final MyfacesConfig config;
     private final ViewPoolProcessor viewPoolProcessor;
+
+    private final ViewPrototypeProcessor viewPrototypeProcessor;
     private final ViewIdSupport viewIdSupport;
     
     private StateManagementStrategy partialSMS;
@@ -235,6 +237,8 @@ public class FaceletViewDeclarationLanguage extends FaceletViewDeclarationLangua
         this.config = MyfacesConfig.getCurrentInstance(context);
         this.strategy = strategy;
         this.viewPoolProcessor = ViewPoolProcessor.getInstance(context);
+        this.viewPrototypeProcessor = config.isViewPrototype() && !context.isProjectStage(ProjectStage.Development)
+                ? new ViewPrototypeProcessor(context) : null;
         this.viewIdSupport = ViewIdSupport.getInstance(context);
         this.faceletsCompilerSupport = new FaceletsCompilerSupport();
 
@@ -286,6 +290,7 @@ public class FaceletViewDeclarationLanguage extends FaceletViewDeclarationLangua
     }
 
     private RestoreViewFromPoolResult tryRestoreViewFromCache(FacesContext context, UIViewRoot view)
+            throws IOException
     {
         if (viewPoolProcessor != null)
         {
@@ -302,8 +307,19 @@ public class FaceletViewDeclarationLanguage extends FaceletViewDeclarationLangua
                         return entry.getResult();
                     }
                 }
+                else
+                {
+                    // the structure of the view is not known yet, so there is nothing to take from the pool
+                    viewPoolProcessor.getStatistics().recordMiss(view.getViewId());
+                }
+                return null;
             }
         }
+        if (viewPrototypeProcessor != null && _usePartialStateSavingOnThisView(view.getViewId())
+                && viewPrototypeProcessor.copyView(context, view, _getFacelet(context, view.getViewId())))
+        {
+            return RestoreViewFromPoolResult.COMPLETE;
+        }
         return null;
     }
 
@@ -338,7 +354,7 @@ public class FaceletViewDeclarationLanguage extends FaceletViewDeclarationLangua
         boolean refreshTransientBuildOnPSS = usePartialStateSavingOnThisView && config.isRefreshTransientBuildOnPSS();
         boolean refreshPartialView = false;
 
-        if (viewPoolProcessor != null && !refreshTransientBuild)
+        if ((viewPoolProcessor != null || viewPrototypeProcessor != null) && !refreshTransientBuild)
         {
             RestoreViewFromPoolResult result = tryRestoreViewFromCache(context, view);
             if (result != null)
@@ -409,6 +425,7 @@ public class FaceletViewDeclarationLanguage extends FaceletViewDeclarationLangua
             }
         }
 
+        Facelet facelet;
         try
         {
             if (refreshTransientBuild)
@@ -421,7 +438,8 @@ public class FaceletViewDeclarationLanguage extends FaceletViewDeclarationLangua
                 //context.setProcessingEvents(false);
             }
             // populate UIViewRoot
-            _getFacelet(context, viewId).apply(context, view);
+            facelet = _getFacelet(context, viewId);
+            facelet.apply(context, view);
         }
         finally
         {
@@ -494,6 +512,10 @@ public class FaceletViewDeclarationLanguage extends FaceletViewDeclarationLangua
                 {
                     viewPoolProcessor.storeViewStructureMetadata(context, view);
                 }
+                else if (viewPrototypeProcessor != null && !refreshTransientBuild)
+                {
+                    viewPrototypeProcessor.storeView(context, view, facelet);
+                }
                 if (config.isMarkInitialStateWhenApplyBuildView())
                 {
                     if (!refreshTransientBuildOnPSS ||
@@ -1815,8 +1837,8 @@ public class FaceletViewDeclarationLanguage extends FaceletViewDeclarationLangua
                         // org.apache.myfaces.application.ViewHandlerImpl.writeState(FacesContext)
                         // TODO this class and ViewHandlerImpl contain same constant <!--@@JSF_FORM_STATE_MARKER@@-->
                         Object stateObj = sms.saveView(context);
-                        String content = stateWriter.getAndResetBuffer();
-                        int end = content.indexOf(STATE_KEY);
+                        StateWriter.Buffer content = stateWriter.getAndResetContent();
+                        int end = content.indexOfState(0);
                         // See if we can find any trace of the saved state.
                         // If so, we need to perform token replacement
                         if (end >= 0)
@@ -1826,7 +1848,7 @@ public class FaceletViewDeclarationLanguage extends FaceletViewDeclarationLangua
 
                             while (end != -1)
                             {
-                                origWriter.write(content, start, end - start);
+                                content.writeTo(origWriter, start, end);
                                 
                                 String stateStr;
                                 if (view.isTransient())
@@ -1850,15 +1872,15 @@ public class FaceletViewDeclarationLanguage extends FaceletViewDeclarationLangua
                                     origWriter.write(stateStr);
                                 }
                                 start = end + STATE_KEY_LEN;
-                                end = content.indexOf(STATE_KEY, start);
+                                end = content.indexOfState(start);
                             }
 
-                            origWriter.write(content, start, content.length() - start);
+                            content.writeTo(origWriter, start, content.length());
                             // No trace of any saved state, so we just need to flush the buffer
                         }
                         else
                         {
-                            origWriter.write(content);
+                            content.writeTo(origWriter, 0, content.length());
                         }
                     }
                     else if (stateWriter.isStateWrittenWithoutWrapper())
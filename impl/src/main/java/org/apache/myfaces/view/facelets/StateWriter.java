@@ -18,40 +18,43 @@
  */
 package org.apache.myfaces.view.facelets;
 
-import org.apache.myfaces.util.lang.FastWriter;
+import org.apache.myfaces.application.ViewHandlerImpl;
+import org.apache.myfaces.util.lang.PreEncodedWriter;
 
 import jakarta.faces.context.FacesContext;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * A class for handling state insertion. Content is written directly to "out" until an attempt to write state; at that
- * point, it's redirected into a buffer that can be picked through in theory, this buffer should be very small, since it
- * only needs to be enough to contain all the content after the close of the first (and, hopefully, only) form.
+ * point, it's redirected into a buffer, because the state can only be saved after the whole view has been rendered.
  * <p>
- * Potential optimizations:
- * <ul>
- * <li>If we created a new FastWriter at each call to writingState(), and stored a List of them, then we'd know that
- * state tokens could only possibly be near the start of each buffer (and might not be there at all). (There might be a
- * close-element before the state token). Then, we'd only need to check the start of the buffer for the state token; if
- * it's there, write out the real state, then blast the rest of the buffer out. This wouldn't even require toString(),
- * which for large buffers is expensive. However, this optimization is only going to be especially meaningful for the
- * multi-form case.</li>
- * <li>More of a FastWriter optimization than a StateWriter, but: it is far faster to create a set of small 1K buffers
- * than constantly reallocating one big buffer.</li>
- * </ul>
+ * The buffer is a list of fixed size chunks, so a large page is never copied to grow it, and the position of every
+ * state marker is recorded when the marker is written, so the markers do not need to be searched for. If a
+ * ResponseWriter does not pass the marker as one String (e.g. because it encodes the output), the buffer is scanned
+ * for the markers instead.
+ * </p>
+ * <p>
+ * Server side state saving does not need the buffer at all: the view state token is written during the render and
+ * the state is saved after it, see {@link #writingStateWithoutWrapper()}.
+ * </p>
  * 
  * @author Adam Winer
  * @version $Id$
  */
-public final class StateWriter extends Writer
+public final class StateWriter extends Writer implements PreEncodedWriter
 {
 
     private static final String CURRENT_WRITER_KEY = "org.apache.myfaces.view.facelets.StateWriter.CURRENT_WRITER";
 
+    private static final String STATE_KEY = ViewHandlerImpl.FORM_STATE_MARKER;
+
     private int initialSize;
     private Writer out;
-    private FastWriter fast;
+    private Buffer buffer;
     private boolean writtenState;
     private boolean writtenStateWithoutWrapper;
 
@@ -129,9 +132,10 @@ public final class StateWriter extends Writer
         {
             this.writtenState = true;
             this.writtenStateWithoutWrapper = false;
-            this.fast = new FastWriter(this.initialSize);
-            this.out = this.fast;
+            this.buffer = new Buffer(this.initialSize);
+            this.out = this.buffer;
         }
+        this.buffer.stateRequests++;
     }
     
     public boolean isStateWritten()
@@ -188,15 +192,36 @@ public final class StateWriter extends Writer
     @Override
     public void write(String str, int off, int len) throws IOException
     {
+        if (this.writtenState && off == 0 && len == str.length())
+        {
+            this.buffer.markIfState(str);
+        }
         this.out.write(str, off, len);
     }
 
     @Override
     public void write(String str) throws IOException
     {
+        if (this.writtenState)
+        {
+            this.buffer.markIfState(str);
+        }
         this.out.write(str);
     }
 
+    @Override
+    public void write(char[] text, byte[] utf8) throws IOException
+    {
+        if (this.out instanceof PreEncodedWriter preEncodedWriter)
+        {
+            preEncodedWriter.write(text, utf8);
+        }
+        else
+        {
+            this.out.write(text, 0, text.length);
+        }
+    }
+
     public String getAndResetBuffer()
     {
         if (!this.writtenState)
@@ -204,8 +229,25 @@ public final class StateWriter extends Writer
             throw new IllegalStateException("Did not write state;  no buffer is available");
         }
 
-        String result = this.fast.toString();
-        this.fast.reset();
+        String result = this.buffer.toString();
+        this.buffer.reset();
+        return result;
+    }
+
+    /**
+     * Returns the buffered content and continues buffering into a new, empty buffer. Unlike
+     * {@link #getAndResetBuffer()} the content is not copied into a String.
+     */
+    public Buffer getAndResetContent()
+    {
+        if (!this.writtenState)
+        {
+            throw new IllegalStateException("Did not write state;  no buffer is available");
+        }
+
+        Buffer result = this.buffer;
+        this.buffer = new Buffer(this.initialSize);
+        this.out = this.buffer;
         return result;
     }
 
@@ -221,4 +263,206 @@ public final class StateWriter extends Writer
         setCurrentInstance(null, facesContext);
     }
 
+    /**
+     * The content buffered after the first attempt to write state.
+     */
+    public static final class Buffer extends Writer
+    {
+        private static final int MIN_CHUNK_SIZE = 1024;
+        private static final int[] NO_MARKERS = new int[0];
+
+        private final int chunkBits;
+        private final int chunkMask;
+        private final List<char[]> chunks = new ArrayList<>();
+        private char[] current;
+        private int pos;
+        private int size;
+
+        private int[] markers = NO_MARKERS;
+        private int markerCount;
+        private int stateRequests;
+
+        Buffer(int initialSize)
+        {
+            // a power of two, so a position is split in chunk and offset with a shift and a mask
+            int chunkSize = Math.max(MIN_CHUNK_SIZE, Integer.highestOneBit(Math.max(initialSize, 1) * 2 - 1));
+            this.chunkBits = Integer.numberOfTrailingZeros(chunkSize);
+            this.chunkMask = chunkSize - 1;
+            this.current = new char[chunkSize];
+            this.chunks.add(this.current);
+        }
+
+        void markIfState(String str)
+        {
+            if (str.length() == STATE_KEY.length() && str.equals(STATE_KEY))
+            {
+                if (markerCount == markers.length)
+                {
+                    markers = Arrays.copyOf(markers, Math.max(4, markerCount * 2));
+                }
+                markers[markerCount++] = size;
+            }
+        }
+
+        /**
+         * Returns the position of the first state marker at or after the given position, or -1.
+         */
+        public int indexOfState(int fromIndex)
+        {
+            // Every attempt to write state wrote its marker as one String, so the recorded
+            // positions are all the markers there are.
+            if (markerCount == stateRequests)
+            {
+                for (int i = 0; i < markerCount; i++)
+                {
+                    if (markers[i] >= fromIndex)
+                    {
+                        return markers[i];
+                    }
+                }
+                return -1;
+            }
+            return scan(fromIndex);
+        }
+
+        private int scan(int fromIndex)
+        {
+            char first = STATE_KEY.charAt(0);
+            int max = size - STATE_KEY.length();
+            for (int i = Math.max(fromIndex, 0); i <= max; i++)
+            {
+                if (charAt(i) == first)
+                {
+                    int j = 1;
+                    while (j < STATE_KEY.length() && charAt(i + j) == STATE_KEY.charAt(j))
+                    {
+                        j++;
+                    }
+                    if (j == STATE_KEY.length())
+                    {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private char charAt(int index)
+        {
+            return chunks.get(index >>> chunkBits)[index & chunkMask];
+        }
+
+        public int length()
+        {
+            return size;
+        }
+
+        /**
+         * Writes the content between the given positions to the given Writer, chunk by chunk.
+         */
+        public void writeTo(Writer writer, int start, int end) throws IOException
+        {
+            while (start < end)
+            {
+                int offset = start & chunkMask;
+                int len = Math.min(end - start, chunkMask + 1 - offset);
+                writer.write(chunks.get(start >>> chunkBits), offset, len);
+                start += len;
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException
+        {
+            while (len > 0)
+            {
+                int n = Math.min(len, ensureCapacity());
+                System.arraycopy(cbuf, off, current, pos, n);
+                pos += n;
+                size += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void write(int c) throws IOException
+        {
+            ensureCapacity();
+            current[pos++] = (char) c;
+            size++;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException
+        {
+            while (len > 0)
+            {
+                int n = Math.min(len, ensureCapacity());
+                str.getChars(off, off + n, current, pos);
+                pos += n;
+                size += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void write(String str) throws IOException
+        {
+            write(str, 0, str.length());
+        }
+
+        private int ensureCapacity()
+        {
+            if (pos == current.length)
+            {
+                int index = (size >>> chunkBits);
+                if (index < chunks.size())
+                {
+                    // reused after reset()
+                    current = chunks.get(index);
+                }
+                else
+                {
+                    current = new char[chunkMask + 1];
+                    chunks.add(current);
+                }
+                pos = 0;
+            }
+            return current.length - pos;
+        }
+
+        void reset()
+        {
+            current = chunks.get(0);
+            pos = 0;
+            size = 0;
+            markerCount = 0;
+            stateRequests = 0;
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            // do nothing
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            // do nothing
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder sb = new StringBuilder(size);
+            for (int start = 0; start < size; start += chunkMask + 1)
+            {
+                sb.append(chunks.get(start >>> chunkBits), 0, Math.min(size - start, chunkMask + 1));
+            }
+            return sb.toString();
+        }
+    }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.myfaces.view.facelets;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -35,15 +36,19 @@ import jakarta.faces.context.FacesContext;
 import jakarta.faces.event.PhaseId;
 import jakarta.faces.view.StateManagementStrategy;
 import jakarta.faces.view.ViewDeclarationLanguage;
+import javax.management.JMException;
+import javax.management.ObjectName;
 import org.apache.myfaces.application.StateManagerImpl;
 import org.apache.myfaces.component.ComponentResourceContainer;
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.context.RequestViewContext;
 import org.apache.myfaces.context.RequestViewMetadata;
 import org.apache.myfaces.lifecycle.RestoreViewSupport;
+import org.apache.myfaces.util.WebConfigParamUtils;
 import org.apache.myfaces.view.facelets.impl.FaceletCompositionContextImpl;
 import org.apache.myfaces.view.facelets.pool.ViewPool;
 import org.apache.myfaces.view.facelets.pool.ViewPoolFactory;
+import org.apache.myfaces.view.facelets.pool.ViewPoolStatistics;
 import org.apache.myfaces.view.facelets.pool.ViewEntry;
 import org.apache.myfaces.view.facelets.pool.ViewStructureMetadata;
 import org.apache.myfaces.view.facelets.pool.impl.ViewPoolFactoryImpl;
@@ -138,10 +143,15 @@ public class ViewPoolProcessor
 
     private ViewPoolFactory viewPoolFactory;
     private RestoreViewSupport restoreViewSupport;
+
+    private final ViewPoolStatistics statistics;
+
+    private ObjectName statisticsName;
     
     public ViewPoolProcessor(FacesContext context)
     {
-        viewPoolFactory = new ViewPoolFactoryImpl(context);
+        statistics = new ViewPoolStatistics();
+        viewPoolFactory = new ViewPoolFactoryImpl(context, statistics);
         restoreViewSupport = new RestoreViewSupport(context);
     }
     
@@ -202,10 +212,66 @@ public class ViewPoolProcessor
                 ViewPoolProcessor processor = new ViewPoolProcessor(context);
                 context.getExternalContext().
                     getApplicationMap().put(INSTANCE, processor);
+
+                if (WebConfigParamUtils.getBooleanInitParameter(context.getExternalContext(),
+                        ViewPool.INIT_PARAM_VIEW_POOL_JMX_ENABLED, false))
+                {
+                    processor.registerStatistics(context);
+                }
             }
         }
     }
 
+    /**
+     * This method should be called when the application is destroyed, to unregister the MBean
+     * of the statistics.
+     * 
+     * @param context 
+     */
+    public static void destroy(FacesContext context)
+    {
+        ViewPoolProcessor processor = getInstance(context);
+        if (processor != null && processor.statisticsName != null)
+        {
+            try
+            {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(processor.statisticsName);
+            }
+            catch (JMException e)
+            {
+                Logger.getLogger(ViewPoolProcessor.class.getName()).log(Level.FINE,
+                        "Cannot unregister " + processor.statisticsName, e);
+            }
+            processor.statisticsName = null;
+        }
+    }
+
+    private void registerStatistics(FacesContext context)
+    {
+        String contextPath = context.getExternalContext().getApplicationContextPath();
+        try
+        {
+            ObjectName name = new ObjectName("org.apache.myfaces:type=ViewPool,context="
+                    + ObjectName.quote(contextPath == null || contextPath.isEmpty() ? "/" : contextPath));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, name);
+            statisticsName = name;
+        }
+        catch (JMException e)
+        {
+            Logger.getLogger(ViewPoolProcessor.class.getName()).log(Level.WARNING,
+                    "Cannot register the view pool statistics MBean", e);
+        }
+    }
+
+    /**
+     * Counters of the view pool by view id (hits, misses, reclaimed entries, reset failures and
+     * the reasons why views were not pooled), for all view pool mappings.
+     */
+    public ViewPoolStatistics getStatistics()
+    {
+        return statistics;
+    }
+
     public ViewPool getViewPool(FacesContext context, UIViewRoot root)
     {
         if (root.isTransient())
@@ -480,6 +546,10 @@ public class ViewPoolProcessor
                     clearTransientAndNonFaceletComponentsForDynamicView(context, view, viewStructureMetadata);
                     viewPool.pushDynamicStructureView(context, view, faceletViewState);
                 }
+                else
+                {
+                    statistics.recordNotPooled(view.getViewId(), ViewPoolStatistics.REASON_NO_STRUCTURE_METADATA);
+                }
             }
         }
     }
@@ -487,8 +557,18 @@ public class ViewPoolProcessor
     public void pushPartialView(FacesContext context, UIViewRoot view, FaceletState faceletViewState, int count)
     {
         ViewPool viewPool = getViewPool(context, view);
-        
-        if (viewPool != null && viewPool.isWorthToRecycleThisView(context, view))
+        if (viewPool == null)
+        {
+            return;
+        }
+
+        // The view could not be reset after the request, because its state changed
+        statistics.recordResetFailure(view.getViewId());
+        if (!viewPool.isWorthToRecycleThisView(context, view))
+        {
+            statistics.recordNotPooled(view.getViewId(), ViewPoolStatistics.REASON_PARTIAL_POOL_FULL);
+        }
+        else
         {
             ViewStructureMetadata viewStructureMetadata = null;
             if (faceletViewState == null)
@@ -511,8 +591,16 @@ public class ViewPoolProcessor
                 {
                     viewPool.pushPartialStructureView(context, view);
                 }
+                else
+                {
+                    statistics.recordNotPooled(view.getViewId(), ViewPoolStatistics.REASON_FEW_REUSABLE_COMPONENTS);
+                }
+            }
+            else
+            {
+                statistics.recordNotPooled(view.getViewId(), ViewPoolStatistics.REASON_NO_STRUCTURE_METADATA);
             }
-        }        
+        }
     }
     
     protected void clearTransientAndNonFaceletComponentsForStaticView(FacesContext context, UIViewRoot root)
@@ -0,0 +1,409 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.component.UIComponentBase;
+import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.event.PhaseId;
+import jakarta.faces.event.PostAddToViewEvent;
+import jakarta.faces.view.facelets.Facelet;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.context.RequestViewContext;
+import org.apache.myfaces.context.RequestViewMetadata;
+import org.apache.myfaces.lifecycle.RestoreViewSupport;
+import org.apache.myfaces.spi.Cache;
+import org.apache.myfaces.spi.CacheProviderFactory;
+import org.apache.myfaces.view.facelets.compiler.FaceletsCompilerUtils;
+import org.apache.myfaces.view.facelets.pool.impl.MetadataViewKey;
+import org.apache.myfaces.view.facelets.pool.impl.MetadataViewKeyImpl;
+import org.apache.myfaces.view.facelets.pool.impl.ViewPoolImpl;
+import org.apache.myfaces.view.facelets.tag.faces.ComponentSupport;
+import org.apache.myfaces.view.facelets.tag.faces.FaceletState;
+
+/**
+ * Keeps the component tree of the first build of a static view as a prototype, and creates the
+ * component tree of the later builds of the same view as a copy of it, instead of executing the
+ * tag handlers again (see org.apache.myfaces.VIEW_PROTOTYPE).
+ *
+ * <p>The prototype holds the full state of each component, which is restored into new instances
+ * like it is done by full state saving. The value expressions are shared by the copies, so they
+ * are evaluated against the current request. The transient facelets leafs are copied sharing
+ * their instructions.</p>
+ */
+public class ViewPrototypeProcessor
+{
+    private static final Logger log = Logger.getLogger(ViewPrototypeProcessor.class.getName());
+
+    /**
+     * Stored for views that cannot be copied, so they are not captured again on every build.
+     */
+    private static final Node UNSUPPORTED = new Node(null, null, null, null, null, null);
+
+    private final Cache<MetadataViewKey, ViewPrototype> prototypes;
+
+    private final RestoreViewSupport restoreViewSupport;
+
+    public ViewPrototypeProcessor(FacesContext context)
+    {
+        restoreViewSupport = new RestoreViewSupport(context);
+        // one prototype per view, like the view id caches
+        prototypes = CacheProviderFactory.getCacheProviderFactory(context.getExternalContext())
+                .getCacheProvider(context.getExternalContext())
+                .createCache("viewPrototype", MyfacesConfig.getCurrentInstance(context).getViewIdCacheSize());
+    }
+
+    /**
+     * Fills the given empty view with a copy of the prototype built from the same facelet.
+     *
+     * @return true if the view was filled, false if it must be built
+     */
+    public boolean copyView(FacesContext context, UIViewRoot view, Facelet facelet)
+    {
+        ViewPrototype prototype = prototypes.get(deriveViewKey(context, view));
+        if (prototype == null || prototype.facelet != facelet || prototype.root == UNSUPPORTED)
+        {
+            return false;
+        }
+
+        Map<String, Object> viewScopeMap = view.getViewMap(false);
+        Object viewScopeState = viewScopeMap != null && !viewScopeMap.isEmpty() ? view.saveState(context) : null;
+        UIComponent metadataFacet = view.getFacet(UIViewRoot.METADATA_FACET_NAME);
+        boolean restoreViewPhase = PhaseId.RESTORE_VIEW.equals(context.getCurrentPhaseId());
+
+        boolean oldProcessingEvents = context.isProcessingEvents();
+        context.setProcessingEvents(false);
+        try
+        {
+            view.restoreState(context, prototype.rootState);
+            Node root = prototype.root;
+            if (root.facetNames != null)
+            {
+                for (int i = 0; i < root.facetNames.length; i++)
+                {
+                    if (metadataFacet != null && !restoreViewPhase
+                            && UIViewRoot.METADATA_FACET_NAME.equals(root.facetNames[i]))
+                    {
+                        // Created by ViewHandler.createView(...), keep it like the view pool does
+                        continue;
+                    }
+                    view.getFacets().put(root.facetNames[i], newComponent(context, root.facets[i]));
+                }
+            }
+            if (root.children != null)
+            {
+                List<UIComponent> children = view.getChildren();
+                for (Node child : root.children)
+                {
+                    children.add(newComponent(context, child));
+                }
+            }
+
+            markInitialState(view);
+
+            if (!restoreViewPhase)
+            {
+                // Application.createComponent(...) is not called, so the bindings must be set here
+                restoreViewSupport.processComponentBinding(context, view);
+
+                if (viewScopeState != null && view.getViewMap(false) == null)
+                {
+                    view.restoreViewScopeState(context, viewScopeState);
+                }
+            }
+
+            RequestViewContext rvc = RequestViewContext.getCurrentInstance(context, view, false);
+            if (rvc != null)
+            {
+                rvc.setRequestViewMetadata(prototype.requestViewMetadata.cloneInstance());
+            }
+            else
+            {
+                RequestViewContext.setCurrentInstance(context, view,
+                        RequestViewContext.newInstance(prototype.requestViewMetadata.cloneInstance()));
+            }
+        }
+        finally
+        {
+            context.setProcessingEvents(oldProcessingEvents);
+        }
+        return true;
+    }
+
+    /**
+     * Keeps the just built view as prototype, if its structure does not depend on the request and
+     * there is no prototype built from the same facelet yet. It must be called before the initial
+     * state of the view is marked.
+     */
+    public void storeView(FacesContext context, UIViewRoot view, Facelet facelet)
+    {
+        MetadataViewKey key = deriveViewKey(context, view);
+        ViewPrototype prototype = prototypes.get(key);
+        if (prototype != null && prototype.facelet == facelet)
+        {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Node root = UNSUPPORTED;
+        Object rootState = null;
+        FaceletState faceletState = (FaceletState) view.getAttributes().get(ComponentSupport.FACELET_STATE_INSTANCE);
+        if (!view.isTransient() && (faceletState == null || !faceletState.isDynamic()))
+        {
+            try
+            {
+                root = newNode(context, view);
+                rootState = saveViewRootState(context, view);
+            }
+            catch (ReflectiveOperationException e)
+            {
+                if (log.isLoggable(Level.FINE))
+                {
+                    log.log(Level.FINE, "View " + view.getViewId() + " cannot be used as prototype", e);
+                }
+                root = UNSUPPORTED;
+            }
+            if (root == null)
+            {
+                root = UNSUPPORTED;
+            }
+        }
+
+        RequestViewContext rvc = RequestViewContext.getCurrentInstance(context, view);
+        prototypes.recordLoad(System.nanoTime() - start);
+        prototypes.put(key, new ViewPrototype(facelet, root, rootState,
+                rvc.getRequestViewMetadata().cloneInstance()));
+    }
+
+    private static Object saveViewRootState(FacesContext context, UIViewRoot view)
+    {
+        if (view.getViewMap(false) == null)
+        {
+            return view.saveState(context);
+        }
+        try
+        {
+            context.getAttributes().put(ViewPoolImpl.SKIP_VIEW_MAP_SAVE_STATE, Boolean.TRUE);
+            return view.saveState(context);
+        }
+        finally
+        {
+            context.getAttributes().remove(ViewPoolImpl.SKIP_VIEW_MAP_SAVE_STATE);
+        }
+    }
+
+    /**
+     * Creates the prototype node of the component and its children, or returns null if a
+     * component cannot be copied. The events are not published while a copy is created, so
+     * components that listen to PostAddToViewEvent, like h:outputScript, cannot be copied.
+     */
+    private static Node newNode(FacesContext context, UIComponent component) throws ReflectiveOperationException
+    {
+        UIComponent leaf = null;
+        Constructor<? extends UIComponent> constructor = null;
+        Object state = null;
+        if (FaceletsCompilerUtils.isLeaf(component))
+        {
+            leaf = FaceletsCompilerUtils.copyLeaf(component);
+            if (leaf == null)
+            {
+                return null;
+            }
+        }
+        else if (component instanceof UIViewRoot)
+        {
+            // the root is not copied, the view created by the ViewHandler is filled instead
+        }
+        else if (!component.getListenersForEventClass(PostAddToViewEvent.class).isEmpty())
+        {
+            return null;
+        }
+        else if (component instanceof UIComponentBase)
+        {
+            constructor = component.getClass().getConstructor();
+            boolean initialStateMarked = component.initialStateMarked();
+            if (initialStateMarked)
+            {
+                component.clearInitialState();
+            }
+            state = component.saveState(context);
+            if (initialStateMarked)
+            {
+                component.markInitialState();
+            }
+        }
+        else
+        {
+            return null;
+        }
+
+        String[] facetNames = null;
+        Node[] facets = null;
+        if (component.getFacetCount() > 0)
+        {
+            Map<String, UIComponent> facetMap = component.getFacets();
+            facetNames = facetMap.keySet().toArray(new String[facetMap.size()]);
+            facets = new Node[facetNames.length];
+            for (int i = 0; i < facetNames.length; i++)
+            {
+                facets[i] = newNode(context, facetMap.get(facetNames[i]));
+                if (facets[i] == null)
+                {
+                    return null;
+                }
+            }
+        }
+
+        Node[] children = null;
+        if (component.getChildCount() > 0)
+        {
+            List<Node> nodes = new ArrayList<>(component.getChildCount());
+            for (UIComponent child : component.getChildren())
+            {
+                Node node = newNode(context, child);
+                if (node == null)
+                {
+                    return null;
+                }
+                nodes.add(node);
+            }
+            children = nodes.toArray(new Node[nodes.size()]);
+        }
+
+        return new Node(constructor, state, leaf, facetNames, facets, children);
+    }
+
+    private static UIComponent newComponent(FacesContext context, Node node)
+    {
+        UIComponent component;
+        if (node.leaf != null)
+        {
+            component = FaceletsCompilerUtils.copyLeaf(node.leaf);
+        }
+        else
+        {
+            try
+            {
+                component = node.constructor.newInstance();
+            }
+            catch (ReflectiveOperationException e)
+            {
+                throw new IllegalStateException("Cannot create " + node.constructor.getDeclaringClass(), e);
+            }
+            component.restoreState(context, node.state);
+        }
+
+        if (node.facetNames != null)
+        {
+            Map<String, UIComponent> facets = component.getFacets();
+            for (int i = 0; i < node.facetNames.length; i++)
+            {
+                facets.put(node.facetNames[i], newComponent(context, node.facets[i]));
+            }
+        }
+        if (node.children != null)
+        {
+            List<UIComponent> children = component.getChildren();
+            for (Node child : node.children)
+            {
+                children.add(newComponent(context, child));
+            }
+        }
+        return component;
+    }
+
+    private static void markInitialState(UIComponent component)
+    {
+        component.markInitialState();
+        if (component.getFacetCount() > 0)
+        {
+            for (UIComponent facet : component.getFacets().values())
+            {
+                markInitialState(facet);
+            }
+        }
+        if (component.getChildCount() > 0)
+        {
+            for (int i = 0, childCount = component.getChildCount(); i < childCount; i++)
+            {
+                markInitialState(component.getChildren().get(i));
+            }
+        }
+    }
+
+    private static MetadataViewKey deriveViewKey(FacesContext context, UIViewRoot root)
+    {
+        if (!context.getResourceLibraryContracts().isEmpty())
+        {
+            String[] contracts = context.getResourceLibraryContracts().toArray(
+                    new String[context.getResourceLibraryContracts().size()]);
+            return new MetadataViewKeyImpl(root.getViewId(), root.getRenderKitId(), root.getLocale(), contracts);
+        }
+        return new MetadataViewKeyImpl(root.getViewId(), root.getRenderKitId(), root.getLocale());
+    }
+
+    private static final class ViewPrototype
+    {
+        private final Facelet facelet;
+        private final Node root;
+        private final Object rootState;
+        private final RequestViewMetadata requestViewMetadata;
+
+        private ViewPrototype(Facelet facelet, Node root, Object rootState, RequestViewMetadata requestViewMetadata)
+        {
+            this.facelet = facelet;
+            this.root = root;
+            this.rootState = rootState;
+            this.requestViewMetadata = requestViewMetadata;
+        }
+    }
+
+    /**
+     * Immutable prototype of a component: either a leaf to copy, or the constructor and the full state.
+     */
+    private static final class Node
+    {
+        private final Constructor<? extends UIComponent> constructor;
+        private final Object state;
+        private final UIComponent leaf;
+        private final String[] facetNames;
+        private final Node[] facets;
+        private final Node[] children;
+
+        private Node(Constructor<? extends UIComponent> constructor, Object state, UIComponent leaf,
+                String[] facetNames, Node[] facets, Node[] children)
+        {
+            this.constructor = constructor;
+            this.state = state;
+            this.leaf = leaf;
+            this.facetNames = facetNames;
+            this.facets = facets;
+            this.children = children;
+        }
+    }
+}
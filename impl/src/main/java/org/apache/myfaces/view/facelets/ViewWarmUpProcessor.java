@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jakarta.faces.application.ViewHandler;
+import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.FacesContextWrapper;
+import jakarta.faces.view.ViewDeclarationLanguage;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.view.facelets.impl.DefaultFaceletFactory;
+
+/**
+ * Compiles the facelets views at startup, see org.apache.myfaces.VIEW_WARM_UP.
+ * 
+ * <p>The view ids are listed with ViewHandler.getViews() and resolved in the startup thread, the
+ * compilation of the facelets (and their view metadata facelets) is done in parallel, because it does
+ * not depend on the FacesContext. Building the component trees (org.apache.myfaces.VIEW_WARM_UP_BUILD_VIEW)
+ * is done afterwards in the startup thread, one view after the other.</p>
+ */
+public final class ViewWarmUpProcessor
+{
+    private static final Logger log = Logger.getLogger(ViewWarmUpProcessor.class.getName());
+
+    private ViewWarmUpProcessor()
+    {
+    }
+
+    public static void warmUp(FacesContext facesContext)
+    {
+        MyfacesConfig config = MyfacesConfig.getCurrentInstance(facesContext);
+        long start = System.currentTimeMillis();
+
+        ViewHandler viewHandler = facesContext.getApplication().getViewHandler();
+        List<String> viewIds;
+        try (Stream<String> views = viewHandler.getViews(facesContext, "/"))
+        {
+            viewIds = views.collect(Collectors.toList());
+        }
+
+        Map<String, URL> urls = new HashMap<>();
+        DefaultFaceletFactory faceletFactory = null;
+        for (String viewId : viewIds)
+        {
+            ViewDeclarationLanguage vdl = viewHandler.getViewDeclarationLanguage(facesContext, viewId);
+            if (vdl instanceof FaceletViewDeclarationLanguage faceletVdl
+                    && faceletVdl.getFaceletFactory() instanceof DefaultFaceletFactory factory)
+            {
+                faceletFactory = factory;
+                try
+                {
+                    urls.put(viewId, factory.resolveURL(facesContext, null, viewId));
+                }
+                catch (Exception e)
+                {
+                    log.log(Level.WARNING, "Cannot resolve view " + viewId + " for warm up", e);
+                }
+            }
+        }
+
+        int threads = Math.max(1, Math.min(config.getViewWarmUpThreads(), urls.size()));
+        log.info("Compiling " + urls.size() + " views with " + threads + " threads");
+
+        int compiled = compile(facesContext, faceletFactory, urls, threads);
+        long compileTime = System.currentTimeMillis() - start;
+
+        int built = 0;
+        if (config.isViewWarmUpBuildView())
+        {
+            built = buildViews(facesContext, viewHandler, urls.keySet());
+        }
+
+        StringBuilder message = new StringBuilder(128);
+        message.append("View warm up compiled ").append(compiled).append(" of ").append(urls.size())
+                .append(" views in ").append(compileTime).append(" ms");
+        if (config.isViewWarmUpBuildView())
+        {
+            message.append(", built ").append(built).append(" component trees in ")
+                    .append(System.currentTimeMillis() - start - compileTime).append(" ms");
+        }
+        if (faceletFactory != null && faceletFactory.getFaceletCacheStatistics() != null)
+        {
+            message.append(" (").append(faceletFactory.getFaceletCacheStatistics()).append(')');
+        }
+        log.info(message.toString());
+    }
+
+    private static int compile(FacesContext facesContext, DefaultFaceletFactory faceletFactory,
+            Map<String, URL> urls, int threads)
+    {
+        if (urls.isEmpty())
+        {
+            return 0;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = r ->
+        {
+            Thread thread = new Thread(r, "myfaces-view-warm-up-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        AtomicInteger done = new AtomicInteger();
+        int progressStep = Math.max(1, urls.size() / 10);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, threadFactory);
+        try
+        {
+            List<Future<Boolean>> results = new ArrayList<>(urls.size());
+            for (Map.Entry<String, URL> entry : urls.entrySet())
+            {
+                results.add(executor.submit(() ->
+                {
+                    WarmUpFacesContext context = new WarmUpFacesContext(facesContext);
+                    context.setCurrentInstance();
+                    try
+                    {
+                        faceletFactory.getFacelet(entry.getValue());
+                        faceletFactory.getViewMetadataFacelet(entry.getValue());
+                        return Boolean.TRUE;
+                    }
+                    catch (Exception e)
+                    {
+                        log.log(Level.WARNING, "Cannot compile view " + entry.getKey() + " for warm up", e);
+                        return Boolean.FALSE;
+                    }
+                    finally
+                    {
+                        context.release();
+                        int count = done.incrementAndGet();
+                        if (count % progressStep == 0 && log.isLoggable(Level.FINE))
+                        {
+                            log.fine("View warm up: " + count + " of " + urls.size() + " views compiled");
+                        }
+                    }
+                }));
+            }
+
+            int compiled = 0;
+            for (Future<Boolean> result : results)
+            {
+                if (Boolean.TRUE.equals(result.get()))
+                {
+                    compiled++;
+                }
+            }
+            return compiled;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return done.get();
+        }
+        catch (Exception e)
+        {
+            log.log(Level.WARNING, "View warm up failed", e);
+            return done.get();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int buildViews(FacesContext facesContext, ViewHandler viewHandler, Iterable<String> viewIds)
+    {
+        int built = 0;
+        UIViewRoot previousRoot = facesContext.getViewRoot();
+        try
+        {
+            for (String viewId : viewIds)
+            {
+                try
+                {
+                    UIViewRoot root = viewHandler.createView(facesContext, viewId);
+                    if (root != null)
+                    {
+                        facesContext.setViewRoot(root);
+                        viewHandler.getViewDeclarationLanguage(facesContext, viewId).buildView(facesContext, root);
+                        built++;
+                    }
+                }
+                catch (Exception e)
+                {
+                    // Usually the view needs a request or a session
+                    if (log.isLoggable(Level.FINE))
+                    {
+                        log.log(Level.FINE, "Cannot build view " + viewId + " for warm up", e);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            facesContext.setViewRoot(previousRoot);
+        }
+        return built;
+    }
+
+    /**
+     * Makes the startup FacesContext available in the compilation threads. Every thread has its own
+     * attributes, because they are written while the facelets are compiled.
+     */
+    private static final class WarmUpFacesContext extends FacesContextWrapper
+    {
+        private final Map<Object, Object> attributes = new HashMap<>();
+
+        WarmUpFacesContext(FacesContext wrapped)
+        {
+            super(wrapped);
+        }
+
+        @Override
+        public Map<Object, Object> getAttributes()
+        {
+            return attributes;
+        }
+
+        void setCurrentInstance()
+        {
+            setCurrentInstance(this);
+        }
+
+        @Override
+        public void release()
+        {
+            setCurrentInstance(null);
+        }
+    }
+}
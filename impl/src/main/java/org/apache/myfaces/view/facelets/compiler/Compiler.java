@@ -68,6 +68,7 @@ public abstract class Compiler
     private final List<TagDecorator> decorators = new ArrayList<>();
     private final Map<String, String> features = new HashMap<>();
     private boolean developmentProjectStage = false;
+    private boolean usingPrecompiledFacelets = false;
     private Collection<FaceletsProcessing> faceletsProcessingConfigurations;
 
     public Compiler()
@@ -242,6 +243,21 @@ public abstract class Compiler
         this.developmentProjectStage = developmentProjectStage;
     }
 
+    /**
+     * 
+     * @since 5.0
+     * @return true if the documents precompiled by FaceletPrecompiler are used
+     */
+    public final boolean isUsingPrecompiledFacelets()
+    {
+        return this.usingPrecompiledFacelets;
+    }
+
+    public final void setUsingPrecompiledFacelets(boolean usingPrecompiledFacelets)
+    {
+        this.usingPrecompiledFacelets = usingPrecompiledFacelets;
+    }
+
     /**
      * 
      * @since 2.1.0
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.compiler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Build time tool that parses the facelets of a web application and stores them in the precompiled
+ * form used when org.apache.myfaces.FACELETS_PRECOMPILED is enabled. The documents are still compiled
+ * into FaceletHandlers at runtime (tag handlers are created from the runtime configuration), but the
+ * xml parsing is done only once, at build time.
+ * 
+ * <p>Usage: <code>FaceletPrecompiler &lt;sourceDirectory&gt; [&lt;outputDirectory&gt;] [&lt;extension&gt;...]</code>.
+ * The output directory defaults to the source directory and the extensions to ".xhtml". The precompiled
+ * files are written to WEB-INF/precompiled of the output directory, which is not served to the clients.
+ * With Maven it can be run by the exec-maven-plugin (java goal) in the prepare-package phase, using the
+ * webapp directory as the source directory and the exploded war directory as the output directory.</p>
+ * 
+ * @since 5.0
+ */
+public final class FaceletPrecompiler
+{
+    private FaceletPrecompiler()
+    {
+    }
+
+    /**
+     * Precompiles every document below the source directory with one of the given extensions. The
+     * precompiled files are written below WEB-INF/precompiled of the output directory, with the same
+     * relative path.
+     * 
+     * @return the number of precompiled documents
+     */
+    public static int precompile(Path sourceDirectory, Path outputDirectory, List<String> extensions)
+            throws IOException
+    {
+        List<Path> documents;
+        try (Stream<Path> files = Files.walk(sourceDirectory))
+        {
+            documents = files.filter(Files::isRegularFile)
+                    .filter(file -> extensions.stream().anyMatch(ext -> file.toString().endsWith(ext)))
+                    .collect(Collectors.toList());
+        }
+
+        for (Path document : documents)
+        {
+            Path relative = sourceDirectory.relativize(document);
+            Path target = outputDirectory.resolve(PrecompiledFacelet.DIRECTORY.substring(1))
+                    .resolve(relative.toString() + PrecompiledFacelet.SUFFIX);
+            precompile(document, target);
+        }
+        return documents.size();
+    }
+
+    /**
+     * Precompiles a single document.
+     */
+    public static void precompile(Path document, Path target) throws IOException
+    {
+        if (target.getParent() != null)
+        {
+            Files.createDirectories(target.getParent());
+        }
+        try (InputStream in = Files.newInputStream(document);
+             OutputStream out = Files.newOutputStream(target))
+        {
+            PrecompiledFacelet.write(in, out);
+        }
+        catch (IOException e)
+        {
+            Files.deleteIfExists(target);
+            throw new IOException("Cannot precompile " + document + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: FaceletPrecompiler <sourceDirectory> [<outputDirectory>] [<extension>...]");
+            System.exit(1);
+        }
+        Path sourceDirectory = Paths.get(args[0]);
+        Path outputDirectory = args.length > 1 ? Paths.get(args[1]) : sourceDirectory;
+        List<String> extensions = args.length > 2
+                ? Arrays.asList(Arrays.copyOfRange(args, 2, args.length))
+                : List.of(".xhtml");
+
+        long start = System.nanoTime();
+        int count = precompile(sourceDirectory, outputDirectory, extensions);
+        System.out.println("Precompiled " + count + " facelets in "
+                + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+}
@@ -187,6 +187,8 @@ public class FaceletsCompilerSupport
         compiler.setFaceletsProcessingConfigurations(
                 RuntimeConfig.getCurrentInstance(
                         context.getExternalContext()).getFaceletProcessingConfigurations());
+
+        compiler.setUsingPrecompiledFacelets(MyfacesConfig.getCurrentInstance(context).isFaceletsPrecompiled());
     }
     
     private static class LoadComponentTagDeclarationFacesContextWrapper extends FacesContextWrapper
@@ -18,6 +18,7 @@
  */
 package org.apache.myfaces.view.facelets.compiler;
 
+import jakarta.faces.component.UIComponent;
 import jakarta.faces.view.facelets.TagConfig;
 
 /**
@@ -46,5 +47,25 @@ public final class FaceletsCompilerUtils
         // those have the nextHandler CompilationUnit.LEAF
         return (config.getNextHandler() != CompilationUnit.LEAF);
     }
+
+    /**
+     * Determines if the component is a transient facelets leaf, which only holds markup.
+     * @param component
+     * @return
+     */
+    public static boolean isLeaf(UIComponent component)
+    {
+        return component instanceof UILeaf;
+    }
+
+    /**
+     * Creates a detached copy of a facelets leaf, or returns null if the leaf cannot be copied.
+     * @param leaf
+     * @return
+     */
+    public static UIComponent copyLeaf(UIComponent leaf)
+    {
+        return leaf instanceof UIInstructions instructions ? instructions.copy() : null;
+    }
     
 }
@@ -23,23 +23,36 @@ import java.io.IOException;
 import jakarta.el.ELContext;
 import jakarta.el.ExpressionFactory;
 import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.ResponseWriter;
+
+import org.apache.myfaces.renderkit.html.HtmlResponseWriterImpl;
+import org.apache.myfaces.renderkit.html.util.EscapedText;
 
 final class LiteralAttributeInstruction implements Instruction
 {
     private final String attr;
 
-    private final String text;
+    private final EscapedText text;
 
     public LiteralAttributeInstruction(String attr, String text)
     {
         this.attr = attr;
-        this.text = text;
+        this.text = new EscapedText(text);
     }
 
     @Override
     public void write(FacesContext context) throws IOException
     {
-        context.getResponseWriter().writeAttribute(this.attr, this.text, null);
+        ResponseWriter writer = context.getResponseWriter();
+        if (writer instanceof HtmlResponseWriterImpl htmlWriter)
+        {
+            // The value was escaped when the facelet was compiled
+            htmlWriter.writeAttribute(this.attr, this.text);
+        }
+        else
+        {
+            writer.writeAttribute(this.attr, this.text.getText(), null);
+        }
     }
 
     @Override
@@ -23,20 +23,33 @@ import java.io.IOException;
 import jakarta.el.ELContext;
 import jakarta.el.ExpressionFactory;
 import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.ResponseWriter;
+
+import org.apache.myfaces.renderkit.html.HtmlResponseWriterImpl;
+import org.apache.myfaces.renderkit.html.util.EscapedText;
 
 final class LiteralTextInstruction implements Instruction
 {
-    private final String text;
+    private final EscapedText text;
 
     public LiteralTextInstruction(String text)
     {
-        this.text = text;
+        this.text = new EscapedText(text);
     }
 
     @Override
     public void write(FacesContext context) throws IOException
     {
-        context.getResponseWriter().writeText(this.text, null);
+        ResponseWriter writer = context.getResponseWriter();
+        if (writer instanceof HtmlResponseWriterImpl htmlWriter)
+        {
+            // The text was escaped when the facelet was compiled
+            htmlWriter.writeText(this.text);
+        }
+        else
+        {
+            writer.writeText(this.text.getText(), null);
+        }
     }
 
     @Override
@@ -53,6 +66,6 @@ final class LiteralTextInstruction implements Instruction
 
     String getText()
     {
-        return this.text;
+        return this.text.getText();
     }
 }
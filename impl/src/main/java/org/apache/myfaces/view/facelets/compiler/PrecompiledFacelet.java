@@ -0,0 +1,597 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.myfaces.resource.ResourceLoaderUtils;
+import org.apache.myfaces.util.lang.ClassUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * The SAX events of a facelet, recorded at build time by {@link FaceletPrecompiler}. SAXCompiler replays
+ * them into its handlers instead of parsing the document, so the handlers build exactly the same
+ * FaceletHandler tree, but the xml parser is not needed anymore.
+ * 
+ * <p>The events of a document of the web application are stored below {@link #DIRECTORY}, with the same
+ * path and the {@link #SUFFIX} appended to its name, so they are never served to the clients. A
+ * precompiled facelet older than its document is ignored.</p>
+ * 
+ * @since 5.0
+ */
+final class PrecompiledFacelet
+{
+    static final String DIRECTORY = "/WEB-INF/precompiled";
+    static final String SUFFIX = ".precompiled";
+
+    private static final int MAGIC = 0x4d465043;
+    private static final int VERSION = 1;
+
+    private static final int END = 0;
+    private static final int START_DOCUMENT = 1;
+    private static final int END_DOCUMENT = 2;
+    private static final int START_ELEMENT = 3;
+    private static final int END_ELEMENT = 4;
+    private static final int CHARACTERS = 5;
+    private static final int IGNORABLE_WHITESPACE = 6;
+    private static final int COMMENT = 7;
+    private static final int START_CDATA = 8;
+    private static final int END_CDATA = 9;
+    private static final int START_DTD = 10;
+    private static final int END_DTD = 11;
+    private static final int START_PREFIX_MAPPING = 12;
+    private static final int END_PREFIX_MAPPING = 13;
+    private static final int PROCESSING_INSTRUCTION = 14;
+
+    private final String xmlDeclaration;
+    private final String encoding;
+    private final byte[] events;
+
+    private PrecompiledFacelet(String xmlDeclaration, String encoding, byte[] events)
+    {
+        this.xmlDeclaration = xmlDeclaration;
+        this.encoding = encoding;
+        this.events = events;
+    }
+
+    /**
+     * The xml declaration of the document, as matched by SAXCompiler, or null.
+     */
+    String getXmlDeclaration()
+    {
+        return xmlDeclaration;
+    }
+
+    /**
+     * The encoding declared in the xml declaration, or null.
+     */
+    String getEncoding()
+    {
+        return encoding;
+    }
+
+    /**
+     * Returns the precompiled form of the given document, or null if there is none or it is
+     * older than the document. Only the documents of the web application can be precompiled.
+     */
+    static PrecompiledFacelet find(URL src)
+    {
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+        if (facesContext == null)
+        {
+            return null;
+        }
+        try
+        {
+            ExternalContext externalContext = facesContext.getExternalContext();
+            URL root = externalContext.getResource("/");
+            if (root == null || !root.getProtocol().equals(src.getProtocol()))
+            {
+                return null;
+            }
+            String rootPath = root.getPath().endsWith("/") ? root.getPath() : root.getPath() + '/';
+            if (!src.getPath().startsWith(rootPath))
+            {
+                return null;
+            }
+            URL precompiled = externalContext.getResource(DIRECTORY + '/'
+                    + src.getPath().substring(rootPath.length()) + SUFFIX);
+            if (precompiled == null)
+            {
+                return null;
+            }
+            long lastModified = ResourceLoaderUtils.getResourceLastModified(precompiled);
+            if (lastModified < ResourceLoaderUtils.getResourceLastModified(src))
+            {
+                return null;
+            }
+            try (InputStream is = precompiled.openStream())
+            {
+                return read(is);
+            }
+        }
+        catch (IOException e)
+        {
+            // Not precompiled or not readable, parse the document
+            return null;
+        }
+    }
+
+    static PrecompiledFacelet read(InputStream is) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+        if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION)
+        {
+            throw new IOException("Not a precompiled facelet or unsupported version");
+        }
+        String xmlDeclaration = in.readBoolean() ? in.readUTF() : null;
+        String encoding = in.readBoolean() ? in.readUTF() : null;
+        byte[] events = in.readNBytes(in.readInt());
+        if (events.length < 1)
+        {
+            throw new EOFException();
+        }
+        return new PrecompiledFacelet(xmlDeclaration, encoding, events);
+    }
+
+    /**
+     * Parses the document and writes its precompiled form.
+     */
+    static void write(InputStream source, OutputStream out) throws IOException
+    {
+        InputStream is = new BufferedInputStream(source, 1024);
+        String xmlDeclaration = null;
+        String encoding = null;
+        is.mark(128);
+        byte[] b = new byte[128];
+        if (is.read(b) > 0)
+        {
+            // same detection as SAXCompiler
+            Matcher m = SAXCompiler.XML_DECLARATION.matcher(new String(b));
+            if (m.find())
+            {
+                xmlDeclaration = m.group(0);
+                encoding = m.group(3);
+            }
+        }
+        is.reset();
+
+        Recorder recorder = new Recorder();
+        try
+        {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature("http://xml.org/sax/features/namespace-prefixes", true);
+            factory.setValidating(false);
+            SAXParser parser = factory.newSAXParser();
+            XMLReader reader = parser.getXMLReader();
+            reader.setProperty("http://xml.org/sax/properties/lexical-handler", recorder);
+            parser.parse(is, recorder);
+            recorder.end();
+        }
+        catch (SAXException | ParserConfigurationException e)
+        {
+            throw new IOException("Error Parsing: " + e.getMessage(), e);
+        }
+
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.writeInt(MAGIC);
+        dos.writeByte(VERSION);
+        dos.writeBoolean(xmlDeclaration != null);
+        if (xmlDeclaration != null)
+        {
+            dos.writeUTF(xmlDeclaration);
+        }
+        dos.writeBoolean(encoding != null);
+        if (encoding != null)
+        {
+            dos.writeUTF(encoding);
+        }
+        byte[] events = recorder.toByteArray();
+        dos.writeInt(events.length);
+        dos.write(events);
+        dos.flush();
+    }
+
+    /**
+     * Sends the recorded events to the handler, as the xml parser would do.
+     */
+    <H extends DefaultHandler & LexicalHandler> void replay(H handler) throws SAXException
+    {
+        EventReader in = new EventReader(events);
+        ReplayLocator locator = new ReplayLocator();
+        handler.setDocumentLocator(locator);
+        while (true)
+        {
+            int event = in.readVarInt();
+            if (event == END)
+            {
+                return;
+            }
+            locator.line = in.readVarInt();
+            locator.column = in.readVarInt();
+            switch (event)
+            {
+                case START_DOCUMENT:
+                    handler.startDocument();
+                    break;
+                case END_DOCUMENT:
+                    handler.endDocument();
+                    break;
+                case START_ELEMENT:
+                    String uri = in.readString();
+                    String localName = in.readString();
+                    String qName = in.readString();
+                    int length = in.readVarInt();
+                    AttributesImpl attributes = new AttributesImpl();
+                    for (int i = 0; i < length; i++)
+                    {
+                        attributes.addAttribute(in.readString(), in.readString(), in.readString(),
+                                in.readString(), in.readString());
+                    }
+                    handler.startElement(uri, localName, qName, attributes);
+                    break;
+                case END_ELEMENT:
+                    handler.endElement(in.readString(), in.readString(), in.readString());
+                    break;
+                case CHARACTERS:
+                    char[] text = in.readString().toCharArray();
+                    handler.characters(text, 0, text.length);
+                    break;
+                case IGNORABLE_WHITESPACE:
+                    char[] whitespace = in.readString().toCharArray();
+                    handler.ignorableWhitespace(whitespace, 0, whitespace.length);
+                    break;
+                case COMMENT:
+                    char[] comment = in.readString().toCharArray();
+                    handler.comment(comment, 0, comment.length);
+                    break;
+                case START_CDATA:
+                    handler.startCDATA();
+                    break;
+                case END_CDATA:
+                    handler.endCDATA();
+                    break;
+                case START_DTD:
+                    handler.startDTD(in.readString(), in.readString(), in.readString());
+                    break;
+                case END_DTD:
+                    handler.endDTD();
+                    break;
+                case START_PREFIX_MAPPING:
+                    handler.startPrefixMapping(in.readString(), in.readString());
+                    break;
+                case END_PREFIX_MAPPING:
+                    handler.endPrefixMapping(in.readString());
+                    break;
+                case PROCESSING_INSTRUCTION:
+                    handler.processingInstruction(in.readString(), in.readString());
+                    break;
+                default:
+                    throw new SAXException("Unknown precompiled facelet event " + event);
+            }
+        }
+    }
+
+    private static final class ReplayLocator implements Locator
+    {
+        private int line;
+        private int column;
+
+        @Override
+        public String getPublicId()
+        {
+            return null;
+        }
+
+        @Override
+        public String getSystemId()
+        {
+            return null;
+        }
+
+        @Override
+        public int getLineNumber()
+        {
+            return line;
+        }
+
+        @Override
+        public int getColumnNumber()
+        {
+            return column;
+        }
+    }
+
+    /**
+     * Writes the events. Strings are written once, and then referenced by their index, because
+     * names, namespaces and attribute values repeat a lot inside a document.
+     */
+    private static final class Recorder extends DefaultHandler implements LexicalHandler
+    {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        private final Map<String, Integer> strings = new HashMap<>();
+        private Locator locator;
+
+        byte[] toByteArray()
+        {
+            return bytes.toByteArray();
+        }
+
+        void end()
+        {
+            writeVarInt(END);
+        }
+
+        private void event(int event)
+        {
+            writeVarInt(event);
+            writeVarInt(locator == null ? -1 : locator.getLineNumber());
+            writeVarInt(locator == null ? -1 : locator.getColumnNumber());
+        }
+
+        private void writeVarInt(int value)
+        {
+            // zigzag, the locator returns -1 when the position is not known
+            int v = (value << 1) ^ (value >> 31);
+            while ((v & ~0x7F) != 0)
+            {
+                bytes.write((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes.write(v);
+        }
+
+        private void writeString(String value)
+        {
+            if (value == null)
+            {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null)
+            {
+                writeVarInt(index + 2);
+                return;
+            }
+            strings.put(value, strings.size());
+            writeVarInt(1);
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length);
+            bytes.write(utf8, 0, utf8.length);
+        }
+
+        @Override
+        public InputSource resolveEntity(String publicId, String systemId)
+        {
+            // same as SAXCompiler, the entities are defined by the default dtd
+            URL url = ClassUtils.getResource("org/apache/myfaces/resource/default.dtd");
+            return new InputSource(url.toString());
+        }
+
+        @Override
+        public void setDocumentLocator(Locator locator)
+        {
+            this.locator = locator;
+        }
+
+        @Override
+        public void startDocument()
+        {
+            event(START_DOCUMENT);
+        }
+
+        @Override
+        public void endDocument()
+        {
+            event(END_DOCUMENT);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+        {
+            event(START_ELEMENT);
+            writeString(uri);
+            writeString(localName);
+            writeString(qName);
+            int length = attributes.getLength();
+            writeVarInt(length);
+            for (int i = 0; i < length; i++)
+            {
+                writeString(attributes.getURI(i));
+                writeString(attributes.getLocalName(i));
+                writeString(attributes.getQName(i));
+                writeString(attributes.getType(i));
+                writeString(attributes.getValue(i));
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+        {
+            event(END_ELEMENT);
+            writeString(uri);
+            writeString(localName);
+            writeString(qName);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length)
+        {
+            event(CHARACTERS);
+            writeString(new String(ch, start, length));
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length)
+        {
+            event(IGNORABLE_WHITESPACE);
+            writeString(new String(ch, start, length));
+        }
+
+        @Override
+        public void comment(char[] ch, int start, int length)
+        {
+            event(COMMENT);
+            writeString(new String(ch, start, length));
+        }
+
+        @Override
+        public void startCDATA()
+        {
+            event(START_CDATA);
+        }
+
+        @Override
+        public void endCDATA()
+        {
+            event(END_CDATA);
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId)
+        {
+            event(START_DTD);
+            writeString(name);
+            writeString(publicId);
+            writeString(systemId);
+        }
+
+        @Override
+        public void endDTD()
+        {
+            event(END_DTD);
+        }
+
+        @Override
+        public void startEntity(String name)
+        {
+            // ignored by SAXCompiler
+        }
+
+        @Override
+        public void endEntity(String name)
+        {
+            // ignored by SAXCompiler
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri)
+        {
+            event(START_PREFIX_MAPPING);
+            writeString(prefix);
+            writeString(uri);
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix)
+        {
+            event(END_PREFIX_MAPPING);
+            writeString(prefix);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data)
+        {
+            event(PROCESSING_INSTRUCTION);
+            writeString(target);
+            writeString(data);
+        }
+    }
+
+    private static final class EventReader
+    {
+        private final ByteArrayInputStream in;
+        private final List<String> strings = new ArrayList<>();
+
+        EventReader(byte[] events)
+        {
+            in = new ByteArrayInputStream(events);
+        }
+
+        int readVarInt() throws SAXException
+        {
+            int v = 0;
+            int shift = 0;
+            int b;
+            do
+            {
+                b = in.read();
+                if (b < 0 || shift > 28)
+                {
+                    throw new SAXException("Truncated precompiled facelet");
+                }
+                v |= (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while ((b & 0x80) != 0);
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        String readString() throws SAXException
+        {
+            int ref = readVarInt();
+            if (ref == 0)
+            {
+                return null;
+            }
+            if (ref > 1)
+            {
+                return strings.get(ref - 2);
+            }
+            int length = readVarInt();
+            byte[] utf8 = new byte[length];
+            if (in.read(utf8, 0, length) != length)
+            {
+                throw new SAXException("Truncated precompiled facelet");
+            }
+            String value = new String(utf8, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+    }
+}
@@ -71,7 +71,7 @@ import org.xml.sax.helpers.DefaultHandler;
 public final class SAXCompiler extends Compiler
 {
 
-    private final static Pattern XML_DECLARATION = Pattern
+    final static Pattern XML_DECLARATION = Pattern
             .compile("^<\\?xml.+?version=['\"](.+?)['\"](.+?encoding=['\"]((.+?))['\"])?.*?\\?>");
 
     /**
@@ -814,12 +814,26 @@ public final class SAXCompiler extends Compiler
         String encoding = null;
         try
         {
-            is = new BufferedInputStream(src.openStream(), 1024);
             mngr = new CompilationManager(alias, this, getFaceletsProcessingInstructions(src, alias));
-            encoding = writeXmlDecl(is, mngr);
             CompilationHandler handler = new CompilationHandler(mngr, alias);
-            SAXParser parser = this.createSAXParser(handler);
-            parser.parse(is, handler);
+            PrecompiledFacelet precompiled = findPrecompiledFacelet(src);
+            if (precompiled != null)
+            {
+                if (precompiled.getXmlDeclaration() != null
+                        && !mngr.getFaceletsProcessingInstructions().isConsumeXmlDeclaration())
+                {
+                    mngr.writeInstruction(precompiled.getXmlDeclaration() + '\n', null);
+                }
+                encoding = precompiled.getEncoding();
+                precompiled.replay(handler);
+            }
+            else
+            {
+                is = new BufferedInputStream(src.openStream(), 1024);
+                encoding = writeXmlDecl(is, mngr);
+                SAXParser parser = this.createSAXParser(handler);
+                parser.parse(is, handler);
+            }
         }
         catch (SAXException e)
         {
@@ -851,13 +865,22 @@ public final class SAXCompiler extends Compiler
         String encoding = null;
         try
         {
-            is = new BufferedInputStream(src.openStream(), 1024);
             mngr = new CompilationManager(alias, this, getFaceletsProcessingInstructions(src, alias));
-            encoding = getXmlDecl(is, mngr);
             final ViewMetadataHandler handler = new ViewMetadataHandler(mngr, alias);
-            final SAXParser parser = this.createSAXParser(handler);
+            PrecompiledFacelet precompiled = findPrecompiledFacelet(src);
+            if (precompiled != null)
+            {
+                encoding = precompiled.getEncoding();
+                precompiled.replay(handler);
+            }
+            else
+            {
+                is = new BufferedInputStream(src.openStream(), 1024);
+                encoding = getXmlDecl(is, mngr);
+                final SAXParser parser = this.createSAXParser(handler);
 
-            parser.parse(is, handler);
+                parser.parse(is, handler);
+            }
         }
         catch (SAXException e)
         {
@@ -889,12 +912,21 @@ public final class SAXCompiler extends Compiler
         String encoding = null;
         try
         {
-            is = new BufferedInputStream(src.openStream(), 1024);
             mngr = new CompilationManager(alias, this, getFaceletsProcessingInstructions(src, alias));
-            encoding = getXmlDecl(is, mngr);
             CompositeComponentMetadataHandler handler = new CompositeComponentMetadataHandler(mngr, alias);
-            SAXParser parser = this.createSAXParser(handler);
-            parser.parse(is, handler);
+            PrecompiledFacelet precompiled = findPrecompiledFacelet(src);
+            if (precompiled != null)
+            {
+                encoding = precompiled.getEncoding();
+                precompiled.replay(handler);
+            }
+            else
+            {
+                is = new BufferedInputStream(src.openStream(), 1024);
+                encoding = getXmlDecl(is, mngr);
+                SAXParser parser = this.createSAXParser(handler);
+                parser.parse(is, handler);
+            }
             
             
         }
@@ -1000,6 +1032,16 @@ public final class SAXCompiler extends Compiler
         return new CompilerResult(handler, mngr.getDoctype());
     }
     
+    /**
+     * Returns the events recorded at build time for the given document, if enabled and up to date.
+     * 
+     * @since 5.0
+     */
+    private PrecompiledFacelet findPrecompiledFacelet(URL src)
+    {
+        return isUsingPrecompiledFacelets() ? PrecompiledFacelet.find(src) : null;
+    }
+
     protected FaceletsProcessingInstructions getDefaultFaceletsProcessingInstructions()
     {
         return FaceletsProcessingInstructions.getProcessingInstructions(FaceletsProcessing.PROCESS_AS_XHTML, false);
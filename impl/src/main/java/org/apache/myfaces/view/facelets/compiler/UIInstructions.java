@@ -37,6 +37,16 @@ final class UIInstructions extends UILeaf
         this.instructions = instructions;
     }
 
+    /**
+     * Creates a detached copy, sharing the instructions, which are immutable.
+     */
+    UIInstructions copy()
+    {
+        UIInstructions copy = new UIInstructions(txt, instructions);
+        copyTo(copy);
+        return copy;
+    }
+
     @Override
     public void encodeBegin(FacesContext context) throws IOException
     {
@@ -615,6 +615,19 @@ class UILeaf extends UIComponent implements UntargetableComponent, Map<String, O
         }
     }
 
+    /**
+     * Copies the id and the attributes of this leaf into a new instance of the same markup.
+     */
+    void copyTo(UILeaf target)
+    {
+        target._id = _id;
+        target._markCreated = _markCreated;
+        if (_attributes != null)
+        {
+            target._attributes = new HashMap<>(_attributes);
+        }
+    }
+
     Map<String, Object> getUnderlyingMap()
     {
         if (_attributes == null)
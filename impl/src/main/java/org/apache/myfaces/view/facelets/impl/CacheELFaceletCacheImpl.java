@@ -29,6 +29,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import jakarta.faces.view.facelets.FaceletContext;
 import jakarta.faces.view.facelets.FaceletException;
 
+import org.apache.myfaces.resource.FileChangeWatcher;
 import org.apache.myfaces.resource.ResourceLoaderUtils;
 import org.apache.myfaces.core.api.shared.lang.Assert;
 import org.apache.myfaces.view.facelets.AbstractFaceletCache;
@@ -62,14 +63,37 @@ class CacheELFaceletCacheImpl extends AbstractFaceletCache<DefaultFacelet>
     private Map<String, DefaultFacelet> _compositeComponentMetadataFacelets;
     
     private long _refreshPeriod;
+
+    private final FileChangeWatcher _watcher;
+
+    private final FaceletCompilations _faceletCompilations = new FaceletCompilations();
+    private final FaceletCompilations _viewMetadataCompilations = new FaceletCompilations();
+    private final FaceletCompilations _compositeComponentMetadataCompilations = new FaceletCompilations();
     
     CacheELFaceletCacheImpl(long refreshPeriod)
+    {
+        this(refreshPeriod, null);
+    }
+
+    CacheELFaceletCacheImpl(long refreshPeriod, FileChangeWatcher watcher)
     {
         _refreshPeriod = refreshPeriod < 0 ? INFINITE_DELAY : refreshPeriod * 1000;
 
         _facelets = new ConcurrentHashMap<>();
         _viewMetadataFacelets = new ConcurrentHashMap<>();
         _compositeComponentMetadataFacelets = new ConcurrentHashMap<>();
+
+        _watcher = watcher;
+        if (watcher != null)
+        {
+            watcher.addListener((kind, file) ->
+            {
+                _facelets.keySet().removeIf(key -> FileChangeWatcher.isAffected(key, file));
+                _viewMetadataFacelets.keySet().removeIf(key -> FileChangeWatcher.isAffected(key, file));
+                _compositeComponentMetadataFacelets.keySet().removeIf(
+                        key -> FileChangeWatcher.isAffected(key, file));
+            });
+        }
     }
 
     @Override
@@ -84,22 +108,35 @@ class CacheELFaceletCacheImpl extends AbstractFaceletCache<DefaultFacelet>
         
         if (f == null || this.needsToBeRefreshed(f))
         {
-            Set<String> paramsSet = null;
-            if (node != null)
-            {
-                paramsSet = node.getParams();
-            }
-            f = getMemberFactory().newInstance(url);
-            if (_refreshPeriod != NO_CACHE_DELAY)
-            {
-                _facelets.put(key, (paramsSet != null && !paramsSet.isEmpty()) ? 
-                        new FaceletNode(f, paramsSet) : new FaceletNode(f) );
-            }
+            f = _faceletCompilations.compile(key, () -> compileFacelet(key, url));
         }
         
         return f;
     }
 
+    private DefaultFacelet compileFacelet(String key, URL url) throws IOException
+    {
+        FaceletNode node = _facelets.get(key);
+        DefaultFacelet f = node != null ? node.getFacelet() : null;
+        if (f != null && !this.needsToBeRefreshed(f))
+        {
+            return f;
+        }
+
+        Set<String> paramsSet = null;
+        if (node != null)
+        {
+            paramsSet = node.getParams();
+        }
+        f = getMemberFactory().newInstance(url);
+        if (_refreshPeriod != NO_CACHE_DELAY)
+        {
+            _facelets.put(key, (paramsSet != null && !paramsSet.isEmpty()) ? 
+                    new FaceletNode(f, paramsSet) : new FaceletNode(f) );
+        }
+        return f;
+    }
+
     @Override
     public DefaultFacelet getFacelet(FaceletContext ctx, URL url) throws IOException
     {
@@ -181,11 +218,8 @@ class CacheELFaceletCacheImpl extends AbstractFaceletCache<DefaultFacelet>
         
         if (f == null || this.needsToBeRefreshed(f))
         {
-            f = getMetadataMemberFactory().newInstance(url);
-            if (_refreshPeriod != NO_CACHE_DELAY)
-            {
-                _viewMetadataFacelets.put(key, f);
-            }
+            f = _viewMetadataCompilations.compile(key,
+                    () -> compile(_viewMetadataFacelets, key, url, getMetadataMemberFactory()));
         }
         
         return f;
@@ -218,6 +252,12 @@ class CacheELFaceletCacheImpl extends AbstractFaceletCache<DefaultFacelet>
             return false;
         }
 
+        // changed files are evicted by the watcher
+        if (_watcher != null && _watcher.isWatched(facelet.getSource()))
+        {
+            return false;
+        }
+
         long target = facelet.getCreateTime() + _refreshPeriod;
         if (System.currentTimeMillis() > target)
         {
@@ -248,11 +288,26 @@ class CacheELFaceletCacheImpl extends AbstractFaceletCache<DefaultFacelet>
 
         if (f == null || this.needsToBeRefreshed(f))
         {
-            f = getCompositeComponentMetadataMemberFactory().newInstance(url);
-            if (_refreshPeriod != NO_CACHE_DELAY)
-            {
-                _compositeComponentMetadataFacelets.put(key, f);
-            }
+            f = _compositeComponentMetadataCompilations.compile(key, () -> compile(
+                    _compositeComponentMetadataFacelets, key, url, getCompositeComponentMetadataMemberFactory()));
+        }
+        return f;
+    }
+
+    private DefaultFacelet compile(Map<String, DefaultFacelet> cache, String key, URL url,
+            MemberFactory<DefaultFacelet> factory) throws IOException
+    {
+        // Another thread could have finished the compilation in the meantime
+        DefaultFacelet f = cache.get(key);
+        if (f != null && !this.needsToBeRefreshed(f))
+        {
+            return f;
+        }
+
+        f = factory.newInstance(url);
+        if (_refreshPeriod != NO_CACHE_DELAY)
+        {
+            cache.put(key, f);
         }
         return f;
     }
@@ -21,9 +21,11 @@ package org.apache.myfaces.view.facelets.impl;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.StandardWatchEventKinds;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,6 +43,7 @@ import jakarta.faces.view.facelets.FaceletContext;
 import jakarta.faces.view.facelets.FaceletException;
 import org.apache.myfaces.cdi.util.CDIUtils;
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.resource.FileChangeWatcher;
 import org.apache.myfaces.resource.ResourceLoaderUtils;
 import org.apache.myfaces.core.api.shared.lang.Assert;
 import org.apache.myfaces.util.ExternalSpecifications;
@@ -64,13 +67,15 @@ public final class DefaultFaceletFactory extends FaceletFactory
     private Optional<URL> _baseUrl;
     private Compiler _compiler;
     private Map<String, DefaultFacelet> _compositeComponentMetadataFacelets;
+    private FaceletCompilations _compositeComponentMetadataCompilations;
     private long _refreshPeriod;
-    private Map<String, URL> _relativeLocations;
+    private volatile Map<String, URL> _relativeLocations;
     private Map<String, Boolean> _managedFacelet;
     
     private FaceletCache<Facelet> _faceletCache;
     private AbstractFaceletCache<Facelet> _abstractFaceletCache;
     private boolean viewUniqueIdsCacheEnabled;
+    private FileChangeWatcher _watcher;
     
     public DefaultFaceletFactory(Compiler compiler) throws IOException
     {
@@ -83,9 +88,10 @@ public final class DefaultFaceletFactory extends FaceletFactory
 
         _compiler = compiler;
 
-        _compositeComponentMetadataFacelets = new HashMap<>();
+        _compositeComponentMetadataFacelets = new ConcurrentHashMap<>();
+        _compositeComponentMetadataCompilations = new FaceletCompilations();
         _relativeLocations = new HashMap<>();
-        _managedFacelet = new HashMap<>();
+        _managedFacelet = new ConcurrentHashMap<>();
 
         _refreshPeriod = refreshPeriod < 0 ? INFINITE_DELAY : refreshPeriod * 1000;
         
@@ -134,6 +140,23 @@ public final class DefaultFaceletFactory extends FaceletFactory
         }
 
         this.viewUniqueIdsCacheEnabled = MyfacesConfig.getCurrentInstance().isViewUniqueIdsCacheEnabled();
+
+        if (_refreshPeriod > 0)
+        {
+            _watcher = FileChangeWatcher.getInstance(FacesContext.getCurrentInstance().getExternalContext());
+            if (_watcher != null)
+            {
+                _watcher.addListener((kind, file) ->
+                {
+                    _compositeComponentMetadataFacelets.keySet().removeIf(
+                            key -> FileChangeWatcher.isAffected(key, file));
+                    if (kind != StandardWatchEventKinds.ENTRY_MODIFY)
+                    {
+                        _relativeLocations = new HashMap<>();
+                    }
+                });
+            }
+        }
     }
 
     /**
@@ -248,6 +271,21 @@ public final class DefaultFaceletFactory extends FaceletFactory
         return _refreshPeriod;
     }
 
+    /**
+     * Returns the hit, miss and compilation counters of the facelet cache, or null if the configured
+     * FaceletCache does not keep them.
+     * 
+     * @since 5.0
+     */
+    public FaceletCacheStatistics getFaceletCacheStatistics()
+    {
+        if ((Object) _faceletCache instanceof FaceletCacheImpl cache)
+        {
+            return cache.getStatistics();
+        }
+        return null;
+    }
+
     /**
      * Resolves a path based on the passed URL. If the path starts with '/', then resolve the path against
      * {@link jakarta.faces.context.ExternalContext#getResource(java.lang.String)
@@ -300,6 +338,12 @@ public final class DefaultFaceletFactory extends FaceletFactory
             return false;
         }
 
+        // changed files are evicted by the watcher
+        if (_watcher != null && _watcher.isWatched(facelet.getSource()))
+        {
+            return false;
+        }
+
         long target = facelet.getCreateTime() + _refreshPeriod;
         if (System.currentTimeMillis() > target)
         {
@@ -547,20 +591,30 @@ public final class DefaultFaceletFactory extends FaceletFactory
             String key = url.toString();
 
             DefaultFacelet f = _compositeComponentMetadataFacelets.get(key);
-
-            if (f == null || this.needsToBeRefreshed(f))
+            if (f != null && !this.needsToBeRefreshed(f))
             {
-                f = this._createCompositeComponentMetadataFacelet(url);
-                if (_refreshPeriod != NO_CACHE_DELAY)
-                {
-                    Map<String, DefaultFacelet> newLoc
-                            = new HashMap<>(_compositeComponentMetadataFacelets);
-                    newLoc.put(key, f);
-                    _compositeComponentMetadataFacelets = newLoc;
-                }
+                return f;
             }
+            return _compositeComponentMetadataCompilations.compile(key,
+                    () -> compileCompositeComponentMetadataFacelet(key, url));
+        }
+    }
+
+    private DefaultFacelet compileCompositeComponentMetadataFacelet(String key, URL url) throws IOException
+    {
+        // Compiled by another thread in the meantime
+        DefaultFacelet f = _compositeComponentMetadataFacelets.get(key);
+        if (f != null && !this.needsToBeRefreshed(f))
+        {
             return f;
         }
+
+        f = this._createCompositeComponentMetadataFacelet(url);
+        if (_refreshPeriod != NO_CACHE_DELAY)
+        {
+            _compositeComponentMetadataFacelets.put(key, f);
+        }
+        return f;
     }
     
     private URL resolveURL(FacesContext context, String path)
@@ -23,6 +23,8 @@ import jakarta.faces.view.facelets.FaceletCache;
 import jakarta.faces.view.facelets.FaceletCacheFactory;
 
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.resource.FileChangeWatcher;
+import org.apache.myfaces.spi.CacheProviderFactory;
 import org.apache.myfaces.view.facelets.ELExpressionCacheMode;
 
 /**
@@ -41,14 +43,19 @@ public class FaceletCacheFactoryImpl extends FaceletCacheFactory
         MyfacesConfig myfacesConfig = MyfacesConfig.getCurrentInstance(context.getExternalContext());
 
         long refreshPeriod = myfacesConfig.getFaceletsRefreshPeriod();
+        FileChangeWatcher watcher = refreshPeriod > 0
+                ? FileChangeWatcher.getInstance(context.getExternalContext())
+                : null;
 
         if (ELExpressionCacheMode.alwaysRecompile == myfacesConfig.getELExpressionCacheMode())
         {
-            return new CacheELFaceletCacheImpl(refreshPeriod);
+            return new CacheELFaceletCacheImpl(refreshPeriod, watcher);
         }
         else
         {
-            return new FaceletCacheImpl(refreshPeriod);
+            return new FaceletCacheImpl(refreshPeriod, myfacesConfig.getFaceletsCacheSize(), watcher,
+                    CacheProviderFactory.getCacheProviderFactory(context.getExternalContext())
+                            .getCacheProvider(context.getExternalContext()));
         }
     }
 
@@ -20,14 +20,20 @@ package org.apache.myfaces.view.facelets.impl;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 
 import jakarta.faces.view.facelets.FaceletCache;
 import jakarta.faces.view.facelets.FaceletException;
 
+import org.apache.myfaces.resource.FileChangeWatcher;
 import org.apache.myfaces.resource.ResourceLoaderUtils;
 import org.apache.myfaces.core.api.shared.lang.Assert;
+import org.apache.myfaces.spi.Cache;
+import org.apache.myfaces.spi.CacheProvider;
+import org.apache.myfaces.spi.impl.DefaultCacheProvider;
 
 /**
  * TODO: Note MyFaces core has another type of Facelet for read composite component
@@ -42,6 +48,10 @@ import org.apache.myfaces.core.api.shared.lang.Assert;
  * the other ones used for views or the one used to apply the composite component
  * itself.  
  * 
+ * <p>The facelets are kept in concurrent maps, optionally bounded (see 
+ * org.apache.myfaces.FACELETS_CACHE_SIZE). When many threads miss the same facelet
+ * at the same time, only one compiles it and the other ones wait for the result.</p>
+ * 
  * @author Leonardo Uribe
  * @since 2.1.0
  *
@@ -52,40 +62,57 @@ class FaceletCacheImpl extends FaceletCache<DefaultFacelet>
     private static final long INFINITE_DELAY = -1;
     private static final long NO_CACHE_DELAY = 0;
     
-    private Map<String, DefaultFacelet> _facelets;
+    private final FaceletMap _facelets;
     
-    private Map<String, DefaultFacelet> _viewMetadataFacelets;
+    private final FaceletMap _viewMetadataFacelets;
+
+    private final long _refreshPeriod;
 
-    private long _refreshPeriod;
+    private final FileChangeWatcher _watcher;
+
+    private final LongAdder _hitCount = new LongAdder();
+    private final LongAdder _missCount = new LongAdder();
+    private final LongAdder _compileCount = new LongAdder();
+    private final LongAdder _compileTime = new LongAdder();
     
     FaceletCacheImpl(long refreshPeriod)
     {
-        _refreshPeriod = refreshPeriod < 0 ? INFINITE_DELAY : refreshPeriod * 1000;
-        _facelets = new HashMap<>();
-        _viewMetadataFacelets = new HashMap<>();
+        this(refreshPeriod, 0);
     }
 
-    @Override
-    public DefaultFacelet getFacelet(URL url) throws IOException
+    FaceletCacheImpl(long refreshPeriod, int maxSize)
     {
-        Assert.notNull(url, "url");
-        
-        String key = url.toString();
+        this(refreshPeriod, maxSize, null);
+    }
+
+    FaceletCacheImpl(long refreshPeriod, int maxSize, FileChangeWatcher watcher)
+    {
+        this(refreshPeriod, maxSize, watcher, new DefaultCacheProvider());
+    }
+
+    FaceletCacheImpl(long refreshPeriod, int maxSize, FileChangeWatcher watcher, CacheProvider cacheProvider)
+    {
+        _refreshPeriod = refreshPeriod < 0 ? INFINITE_DELAY : refreshPeriod * 1000;
+        _facelets = FaceletMap.create(maxSize, cacheProvider, "facelet");
+        _viewMetadataFacelets = FaceletMap.create(maxSize, cacheProvider, "viewMetadataFacelet");
 
-        DefaultFacelet f = _facelets.get(key);
-        if (f == null || this.needsToBeRefreshed(f))
+        _watcher = watcher;
+        if (watcher != null)
         {
-            //f = this._createFacelet(url);
-            f = getMemberFactory().newInstance(url);
-            if (_refreshPeriod != NO_CACHE_DELAY)
+            watcher.addListener((kind, file) ->
             {
-                Map<String, DefaultFacelet> newLoc = new HashMap<>(_facelets);
-                newLoc.put(key, f);
-                _facelets = newLoc;
-            }
+                _facelets.removeIf(key -> FileChangeWatcher.isAffected(key, file));
+                _viewMetadataFacelets.removeIf(key -> FileChangeWatcher.isAffected(key, file));
+            });
         }
+    }
+
+    @Override
+    public DefaultFacelet getFacelet(URL url) throws IOException
+    {
+        Assert.notNull(url, "url");
         
-        return f;
+        return getOrCompile(_facelets, url, getMemberFactory());
     }
     
     @Override
@@ -99,23 +126,7 @@ class FaceletCacheImpl extends FaceletCache<DefaultFacelet>
     {
         Assert.notNull(url, "url");
         
-        String key = url.toString();
-        
-        DefaultFacelet f = _viewMetadataFacelets.get(key);
-        
-        if (f == null || this.needsToBeRefreshed(f))
-        {
-            //f = this._createViewMetadataFacelet(url);
-            f = getMetadataMemberFactory().newInstance(url);
-            if (_refreshPeriod != NO_CACHE_DELAY)
-            {
-                Map<String, DefaultFacelet> newLoc = new HashMap<>(_viewMetadataFacelets);
-                newLoc.put(key, f);
-                _viewMetadataFacelets = newLoc;
-            }
-        }
-        
-        return f;
+        return getOrCompile(_viewMetadataFacelets, url, getMetadataMemberFactory());
     }
 
     @Override
@@ -124,6 +135,56 @@ class FaceletCacheImpl extends FaceletCache<DefaultFacelet>
         return _viewMetadataFacelets.containsKey(url.toString());
     }
 
+    /**
+     * Returns a snapshot of the counters of this cache.
+     */
+    FaceletCacheStatistics getStatistics()
+    {
+        return new FaceletCacheStatistics(_hitCount.sum(), _missCount.sum(), _compileCount.sum(),
+                _compileTime.sum(), _facelets.size() + _viewMetadataFacelets.size());
+    }
+
+    private DefaultFacelet getOrCompile(FaceletMap cache, URL url, MemberFactory<DefaultFacelet> factory)
+            throws IOException
+    {
+        String key = url.toString();
+
+        DefaultFacelet f = cache.get(key);
+        if (f != null && !this.needsToBeRefreshed(f))
+        {
+            _hitCount.increment();
+            return f;
+        }
+        _missCount.increment();
+
+        return cache.compilations.compile(key, () -> compile(cache, key, url, factory));
+    }
+
+    private DefaultFacelet compile(FaceletMap cache, String key, URL url, MemberFactory<DefaultFacelet> factory)
+            throws IOException
+    {
+        // Another thread could have finished the compilation between the lookup and the registration
+        // of this one
+        DefaultFacelet f = cache.get(key);
+        if (f != null && !this.needsToBeRefreshed(f))
+        {
+            return f;
+        }
+
+        long start = System.nanoTime();
+        f = factory.newInstance(url);
+        long compileTime = System.nanoTime() - start;
+        _compileTime.add(compileTime);
+        cache.recordLoad(compileTime);
+        _compileCount.increment();
+
+        if (_refreshPeriod != NO_CACHE_DELAY)
+        {
+            cache.put(key, f);
+        }
+        return f;
+    }
+
     /**
      * Template method for determining if the Facelet needs to be refreshed.
      * 
@@ -145,6 +206,12 @@ class FaceletCacheImpl extends FaceletCache<DefaultFacelet>
             return false;
         }
 
+        // changed files are evicted by the watcher
+        if (_watcher != null && _watcher.isWatched(facelet.getSource()))
+        {
+            return false;
+        }
+
         long target = facelet.getCreateTime() + _refreshPeriod;
         if (System.currentTimeMillis() > target)
         {
@@ -163,4 +230,127 @@ class FaceletCacheImpl extends FaceletCache<DefaultFacelet>
 
         return false;
     }
+
+    /**
+     * The compiled facelets of one kind, and the compilations in progress.
+     */
+    private abstract static class FaceletMap
+    {
+        final FaceletCompilations compilations = new FaceletCompilations();
+
+        static FaceletMap create(int maxSize, CacheProvider cacheProvider, String name)
+        {
+            return maxSize > 0
+                    ? new BoundedFaceletMap(cacheProvider.createCache(name, maxSize))
+                    : new UnboundedFaceletMap();
+        }
+
+        abstract DefaultFacelet get(String key);
+
+        abstract void put(String key, DefaultFacelet facelet);
+
+        abstract boolean containsKey(String key);
+
+        abstract void removeIf(Predicate<String> keyFilter);
+
+        abstract int size();
+
+        /**
+         * Adds the compilation time of a facelet which was not cached.
+         */
+        abstract void recordLoad(long nanos);
+    }
+
+    private static final class UnboundedFaceletMap extends FaceletMap
+    {
+        private final Map<String, DefaultFacelet> map = new ConcurrentHashMap<>();
+
+        @Override
+        DefaultFacelet get(String key)
+        {
+            return map.get(key);
+        }
+
+        @Override
+        void put(String key, DefaultFacelet facelet)
+        {
+            map.put(key, facelet);
+        }
+
+        @Override
+        boolean containsKey(String key)
+        {
+            return map.containsKey(key);
+        }
+
+        @Override
+        void removeIf(Predicate<String> keyFilter)
+        {
+            map.keySet().removeIf(keyFilter);
+        }
+
+        @Override
+        int size()
+        {
+            return map.size();
+        }
+
+        @Override
+        void recordLoad(long nanos)
+        {
+            // the compilation time is only counted by getStatistics()
+        }
+    }
+
+    private static final class BoundedFaceletMap extends FaceletMap
+    {
+        private final Cache<String, DefaultFacelet> cache;
+
+        BoundedFaceletMap(Cache<String, DefaultFacelet> cache)
+        {
+            this.cache = cache;
+        }
+
+        @Override
+        DefaultFacelet get(String key)
+        {
+            return cache.get(key);
+        }
+
+        @Override
+        void put(String key, DefaultFacelet facelet)
+        {
+            cache.put(key, facelet);
+        }
+
+        @Override
+        boolean containsKey(String key)
+        {
+            return cache.containsKey(key);
+        }
+
+        @Override
+        void removeIf(Predicate<String> keyFilter)
+        {
+            for (String key : cache.keySet())
+            {
+                if (keyFilter.test(key))
+                {
+                    cache.remove(key);
+                }
+            }
+        }
+
+        @Override
+        int size()
+        {
+            return cache.size();
+        }
+
+        @Override
+        void recordLoad(long nanos)
+        {
+            cache.recordLoad(nanos);
+        }
+    }
 }
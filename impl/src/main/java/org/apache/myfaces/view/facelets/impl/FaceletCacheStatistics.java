@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.impl;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the counters of the facelet cache, see {@link DefaultFaceletFactory#getFaceletCacheStatistics()}.
+ * 
+ * @since 5.0
+ */
+public final class FaceletCacheStatistics implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final long hitCount;
+    private final long missCount;
+    private final long compileCount;
+    private final long compileTimeNanos;
+    private final int size;
+
+    FaceletCacheStatistics(long hitCount, long missCount, long compileCount, long compileTimeNanos, int size)
+    {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.compileCount = compileCount;
+        this.compileTimeNanos = compileTimeNanos;
+        this.size = size;
+    }
+
+    /**
+     * Number of lookups that returned a cached facelet.
+     */
+    public long getHitCount()
+    {
+        return hitCount;
+    }
+
+    /**
+     * Number of lookups that did not find a valid facelet in the cache. Lookups that waited for the
+     * compilation started by another thread are counted too.
+     */
+    public long getMissCount()
+    {
+        return missCount;
+    }
+
+    /**
+     * Number of facelets compiled.
+     */
+    public long getCompileCount()
+    {
+        return compileCount;
+    }
+
+    /**
+     * Total time spent compiling facelets, in nanoseconds.
+     */
+    public long getCompileTimeNanos()
+    {
+        return compileTimeNanos;
+    }
+
+    /**
+     * Number of facelets currently cached.
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "FaceletCacheStatistics[hits=" + hitCount + ", misses=" + missCount + ", compilations="
+                + compileCount + ", compileTimeNanos=" + compileTimeNanos + ", size=" + size + "]";
+    }
+}
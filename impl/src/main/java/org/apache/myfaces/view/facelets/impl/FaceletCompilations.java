@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import jakarta.faces.view.facelets.FaceletException;
+
+/**
+ * The compilations in progress of one kind of facelet. When many threads miss the same facelet at the
+ * same time (first request after the deployment, or after the refresh period expired), only the first
+ * one compiles it and the other ones wait for its result. A failed compilation is not kept, the next
+ * request tries again.
+ */
+final class FaceletCompilations
+{
+    private final Map<String, FutureTask<DefaultFacelet>> running = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the compilation, or waits for the one of the same key started by another thread.
+     * The compilation should check the cache again, another thread could have finished it between
+     * the lookup of the caller and the registration of this one.
+     */
+    DefaultFacelet compile(String key, Callable<DefaultFacelet> compilation) throws IOException
+    {
+        FutureTask<DefaultFacelet> task = new FutureTask<>(compilation);
+        FutureTask<DefaultFacelet> current = running.putIfAbsent(key, task);
+        if (current == null)
+        {
+            current = task;
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                running.remove(key, task);
+            }
+        }
+
+        try
+        {
+            return current.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the compilation of " + key);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException)
+            {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException)
+            {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error)
+            {
+                throw error;
+            }
+            throw new FaceletException("Error compiling " + key, cause);
+        }
+    }
+}
@@ -92,6 +92,16 @@ public abstract class ViewPool
     @JSFWebConfigParam(defaultValue="false", expectedValues="true, false", tags="performance")
     public static final String INIT_PARAM_VIEW_POOL_DEFERRED_NAVIGATION =
             "org.apache.myfaces.VIEW_POOL_DEFERRED_NAVIGATION";    
+
+    /**
+     * Registers the counters of the view pool (hits, misses, reclaimed entries, reset failures
+     * and the reasons why views were not pooled, by view id) as an MBean in the platform MBean
+     * server, with the name org.apache.myfaces:type=ViewPool,context=&lt;context path&gt;.
+     * The counters are always available with ViewPoolProcessor.getStatistics().
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true, false", tags="performance")
+    public static final String INIT_PARAM_VIEW_POOL_JMX_ENABLED =
+            "org.apache.myfaces.VIEW_POOL_JMX_ENABLED";
     
     /**
      * Indicate if the view pool uses deferred navigation.
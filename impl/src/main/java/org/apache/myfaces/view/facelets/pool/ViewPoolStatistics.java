@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.pool;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the view pool by view id, to find out how effective the pool is and why views are
+ * not pooled. The counters are updated without locking, so a snapshot taken under load is only
+ * approximately consistent.
+ *
+ * <ul>
+ * <li>hits: a view with the same static or dynamic structure was taken from the pool</li>
+ * <li>partialHits: a view with a partial structure was taken, it is refreshed by facelets</li>
+ * <li>misses: no view was available, so the view was built</li>
+ * <li>pushes: views returned to the pool after the request</li>
+ * <li>rejected: views not returned to the pool because the pool was full</li>
+ * <li>reclaimed: pooled views that were cleared by the garbage collector</li>
+ * <li>resetFailures: views whose state could not be reset after the request</li>
+ * <li>notPooled.&lt;reason&gt;: views not returned to the pool, by reason</li>
+ * </ul>
+ */
+public class ViewPoolStatistics implements ViewPoolStatisticsMXBean
+{
+    public static final String HITS = "hits";
+    public static final String PARTIAL_HITS = "partialHits";
+    public static final String MISSES = "misses";
+    public static final String PUSHES = "pushes";
+    public static final String REJECTED = "rejected";
+    public static final String RECLAIMED = "reclaimed";
+    public static final String RESET_FAILURES = "resetFailures";
+    public static final String NOT_POOLED = "notPooled";
+
+    /**
+     * The dynamic structure of the view was not seen before, so there is no metadata to reset it.
+     */
+    public static final String REASON_NO_STRUCTURE_METADATA = "noStructureMetadata";
+
+    /**
+     * The pool of views with partial structure is already full.
+     */
+    public static final String REASON_PARTIAL_POOL_FULL = "partialPoolFull";
+
+    /**
+     * Too few components of the view could be reset to reuse it.
+     */
+    public static final String REASON_FEW_REUSABLE_COMPONENTS = "fewReusableComponents";
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public void recordHit(String viewId, RestoreViewFromPoolResult result)
+    {
+        Counters c = getCounters(viewId);
+        if (RestoreViewFromPoolResult.COMPLETE.equals(result))
+        {
+            c.hits.increment();
+        }
+        else
+        {
+            c.partialHits.increment();
+        }
+    }
+
+    public void recordMiss(String viewId)
+    {
+        getCounters(viewId).misses.increment();
+    }
+
+    public void recordPush(String viewId, boolean accepted)
+    {
+        Counters c = getCounters(viewId);
+        if (accepted)
+        {
+            c.pushes.increment();
+        }
+        else
+        {
+            c.rejected.increment();
+        }
+    }
+
+    public void recordReclaimed(String viewId)
+    {
+        getCounters(viewId).reclaimed.increment();
+    }
+
+    public void recordResetFailure(String viewId)
+    {
+        getCounters(viewId).resetFailures.increment();
+    }
+
+    public void recordNotPooled(String viewId, String reason)
+    {
+        getCounters(viewId).notPooled.computeIfAbsent(reason, k -> new LongAdder()).increment();
+    }
+
+    private Counters getCounters(String viewId)
+    {
+        return counters.computeIfAbsent(viewId == null ? "" : viewId, k -> new Counters());
+    }
+
+    @Override
+    public long getHits()
+    {
+        return sum(HITS);
+    }
+
+    @Override
+    public long getPartialHits()
+    {
+        return sum(PARTIAL_HITS);
+    }
+
+    @Override
+    public long getMisses()
+    {
+        return sum(MISSES);
+    }
+
+    @Override
+    public long getPushes()
+    {
+        return sum(PUSHES);
+    }
+
+    @Override
+    public long getRejected()
+    {
+        return sum(REJECTED);
+    }
+
+    @Override
+    public long getReclaimed()
+    {
+        return sum(RECLAIMED);
+    }
+
+    @Override
+    public long getResetFailures()
+    {
+        return sum(RESET_FAILURES);
+    }
+
+    @Override
+    public long getNotPooled()
+    {
+        return sum(NOT_POOLED);
+    }
+
+    @Override
+    public double getHitRatio()
+    {
+        long hits = getHits() + getPartialHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the counters of one view, by counter name.
+     */
+    public Map<String, Long> getSnapshot(String viewId)
+    {
+        Counters c = counters.get(viewId);
+        return c == null ? new TreeMap<>() : c.snapshot();
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> getSnapshot()
+    {
+        Map<String, Map<String, Long>> snapshot = new TreeMap<>();
+        for (Map.Entry<String, Counters> entry : counters.entrySet())
+        {
+            snapshot.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void reset()
+    {
+        counters.clear();
+    }
+
+    private long sum(String name)
+    {
+        long sum = 0;
+        for (Counters c : counters.values())
+        {
+            sum += c.get(name);
+        }
+        return sum;
+    }
+
+    private static final class Counters
+    {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder partialHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder pushes = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder reclaimed = new LongAdder();
+        private final LongAdder resetFailures = new LongAdder();
+        private final Map<String, LongAdder> notPooled = new ConcurrentHashMap<>();
+
+        private long get(String name)
+        {
+            switch (name)
+            {
+                case HITS:
+                    return hits.sum();
+                case PARTIAL_HITS:
+                    return partialHits.sum();
+                case MISSES:
+                    return misses.sum();
+                case PUSHES:
+                    return pushes.sum();
+                case REJECTED:
+                    return rejected.sum();
+                case RECLAIMED:
+                    return reclaimed.sum();
+                case RESET_FAILURES:
+                    return resetFailures.sum();
+                case NOT_POOLED:
+                    long sum = 0;
+                    for (LongAdder adder : notPooled.values())
+                    {
+                        sum += adder.sum();
+                    }
+                    return sum;
+                default:
+                    return 0;
+            }
+        }
+
+        private Map<String, Long> snapshot()
+        {
+            Map<String, Long> snapshot = new TreeMap<>();
+            snapshot.put(HITS, hits.sum());
+            snapshot.put(PARTIAL_HITS, partialHits.sum());
+            snapshot.put(MISSES, misses.sum());
+            snapshot.put(PUSHES, pushes.sum());
+            snapshot.put(REJECTED, rejected.sum());
+            snapshot.put(RECLAIMED, reclaimed.sum());
+            snapshot.put(RESET_FAILURES, resetFailures.sum());
+            for (Map.Entry<String, LongAdder> entry : notPooled.entrySet())
+            {
+                snapshot.put(NOT_POOLED + '.' + entry.getKey(), entry.getValue().sum());
+            }
+            return snapshot;
+        }
+    }
+}
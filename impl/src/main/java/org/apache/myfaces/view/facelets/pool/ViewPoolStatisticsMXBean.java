@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.pool;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link ViewPoolStatistics}, registered when
+ * org.apache.myfaces.VIEW_POOL_JMX_ENABLED is true.
+ */
+public interface ViewPoolStatisticsMXBean
+{
+    long getHits();
+
+    long getPartialHits();
+
+    long getMisses();
+
+    long getPushes();
+
+    long getRejected();
+
+    long getReclaimed();
+
+    long getResetFailures();
+
+    long getNotPooled();
+
+    double getHitRatio();
+
+    /**
+     * @return the counters by view id and counter name
+     */
+    Map<String, Map<String, Long>> getSnapshot();
+
+    void reset();
+}
@@ -31,6 +31,7 @@ import org.apache.myfaces.util.UrlPatternMatcher;
 import org.apache.myfaces.view.facelets.ViewPoolProcessor;
 import org.apache.myfaces.view.facelets.pool.ViewPool;
 import org.apache.myfaces.view.facelets.pool.ViewPoolFactory;
+import org.apache.myfaces.view.facelets.pool.ViewPoolStatistics;
 
 /**
  *
@@ -42,12 +43,17 @@ public class ViewPoolFactoryImpl extends ViewPoolFactory
     private ViewPool defaultViewPool;
     
     public ViewPoolFactoryImpl(FacesContext context)
+    {
+        this(context, new ViewPoolStatistics());
+    }
+
+    public ViewPoolFactoryImpl(FacesContext context, ViewPoolStatistics statistics)
     {
         RuntimeConfig runtimeConfig = RuntimeConfig.getCurrentInstance(context.getExternalContext());
         // If no view pool mappings set, apply to all views.
         if (runtimeConfig.getViewPoolMappings().isEmpty())
         {
-            defaultViewPool = new ViewPoolImpl(context, new HashMap<>());
+            defaultViewPool = new ViewPoolImpl(context, new HashMap<>(), statistics);
         }
         urlPatterns = new ArrayList<>();
         viewPoolList = new ArrayList<>();
@@ -59,7 +65,7 @@ public class ViewPoolFactoryImpl extends ViewPoolFactory
             {
                 parameters.put(param.getName(), param.getValue());
             }
-            viewPoolList.add(new ViewPoolImpl(context, parameters));
+            viewPoolList.add(new ViewPoolImpl(context, parameters, statistics));
         }
     }
     
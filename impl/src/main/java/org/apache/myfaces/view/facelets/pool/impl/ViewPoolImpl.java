@@ -28,6 +28,7 @@ import org.apache.myfaces.context.RequestViewContext;
 import org.apache.myfaces.util.WebConfigParamUtils;
 import org.apache.myfaces.view.facelets.pool.RestoreViewFromPoolResult;
 import org.apache.myfaces.view.facelets.pool.ViewPool;
+import org.apache.myfaces.view.facelets.pool.ViewPoolStatistics;
 import org.apache.myfaces.view.facelets.pool.ViewEntry;
 import org.apache.myfaces.view.facelets.pool.ViewStructureMetadata;
 import org.apache.myfaces.view.facelets.tag.faces.FaceletState;
@@ -40,7 +41,10 @@ public class ViewPoolImpl extends ViewPool
 {
 
     
-    private static final String SKIP_VIEW_MAP_SAVE_STATE = "oam.viewPool.SKIP_VIEW_MAP_SAVE_STATE";    
+    /**
+     * Context attribute checked by UIViewRoot.saveState(...) to leave out the view scope map.
+     */
+    public static final String SKIP_VIEW_MAP_SAVE_STATE = "oam.viewPool.SKIP_VIEW_MAP_SAVE_STATE";
             
     private Map<MetadataViewKey, ViewPoolEntryHolder> staticStructureViewPool;
     
@@ -58,9 +62,17 @@ public class ViewPoolImpl extends ViewPool
     private Map<MetadataViewKey, ViewStructureMetadata> staticStructureViewMetadataMap;
     private Map<MetadataViewKey, Map<DynamicViewKey, ViewStructureMetadata>> 
             dynamicStructureViewMetadataMap;
+
+    private final ViewPoolStatistics statistics;
     
     public ViewPoolImpl(FacesContext facesContext, Map<String, String> parameters)
     {
+        this(facesContext, parameters, new ViewPoolStatistics());
+    }
+
+    public ViewPoolImpl(FacesContext facesContext, Map<String, String> parameters, ViewPoolStatistics statistics)
+    {
+        this.statistics = statistics;
         staticStructureViewPool = new ConcurrentHashMap<>();
         partialStructureViewPool = new ConcurrentHashMap<>();
         dynamicStructureViewPool = new ConcurrentHashMap<>();
@@ -94,7 +106,7 @@ public class ViewPoolImpl extends ViewPool
     protected void pushStaticStructureView(FacesContext context, MetadataViewKey key, ViewEntry entry)
     {
         ViewPoolEntryHolder q = staticStructureViewPool.computeIfAbsent(key, k -> new ViewPoolEntryHolder(maxCount));
-        q.add(entry);
+        statistics.recordPush(key.getViewId(), q.add(entry));
     }
     
     protected ViewEntry popStaticStructureView(FacesContext context, MetadataViewKey key)
@@ -116,6 +128,7 @@ public class ViewPoolImpl extends ViewPool
             {
                 return entry;
             }
+            statistics.recordReclaimed(key.getViewId());
             entry = q.poll();
         }
         while (entry != null);
@@ -130,7 +143,7 @@ public class ViewPoolImpl extends ViewPool
             q = new ViewPoolEntryHolder(maxCount);
             partialStructureViewPool.put(key, q);
         }
-        q.add(entry);
+        statistics.recordPush(key.getViewId(), q.add(entry));
     }
     
     protected ViewEntry popPartialStructureView(FacesContext context, MetadataViewKey key)
@@ -153,6 +166,7 @@ public class ViewPoolImpl extends ViewPool
             {
                 return entry;
             }
+            statistics.recordReclaimed(key.getViewId());
             entry = q.poll();
         } while (entry != null);
 
@@ -203,7 +217,11 @@ public class ViewPoolImpl extends ViewPool
                 k -> new ConcurrentHashMap<>());
 
         ViewPoolEntryHolder q = map.computeIfAbsent(key, k -> new ViewPoolEntryHolder(maxCount));
-        if (!q.add(entry))
+        if (q.add(entry))
+        {
+            statistics.recordPush(root.getViewId(), true);
+        }
+        else
         {
             pushPartialStructureView(context, ordinaryKey, entry);
         }
@@ -231,6 +249,7 @@ public class ViewPoolImpl extends ViewPool
             {
                 return entry;
             }
+            statistics.recordReclaimed(root.getViewId());
             entry = q.poll();
         }
         return null;
@@ -293,6 +312,7 @@ public class ViewPoolImpl extends ViewPool
                                     {
                                         break;
                                     }
+                                    statistics.recordReclaimed(key.getViewId());
                                     entry = maxEntry.poll();
                                 }
                                 while (entry != null);
@@ -310,9 +330,22 @@ public class ViewPoolImpl extends ViewPool
                 }
             }
         }
+        recordPop(root, entry);
         return entry;
     }
 
+    private void recordPop(UIViewRoot root, ViewEntry entry)
+    {
+        if (entry != null)
+        {
+            statistics.recordHit(root.getViewId(), entry.getResult());
+        }
+        else
+        {
+            statistics.recordMiss(root.getViewId());
+        }
+    }
+
     @Override
     public void pushDynamicStructureView(FacesContext context, UIViewRoot root, FaceletState faceletDynamicState)
     {
@@ -335,6 +368,7 @@ public class ViewPoolImpl extends ViewPool
         {
             entry.setResult(RestoreViewFromPoolResult.COMPLETE);
         }
+        recordPop(root, entry);
         return entry;
     }
 
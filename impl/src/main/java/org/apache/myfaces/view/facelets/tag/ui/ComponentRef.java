@@ -18,10 +18,19 @@
  */
 package org.apache.myfaces.view.facelets.tag.ui;
 
+import java.io.IOException;
+import java.util.Iterator;
+
+import jakarta.faces.component.EditableValueHolder;
+import jakarta.faces.component.UIComponent;
 import jakarta.faces.component.UIComponentBase;
+import jakarta.faces.component.UIForm;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.ResponseWriter;
 
 import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFComponent;
 import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFProperty;
+import org.apache.myfaces.util.lang.FastWriter;
 
 @JSFComponent
 public final class ComponentRef extends UIComponentBase
@@ -30,6 +39,19 @@ public final class ComponentRef extends UIComponentBase
     public final static String COMPONENT_TYPE = "facelets.ui.ComponentRef";
     public final static String COMPONENT_FAMILY = "facelets";
 
+    /**
+     * Attribute that enables the render cache for the markup of this component and its children,
+     * see org.apache.myfaces.RENDER_CACHE_SIZE.
+     */
+    public final static String RENDER_CACHE = "oamRenderCache";
+
+    /**
+     * The last rendered markup. A pooled view reuses this instance, so it can write the markup again
+     * without looking it up in the RenderCache.
+     */
+    private String _renderCacheKey;
+    private String _renderCacheMarkup;
+
     public ComponentRef()
     {
         super();
@@ -47,4 +69,72 @@ public final class ComponentRef extends UIComponentBase
     {
         return super.isRendered();
     }
+
+    @Override
+    public void encodeAll(FacesContext context) throws IOException
+    {
+        RenderCache renderCache = isRenderCache() ? RenderCache.getInstance(context) : null;
+        if (renderCache == null || !isRendered())
+        {
+            super.encodeAll(context);
+            return;
+        }
+
+        String key = RenderCache.getKey(context, this);
+        String markup = key.equals(_renderCacheKey) ? _renderCacheMarkup : renderCache.get(key);
+        if (markup == null)
+        {
+            if (!isRenderCacheable(this))
+            {
+                super.encodeAll(context);
+                return;
+            }
+
+            long start = System.nanoTime();
+            ResponseWriter writer = context.getResponseWriter();
+            FastWriter buffer = new FastWriter(1024);
+            ResponseWriter bufferWriter = writer.cloneWithWriter(buffer);
+            context.setResponseWriter(bufferWriter);
+            try
+            {
+                super.encodeAll(context);
+                bufferWriter.flush();
+            }
+            finally
+            {
+                context.setResponseWriter(writer);
+            }
+
+            markup = buffer.toString();
+            renderCache.put(key, markup, System.nanoTime() - start);
+        }
+
+        _renderCacheKey = key;
+        _renderCacheMarkup = markup;
+        context.getResponseWriter().write(markup);
+    }
+
+    /**
+     * The markup of forms (the view state marker) and of inputs (the submitted and local values) depends on the
+     * request, so subtrees that contain them are always encoded.
+     */
+    private static boolean isRenderCacheable(UIComponent component)
+    {
+        Iterator<UIComponent> it = component.getFacetsAndChildren();
+        while (it.hasNext())
+        {
+            UIComponent child = it.next();
+            if (child instanceof UIForm || child instanceof EditableValueHolder || !isRenderCacheable(child))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isRenderCache()
+    {
+        Object value = getAttributes().get(RENDER_CACHE);
+        return value instanceof Boolean booleanValue ? booleanValue : "true".equals(value);
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.tag.ui;
+
+import java.util.Map;
+
+import jakarta.faces.application.ProjectStage;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.context.FacesContext;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.resource.FileChangeWatcher;
+import org.apache.myfaces.spi.Cache;
+import org.apache.myfaces.spi.CacheProviderFactory;
+
+/**
+ * Application wide cache of the markup rendered by a ComponentRef with the oamRenderCache attribute,
+ * by view id, client id and locale (see org.apache.myfaces.RENDER_CACHE_SIZE). It is cleared when
+ * the FileChangeWatcher reports a changed file.
+ */
+final class RenderCache
+{
+    private static final String INSTANCE_KEY = RenderCache.class.getName();
+
+    private final Cache<String, String> cache;
+
+    private RenderCache(FacesContext context, int size)
+    {
+        cache = CacheProviderFactory.getCacheProviderFactory(context.getExternalContext())
+                .getCacheProvider(context.getExternalContext()).createCache("renderedMarkup", size);
+
+        FileChangeWatcher watcher = FileChangeWatcher.getInstance(context.getExternalContext());
+        if (watcher != null)
+        {
+            watcher.addListener((kind, file) -> cache.clear());
+        }
+    }
+
+    /**
+     * Returns the cache of the current application, or null if the render cache is disabled.
+     */
+    static RenderCache getInstance(FacesContext context)
+    {
+        Map<String, Object> applicationMap = context.getExternalContext().getApplicationMap();
+        Object instance = applicationMap.get(INSTANCE_KEY);
+        if (instance == null)
+        {
+            MyfacesConfig config = MyfacesConfig.getCurrentInstance(context);
+            int size = config.getRenderCacheSize();
+            // without the watcher a refreshed facelet would still be written with its old markup
+            boolean refreshed = config.getFaceletsRefreshPeriod() >= 0 && !config.isWatchFileChanges();
+            if (size > 0 && !refreshed && !context.isProjectStage(ProjectStage.Development))
+            {
+                instance = new RenderCache(context, size);
+            }
+            else
+            {
+                instance = Boolean.FALSE;
+            }
+            // a concurrent first request may replace it, which only loses the entries rendered so far
+            applicationMap.put(INSTANCE_KEY, instance);
+        }
+        return instance instanceof RenderCache renderCache ? renderCache : null;
+    }
+
+    static String getKey(FacesContext context, UIComponent component)
+    {
+        UIViewRoot root = context.getViewRoot();
+        return root.getViewId() + ' ' + component.getClientId(context) + ' ' + root.getLocale();
+    }
+
+    String get(String key)
+    {
+        return cache.get(key);
+    }
+
+    /**
+     * @param nanos the time spent to render the markup
+     */
+    void put(String key, String markup, long nanos)
+    {
+        cache.recordLoad(nanos);
+        cache.put(key, markup);
+    }
+}
@@ -34,6 +34,13 @@ import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFPropert
  * parent/child relationships for you.
  * 
  * <p>
+ * MyFaces extension: with oamRenderCache="true" the markup of the fragment is rendered
+ * once per view, client id and locale and written again from a cache on later renders
+ * (see org.apache.myfaces.RENDER_CACHE_SIZE). Use it only for subtrees whose output
+ * does not depend on the request.
+ * </p>
+ *
+ * <p>
  * The component class used for this tag is 
  * org.apache.myfaces.view.facelets.tag.ui.ComponentRef and the 
  * real java class that contains this description is not used on runtime.
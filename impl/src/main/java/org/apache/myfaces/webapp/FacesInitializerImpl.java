@@ -40,6 +40,7 @@ import jakarta.servlet.ServletRegistration;
 import jakarta.websocket.DeploymentException;
 import jakarta.websocket.server.ServerContainer;
 import jakarta.websocket.server.ServerEndpointConfig;
+import org.apache.myfaces.application.viewstate.StateCacheServerSide;
 import org.apache.myfaces.application.viewstate.StateUtils;
 import org.apache.myfaces.cdi.util.BeanEntry;
 import org.apache.myfaces.cdi.util.CDIUtils;
@@ -54,6 +55,7 @@ import org.apache.myfaces.context.servlet.StartupServletExternalContextImpl;
 import org.apache.myfaces.push.EndpointImpl;
 import org.apache.myfaces.push.WebsocketConfigurator;
 import org.apache.myfaces.push.cdi.WebsocketSessionManager;
+import org.apache.myfaces.resource.FileChangeWatcher;
 import org.apache.myfaces.spi.InjectionProvider;
 import org.apache.myfaces.spi.InjectionProviderException;
 import org.apache.myfaces.spi.InjectionProviderFactory;
@@ -64,6 +66,7 @@ import org.apache.myfaces.util.WebConfigParamUtils;
 import org.apache.myfaces.util.lang.ClassUtils;
 import org.apache.myfaces.util.lang.StringUtils;
 import org.apache.myfaces.view.facelets.ViewPoolProcessor;
+import org.apache.myfaces.view.facelets.ViewWarmUpProcessor;
 
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
@@ -211,6 +214,11 @@ public class FacesInitializerImpl implements FacesInitializer
                 initAutomaticExtensionlessMapping(facesContext, servletContext);
             }
 
+            if (config.isViewWarmUp())
+            {
+                ViewWarmUpProcessor.warmUp(facesContext);
+            }
+
             // publish resourceBundleControl to applicationMap, to make it available to the API
             ResourceBundle.Control resourceBundleControl = config.getResourceBundleControl();
             if (resourceBundleControl != null)
@@ -349,6 +357,10 @@ public class FacesInitializerImpl implements FacesInitializer
             log.log(Level.SEVERE, e.getMessage(), e);
         }
 
+        FileChangeWatcher.stop(facesContext.getExternalContext());
+        StateCacheServerSide.destroyViewStateStore(facesContext.getExternalContext());
+        ViewPoolProcessor.destroy(facesContext);
+
         // TODO is it possible to make a real cleanup?
 
         // Destroy startup FacesContext, but note we do before publish postdestroy event on
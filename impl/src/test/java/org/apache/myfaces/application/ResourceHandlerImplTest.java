@@ -18,6 +18,7 @@
  */
 package org.apache.myfaces.application;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
@@ -25,11 +26,25 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import jakarta.faces.application.Resource;
+import jakarta.faces.application.ResourceHandler;
+import java.nio.charset.StandardCharsets;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.myfaces.resource.ResourceImpl;
+import org.apache.myfaces.test.mock.MockServletOutputStream;
 import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.resource.BaseResourceHandlerSupport;
 import org.apache.myfaces.resource.ClassLoaderResourceLoader;
+import org.apache.myfaces.resource.CombinedResource;
+import org.apache.myfaces.resource.CombinedResourceCache;
 import org.apache.myfaces.resource.ResourceHandlerCache;
 import org.apache.myfaces.resource.ResourceHandlerSupport;
 import org.apache.myfaces.resource.ResourceLoader;
@@ -37,6 +52,7 @@ import org.apache.myfaces.resource.ResourceMeta;
 import org.apache.myfaces.resource.ResourceMetaImpl;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 
 /**
@@ -49,6 +65,9 @@ public class ResourceHandlerImplTest extends AbstractFacesTestCase
 
     private ResourceHandlerImpl resourceHandler;
 
+    @TempDir
+    Path tempDir;
+
     @Override
     @BeforeEach
     public void setUp() throws Exception
@@ -318,4 +337,231 @@ public class ResourceHandlerImplTest extends AbstractFacesTestCase
         Mockito.verify(loader, Mockito.never()).getResourceInputStream(Mockito.any());
         
     }
+
+    @Test
+    public void testMissingResourceCache()
+    {
+        ResourceLoader loader = Mockito.spy(new ClassLoaderResourceLoader(null));
+
+        ResourceHandlerCache cache = Mockito.spy(new ResourceHandlerCache());   
+        
+        ResourceHandlerSupport support = Mockito.spy(new DefaultResourceHandlerSupport());
+        Mockito.when(support.getResourceLoaders()).thenReturn(new ResourceLoader[] { loader });
+        
+        resourceHandler = Mockito.spy(resourceHandler);
+        Mockito.when(resourceHandler.getResourceHandlerCache()).thenReturn(cache);
+        Mockito.when(resourceHandler.getResourceHandlerSupport()).thenReturn(support);
+
+        Assertions.assertNull(resourceHandler.createResource("missing.png", "missing", "test"));
+        Mockito.clearInvocations(loader);
+
+        // the loaders are not asked again
+        Assertions.assertNull(resourceHandler.createResource("missing.png", "missing", "test"));
+        Assertions.assertNull(resourceHandler.createResource("missing.png", "missing", "test"));
+
+        Mockito.verify(cache, Mockito.times(1)).confirmResourceMissing(
+                Mockito.eq("missing.png"), Mockito.eq("missing"), Mockito.eq("test"), Mockito.any(),
+                Mockito.any(), Mockito.any());
+        Mockito.verifyNoInteractions(loader);
+    }
+
+    @Test
+    public void testResourceFile() throws Exception
+    {
+        Path file = Files.writeString(tempDir.resolve("test.js"), "var a = 1;");
+        ResourceMeta meta = Mockito.mock(ResourceMeta.class);
+        Mockito.when(meta.getResourceName()).thenReturn("test.js");
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+        Mockito.when(loader.getResourceURL(meta)).thenReturn(file.toUri().toURL());
+
+        Assertions.assertEquals(file, new ResourceImpl(meta, loader, null, "text/javascript").getFile());
+        // css is filtered for value expressions
+        Assertions.assertNull(new ResourceImpl(meta, loader, null, "text/css").getFile());
+
+        Mockito.when(loader.getResourceURL(meta)).thenReturn(new URL("jar:" + file.toUri() + "!/test.js"));
+        Assertions.assertNull(new ResourceImpl(meta, loader, null, "text/javascript").getFile());
+    }
+
+    @Test
+    public void testSendFile() throws Exception
+    {
+        byte[] content = new byte[100 * 1024];
+        new Random(1).nextBytes(content);
+        Path file = Files.write(tempDir.resolve("test.bin"), content);
+
+        HttpServletResponse spy = Mockito.spy(response);
+        Mockito.doNothing().when(spy).setContentLengthLong(Mockito.anyLong());
+
+        ResourceHandlerImpl.sendFile(externalContext, spy, file);
+
+        Mockito.verify(spy).setContentLengthLong(content.length);
+        Assertions.assertArrayEquals(content, ((MockServletOutputStream) spy.getOutputStream()).content());
+    }
+
+    @Test
+    public void testSendFileWithContainerSupport() throws Exception
+    {
+        Path file = Files.write(tempDir.resolve("test.bin"), new byte[64 * 1024]);
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+
+        HttpServletResponse spy = Mockito.spy(response);
+        Mockito.doNothing().when(spy).setContentLengthLong(Mockito.anyLong());
+
+        ResourceHandlerImpl.sendFile(externalContext, spy, file);
+
+        Mockito.verify(spy).setContentLengthLong(64 * 1024);
+        Mockito.verify(spy, Mockito.never()).getOutputStream();
+        Assertions.assertEquals(file.toAbsolutePath().toString(),
+                request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        Assertions.assertEquals(0L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        Assertions.assertEquals(64L * 1024, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    public void testContentHash() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_CONTENT_HASH, "true");
+        Path file = Files.writeString(tempDir.resolve("test.js"), "var a = 1;");
+        ResourceMeta meta = new ResourceMetaImpl(null, null, null, "test.js", null);
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+        Mockito.when(loader.getResourceInputStream(meta)).thenAnswer(i -> Files.newInputStream(file));
+
+        ResourceImpl resource = new ResourceImpl(meta, loader, null, "text/javascript");
+        String contentHash = resource.getContentHash(facesContext);
+        Assertions.assertNotNull(contentHash);
+        Assertions.assertEquals(16, contentHash.length());
+
+        // computed once and kept with the cached meta
+        Assertions.assertEquals(contentHash, new ResourceImpl(meta, loader, null, "text/javascript")
+                .getContentHash(facesContext));
+        Mockito.verify(loader, Mockito.times(1)).getResourceInputStream(meta);
+
+        Assertions.assertTrue(resource.userAgentNeedsUpdate(facesContext));
+        request.addHeader("If-None-Match", "\"0000000000000000\", \"" + contentHash + "-gzip\"");
+        Assertions.assertFalse(resource.userAgentNeedsUpdate(facesContext));
+    }
+
+    @Test
+    public void testContentHashDisabledByDefault() throws Exception
+    {
+        ResourceMeta meta = new ResourceMetaImpl(null, null, null, "test.js", null);
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+
+        Assertions.assertNull(new ResourceImpl(meta, loader, null, "text/javascript").getContentHash(facesContext));
+        Mockito.verifyNoInteractions(loader);
+    }
+
+    @Test
+    public void testConditionalRequestOfCompressedResource() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_COMPRESSION, "true");
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_CONTENT_HASH, "true");
+        servletContext.addServletRegistration("faces", "jakarta.faces.webapp.FacesServlet", "/faces/*");
+        Path file = Files.writeString(tempDir.resolve("a.js"), "var a = 1;\n".repeat(100));
+        ResourceMeta meta = new ResourceMetaImpl(null, "lib", null, "a.js", null);
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+        Mockito.when(loader.getResourceURL(meta)).thenReturn(file.toUri().toURL());
+        Mockito.when(loader.getResourceInputStream(meta)).thenAnswer(i -> Files.newInputStream(file));
+        ResourceHandler applicationResourceHandler = Mockito.mock(ResourceHandler.class);
+        Mockito.when(applicationResourceHandler.isResourceRequest(facesContext)).thenReturn(true);
+        Mockito.when(applicationResourceHandler.createResource("a.js", "lib")).thenAnswer(
+                i -> new ResourceImpl(meta, loader, new BaseResourceHandlerSupport(), "text/javascript"));
+        application.setResourceHandler(applicationResourceHandler);
+
+        String contentHash = new ResourceImpl(meta, loader, null, "text/javascript").getContentHash(facesContext);
+        request.setPathElements("/xxx", "/faces", ResourceHandler.RESOURCE_IDENTIFIER + "/a.js", null);
+        request.addParameter("ln", "lib");
+        request.addParameter(ResourceImpl.CONTENT_HASH_PARAM, contentHash);
+        request.addHeader("Accept-Encoding", "gzip");
+        request.addHeader("If-None-Match", "\"" + contentHash + "-gzip\"");
+
+        resourceHandler.handleResourceRequest(facesContext);
+
+        // the same validator and caching headers as the compressed 200 response
+        Assertions.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+        Assertions.assertEquals("\"" + contentHash + "-gzip\"", response.getHeader("ETag"));
+        Assertions.assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        Assertions.assertEquals("public, max-age=31536000, immutable", response.getHeader("Cache-Control"));
+        Assertions.assertNull(response.getHeader("Content-Encoding"));
+    }
+
+    @Test
+    public void testCombinedResourceRequest() throws Exception
+    {
+        setUpCombinedResources();
+        CombinedResource combined = renderCombinedResource("a.js", "b.js");
+        requestCombinedResource(combined.getResourceName(), "lib:a.js,lib:b.js");
+
+        resourceHandler.handleResourceRequest(facesContext);
+
+        Assertions.assertEquals("var a;\n;\nvar b;\n;\n", new String(
+                ((MockServletOutputStream) response.getOutputStream()).content(), StandardCharsets.UTF_8));
+        Assertions.assertEquals("text/javascript", response.getContentType());
+        Assertions.assertNotNull(response.getHeader("ETag"));
+        Assertions.assertEquals("public, max-age=31536000, immutable", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    public void testCombinedResourceRequestWithForgedResources() throws Exception
+    {
+        ResourceLoader loader = setUpCombinedResources();
+        CombinedResource combined = renderCombinedResource("a.js", "b.js");
+        requestCombinedResource(combined.getResourceName(), "lib:a.js,lib:b.js,lib:c.js");
+
+        resourceHandler.handleResourceRequest(facesContext);
+
+        // only the combinations rendered by a page are built
+        Assertions.assertEquals(HttpServletResponse.SC_NOT_FOUND, response.getStatus());
+        Mockito.verify(loader, Mockito.times(2)).getResourceInputStream(Mockito.any());
+    }
+
+    @Test
+    public void testCombinedResourceRequestNotFound() throws Exception
+    {
+        setUpCombinedResources();
+        requestCombinedResource("0123456789abcdef.js", "lib:a.js,lib:../b.js");
+
+        resourceHandler.handleResourceRequest(facesContext);
+
+        Assertions.assertEquals(HttpServletResponse.SC_NOT_FOUND, response.getStatus());
+    }
+
+    /**
+     * Enables the combining, the application serves "var x;" for every lib:x.js.
+     */
+    private ResourceLoader setUpCombinedResources()
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_COMBINING, "true");
+        servletContext.addServletRegistration("faces", "jakarta.faces.webapp.FacesServlet", "/faces/*");
+        request.setPathElements("/xxx", "/faces", "/page.xhtml", null);
+
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+        Mockito.when(loader.getResourceInputStream(Mockito.any())).thenAnswer(i -> new ByteArrayInputStream(
+                ("var " + i.<ResourceMeta>getArgument(0).getResourceName().charAt(0) + ";")
+                        .getBytes(StandardCharsets.UTF_8)));
+        ResourceHandler applicationResourceHandler = Mockito.mock(ResourceHandler.class);
+        Mockito.when(applicationResourceHandler.createResource(Mockito.anyString(), Mockito.eq("lib"))).thenAnswer(
+                i -> new ResourceImpl(new ResourceMetaImpl(null, "lib", null, i.getArgument(0), null), loader, null,
+                        "text/javascript"));
+        application.setResourceHandler(applicationResourceHandler);
+        return loader;
+    }
+
+    private CombinedResource renderCombinedResource(String... resourceNames) throws Exception
+    {
+        List<Resource> resources = new ArrayList<>();
+        for (String resourceName : resourceNames)
+        {
+            resources.add(application.getResourceHandler().createResource(resourceName, "lib"));
+        }
+        return CombinedResourceCache.getInstance(facesContext).get(facesContext, resources,
+                CombinedResourceCache.SCRIPT_EXTENSION);
+    }
+
+    private void requestCombinedResource(String resourceName, String resourceNames)
+    {
+        request.setPathElements("/xxx", "/faces", ResourceHandler.RESOURCE_IDENTIFIER + "/" + resourceName, null);
+        request.addParameter("ln", CombinedResource.LIBRARY_NAME);
+        request.addParameter(CombinedResource.RESOURCES_PARAM, resourceNames);
+    }
 }
@@ -24,6 +24,7 @@ import org.apache.myfaces.spi.impl.DefaultSerialFactory;
 import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -84,6 +85,43 @@ public abstract class AbstractStateUtilsTest extends AbstractFacesTestCase imple
         Assertions.assertTrue(TEST_DATA.equals(object));
     }
 
+    @Test
+    public void testConstructionCompressed()
+    {
+        servletContext.addInitParameter(StateUtils.COMPRESS_STATE_IN_CLIENT, "true");
+
+        for (int i = 0; i < 3; i++)
+        {
+            String constructed = StateUtils.construct(TEST_DATA, externalContext);
+            Assertions.assertEquals(TEST_DATA, StateUtils.reconstruct(constructed, externalContext));
+        }
+    }
+
+    /**
+     * The state written in one pass must be readable stage by stage and vice versa.
+     */
+    @Test
+    public void testConstructionFormat()
+    {
+        servletContext.addInitParameter(StateUtils.COMPRESS_STATE_IN_CLIENT, "true");
+
+        String constructed = StateUtils.construct(TEST_DATA, externalContext);
+        byte[] bytes = StateUtils.decode(constructed.getBytes(StandardCharsets.ISO_8859_1));
+        if (StateUtils.isSecure(externalContext))
+        {
+            bytes = StateUtils.decrypt(bytes, externalContext);
+        }
+        Assertions.assertEquals(TEST_DATA, StateUtils.getAsObject(StateUtils.decompress(bytes), externalContext));
+
+        bytes = StateUtils.compress(StateUtils.getAsByteArray(TEST_DATA, externalContext));
+        if (StateUtils.isSecure(externalContext))
+        {
+            bytes = StateUtils.encrypt(bytes, externalContext);
+        }
+        String encoded = new String(StateUtils.encode(bytes), StandardCharsets.ISO_8859_1);
+        Assertions.assertEquals(TEST_DATA, StateUtils.reconstruct(encoded, externalContext));
+    }
+
     @Test
     public void testSerialization()
     {
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ByteBufferViewStateStoreTest
+{
+    @TempDir
+    Path tempDir;
+
+    private static byte[] state(int length, int value)
+    {
+        byte[] state = new byte[length];
+        Arrays.fill(state, (byte) value);
+        return state;
+    }
+
+    @Test
+    public void testStoreLoadRemove()
+    {
+        ByteBufferViewStateStore store = new OffHeapViewStateStore(1024);
+
+        ViewStateStoreHandle handle1 = store.store(null, state(100, 1));
+        ViewStateStoreHandle handle2 = store.store(null, state(50, 2));
+        Assertions.assertNotNull(handle1);
+        Assertions.assertNotNull(handle2);
+        Assertions.assertEquals(100, handle1.getLength());
+
+        Assertions.assertArrayEquals(state(100, 1), handle1.load());
+        Assertions.assertArrayEquals(state(50, 2), handle2.load());
+        Assertions.assertEquals(2, store.size());
+
+        handle1.release();
+        Assertions.assertNull(handle1.load());
+        Assertions.assertNull(store.load(handle1));
+        Assertions.assertArrayEquals(state(50, 2), handle2.load());
+        Assertions.assertEquals(1, store.size());
+    }
+
+    @Test
+    public void testOversizedStateIsRejected()
+    {
+        ByteBufferViewStateStore store = new OffHeapViewStateStore(64);
+        Assertions.assertNull(store.store(null, state(64, 1)));
+        Assertions.assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testOldestStatesAreDiscardedWhenFull()
+    {
+        // every entry uses 12 bytes of header + 100 bytes of state, so 3 entries fit
+        ByteBufferViewStateStore store = new OffHeapViewStateStore(350);
+
+        ViewStateStoreHandle handle1 = store.store(null, state(100, 1));
+        ViewStateStoreHandle handle2 = store.store(null, state(100, 2));
+        ViewStateStoreHandle handle3 = store.store(null, state(100, 3));
+        Assertions.assertEquals(3, store.size());
+
+        // wraps around and overwrites the first entry only
+        ViewStateStoreHandle handle4 = store.store(null, state(100, 4));
+        Assertions.assertNull(handle1.load());
+        Assertions.assertArrayEquals(state(100, 2), handle2.load());
+        Assertions.assertArrayEquals(state(100, 3), handle3.load());
+        Assertions.assertArrayEquals(state(100, 4), handle4.load());
+
+        // a bigger state overwrites the next two entries
+        ViewStateStoreHandle handle5 = store.store(null, state(150, 5));
+        Assertions.assertNull(handle2.load());
+        Assertions.assertNull(handle3.load());
+        Assertions.assertArrayEquals(state(100, 4), handle4.load());
+        Assertions.assertArrayEquals(state(150, 5), handle5.load());
+        Assertions.assertEquals(2, store.size());
+
+        // does not fit at the end of the buffer, so it starts again at the beginning
+        ViewStateStoreHandle handle6 = store.store(null, state(100, 6));
+        Assertions.assertNull(handle4.load());
+        Assertions.assertArrayEquals(state(150, 5), handle5.load());
+        Assertions.assertArrayEquals(state(100, 6), handle6.load());
+    }
+
+    @Test
+    public void testMappedFile()
+    {
+        ByteBufferViewStateStore store = new MappedFileViewStateStore(tempDir, 4096);
+        ViewStateStoreHandle handle = store.store(null, state(1000, 7));
+        Assertions.assertArrayEquals(state(1000, 7), handle.load());
+        Assertions.assertEquals(4096, store.getCapacity());
+    }
+
+    @Test
+    public void testDestroy() throws Exception
+    {
+        ByteBufferViewStateStore store = new MappedFileViewStateStore(tempDir, 4096);
+        ViewStateStoreHandle handle = store.store(null, state(100, 8));
+
+        store.destroy();
+
+        Assertions.assertNull(handle.load());
+        Assertions.assertNull(store.store(null, state(100, 9)));
+        try (Stream<Path> files = Files.list(tempDir))
+        {
+            Assertions.assertEquals(0, files.count());
+        }
+    }
+}
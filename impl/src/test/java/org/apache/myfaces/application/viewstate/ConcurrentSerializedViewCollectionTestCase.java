@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the SerializedViewCollection tests against the concurrent implementation.
+ */
+public class ConcurrentSerializedViewCollectionTestCase extends SerializedViewCollectionTestCase
+{
+    @Override
+    protected AbstractSerializedViewCollection createCollection()
+    {
+        return new ConcurrentSerializedViewCollection();
+    }
+
+    @Test
+    public void testParallelPut() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_VIEWS_IN_SESSION, "5");
+
+        AbstractSerializedViewCollection collection = createCollection();
+        String viewId = "/test.xhtml";
+        int threads = 8;
+        int viewsPerThread = 200;
+
+        // initialize the config in the test thread
+        MyfacesConfig.getCurrentInstance(facesContext);
+
+        AtomicInteger destroyed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++)
+            {
+                int thread = t;
+                futures.add(executor.submit(() ->
+                {
+                    start.await();
+                    for (int i = 0; i < viewsPerThread; i++)
+                    {
+                        int sequence = thread * viewsPerThread + i;
+                        collection.put(facesContext, new Object[]{null, null, sequence},
+                                new SerializedViewKeyIntInt(viewId.hashCode(), sequence), null,
+                                String.valueOf(sequence), (id) -> destroyed.incrementAndGet());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        int found = 0;
+        for (int sequence = 0; sequence < threads * viewsPerThread; sequence++)
+        {
+            if (collection.get(new SerializedViewKeyIntInt(viewId.hashCode(), sequence)) != null)
+            {
+                found++;
+            }
+        }
+        Assertions.assertEquals(5, found);
+        Assertions.assertEquals(threads * viewsPerThread - 5, destroyed.get());
+    }
+}
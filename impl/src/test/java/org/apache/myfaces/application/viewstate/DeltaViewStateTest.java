@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DeltaViewStateTest
+{
+    private static Map<String, Object> createStates(int size)
+    {
+        Map<String, Object> states = new HashMap<>();
+        for (int i = 0; i < size; i++)
+        {
+            List<Object> list = new ArrayList<>();
+            list.add("item" + i);
+            states.put("form:c" + i, new Object[] { "value" + i, list, Integer.valueOf(i) });
+        }
+        return states;
+    }
+
+    @Test
+    public void testUnchangedStatesAreShared()
+    {
+        Object[] base = new Object[] { null, createStates(20), 5 };
+
+        Map<String, Object> states = createStates(20);
+        states.put("form:c7", new Object[] { "changed", null, null });
+        Object delta = DeltaViewState.create(base, base, new Object[] { null, states, 6 });
+
+        Assertions.assertTrue(delta instanceof DeltaViewState);
+        Assertions.assertEquals(1, ((DeltaViewState) delta).getChangedCount());
+
+        Object[] restored = (Object[]) ((DeltaViewState) delta).restore();
+        Assertions.assertEquals(6, restored[2]);
+        Map<String, Object> restoredStates = (Map<String, Object>) restored[1];
+        Assertions.assertEquals(20, restoredStates.size());
+        Assertions.assertEquals("changed", ((Object[]) restoredStates.get("form:c7"))[0]);
+        Assertions.assertSame(((Map<String, Object>) base[1]).get("form:c8"), restoredStates.get("form:c8"));
+    }
+
+    @Test
+    public void testChainIsLimited()
+    {
+        Object stored = new Object[] { null, createStates(20) };
+        Object restored = stored;
+        for (int i = 1; i <= DeltaViewState.MAX_DEPTH; i++)
+        {
+            Map<String, Object> states = createStates(20);
+            states.put("form:c0", new Object[] { "changed" + i, null, null });
+            stored = DeltaViewState.create(stored, restored, new Object[] { null, states });
+            Assertions.assertEquals(i, ((DeltaViewState) stored).getDepth());
+            restored = ((DeltaViewState) stored).restore();
+            Assertions.assertEquals("changed" + i,
+                    ((Object[]) ((Map<String, Object>) ((Object[]) restored)[1]).get("form:c0"))[0]);
+        }
+
+        Object[] state = new Object[] { null, createStates(20) };
+        Assertions.assertSame(state, DeltaViewState.create(stored, restored, state));
+    }
+
+    @Test
+    public void testFullStateWhenMostStatesChanged()
+    {
+        Object[] base = new Object[] { null, createStates(4) };
+        Map<String, Object> states = new HashMap<>();
+        states.put("form:other", "x");
+        Object[] state = new Object[] { null, states };
+
+        Assertions.assertSame(state, DeltaViewState.create(base, base, state));
+
+        Object[] fullState = new Object[] { null, new Object[] { "tree", "state" } };
+        Assertions.assertSame(fullState, DeltaViewState.create(base, base, fullState));
+    }
+}
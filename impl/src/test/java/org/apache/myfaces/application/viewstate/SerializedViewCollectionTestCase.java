@@ -28,13 +28,17 @@ import org.junit.jupiter.api.Test;
  */
 public class SerializedViewCollectionTestCase extends AbstractFacesTestCase
 {
+    protected AbstractSerializedViewCollection createCollection()
+    {
+        return new SerializedViewCollection();
+    }
     
     @Test
     public void testSerializedViewCollection1()
     {
         servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_VIEWS_IN_SESSION, "1");
         
-        SerializedViewCollection collection = new SerializedViewCollection();
+        AbstractSerializedViewCollection collection = createCollection();
         String viewId = "/test.xhtml";
         SerializedViewKey key1 = new SerializedViewKeyIntInt(viewId.hashCode(), 1);
         SerializedViewKey key2 = new SerializedViewKeyIntInt(viewId.hashCode(), 2);
@@ -56,7 +60,7 @@ public class SerializedViewCollectionTestCase extends AbstractFacesTestCase
         servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_VIEWS_IN_SESSION, "2");
         servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_SEQUENTIAL_VIEWS_IN_SESSION, "1");
         
-        SerializedViewCollection collection = new SerializedViewCollection();
+        AbstractSerializedViewCollection collection = createCollection();
         String viewId = "/test.xhtml";
         SerializedViewKey key1 = new SerializedViewKeyIntInt(viewId.hashCode(), 1);
         SerializedViewKey key2 = new SerializedViewKeyIntInt(viewId.hashCode(), 2);
@@ -82,7 +86,7 @@ public class SerializedViewCollectionTestCase extends AbstractFacesTestCase
     {
         servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_VIEWS_IN_SESSION, "1");
         
-        SerializedViewCollection collection = new SerializedViewCollection();
+        AbstractSerializedViewCollection collection = createCollection();
         String viewId = "/test.xhtml";
         SerializedViewKey key1 = new SerializedViewKeyIntInt(viewId.hashCode(), 1);
         SerializedViewKey key2 = new SerializedViewKeyIntInt(viewId.hashCode(), 2);
@@ -110,7 +114,7 @@ public class SerializedViewCollectionTestCase extends AbstractFacesTestCase
         servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_VIEWS_IN_SESSION, "2");
         servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_SEQUENTIAL_VIEWS_IN_SESSION, "1");
         
-        SerializedViewCollection collection = new SerializedViewCollection();
+        AbstractSerializedViewCollection collection = createCollection();
         String viewId = "/test.xhtml";
         SerializedViewKey key1 = new SerializedViewKeyIntInt(viewId.hashCode(), 1);
         SerializedViewKey key2 = new SerializedViewKeyIntInt(viewId.hashCode(), 2);
@@ -137,7 +141,7 @@ public class SerializedViewCollectionTestCase extends AbstractFacesTestCase
         servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_VIEWS_IN_SESSION, "3");
         servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_SEQUENTIAL_VIEWS_IN_SESSION, "1");
         
-        SerializedViewCollection collection = new SerializedViewCollection();
+        AbstractSerializedViewCollection collection = createCollection();
         String viewId = "/test.xhtml";
         SerializedViewKey key1 = new SerializedViewKeyIntInt(viewId.hashCode(), 1);
         SerializedViewKey key2 = new SerializedViewKeyIntInt(viewId.hashCode(), 2);
@@ -178,7 +182,7 @@ public class SerializedViewCollectionTestCase extends AbstractFacesTestCase
         servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_VIEWS_IN_SESSION, "4");
         servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_SEQUENTIAL_VIEWS_IN_SESSION, "2");
         
-        SerializedViewCollection collection = new SerializedViewCollection();
+        AbstractSerializedViewCollection collection = createCollection();
         String viewId = "/test.xhtml";
         SerializedViewKey key1 = new SerializedViewKeyIntInt(viewId.hashCode(), 1);
         SerializedViewKey key2 = new SerializedViewKeyIntInt(viewId.hashCode(), 2);
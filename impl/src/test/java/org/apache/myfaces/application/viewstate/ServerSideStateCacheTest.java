@@ -22,6 +22,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.HashMap;
 import java.util.Map;
 import jakarta.faces.application.ProjectStage;
 import jakarta.faces.application.StateManager;
@@ -266,4 +267,153 @@ public class ServerSideStateCacheTest extends AbstractFacesConfigurableMultipleR
         tryStateKeySerialization();
     }
     
+    @Test
+    public void testOffHeapViewStateStore() throws Exception
+    {
+        servletContext.addInitParameter(StateManager.STATE_SAVING_METHOD_PARAM_NAME, StateManager.StateSavingMethod.SERVER.name());
+        servletContext.addInitParameter("org.apache.myfaces.NUMBER_OF_VIEWS_IN_SESSION", "1");
+        servletContext.addInitParameter("org.apache.myfaces.VIEW_STATE_STORE", "offHeap");
+        servletContext.addInitParameter("org.apache.myfaces.VIEW_STATE_STORE_SIZE", "4096");
+
+        // Initialization
+        setupRequest();
+        StateCache stateCache = new StateCacheServerSide();
+        tearDownRequest();
+
+        Object firstSavedToken;
+        Object savedToken;
+        try
+        {
+            setupRequest();
+            facesContext.getViewRoot().setViewId("view1.xhtml");
+            firstSavedToken = stateCache.saveSerializedView(facesContext, 1);
+
+            Object stored = facesContext.getExternalContext().getSessionMap()
+                    .get(StateCacheServerSide.SERIALIZED_VIEW_SESSION_ATTR);
+            Assertions.assertNotNull(stored);
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+
+        try
+        {
+            setupRequest();
+            Object value = stateCache.restoreSerializedView(facesContext, "view1.xhtml", firstSavedToken);
+            Assertions.assertEquals(1, value);
+
+            facesContext.getViewRoot().setViewId("view2.xhtml");
+            savedToken = stateCache.saveSerializedView(facesContext, 2);
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+
+        try
+        {
+            setupRequest();
+            Object value = stateCache.restoreSerializedView(facesContext, "view2.xhtml", savedToken);
+            Assertions.assertEquals(2, value);
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+
+        try
+        {
+            // Only one view in session, so the first one was discarded from the store too
+            setupRequest();
+            Object value = stateCache.restoreSerializedView(facesContext, "view1.xhtml", firstSavedToken);
+            Assertions.assertNull(value);
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+    }
+
+    @Test
+    public void testDeltaStateInSession() throws Exception
+    {
+        servletContext.addInitParameter(StateManager.STATE_SAVING_METHOD_PARAM_NAME, StateManager.StateSavingMethod.SERVER.name());
+        servletContext.addInitParameter("org.apache.myfaces.NUMBER_OF_VIEWS_IN_SESSION", "1");
+        servletContext.addInitParameter("org.apache.myfaces.DELTA_STATE_IN_SESSION", "true");
+
+        // Initialization
+        setupRequest();
+        StateCache stateCache = new StateCacheServerSide();
+        tearDownRequest();
+
+        Map<String, Object> states = new HashMap<>();
+        for (int i = 0; i < 10; i++)
+        {
+            states.put("form:input" + i, new Object[] { "value" + i, null });
+        }
+
+        Object firstSavedToken;
+        Object savedToken;
+        try
+        {
+            setupRequest();
+            facesContext.getViewRoot().setViewId("view1.xhtml");
+            firstSavedToken = stateCache.saveSerializedView(facesContext, new Object[] { null, states });
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+
+        try
+        {
+            setupRequest();
+            Object[] value = (Object[]) stateCache.restoreSerializedView(facesContext, "view1.xhtml",
+                    firstSavedToken);
+            Assertions.assertEquals(states, value[1]);
+
+            Map<String, Object> changedStates = new HashMap<>(states);
+            changedStates.put("form:input3", new Object[] { "changed", null });
+            changedStates.remove("form:input4");
+            changedStates.put("form:input10", new Object[] { "value10", null });
+
+            facesContext.getViewRoot().setViewId("view1.xhtml");
+            savedToken = stateCache.saveSerializedView(facesContext, new Object[] { null, changedStates });
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+
+        try
+        {
+            // Only one view in session, the first one was discarded but is still the base of the delta
+            setupRequest();
+            Object[] value = (Object[]) stateCache.restoreSerializedView(facesContext, "view1.xhtml", savedToken);
+            Map<String, Object> restoredStates = (Map<String, Object>) value[1];
+            Assertions.assertEquals(10, restoredStates.size());
+            Assertions.assertArrayEquals(new Object[] { "changed", null },
+                    (Object[]) restoredStates.get("form:input3"));
+            Assertions.assertFalse(restoredStates.containsKey("form:input4"));
+            Assertions.assertArrayEquals(new Object[] { "value10", null },
+                    (Object[]) restoredStates.get("form:input10"));
+            // the unchanged component states are shared
+            Assertions.assertSame(states.get("form:input5"), restoredStates.get("form:input5"));
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+
+        try
+        {
+            setupRequest();
+            Assertions.assertNull(stateCache.restoreSerializedView(facesContext, "view1.xhtml", firstSavedToken));
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.push.cdi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class WebsocketSessionManagerTest
+{
+    @Test
+    public void testRegisterAndDeregisterUser()
+    {
+        WebsocketSessionManager manager = new WebsocketSessionManager();
+        manager.init();
+
+        manager.registerUser("user", "channel", "token1");
+        manager.registerUser("user", "channel", "token1");
+        manager.registerUser("user", "channel", "token2");
+        Assertions.assertEquals(2, manager.getChannelTokensForUser("user", "channel").size());
+
+        manager.deregisterUser("user", "channel", "token1");
+        Assertions.assertEquals(2, manager.getChannelTokensForUser("user", "channel").size());
+
+        manager.deregisterUser("user", "channel", "token1");
+        Assertions.assertEquals(1, manager.getChannelTokensForUser("user", "channel").size());
+
+        // unknown tokens are ignored
+        manager.deregisterUser("user", "channel", "token3");
+        manager.deregisterUser("user", "channel", "token2");
+        Assertions.assertTrue(manager.getUserMap().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentRegisterAndDeregisterUser() throws Exception
+    {
+        WebsocketSessionManager manager = new WebsocketSessionManager();
+        manager.init();
+
+        int threads = 8;
+        int iterations = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++)
+            {
+                String token = "token" + (i % 2);
+                futures.add(executor.submit(() ->
+                {
+                    start.await();
+                    for (int j = 0; j < iterations; j++)
+                    {
+                        manager.registerUser("user", "channel", token);
+                        manager.deregisterUser("user", "channel", token);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        // Every connection was deregistered, nothing may be left behind
+        Assertions.assertTrue(manager.getUserMap().isEmpty());
+    }
+}
@@ -18,11 +18,15 @@
  */
 package org.apache.myfaces.renderkit.html;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.myfaces.util.CommentUtils;
+import org.apache.myfaces.util.lang.Utf8OutputStreamWriter;
+import org.apache.myfaces.renderkit.html.util.EscapedText;
 import org.apache.myfaces.renderkit.html.util.HTML;
 import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
 import org.junit.jupiter.api.AfterEach;
@@ -386,4 +390,66 @@ public class HtmlResponseWriterImplTest extends AbstractFacesTestCase
         Assertions.assertTrue(output.contains("<BR>"));
         Assertions.assertTrue(output.contains("</BR>"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Text escaped in advance must be written the same way as writeText() and writeAttribute() write it.
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testEscapedTextLikeWriteText() throws IOException
+    {
+        for (String encoding : new String[] {"UTF-8", "ISO-8859-1"})
+        {
+            String text = "a < b && \"c\" > d \u00e4\u20ac\u4e2d  \n";
+
+            StringWriter expected = new StringWriter();
+            HtmlResponseWriterImpl writer = new HtmlResponseWriterImpl(expected, "text/html", encoding);
+            writer.startElement("p", null);
+            writer.writeAttribute("title", text, null);
+            writer.writeText(text, null);
+            writer.startElement("script", null);
+            writer.writeText(text, null);
+            writer.endElement("script");
+            writer.endElement("p");
+
+            EscapedText escapedText = new EscapedText(text);
+            StringWriter actual = new StringWriter();
+            writer = new HtmlResponseWriterImpl(actual, "text/html", encoding);
+            writer.startElement("p", null);
+            writer.writeAttribute("title", escapedText);
+            writer.writeText(escapedText);
+            writer.startElement("script", null);
+            writer.writeText(escapedText);
+            writer.endElement("script");
+            writer.endElement("p");
+
+            Assertions.assertEquals(expected.toString(), actual.toString(), encoding);
+        }
+    }
+
+    /**
+     * Text escaped in advance is written as bytes to a PreEncodedWriter.
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testEscapedTextToOutputStream() throws IOException
+    {
+        String text = "a < b \u00e4\u4e2d";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Utf8OutputStreamWriter outputWriter = new Utf8OutputStreamWriter(out);
+        HtmlResponseWriterImpl writer = new HtmlResponseWriterImpl(outputWriter, "text/html", "UTF-8");
+        writer.startElement("p", null);
+        writer.writeAttribute("title", new EscapedText(text));
+        writer.writeText(new EscapedText(text));
+        writer.writeText(text, null);
+        writer.endElement("p");
+        outputWriter.close();
+
+        String escaped = "a &lt; b \u00e4\u4e2d";
+        Assertions.assertEquals("<p title=\"" + escaped + "\">" + escaped + escaped + "</p>",
+                out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -88,6 +88,23 @@ public class HTMLEncoderTest extends AbstractFacesTestCase {
     Assertions.assertEquals("", encodedStr);
   }
 
+  @Test
+  public void testEncodeStringReturnsSameInstance() {
+    String encodedStr = HTMLEncoder.encode(new MockFacesContext(), stringNoSpecialChars);
+    Assertions.assertSame(stringNoSpecialChars, encodedStr);
+    String cjk = "\u4F60\u597D, MyFaces";
+    Assertions.assertSame(cjk, HTMLEncoder.encode(new MockFacesContext(), cjk, false, true, false));
+  }
+
+  @Test
+  public void testEncodeStringMixedText() {
+    String source = "  a \u00E4\u4F60<\u0001b\u00A0 \u0080";
+    Assertions.assertEquals("&#160;&#160;a &auml;&#20320;&lt;b&#160; \u0080",
+        HTMLEncoder.encode(new MockFacesContext(), source));
+    Assertions.assertEquals("  a \u00E4\u4F60&lt;b\u00A0 \u0080",
+        HTMLEncoder.encode(new MockFacesContext(), source, false, false, false));
+  }
+
   @Test
   public void testEncodeArrayNoSpecialChars() {
     try {
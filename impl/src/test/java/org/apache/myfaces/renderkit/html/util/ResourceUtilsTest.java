@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.renderkit.html.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.faces.application.Resource;
+import jakarta.faces.application.ResourceHandler;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.component.UIOutput;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.render.Renderer;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.resource.BaseResourceHandlerSupport;
+import org.apache.myfaces.resource.CombinedResourceCache;
+import org.apache.myfaces.resource.ResourceImpl;
+import org.apache.myfaces.resource.ResourceLoader;
+import org.apache.myfaces.resource.ResourceMeta;
+import org.apache.myfaces.resource.ResourceMetaImpl;
+import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
+import org.apache.myfaces.test.mock.MockRenderKitFactory;
+import org.apache.myfaces.test.mock.MockResponseWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class ResourceUtilsTest extends AbstractFacesTestCase
+{
+    private MockResponseWriter writer;
+    private ResourceHandler resourceHandler;
+
+    @Override
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        super.setUp();
+
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_COMBINING, "true");
+        servletContext.addServletRegistration("faces", "jakarta.faces.webapp.FacesServlet", "/faces/*");
+        request.setPathElements("/ctx", "/faces", "/page.xhtml", null);
+
+        writer = new MockResponseWriter(new StringWriter(), null, null);
+        facesContext.setResponseWriter(writer);
+
+        // the resources that are not combined are rendered as [name]
+        Renderer renderer = new Renderer()
+        {
+            @Override
+            public void encodeEnd(FacesContext context, UIComponent component) throws IOException
+            {
+                context.getResponseWriter().write("[" + component.getAttributes().get("name") + "]");
+            }
+        };
+        facesContext.getViewRoot().setRenderKitId(MockRenderKitFactory.HTML_BASIC_RENDER_KIT);
+        facesContext.getRenderKit().addRenderer(UIOutput.COMPONENT_FAMILY,
+                ResourceUtils.DEFAULT_SCRIPT_RENDERER_TYPE, renderer);
+        facesContext.getRenderKit().addRenderer(UIOutput.COMPONENT_FAMILY,
+                ResourceUtils.DEFAULT_STYLESHEET_RENDERER_TYPE, renderer);
+
+        // every lib:x.js contains "var x;" and every lib:x.css "x {}"
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+        Mockito.when(loader.getResourceInputStream(Mockito.any())).thenAnswer(i ->
+        {
+            String name = i.<ResourceMeta>getArgument(0).getResourceName();
+            String content = name.endsWith(".js") ? "var " + name.charAt(0) + ";" : name.charAt(0) + " {}";
+            return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        });
+        resourceHandler = Mockito.mock(ResourceHandler.class);
+        Mockito.when(resourceHandler.createResource(Mockito.anyString(), Mockito.eq("lib"))).thenAnswer(i ->
+        {
+            String name = i.getArgument(0);
+            return new ResourceImpl(new ResourceMetaImpl(null, "lib", null, name, null), loader,
+                    new BaseResourceHandlerSupport(), name.endsWith(".js") ? "text/javascript" : "text/css");
+        });
+        application.setResourceHandler(resourceHandler);
+    }
+
+    @Test
+    public void testEncodeScriptsAndStylesheets() throws Exception
+    {
+        // the stylesheets are only combined if their filtered content is shared anyway
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_FILTERED_CACHE_SIZE, "2097152");
+
+        List<UIComponent> components = new ArrayList<>();
+        components.add(createScript("a.js"));
+        components.add(createScript("b.js"));
+        components.add(createStylesheet("x.css"));
+        components.add(createStylesheet("y.css"));
+
+        ResourceUtils.encodeComponentResources(facesContext, components);
+
+        String output = writer.getWriter().toString();
+        String script = getCombinedResourceName(CombinedResourceCache.SCRIPT_EXTENSION, "a.js", "b.js");
+        String stylesheet = getCombinedResourceName(CombinedResourceCache.STYLESHEET_EXTENSION, "x.css", "y.css");
+        Assertions.assertTrue(output.startsWith("<script type=\"text/javascript\" src=\"/ctx/faces"
+                + ResourceHandler.RESOURCE_IDENTIFIER + "/" + script + "?ln=myfaces.combined&amp;r="), output);
+        Assertions.assertTrue(output.contains("/><link rel=\"stylesheet\" type=\"text/css\" href=\"/ctx/faces"
+                + ResourceHandler.RESOURCE_IDENTIFIER + "/" + stylesheet + "?ln=myfaces.combined&amp;r="), output);
+        Assertions.assertTrue(output.endsWith("/>"), output);
+    }
+
+    @Test
+    public void testStylesheetsNotCombinedByDefault() throws Exception
+    {
+        List<UIComponent> components = new ArrayList<>();
+        components.add(createStylesheet("x.css"));
+        components.add(createStylesheet("y.css"));
+
+        ResourceUtils.encodeComponentResources(facesContext, components);
+
+        // their value expressions are evaluated for every request
+        Assertions.assertEquals("[x.css][y.css]", writer.getWriter().toString());
+    }
+
+    @Test
+    public void testEncodeInterleavedResources() throws Exception
+    {
+        UIComponent media = createStylesheet("m.css");
+        media.getAttributes().put("media", "print");
+
+        List<UIComponent> components = new ArrayList<>();
+        components.add(createScript("a.js"));
+        components.add(createScript("b.js"));
+        components.add(media);
+        components.add(createScript("c.js"));
+        components.add(createScript("d.js"));
+        components.add(createStylesheet("x.css"));
+        components.add(createScript("e.js"));
+
+        ResourceUtils.encodeComponentResources(facesContext, components);
+
+        // the resources that cannot be combined split the runs, a run of one resource is not combined
+        String output = writer.getWriter().toString();
+        int ab = output.indexOf(getCombinedResourceName(CombinedResourceCache.SCRIPT_EXTENSION, "a.js", "b.js"));
+        int m = output.indexOf("[m.css]");
+        int cd = output.indexOf(getCombinedResourceName(CombinedResourceCache.SCRIPT_EXTENSION, "c.js", "d.js"));
+        int x = output.indexOf("[x.css]");
+        int e = output.indexOf("[e.js]");
+        Assertions.assertTrue(ab >= 0 && ab < m && m < cd && cd < x && x < e, output);
+        Assertions.assertEquals(2, output.split("<script", -1).length - 1, output);
+    }
+
+    @Test
+    public void testMarkResourceRendered() throws Exception
+    {
+        Mockito.when(resourceHandler.isResourceRendered(facesContext, "c.js", "lib")).thenReturn(true);
+
+        List<UIComponent> components = new ArrayList<>();
+        components.add(createScript("a.js"));
+        components.add(createScript("b.js"));
+        components.add(createScript("a.js"));
+        components.add(createScript("c.js"));
+
+        ResourceUtils.encodeComponentResources(facesContext, components);
+
+        // c.js was rendered before, so it is left to its renderer, and a.js is only combined once
+        String output = writer.getWriter().toString();
+        int ab = output.indexOf(getCombinedResourceName(CombinedResourceCache.SCRIPT_EXTENSION, "a.js", "b.js"));
+        int c = output.indexOf("[c.js]");
+        Assertions.assertTrue(ab >= 0 && ab < c, output);
+        Assertions.assertFalse(output.contains("[a.js]"), output);
+        Mockito.verify(resourceHandler, Mockito.times(2)).markResourceRendered(facesContext, "a.js", "lib");
+        Mockito.verify(resourceHandler, Mockito.times(2)).markResourceRendered(facesContext, "b.js", "lib");
+        Mockito.verify(resourceHandler, Mockito.never()).markResourceRendered(facesContext, "c.js", "lib");
+    }
+
+    @Test
+    public void testComponentWithIdNotCombined() throws Exception
+    {
+        UIComponent withId = createScript("b.js");
+        withId.setId("b");
+
+        List<UIComponent> components = new ArrayList<>();
+        components.add(createScript("a.js"));
+        components.add(withId);
+        components.add(createScript("c.js"));
+
+        ResourceUtils.encodeComponentResources(facesContext, components);
+
+        // the id would be lost in the combined element
+        Assertions.assertEquals("[a.js][b.js][c.js]", writer.getWriter().toString());
+    }
+
+    private static UIComponent createScript(String name)
+    {
+        UIOutput script = new UIOutput();
+        script.setRendererType(ResourceUtils.DEFAULT_SCRIPT_RENDERER_TYPE);
+        script.getAttributes().put("name", name);
+        script.getAttributes().put("library", "lib");
+        return script;
+    }
+
+    private static UIComponent createStylesheet(String name)
+    {
+        UIOutput stylesheet = new UIOutput();
+        stylesheet.setRendererType(ResourceUtils.DEFAULT_STYLESHEET_RENDERER_TYPE);
+        stylesheet.getAttributes().put("name", name);
+        stylesheet.getAttributes().put("library", "lib");
+        return stylesheet;
+    }
+
+    private String getCombinedResourceName(String extension, String... names) throws IOException
+    {
+        List<Resource> resources = new ArrayList<>();
+        for (String name : names)
+        {
+            resources.add(resourceHandler.createResource(name, "lib"));
+        }
+        return CombinedResourceCache.getInstance(facesContext).get(facesContext, resources, extension)
+                .getResourceName();
+    }
+}
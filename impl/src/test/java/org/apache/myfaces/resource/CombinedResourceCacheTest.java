@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import jakarta.faces.application.Resource;
+import jakarta.faces.application.ResourceHandler;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class CombinedResourceCacheTest extends AbstractFacesTestCase
+{
+    @Test
+    public void testDisabledByDefault()
+    {
+        Assertions.assertNull(CombinedResourceCache.getInstance(facesContext));
+    }
+
+    @Test
+    public void testRewriteUrls()
+    {
+        String requestPath = "/ctx/faces/jakarta.faces.resource/css/theme.css?ln=lib";
+
+        Assertions.assertEquals("a { background: url(/ctx/faces/jakarta.faces.resource/css/img/a.png) }",
+                CombinedResourceCache.rewriteUrls("a { background: url(img/a.png) }", requestPath));
+        Assertions.assertEquals("a { background: url('/ctx/faces/jakarta.faces.resource/css/../b.png') }",
+                CombinedResourceCache.rewriteUrls("a { background: url( '../b.png' ) }", requestPath));
+
+        String absolute = "a { background: url(\"/ctx/a.png\") } b { background: url(data:image/png;base64,AA) }"
+                + " c { background: url(https://example.org/c.png) } d { fill: url(#gradient) }";
+        Assertions.assertSame(absolute, CombinedResourceCache.rewriteUrls(absolute, requestPath));
+    }
+
+    @Test
+    public void testIsCombinable()
+    {
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+
+        Assertions.assertTrue(CombinedResourceCache.isCombinable(new ResourceImpl(
+                new ResourceMetaImpl(null, "lib", null, "a.js", null), loader, null, "text/javascript"),
+                CombinedResourceCache.SCRIPT_EXTENSION));
+        Assertions.assertFalse(CombinedResourceCache.isCombinable(new ResourceImpl(
+                new ResourceMetaImpl(null, "lib", null, "a.js", null), loader, null, "text/javascript"),
+                CombinedResourceCache.STYLESHEET_EXTENSION));
+        Assertions.assertFalse(CombinedResourceCache.isCombinable(new ResourceImpl(
+                new ResourceMetaImpl(null, "jakarta.faces", null, "faces.js", null), loader, null,
+                "text/javascript"), CombinedResourceCache.SCRIPT_EXTENSION));
+        Assertions.assertFalse(CombinedResourceCache.isCombinable(new ResourceImpl(
+                new ResourceMetaImpl("de", "lib", null, "a.js", null), loader, null, "text/javascript"),
+                CombinedResourceCache.SCRIPT_EXTENSION));
+        Assertions.assertFalse(CombinedResourceCache.isCombinable(new ResourceImpl(
+                new ResourceMetaImpl(null, "lib", null, "a.js", null, "contract"), loader, null,
+                "text/javascript"), CombinedResourceCache.SCRIPT_EXTENSION));
+    }
+
+    @Test
+    public void testIsCombinableStylesheet()
+    {
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+        Resource stylesheet = new ResourceImpl(new ResourceMetaImpl(null, "lib", null, "a.css", null), loader, null,
+                "text/css");
+
+        // its value expressions are evaluated for every request
+        Assertions.assertFalse(CombinedResourceCache.isCombinable(stylesheet,
+                CombinedResourceCache.STYLESHEET_EXTENSION));
+    }
+
+    @Test
+    public void testIsCombinableStylesheetWithFilteredResourceCache()
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_FILTERED_CACHE_SIZE, "2097152");
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+        Resource stylesheet = new ResourceImpl(new ResourceMetaImpl(null, "lib", null, "a.css", null), loader, null,
+                "text/css");
+
+        Assertions.assertTrue(CombinedResourceCache.isCombinable(stylesheet,
+                CombinedResourceCache.STYLESHEET_EXTENSION));
+    }
+
+    @Test
+    public void testHasDirectivePrologue()
+    {
+        Assertions.assertTrue(CombinedResourceCache.hasDirectivePrologue("'use strict';\nvar a;"));
+        Assertions.assertTrue(CombinedResourceCache.hasDirectivePrologue(
+                "\uFEFF/* license */\n// comment\n  \"use strict\";"));
+        Assertions.assertFalse(CombinedResourceCache.hasDirectivePrologue("var a = 'use strict';"));
+        Assertions.assertFalse(CombinedResourceCache.hasDirectivePrologue("/* 'use strict' */ var a;"));
+        Assertions.assertFalse(CombinedResourceCache.hasDirectivePrologue("// only a comment"));
+        Assertions.assertFalse(CombinedResourceCache.hasDirectivePrologue(""));
+    }
+
+    @Test
+    public void testScriptWithDirectivePrologueNotCombined() throws Exception
+    {
+        ResourceLoader loader = setUpResources();
+        Mockito.doAnswer(i -> new ByteArrayInputStream("'use strict';".getBytes(StandardCharsets.UTF_8)))
+                .when(loader).getResourceInputStream(Mockito.argThat(
+                        meta -> meta != null && "s.js".equals(meta.getResourceName())));
+        CombinedResourceCache cache = CombinedResourceCache.getInstance(facesContext);
+
+        // it would make the scripts after it strict, or would not be strict anymore after another one
+        Assertions.assertNull(cache.get(facesContext, List.of(createResource("a.js"), createResource("s.js")),
+                CombinedResourceCache.SCRIPT_EXTENSION));
+        Assertions.assertNull(cache.get(facesContext, List.of(createResource("s.js"), createResource("a.js")),
+                CombinedResourceCache.SCRIPT_EXTENSION));
+    }
+
+    @Test
+    public void testGetForRequest() throws Exception
+    {
+        ResourceLoader loader = setUpResources();
+        CombinedResourceCache cache = CombinedResourceCache.getInstance(facesContext);
+
+        CombinedResource combined = cache.get(facesContext, List.of(createResource("a.js"), createResource("b.js")),
+                CombinedResourceCache.SCRIPT_EXTENSION);
+        Assertions.assertEquals("var a;\n;\nvar b;\n;\n", read(combined));
+        Assertions.assertTrue(combined.getRequestPath().startsWith("/ctx/faces/jakarta.faces.resource/"
+                + combined.getResourceName() + "?ln=myfaces.combined&r=lib%3Aa.js%2Clib%3Ab.js"));
+
+        Resource requested = cache.getForRequest(facesContext, combined.getResourceName(), "lib:a.js,lib:b.js");
+        Assertions.assertEquals(read(combined), read(requested));
+        Assertions.assertEquals("public, max-age=31536000, immutable",
+                requested.getResponseHeaders().get("Cache-Control"));
+        Mockito.verify(loader, Mockito.times(2)).getResourceInputStream(Mockito.any());
+    }
+
+    @Test
+    public void testGetForRequestNotRendered() throws Exception
+    {
+        ResourceLoader loader = setUpResources();
+        CombinedResourceCache cache = CombinedResourceCache.getInstance(facesContext);
+
+        CombinedResource combined = cache.get(facesContext, List.of(createResource("a.js"), createResource("b.js")),
+                CombinedResourceCache.SCRIPT_EXTENSION);
+
+        // a forged list of resources or hash is not built
+        Assertions.assertNull(cache.getForRequest(facesContext, combined.getResourceName(),
+                "lib:a.js,lib:b.js,lib:c.js"));
+        Assertions.assertNull(cache.getForRequest(facesContext, combined.getResourceName(), "lib:c.js"));
+        Assertions.assertNull(cache.getForRequest(facesContext, "0123456789abcdef.js", "lib:a.js,lib:b.js"));
+        Assertions.assertNull(cache.getForRequest(facesContext, "0123456789abcdef.js", "lib:c.js"));
+        Mockito.verify(loader, Mockito.times(2)).getResourceInputStream(Mockito.any());
+        Mockito.verify(application.getResourceHandler(), Mockito.times(2))
+                .createResource(Mockito.anyString(), Mockito.anyString());
+    }
+
+    @Test
+    public void testInvalidRequest() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_COMBINING, "true");
+        CombinedResourceCache cache = CombinedResourceCache.getInstance(facesContext);
+        Assertions.assertNotNull(cache);
+
+        Assertions.assertNull(cache.getForRequest(facesContext, "0123456789abcdef.js", null));
+        Assertions.assertNull(cache.getForRequest(facesContext, "0123456789abcdef.properties", "lib:a.properties"));
+        Assertions.assertNull(cache.getForRequest(facesContext, "0123456789abcdef.js", "lib:../a.js"));
+        Assertions.assertNull(cache.getForRequest(facesContext, "0123456789abcdef.js",
+                "lib:a.js,".repeat(101)));
+    }
+
+    /**
+     * Enables the combining, maps the FacesServlet to /faces/* and serves "var x;" for every lib:x.js.
+     */
+    private ResourceLoader setUpResources()
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_COMBINING, "true");
+        servletContext.addServletRegistration("faces", "jakarta.faces.webapp.FacesServlet", "/faces/*");
+        request.setPathElements("/ctx", "/faces", "/page.xhtml", null);
+
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+        Mockito.when(loader.getResourceInputStream(Mockito.any())).thenAnswer(i -> new ByteArrayInputStream(
+                ("var " + i.<ResourceMeta>getArgument(0).getResourceName().charAt(0) + ";")
+                        .getBytes(StandardCharsets.UTF_8)));
+        ResourceHandler resourceHandler = Mockito.mock(ResourceHandler.class);
+        Mockito.when(resourceHandler.createResource(Mockito.anyString(), Mockito.eq("lib"))).thenAnswer(
+                i -> new ResourceImpl(new ResourceMetaImpl(null, "lib", null, i.getArgument(0), null), loader, null,
+                        "text/javascript"));
+        application.setResourceHandler(resourceHandler);
+        return loader;
+    }
+
+    private Resource createResource(String resourceName)
+    {
+        return application.getResourceHandler().createResource(resourceName, "lib");
+    }
+
+    private static String read(Resource resource) throws Exception
+    {
+        return new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    }
+}
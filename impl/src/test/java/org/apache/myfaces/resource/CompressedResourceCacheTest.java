@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import jakarta.faces.application.Resource;
+import jakarta.faces.context.FacesContext;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.resource.CompressedResourceCache.CompressedResource;
+import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class CompressedResourceCacheTest extends AbstractFacesTestCase
+{
+    @Test
+    public void testAccepts()
+    {
+        Assertions.assertTrue(CompressedResourceCache.accepts("gzip, deflate, br", "gzip"));
+        Assertions.assertTrue(CompressedResourceCache.accepts("deflate, GZIP;q=0.5", "gzip"));
+        Assertions.assertFalse(CompressedResourceCache.accepts("deflate, br", "gzip"));
+        Assertions.assertFalse(CompressedResourceCache.accepts("gzip;q=0, *", "gzip"));
+        Assertions.assertTrue(CompressedResourceCache.accepts("*", "gzip"));
+        Assertions.assertFalse(CompressedResourceCache.accepts("*;q=0.0", "gzip"));
+        Assertions.assertFalse(CompressedResourceCache.accepts("identity", "gzip"));
+    }
+
+    @Test
+    public void testIsCompressible()
+    {
+        Assertions.assertTrue(CompressedResourceCache.isCompressible("text/css"));
+        Assertions.assertTrue(CompressedResourceCache.isCompressible("text/javascript;charset=UTF-8"));
+        Assertions.assertTrue(CompressedResourceCache.isCompressible("application/javascript"));
+        Assertions.assertTrue(CompressedResourceCache.isCompressible("image/svg+xml"));
+        Assertions.assertFalse(CompressedResourceCache.isCompressible("image/png"));
+        Assertions.assertFalse(CompressedResourceCache.isCompressible(null));
+    }
+
+    @Test
+    public void testDisabledByDefault()
+    {
+        Assertions.assertNull(CompressedResourceCache.getInstance(facesContext));
+    }
+
+    @Test
+    public void testCompress() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_COMPRESSION, "true");
+        CompressedResourceCache cache = CompressedResourceCache.getInstance(facesContext);
+        Assertions.assertNotNull(cache);
+
+        String content = "body { color: black; }\n".repeat(100);
+        TestResource resource = new TestResource("/test.css", content);
+
+        Assertions.assertNull(cache.get(resource, "deflate"));
+
+        CompressedResource compressed = cache.get(resource, "gzip, deflate");
+        Assertions.assertNotNull(compressed);
+        Assertions.assertEquals("gzip", compressed.getEncoding());
+        Assertions.assertTrue(compressed.getLength() < content.length());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        compressed.writeTo(out);
+        Assertions.assertEquals(compressed.getLength(), out.size());
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())))
+        {
+            Assertions.assertEquals(content, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        // compressed only once
+        Assertions.assertSame(compressed, cache.get(resource, "gzip"));
+        Assertions.assertEquals(1, resource.reads.get());
+    }
+
+    @Test
+    public void testSmallResourceNotCompressed() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_COMPRESSION, "true");
+        CompressedResourceCache cache = CompressedResourceCache.getInstance(facesContext);
+
+        TestResource resource = new TestResource("/small.css", "body { color: black; }");
+        Assertions.assertNull(cache.get(resource, "gzip"));
+        Assertions.assertNull(cache.get(resource, "gzip"));
+        Assertions.assertEquals(1, resource.reads.get());
+    }
+
+    @Test
+    public void testFilteredResourceNotCached() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_COMPRESSION, "true");
+        CompressedResourceCache cache = CompressedResourceCache.getInstance(facesContext);
+
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+        Mockito.when(loader.getResourceInputStream(Mockito.any())).thenAnswer(i -> new ByteArrayInputStream(
+                "body { background: url(#{request.contextPath}/a.png); }\n".repeat(100)
+                        .getBytes(StandardCharsets.UTF_8)));
+        Resource resource = new ResourceImpl(new ResourceMetaImpl(null, null, null, "test.css", null), loader,
+                new BaseResourceHandlerSupport(), "text/css");
+
+        // the expressions are evaluated for every request
+        Assertions.assertNull(cache.get(resource, "gzip"));
+        Mockito.verifyNoInteractions(loader);
+    }
+
+    @Test
+    public void testFilteredResourceCachedWithFilteredResourceCache() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_COMPRESSION, "true");
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_FILTERED_CACHE_SIZE, "2097152");
+        CompressedResourceCache cache = CompressedResourceCache.getInstance(facesContext);
+
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+        Mockito.when(loader.getResourceInputStream(Mockito.any())).thenAnswer(i -> new ByteArrayInputStream(
+                "body { color: black; }\n".repeat(100).getBytes(StandardCharsets.UTF_8)));
+        Resource resource = new ResourceImpl(new ResourceMetaImpl(null, null, null, "test.css", null), loader,
+                new BaseResourceHandlerSupport(), "text/css");
+
+        // the filtered content is shared by all requests anyway
+        CompressedResource compressed = cache.get(resource, "gzip");
+        Assertions.assertNotNull(compressed);
+        Assertions.assertSame(compressed, cache.get(resource, "gzip"));
+    }
+
+    private static class TestResource extends Resource
+    {
+        private final String requestPath;
+        private final byte[] content;
+        private final AtomicInteger reads = new AtomicInteger();
+
+        TestResource(String requestPath, String content)
+        {
+            this.requestPath = requestPath;
+            this.content = content.getBytes(StandardCharsets.UTF_8);
+            setResourceName(requestPath.substring(1));
+            setContentType("text/css");
+        }
+
+        @Override
+        public InputStream getInputStream()
+        {
+            reads.incrementAndGet();
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public Map<String, String> getResponseHeaders()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public String getRequestPath()
+        {
+            return requestPath;
+        }
+
+        @Override
+        public URL getURL()
+        {
+            return null;
+        }
+
+        @Override
+        public boolean userAgentNeedsUpdate(FacesContext context)
+        {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileChangeWatcherTest
+{
+    @TempDir
+    Path root;
+
+    @Test
+    public void testFileChanged() throws Exception
+    {
+        Path dir = Files.createDirectories(root.resolve("WEB-INF"));
+        FileChangeWatcher watcher = new FileChangeWatcher(root);
+        try
+        {
+            CountDownLatch latch = new CountDownLatch(1);
+            watcher.addListener((kind, file) ->
+            {
+                if (kind == StandardWatchEventKinds.ENTRY_CREATE && file.endsWith("test.xhtml"))
+                {
+                    latch.countDown();
+                }
+            });
+
+            Files.writeString(dir.resolve("test.xhtml"), "<html/>");
+
+            Assertions.assertTrue(latch.await(30, TimeUnit.SECONDS));
+            Assertions.assertTrue(watcher.getChangeCount() > 0);
+        }
+        finally
+        {
+            watcher.close();
+        }
+    }
+
+    @Test
+    public void testIsWatched() throws Exception
+    {
+        FileChangeWatcher watcher = new FileChangeWatcher(root);
+        try
+        {
+            Assertions.assertTrue(watcher.isWatched(root.resolve("test.xhtml").toUri().toURL()));
+            Assertions.assertFalse(watcher.isWatched(root.getParent().resolve("other.xhtml").toUri().toURL()));
+            Assertions.assertFalse(watcher.isWatched(null));
+        }
+        finally
+        {
+            watcher.close();
+        }
+    }
+
+    @Test
+    public void testIsAffected()
+    {
+        Path dir = root.resolve("resources");
+        String url = dir.resolve("test.xhtml").toUri().toString();
+
+        Assertions.assertTrue(FileChangeWatcher.isAffected(url, dir.resolve("test.xhtml")));
+        Assertions.assertTrue(FileChangeWatcher.isAffected(url, dir));
+        Assertions.assertTrue(FileChangeWatcher.isAffected(url, null));
+        Assertions.assertFalse(FileChangeWatcher.isAffected(url, root.resolve("other")));
+        Assertions.assertFalse(FileChangeWatcher.isAffected("jar:file:/lib/test.jar!/test.xhtml", dir));
+    }
+}
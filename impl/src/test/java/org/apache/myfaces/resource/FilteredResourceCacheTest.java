@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class FilteredResourceCacheTest extends AbstractFacesTestCase
+{
+    @Test
+    public void testFilter()
+    {
+        externalContext.getRequestMap().put("image", "/faces/jakarta.faces.resource/a.png");
+
+        Assertions.assertEquals("a { background: url(/faces/jakarta.faces.resource/a.png) } #{image",
+                filter("a { background: url(#{image}) } #{image"));
+
+        byte[] content = "a { color: #fff; } #".getBytes(StandardCharsets.ISO_8859_1);
+        Assertions.assertSame(content, FilteredResourceCache.filter(facesContext, content, null, "a.css", null));
+    }
+
+    @Test
+    public void testCache() throws Exception
+    {
+        externalContext.getRequestMap().put("image", "a.png");
+        FilteredResourceCache cache = new FilteredResourceCache(1024);
+
+        ResourceMeta meta = new ResourceMetaImpl(null, "lib", null, "a.css", null);
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+        Mockito.when(loader.getResourceInputStream(meta)).thenAnswer(
+                i -> new ByteArrayInputStream("url(#{image})".getBytes(StandardCharsets.ISO_8859_1)));
+
+        byte[] content = cache.get(facesContext, meta, loader);
+        Assertions.assertEquals("url(a.png)", new String(content, StandardCharsets.ISO_8859_1));
+        Assertions.assertSame(content, cache.get(facesContext, meta, loader));
+        Mockito.verify(loader, Mockito.times(1)).getResourceInputStream(meta);
+        Assertions.assertEquals(content.length, cache.getBytes());
+
+        cache.clear();
+        Assertions.assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    public void testByteBudget() throws Exception
+    {
+        FilteredResourceCache cache = new FilteredResourceCache(1024);
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+        Mockito.when(loader.getResourceInputStream(Mockito.any())).thenAnswer(
+                i -> new ByteArrayInputStream(new byte[200]));
+
+        for (int i = 0; i < 10; i++)
+        {
+            cache.get(facesContext, new ResourceMetaImpl(null, null, null, i + ".css", null), loader);
+            Assertions.assertTrue(cache.getBytes() <= 1024);
+        }
+        Assertions.assertEquals(1000, cache.getBytes());
+    }
+
+    @Test
+    public void testClearWhileLoading() throws Exception
+    {
+        FilteredResourceCache cache = new FilteredResourceCache(1024);
+        ResourceMeta meta = new ResourceMetaImpl(null, null, null, "a.css", null);
+        ResourceLoader loader = Mockito.mock(ResourceLoader.class);
+        Mockito.when(loader.getResourceInputStream(meta)).thenAnswer(i ->
+        {
+            // the file changes while it is read
+            cache.clear();
+            return new ByteArrayInputStream(new byte[200]);
+        });
+
+        cache.get(facesContext, meta, loader);
+        Assertions.assertEquals(0, cache.getBytes());
+        cache.get(facesContext, meta, loader);
+        Mockito.verify(loader, Mockito.times(2)).getResourceInputStream(meta);
+    }
+
+    @Test
+    public void testDisabledByDefault()
+    {
+        Assertions.assertNull(FilteredResourceCache.getInstance(facesContext));
+    }
+
+    @Test
+    public void testEnabled()
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_FILTERED_CACHE_SIZE, "2097152");
+        Assertions.assertNotNull(FilteredResourceCache.getInstance(facesContext));
+    }
+
+    private String filter(String content)
+    {
+        return new String(FilteredResourceCache.filter(facesContext, content.getBytes(StandardCharsets.ISO_8859_1),
+                null, "a.css", null), StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi.impl;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import jakarta.faces.application.ProjectStage;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.component.UIComponentBase;
+import jakarta.faces.component.html.HtmlDataTable;
+import jakarta.faces.component.html.HtmlForm;
+import jakarta.faces.component.html.HtmlInputText;
+import jakarta.faces.component.html.HtmlOutputText;
+import jakarta.faces.convert.IntegerConverter;
+import jakarta.faces.validator.LengthValidator;
+
+import org.apache.myfaces.application.TreeStructureManager.TreeStructComponent;
+import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BinarySerialFactoryTest extends AbstractFacesTestCase
+{
+    private final BinarySerialFactory factory = new BinarySerialFactory();
+
+    private Object roundtrip(Object value) throws Exception
+    {
+        return factory.toObject(factory.toByteArray(value));
+    }
+
+    @Test
+    public void testSimpleValues() throws Exception
+    {
+        Object[] values = new Object[] {
+            null, Boolean.TRUE, Boolean.FALSE, 0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE,
+            Long.MIN_VALUE, 42L, (short) -3, (byte) 7, 'x', 1.5f, -2.25d, "", "value", "é中😀",
+            String.class, int.class, String[].class, Locale.GERMANY, new Locale("ja", "JP", "JP"),
+            ProjectStage.Production, TimeUnit.SECONDS, new BigDecimal("12.50")
+        };
+        Assertions.assertArrayEquals(values, (Object[]) roundtrip(values));
+    }
+
+    @Test
+    public void testCollections() throws Exception
+    {
+        List<Object> list = new ArrayList<>(Arrays.asList("a", 1, null, new Object[] { "a", "b" }));
+        Map<Object, Object> map = new HashMap<>();
+        map.put("key", list);
+        map.put(ProjectStage.Production, Boolean.FALSE);
+
+        Object[] state = new Object[] { map, list, new String[] { "x", "y" } };
+        Object[] restored = (Object[]) roundtrip(state);
+
+        Map<?, ?> restoredMap = (Map<?, ?>) restored[0];
+        Assertions.assertEquals(Boolean.FALSE, restoredMap.get(ProjectStage.Production));
+        List<?> restoredList = (List<?>) restoredMap.get("key");
+        Assertions.assertEquals(4, restoredList.size());
+        Assertions.assertEquals("a", restoredList.get(0));
+        Assertions.assertArrayEquals(new Object[] { "a", "b" }, (Object[]) restoredList.get(3));
+        Assertions.assertArrayEquals(new String[] { "x", "y" }, (String[]) restored[2]);
+    }
+
+    @Test
+    public void testTreeStructComponent() throws Exception
+    {
+        TreeStructComponent root = new TreeStructComponent("jakarta.faces.component.UIViewRoot", null);
+        TreeStructComponent child = new TreeStructComponent("jakarta.faces.component.html.HtmlForm", "form");
+        TreeStructComponent facet = new TreeStructComponent("jakarta.faces.component.html.HtmlOutputText", "f");
+        root.setChildren(new TreeStructComponent[] { child });
+        root.setFacets(new Object[] { new Object[] { "header", facet } });
+
+        TreeStructComponent restored = (TreeStructComponent) roundtrip(root);
+        Assertions.assertEquals("jakarta.faces.component.UIViewRoot", restored.getComponentClass());
+        Assertions.assertNull(restored.getComponentId());
+        Assertions.assertEquals("form", restored.getChildren()[0].getComponentId());
+        Assertions.assertNull(restored.getChildren()[0].getChildren());
+        Object[] restoredFacet = (Object[]) restored.getFacets()[0];
+        Assertions.assertEquals("header", restoredFacet[0]);
+        Assertions.assertEquals("f", ((TreeStructComponent) restoredFacet[1]).getComponentId());
+    }
+
+    @Test
+    public void testComponentState() throws Exception
+    {
+        HtmlInputText input = new HtmlInputText();
+        input.setId("input");
+        input.setValue("text");
+        input.setRequired(true);
+        input.setConverter(new IntegerConverter());
+        LengthValidator validator = new LengthValidator();
+        validator.setMaximum(10);
+        input.addValidator(validator);
+
+        Object state = input.saveState(facesContext);
+        Object restoredState = roundtrip(state);
+
+        HtmlInputText restored = new HtmlInputText();
+        restored.restoreState(facesContext, restoredState);
+        Assertions.assertEquals("input", restored.getId());
+        Assertions.assertEquals("text", restored.getValue());
+        Assertions.assertTrue(restored.isRequired());
+        Assertions.assertTrue(restored.getConverter() instanceof IntegerConverter);
+        Assertions.assertEquals(1, restored.getValidators().length);
+        Assertions.assertEquals(10, ((LengthValidator) restored.getValidators()[0]).getMaximum());
+    }
+
+    @Test
+    public void testSmallerThanJavaSerialization() throws Exception
+    {
+        HtmlForm form = new HtmlForm();
+        form.setId("form");
+        HtmlDataTable table = new HtmlDataTable();
+        table.setId("table");
+        table.setRows(10);
+        form.getChildren().add(table);
+        for (int i = 0; i < 20; i++)
+        {
+            HtmlOutputText text = new HtmlOutputText();
+            text.setId("text" + i);
+            text.setValue("value " + i);
+            text.setEscape(false);
+            text.setStyleClass("output");
+            table.getChildren().add(text);
+        }
+
+        List<Object> states = new ArrayList<>();
+        saveStates(form, states);
+        Object[] state = states.toArray();
+
+        int binary = factory.toByteArray(state).length;
+        int java = new DefaultSerialFactory().toByteArray(state).length;
+        Assertions.assertTrue(binary * 10 < java * 6, "binary: " + binary + ", java: " + java);
+    }
+
+    private void saveStates(UIComponent component, List<Object> states)
+    {
+        states.add(((UIComponentBase) component).saveState(facesContext));
+        for (UIComponent child : component.getChildren())
+        {
+            saveStates(child, states);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.util.lang;
+
+import org.apache.myfaces.spi.CacheStats;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SegmentedLRUCacheTest
+{
+    @Test
+    public void testMaxSize()
+    {
+        SegmentedLRUCache<Integer, String> cache = new SegmentedLRUCache<>("test", 10);
+        for (int i = 0; i < 100; i++)
+        {
+            cache.put(i, String.valueOf(i));
+        }
+
+        Assertions.assertEquals(10, cache.size());
+        Assertions.assertEquals(90, cache.getStats().getEvictions());
+        // the oldest entries are evicted first
+        Assertions.assertTrue(cache.containsKey(99));
+        Assertions.assertFalse(cache.containsKey(0));
+    }
+
+    @Test
+    public void testReadEntrySurvivesScan()
+    {
+        SegmentedLRUCache<Integer, String> cache = new SegmentedLRUCache<>("test", 10);
+        cache.put(-1, "hot");
+        Assertions.assertEquals("hot", cache.get(-1));
+
+        for (int i = 0; i < 100; i++)
+        {
+            cache.put(i, String.valueOf(i));
+        }
+
+        Assertions.assertEquals("hot", cache.get(-1));
+        Assertions.assertEquals(10, cache.size());
+    }
+
+    @Test
+    public void testRemoveAndClear()
+    {
+        SegmentedLRUCache<String, String> cache = new SegmentedLRUCache<>("test", 10);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+
+        Assertions.assertEquals("1", cache.remove("a"));
+        Assertions.assertNull(cache.remove("a"));
+        Assertions.assertEquals(1, cache.size());
+
+        cache.clear();
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertNull(cache.get("b"));
+
+        for (int i = 0; i < 20; i++)
+        {
+            cache.put("k" + i, "v");
+        }
+        Assertions.assertEquals(10, cache.size());
+    }
+
+    @Test
+    public void testStats()
+    {
+        SegmentedLRUCache<String, String> cache = new SegmentedLRUCache<>("test", 10);
+        Assertions.assertEquals("value", cache.get("key", key -> "value"));
+        Assertions.assertEquals("value", cache.get("key", key -> "other"));
+        Assertions.assertNull(cache.get("missing"));
+
+        CacheStats stats = cache.getStats();
+        Assertions.assertEquals("test", stats.getName());
+        Assertions.assertEquals(1, stats.getHits());
+        Assertions.assertEquals(2, stats.getMisses());
+        Assertions.assertEquals(1, stats.getLoads());
+        Assertions.assertEquals(1, stats.getSize());
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.util.lang;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class Utf8OutputStreamWriterTest
+{
+    @Test
+    public void testEncodeLikeStringGetBytes() throws Exception
+    {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Utf8OutputStreamWriter.BUFFER_SIZE * 3; i++)
+        {
+            switch (random.nextInt(6))
+            {
+                case 0: sb.append('\u00e4'); break;
+                case 1: sb.append('\u20ac'); break;
+                case 2: sb.appendCodePoint(0x1F600); break;
+                default: sb.append((char) ('a' + random.nextInt(26))); break;
+            }
+        }
+        String text = sb.toString();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Utf8OutputStreamWriter writer = new Utf8OutputStreamWriter(out);
+        // In pieces of different sizes, so surrogate pairs are split between calls
+        int i = 0;
+        while (i < text.length())
+        {
+            int len = Math.min(text.length() - i, random.nextInt(100));
+            switch (len % 3)
+            {
+                case 0: writer.write(text, i, len); break;
+                case 1: writer.write(text.toCharArray(), i, len); break;
+                default:
+                    for (int j = i; j < i + len; j++)
+                    {
+                        writer.write(text.charAt(j));
+                    }
+                    break;
+            }
+            i += len;
+        }
+        writer.close();
+
+        Assertions.assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+    }
+
+    @Test
+    public void testUnpairedSurrogates() throws Exception
+    {
+        String text = "a\ud83db\ude00c\ud83d";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Utf8OutputStreamWriter writer = new Utf8OutputStreamWriter(out);
+        writer.write(text);
+        writer.close();
+
+        Assertions.assertEquals("a?b?c?", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testPreEncoded() throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Utf8OutputStreamWriter.BUFFER_SIZE; i++)
+        {
+            sb.append('\u00e4');
+        }
+        String large = sb.toString();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Utf8OutputStreamWriter writer = new Utf8OutputStreamWriter(out);
+        writer.write("<p>");
+        writer.write("x".toCharArray(), "\u00e4".getBytes(StandardCharsets.UTF_8));
+        writer.write(large.toCharArray(), large.getBytes(StandardCharsets.UTF_8));
+        writer.write("</p>");
+        writer.close();
+
+        Assertions.assertEquals("<p>\u00e4" + large + "</p>", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testResetAndFlush() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Utf8OutputStreamWriter writer = new Utf8OutputStreamWriter(out);
+        writer.write("discarded");
+        writer.reset();
+        writer.write("kept");
+        writer.flush();
+        Assertions.assertEquals("kept", out.toString(StandardCharsets.UTF_8));
+
+        writer.close();
+        Assertions.assertThrows(IOException.class, () -> writer.write("closed"));
+    }
+}
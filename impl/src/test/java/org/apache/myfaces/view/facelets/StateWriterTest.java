@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets;
+
+import java.io.StringWriter;
+
+import org.apache.myfaces.application.ViewHandlerImpl;
+import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StateWriterTest extends AbstractFacesTestCase
+{
+    private static final String MARKER = ViewHandlerImpl.FORM_STATE_MARKER;
+
+    @Test
+    public void testContentIsWrittenDirectlyUntilStateIsWritten() throws Exception
+    {
+        StringWriter out = new StringWriter();
+        StateWriter stateWriter = new StateWriter(out, 16, facesContext);
+        try
+        {
+            stateWriter.write("<html>");
+            Assertions.assertEquals("<html>", out.toString());
+
+            stateWriter.writingState();
+            stateWriter.write("<form>");
+            stateWriter.write(MARKER);
+            stateWriter.write("</form></html>");
+            Assertions.assertEquals("<html>", out.toString());
+
+            StateWriter.Buffer content = stateWriter.getAndResetContent();
+            Assertions.assertEquals("<form>" + MARKER + "</form></html>", content.toString());
+            Assertions.assertEquals(6, content.indexOfState(0));
+            Assertions.assertEquals(-1, content.indexOfState(7));
+
+            // Buffering goes on in a new buffer
+            stateWriter.write("state");
+            Assertions.assertEquals("state", stateWriter.getAndResetBuffer());
+        }
+        finally
+        {
+            stateWriter.release(facesContext);
+        }
+    }
+
+    @Test
+    public void testMarkersAcrossChunks() throws Exception
+    {
+        StateWriter stateWriter = new StateWriter(new StringWriter(), 16, facesContext);
+        try
+        {
+            StringBuilder expected = new StringBuilder();
+            stateWriter.writingState();
+            for (int i = 0; i < 50; i++)
+            {
+                String text = "<form id=\"f" + i + "\">";
+                stateWriter.write(text);
+                expected.append(text);
+                if (i % 10 == 0)
+                {
+                    stateWriter.writingState();
+                    stateWriter.write(MARKER);
+                    expected.append(MARKER);
+                }
+                // Written char by char, over the chunk boundaries
+                for (char c : "</form>".toCharArray())
+                {
+                    stateWriter.write(c);
+                }
+                expected.append("</form>");
+            }
+
+            StateWriter.Buffer content = stateWriter.getAndResetContent();
+            Assertions.assertEquals(expected.toString(), content.toString());
+            assertSplice(expected.toString(), content);
+        }
+        finally
+        {
+            stateWriter.release(facesContext);
+        }
+    }
+
+    @Test
+    public void testMarkerNotWrittenAsOneString() throws Exception
+    {
+        StateWriter stateWriter = new StateWriter(new StringWriter(), 16, facesContext);
+        try
+        {
+            stateWriter.writingState();
+            stateWriter.write("<form>");
+            // e.g. a ResponseWriter that encodes the output writes the marker in pieces
+            stateWriter.write(MARKER.toCharArray(), 0, 10);
+            stateWriter.write(MARKER.toCharArray(), 10, MARKER.length() - 10);
+            stateWriter.write("</form><form>");
+            stateWriter.writingState();
+            stateWriter.write(MARKER);
+            stateWriter.write("</form>");
+
+            String expected = "<form>" + MARKER + "</form><form>" + MARKER + "</form>";
+            StateWriter.Buffer content = stateWriter.getAndResetContent();
+            Assertions.assertEquals(6, content.indexOfState(0));
+            assertSplice(expected, content);
+        }
+        finally
+        {
+            stateWriter.release(facesContext);
+        }
+    }
+
+    private static void assertSplice(String expected, StateWriter.Buffer content) throws Exception
+    {
+        StringWriter out = new StringWriter();
+        int start = 0;
+        int end = content.indexOfState(0);
+        while (end != -1)
+        {
+            content.writeTo(out, start, end);
+            out.write("STATE");
+            start = end + MARKER.length();
+            end = content.indexOfState(start);
+        }
+        content.writeTo(out, start, content.length());
+
+        Assertions.assertEquals(expected.replace(MARKER, "STATE"), out.toString());
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import jakarta.faces.component.UIViewRoot;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.test.mock.MockResponseWriter;
+import org.apache.myfaces.view.facelets.AbstractFaceletTestCase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class PrecompiledFaceletTestCase extends AbstractFaceletTestCase
+{
+    private final List<File> precompiledFiles = new ArrayList<>();
+
+    @Override
+    protected void setUpServletObjects() throws Exception
+    {
+        super.setUpServletObjects();
+        servletContext.addInitParameter(MyfacesConfig.FACELETS_PRECOMPILED, "true");
+    }
+
+    @AfterEach
+    public void deletePrecompiledFiles()
+    {
+        for (File file : precompiledFiles)
+        {
+            file.delete();
+        }
+        new File(new File(getContext()), PrecompiledFacelet.DIRECTORY).delete();
+        new File(new File(getContext()), "WEB-INF").delete();
+    }
+
+    private File precompile(String viewId, String content, long lastModified) throws Exception
+    {
+        File root = new File(getContext());
+        return precompile(viewId, new File(new File(root, PrecompiledFacelet.DIRECTORY),
+                viewId + PrecompiledFacelet.SUFFIX), content, lastModified);
+    }
+
+    private File precompile(String viewId, File precompiled, String content, long lastModified) throws Exception
+    {
+        File source = new File(new File(getContext()), viewId);
+        precompiled.getParentFile().mkdirs();
+        precompiledFiles.add(precompiled);
+        try (InputStream in = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+             OutputStream out = Files.newOutputStream(precompiled.toPath()))
+        {
+            PrecompiledFacelet.write(in, out);
+        }
+        precompiled.setLastModified(source.lastModified() + lastModified);
+        return precompiled;
+    }
+
+    private String render(String viewId) throws Exception
+    {
+        UIViewRoot root = facesContext.getViewRoot();
+        vdl.buildView(facesContext, root, viewId);
+
+        StringWriter sw = new StringWriter();
+        MockResponseWriter mrw = new MockResponseWriter(sw);
+        facesContext.setResponseWriter(mrw);
+        root.encodeAll(facesContext);
+        sw.flush();
+        return sw.toString();
+    }
+
+    @Test
+    public void testPrecompiledFaceletIsUsed() throws Exception
+    {
+        precompile("testPrecompiledFacelet.xhtml", 
+                "<html xmlns=\"http://www.w3.org/1999/xhtml\"><body><p>precompiled</p></body></html>", 10000);
+
+        String resp = render("testPrecompiledFacelet.xhtml");
+        Assertions.assertTrue(resp.contains("<p>precompiled</p>"), resp);
+        Assertions.assertFalse(resp.contains("parsed from the source"), resp);
+    }
+
+    @Test
+    public void testOutdatedPrecompiledFaceletIsIgnored() throws Exception
+    {
+        precompile("testPrecompiledFacelet.xhtml", 
+                "<html xmlns=\"http://www.w3.org/1999/xhtml\"><body><p>precompiled</p></body></html>", -10000);
+
+        String resp = render("testPrecompiledFacelet.xhtml");
+        Assertions.assertTrue(resp.contains("parsed from the source"), resp);
+    }
+
+    @Test
+    public void testPrecompiledFaceletNextToDocumentIsIgnored() throws Exception
+    {
+        File source = new File(new File(getContext()), "testPrecompiledFacelet.xhtml");
+        precompile("testPrecompiledFacelet.xhtml", new File(source.getPath() + PrecompiledFacelet.SUFFIX),
+                "<html xmlns=\"http://www.w3.org/1999/xhtml\"><body><p>precompiled</p></body></html>", 10000);
+
+        // it would be public, only WEB-INF/precompiled is used
+        String resp = render("testPrecompiledFacelet.xhtml");
+        Assertions.assertTrue(resp.contains("parsed from the source"), resp);
+    }
+
+    @Test
+    public void testPrecompile() throws Exception
+    {
+        Path webapp = Files.createTempDirectory("webapp");
+        try
+        {
+            Files.createDirectories(webapp.resolve("sub"));
+            Files.writeString(webapp.resolve("sub/view.xhtml"),
+                    "<html xmlns=\"http://www.w3.org/1999/xhtml\"><body/></html>");
+
+            Assertions.assertEquals(1, FaceletPrecompiler.precompile(webapp, webapp, List.of(".xhtml")));
+            Assertions.assertTrue(Files.isRegularFile(webapp.resolve("WEB-INF/precompiled/sub/view.xhtml"
+                    + PrecompiledFacelet.SUFFIX)));
+            Assertions.assertFalse(Files.exists(webapp.resolve("sub/view.xhtml" + PrecompiledFacelet.SUFFIX)));
+        }
+        finally
+        {
+            try (Stream<Path> files = Files.walk(webapp))
+            {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void testReplayedEventsMatchParser() throws Exception
+    {
+        File source = new File(new File(getContext()), "testXHTMLProcessing1.xhtml");
+
+        EventLog parsed = new EventLog();
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature("http://xml.org/sax/features/namespace-prefixes", true);
+        SAXParser parser = factory.newSAXParser();
+        parser.getXMLReader().setProperty("http://xml.org/sax/properties/lexical-handler", parsed);
+        parser.parse(source, parsed);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = Files.newInputStream(source.toPath()))
+        {
+            PrecompiledFacelet.write(in, bytes);
+        }
+        PrecompiledFacelet precompiled = PrecompiledFacelet.read(new ByteArrayInputStream(bytes.toByteArray()));
+        EventLog replayed = new EventLog();
+        precompiled.replay(replayed);
+
+        Assertions.assertEquals(parsed.events, replayed.events);
+        Assertions.assertTrue(precompiled.getXmlDeclaration().startsWith("<?xml"));
+
+        // and the compiled view renders the same
+        precompile("testXHTMLProcessing1.xhtml", Files.readString(source.toPath()), 10000);
+        String resp = render("testXHTMLProcessing1.xhtml");
+        Assertions.assertTrue(resp.contains("<!DOCTYPE html>"));
+        Assertions.assertTrue(resp.contains("<?xml"));
+        Assertions.assertTrue(resp.contains("<?name"));
+        Assertions.assertTrue(resp.contains("<![CDATA["));
+        Assertions.assertTrue(resp.contains("cdata not consumed"));
+        Assertions.assertTrue(resp.contains("<!--"));
+    }
+
+    private static class EventLog extends DefaultHandler implements LexicalHandler
+    {
+        private final List<String> events = new ArrayList<>();
+        private Locator locator;
+
+        private void log(String event)
+        {
+            events.add(locator.getLineNumber() + ":" + locator.getColumnNumber() + " " + event);
+        }
+
+        @Override
+        public InputSource resolveEntity(String publicId, String systemId)
+        {
+            return new InputSource(getClass().getClassLoader()
+                    .getResource("org/apache/myfaces/resource/default.dtd").toString());
+        }
+
+        @Override
+        public void setDocumentLocator(Locator locator)
+        {
+            this.locator = locator;
+        }
+
+        @Override
+        public void startDocument()
+        {
+            log("startDocument");
+        }
+
+        @Override
+        public void endDocument()
+        {
+            log("endDocument");
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+        {
+            StringBuilder sb = new StringBuilder("start " + uri + " " + localName + " " + qName);
+            for (int i = 0; i < attributes.getLength(); i++)
+            {
+                sb.append(' ').append(attributes.getQName(i)).append('=').append(attributes.getValue(i));
+            }
+            log(sb.toString());
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+        {
+            log("end " + qName);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length)
+        {
+            log("text " + new String(ch, start, length));
+        }
+
+        @Override
+        public void comment(char[] ch, int start, int length)
+        {
+            log("comment " + new String(ch, start, length));
+        }
+
+        @Override
+        public void startCDATA()
+        {
+            log("startCDATA");
+        }
+
+        @Override
+        public void endCDATA()
+        {
+            log("endCDATA");
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId)
+        {
+            log("startDTD " + name + " " + publicId + " " + systemId);
+        }
+
+        @Override
+        public void endDTD()
+        {
+            log("endDTD");
+        }
+
+        @Override
+        public void startEntity(String name)
+        {
+        }
+
+        @Override
+        public void endEntity(String name)
+        {
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri)
+        {
+            log("prefix " + prefix + " " + uri);
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix)
+        {
+            log("endPrefix " + prefix);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data)
+        {
+            log("pi " + target + " " + data);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.impl;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class FaceletCacheImplTest
+{
+    @Test
+    public void testSingleCompilationForConcurrentMisses() throws Exception
+    {
+        AtomicInteger compilations = new AtomicInteger();
+        CountDownLatch compiling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        FaceletCacheImpl cache = new FaceletCacheImpl(-1);
+        cache.setCacheFactories(url ->
+        {
+            compilations.incrementAndGet();
+            compiling.countDown();
+            try
+            {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            return Mockito.mock(DefaultFacelet.class);
+        }, url -> Mockito.mock(DefaultFacelet.class));
+
+        URL url = new URL("file:/view.xhtml");
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<DefaultFacelet>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++)
+            {
+                results.add(executor.submit(() -> cache.getFacelet(url)));
+            }
+            Assertions.assertTrue(compiling.await(10, TimeUnit.SECONDS));
+            // give the other threads time to find the running compilation
+            Thread.sleep(100);
+            release.countDown();
+
+            DefaultFacelet facelet = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<DefaultFacelet> result : results)
+            {
+                Assertions.assertSame(facelet, result.get(10, TimeUnit.SECONDS));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, compilations.get());
+        Assertions.assertTrue(cache.isFaceletCached(url));
+
+        cache.getFacelet(url);
+        FaceletCacheStatistics statistics = cache.getStatistics();
+        Assertions.assertEquals(1, statistics.getCompileCount());
+        Assertions.assertEquals(threads + 1, statistics.getHitCount() + statistics.getMissCount());
+        Assertions.assertTrue(statistics.getHitCount() >= 1);
+        Assertions.assertEquals(1, statistics.getSize());
+    }
+
+    @Test
+    public void testCompilationErrorIsNotCached() throws Exception
+    {
+        AtomicInteger compilations = new AtomicInteger();
+        FaceletCacheImpl cache = new FaceletCacheImpl(-1);
+        cache.setCacheFactories(url ->
+        {
+            if (compilations.incrementAndGet() == 1)
+            {
+                throw new java.io.FileNotFoundException(url.toString());
+            }
+            return Mockito.mock(DefaultFacelet.class);
+        }, url -> Mockito.mock(DefaultFacelet.class));
+
+        URL url = new URL("file:/view.xhtml");
+        Assertions.assertThrows(java.io.FileNotFoundException.class, () -> cache.getFacelet(url));
+        Assertions.assertFalse(cache.isFaceletCached(url));
+        Assertions.assertNotNull(cache.getFacelet(url));
+        Assertions.assertEquals(2, compilations.get());
+    }
+
+    @Test
+    public void testBoundedCache() throws Exception
+    {
+        FaceletCacheImpl cache = new FaceletCacheImpl(-1, 10);
+        cache.setCacheFactories(url -> Mockito.mock(DefaultFacelet.class),
+                url -> Mockito.mock(DefaultFacelet.class));
+
+        for (int i = 0; i < 100; i++)
+        {
+            cache.getFacelet(new URL("file:/view" + i + ".xhtml"));
+        }
+
+        Assertions.assertTrue(cache.getStatistics().getSize() <= (10 * 4 + 3) / 3);
+        Assertions.assertEquals(100, cache.getStatistics().getCompileCount());
+        Assertions.assertTrue(cache.isFaceletCached(new URL("file:/view99.xhtml")));
+        Assertions.assertFalse(cache.isFaceletCached(new URL("file:/view0.xhtml")));
+    }
+}
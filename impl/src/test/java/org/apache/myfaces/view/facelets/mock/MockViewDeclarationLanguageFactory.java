@@ -18,6 +18,9 @@
  */
 package org.apache.myfaces.view.facelets.mock;
 
+import java.util.Collections;
+import java.util.List;
+
 import jakarta.faces.context.FacesContext;
 import jakarta.faces.view.ViewDeclarationLanguage;
 import jakarta.faces.view.ViewDeclarationLanguageFactory;
@@ -41,6 +44,12 @@ public class MockViewDeclarationLanguageFactory extends ViewDeclarationLanguageF
     {
         return _strategy.getViewDeclarationLanguage();
     }
+
+    @Override
+    public List<ViewDeclarationLanguage> getAllViewDeclarationLanguages()
+    {
+        return Collections.singletonList(_strategy.getViewDeclarationLanguage());
+    }
     
     public static class MockViewDeclarationLanguageStrategy 
         implements ViewDeclarationLanguageStrategy
@@ -21,6 +21,7 @@ package org.apache.myfaces.view.facelets.pool;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import jakarta.el.ExpressionFactory;
 import jakarta.faces.application.ProjectStage;
 import jakarta.faces.application.StateManager;
@@ -135,6 +136,32 @@ public class ViewPoolMyFacesRequestTestCase extends AbstractMyFacesCDIRequestTes
         Assertions.assertNull(entry);
     }
     
+    @Test
+    public void testStatistics() throws Exception
+    {
+        startViewRequest("/staticPageNoForm.xhtml");
+        processLifecycleExecute();
+        renderResponse();
+        endRequest();
+
+        startViewRequest("/staticPageNoForm.xhtml");
+        processLifecycleExecute();
+        renderResponse();
+
+        ViewPoolStatistics statistics = ViewPoolProcessor.getInstance(facesContext).getStatistics();
+        Map<String, Long> snapshot = statistics.getSnapshot("/staticPageNoForm.xhtml");
+        Assertions.assertEquals(2L, snapshot.get(ViewPoolStatistics.PUSHES));
+        Assertions.assertEquals(1L, snapshot.get(ViewPoolStatistics.HITS));
+        // the first request had no structure metadata to take a view from the pool
+        Assertions.assertEquals(1L, snapshot.get(ViewPoolStatistics.MISSES));
+        Assertions.assertEquals(0L, snapshot.get(ViewPoolStatistics.REJECTED));
+        Assertions.assertTrue(statistics.getHitRatio() > 0);
+        Assertions.assertTrue(statistics.getSnapshot().containsKey("/staticPageNoForm.xhtml"));
+
+        statistics.reset();
+        Assertions.assertEquals(0L, statistics.getHits());
+    }
+
     @Test
     public void testStaticPageNoForm2() throws Exception
     {
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.pool;
+
+import jakarta.el.ExpressionFactory;
+import jakarta.faces.application.ProjectStage;
+import jakarta.faces.application.StateManager;
+import jakarta.faces.component.UIInput;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.test.core.AbstractMyFacesCDIRequestTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ViewPrototypeMyFacesRequestTestCase extends AbstractMyFacesCDIRequestTestCase
+{
+    @Override
+    protected ExpressionFactory createExpressionFactory()
+    {
+        return new org.apache.el.ExpressionFactoryImpl();
+    }
+
+    @Override
+    protected void setUpWebConfigParams() throws Exception
+    {
+        super.setUpWebConfigParams();
+        servletContext.addInitParameter(StateManager.STATE_SAVING_METHOD_PARAM_NAME,
+                StateManager.StateSavingMethod.CLIENT.name());
+        servletContext.addInitParameter(StateManager.PARTIAL_STATE_SAVING_PARAM_NAME, "true");
+        servletContext.addInitParameter(MyfacesConfig.VIEW_PROTOTYPE, "true");
+        servletContext.addInitParameter(ProjectStage.PROJECT_STAGE_PARAM_NAME, "Production");
+    }
+
+    @Test
+    public void testCopyStaticView() throws Exception
+    {
+        startViewRequest("/prototypePage.xhtml");
+        request.addParameter("user", "first");
+        processLifecycleExecute();
+        renderResponse();
+        Assertions.assertEquals("true", request.getAttribute("tagHandlersExecuted"));
+        String firstContent = getRenderedContent();
+        Assertions.assertTrue(firstContent.contains("Hello first"));
+        endRequest();
+
+        startViewRequest("/prototypePage.xhtml");
+        request.addParameter("user", "second");
+        processLifecycleExecute();
+        renderResponse();
+        // the view is a copy, the tag handlers were not executed again
+        Assertions.assertNull(request.getAttribute("tagHandlersExecuted"));
+        String secondContent = getRenderedContent();
+        Assertions.assertTrue(secondContent.contains("Hello second"));
+        Assertions.assertEquals(firstContent.replace("Hello first", "Hello second")
+                .replaceAll("value=\"[^\"]*\" autocomplete", ""),
+                secondContent.replaceAll("value=\"[^\"]*\" autocomplete", ""));
+    }
+
+    @Test
+    public void testViewWithPostAddToViewListenerNotCopied() throws Exception
+    {
+        startViewRequest("/prototypeScriptPage.xhtml");
+        processLifecycleExecute();
+        renderResponse();
+        Assertions.assertEquals("true", request.getAttribute("tagHandlersExecuted"));
+        endRequest();
+
+        startViewRequest("/prototypeScriptPage.xhtml");
+        processLifecycleExecute();
+        renderResponse();
+        // h:outputScript relocates itself on PostAddToViewEvent, which is not published for copies
+        Assertions.assertEquals("true", request.getAttribute("tagHandlersExecuted"));
+    }
+
+    @Test
+    public void testPostbackCopiedView() throws Exception
+    {
+        startViewRequest("/prototypePage.xhtml");
+        processLifecycleExecute();
+        renderResponse();
+        endRequest();
+
+        startViewRequest("/prototypePage.xhtml");
+        processLifecycleExecute();
+        executeBeforeRender();
+        executeBuildViewCycle();
+        Assertions.assertNull(request.getAttribute("tagHandlersExecuted"));
+
+        UIInput input = (UIInput) facesContext.getViewRoot().findComponent("mainForm:name");
+        Assertions.assertNotNull(input);
+        Assertions.assertTrue(input.isRequired());
+
+        executeViewHandlerRender();
+        executeAfterRender();
+
+        client.inputText(input, "John");
+        client.submit(facesContext.getViewRoot().findComponent("mainForm:submit"));
+        processLifecycleExecute();
+
+        Assertions.assertFalse(facesContext.isValidationFailed());
+        Assertions.assertEquals("John", request.getAttribute("name"));
+
+        renderResponse();
+        Assertions.assertTrue(getRenderedContent().contains("John"));
+    }
+}
@@ -18,11 +18,18 @@
  */
 package org.apache.myfaces.view.facelets.tag.ui;
 
+import java.io.IOException;
 import java.io.StringWriter;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
+import jakarta.faces.application.ViewHandler;
+import jakarta.faces.component.UIForm;
+import jakarta.faces.component.UIInput;
+import jakarta.faces.component.UIOutput;
 import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.context.FacesContext;
 
 import org.apache.myfaces.test.mock.MockResponseWriter;
 import org.apache.myfaces.view.facelets.AbstractFaceletTestCase;
@@ -32,6 +39,14 @@ import org.junit.jupiter.api.Test;
 public class UITestCase extends AbstractFaceletTestCase
 {
 
+    @Override
+    protected void setUpServletObjects() throws Exception
+    {
+        super.setUpServletObjects();
+        // the render cache is not used when facelets are refreshed
+        servletContext.addInitParameter(ViewHandler.FACELETS_REFRESH_PERIOD_PARAM_NAME, "-1");
+    }
+
     @Override
     protected void setupComponents() throws Exception
     {
@@ -118,6 +133,98 @@ public class UITestCase extends AbstractFaceletTestCase
         Assertions.assertNotNull(map.get("c"));
     }
 
+    @Test
+    public void testRenderCache() throws Exception
+    {
+        String response = renderCacheView("first", Locale.ENGLISH);
+        Assertions.assertTrue(response.contains("<span>first</span>"));
+        Assertions.assertTrue(response.contains("<em>first</em>"));
+
+        response = renderCacheView("second", Locale.ENGLISH);
+        Assertions.assertTrue(response.contains("<span>first</span>"));
+        Assertions.assertTrue(response.contains("<em>second</em>"));
+
+        response = renderCacheView("third", Locale.GERMAN);
+        Assertions.assertTrue(response.contains("<span>third</span>"));
+        Assertions.assertTrue(response.contains("<em>third</em>"));
+    }
+
+    @Test
+    public void testRenderCacheSkipsFormsAndInputs() throws Exception
+    {
+        ComponentRef ref = new ComponentRef();
+        ref.setId("ref");
+        ref.getAttributes().put(ComponentRef.RENDER_CACHE, Boolean.TRUE);
+        ref.getChildren().add(new CountingOutput());
+        ref.getChildren().add(new UIInput());
+
+        Assertions.assertEquals("1", encodeRenderCacheComponent(ref));
+        Assertions.assertEquals("2", encodeRenderCacheComponent(ref));
+
+        ref.getChildren().remove(1);
+        UIForm form = new UIForm();
+        form.getChildren().add(new CountingOutput());
+        ref.getChildren().add(form);
+
+        Assertions.assertEquals("31", encodeRenderCacheComponent(ref));
+        Assertions.assertEquals("42", encodeRenderCacheComponent(ref));
+
+        ref.getChildren().remove(1);
+
+        Assertions.assertEquals("5", encodeRenderCacheComponent(ref));
+        Assertions.assertEquals("5", encodeRenderCacheComponent(ref));
+    }
+
+    private String encodeRenderCacheComponent(ComponentRef ref) throws Exception
+    {
+        UIViewRoot root = new UIViewRoot();
+        root.setViewId("/renderCacheForm.xhtml");
+        root.setLocale(Locale.ENGLISH);
+        root.getChildren().add(ref);
+        facesContext.setViewRoot(root);
+
+        StringWriter sw = new StringWriter();
+        facesContext.setResponseWriter(new MockResponseWriter(sw));
+        ref.encodeAll(facesContext);
+        root.getChildren().remove(ref);
+
+        return sw.toString();
+    }
+
+    /**
+     * Writes the number of times it has been encoded.
+     */
+    public static class CountingOutput extends UIOutput
+    {
+        private int count;
+
+        @Override
+        public void encodeBegin(FacesContext context) throws IOException
+        {
+            super.encodeBegin(context);
+            context.getResponseWriter().write(String.valueOf(++count));
+        }
+    }
+
+    private String renderCacheView(String value, Locale locale) throws Exception
+    {
+        facesContext.getExternalContext().getRequestMap().put("value", value);
+
+        UIViewRoot root = new UIViewRoot();
+        root.setViewId("/renderCache.xhtml");
+        root.setLocale(locale);
+        facesContext.setViewRoot(root);
+        vdl.buildView(facesContext, root, "renderCache.xhtml");
+
+        StringWriter sw = new StringWriter();
+        MockResponseWriter mrw = new MockResponseWriter(sw);
+        facesContext.setResponseWriter(mrw);
+        root.encodeAll(facesContext);
+        sw.flush();
+
+        return sw.toString();
+    }
+
     /*
     public void testComponentClient() throws Exception {
         FacesContext faces = FacesContext.getCurrentInstance();
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.warmup;
+
+import jakarta.faces.application.ViewHandler;
+import jakarta.faces.component.UIViewRoot;
+
+import org.apache.myfaces.view.facelets.AbstractFaceletTestCase;
+import org.apache.myfaces.view.facelets.ViewWarmUpProcessor;
+import org.apache.myfaces.view.facelets.impl.DefaultFaceletFactory;
+import org.apache.myfaces.view.facelets.impl.FaceletCacheStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ViewWarmUpProcessorTestCase extends AbstractFaceletTestCase
+{
+    @Override
+    protected void setUpServletObjects() throws Exception
+    {
+        super.setUpServletObjects();
+        servletContext.addInitParameter("org.apache.myfaces.VIEW_WARM_UP_THREADS", "2");
+        servletContext.addInitParameter(ViewHandler.FACELETS_REFRESH_PERIOD_PARAM_NAME, "-1");
+    }
+
+    @Test
+    public void testWarmUpCompilesAllViews() throws Exception
+    {
+        UIViewRoot root = facesContext.getViewRoot();
+
+        ViewWarmUpProcessor.warmUp(facesContext);
+
+        DefaultFaceletFactory factory = (DefaultFaceletFactory) vdl.getFaceletFactory();
+        FaceletCacheStatistics statistics = factory.getFaceletCacheStatistics();
+        // first.xhtml, second.xhtml and sub/third.xhtml, with their view metadata facelets
+        Assertions.assertEquals(6, statistics.getCompileCount());
+        Assertions.assertSame(root, facesContext.getViewRoot());
+
+        // The views are served from the cache now
+        factory.getFacelet(facesContext, "/sub/third.xhtml");
+        Assertions.assertEquals(6, factory.getFaceletCacheStatistics().getCompileCount());
+    }
+}